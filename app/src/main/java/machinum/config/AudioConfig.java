@@ -16,6 +16,8 @@ import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import java.net.http.HttpClient;
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static machinum.config.Holder.of;
 
@@ -38,6 +40,14 @@ public class AudioConfig {
                 .build());
     }
 
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService ttsExecutor(@Value("${app.tts-service.parallelism:2}") int parallelism) {
+        // Bounds the concurrent requests to the tts service, threads only wait for responses
+        return Executors.newFixedThreadPool(Math.max(parallelism, 1), Thread.ofVirtual()
+                .name("tts-", 0)
+                .factory());
+    }
+
     @Bean
     public Holder<HttpClient> minioHttpClient() {
         return of(HttpClient.newBuilder()
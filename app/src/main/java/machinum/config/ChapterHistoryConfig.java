@@ -0,0 +1,34 @@
+package machinum.config;
+
+import machinum.listener.ChapterChangeQueue;
+import machinum.service.ChapterHistoryService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.db.DbHelper;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static machinum.listener.ChapterEntityListener.FETCH_CHAPTER_ID_SQL;
+
+@Configuration
+public class ChapterHistoryConfig {
+
+    @Bean(destroyMethod = "close")
+    public ChapterChangeQueue chapterChangeQueue(JdbcTemplate jdbcTemplate,
+                                                 DbHelper dbHelper,
+                                                 ObjectProvider<ChapterHistoryService> chapterHistoryService,
+                                                 @Value("${app.chapter-history.queue.workers:2}") int workers,
+                                                 @Value("${app.chapter-history.queue.capacity:1024}") int capacity,
+                                                 @Value("${app.chapter-history.queue.batch-size:100}") int batchSize) {
+        return new ChapterChangeQueue(workers, capacity, batchSize,
+                chapter -> jdbcTemplate.queryForObject(FETCH_CHAPTER_ID_SQL, String.class,
+                        chapter.getSourceKey(), chapter.getBookId()),
+                (resetChapterIds, histories) -> dbHelper.doInNewTransaction(() -> {
+                    var historyService = chapterHistoryService.getObject();
+                    historyService.removeHistory(resetChapterIds);
+                    historyService.saveAll(histories);
+                }));
+    }
+
+}
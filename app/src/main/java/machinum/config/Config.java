@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.difflib.patch.Patch;
 import com.github.difflib.text.DiffRowGenerator;
@@ -14,17 +15,18 @@ import lombok.extern.slf4j.Slf4j;
 import machinum.converter.ChapterHistoryMapper.ChapterInfoHistoryConverter;
 import machinum.converter.JsonlConverter;
 import machinum.extract.util.PatchDeserializer;
+import machinum.processor.core.AssistantClient;
 import org.springframework.ai.ollama.OllamaEmbeddingModel;
 import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
 import org.springframework.async.AsyncHelper;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheHelper;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.CachePlugin;
 import org.springframework.cache.InMemoryCache;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.cache.plugin.PluginConfig;
@@ -38,7 +40,6 @@ import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.retry.RetryHelper;
 import org.springframework.retry.annotation.EnableRetry;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.filter.CommonsRequestLoggingFilter;
 import org.springframework.web.filter.CustomRequestLoggingFilter;
 
@@ -82,7 +83,7 @@ public class Config {
     public CacheManager cacheManager(Caffeine caffeine) {
         CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
         caffeineCacheManager.setCaffeine(caffeine);
-        caffeineCacheManager.setCacheNames(List.of(STORE, BOOKS_FOR_EXPORT, CHAPTER_DATA_SUMMARY, CHAPTER_HEATMAP_DATA, CHAPTER_FINGERPRINT_DATA));
+        caffeineCacheManager.setCacheNames(List.of(STORE, BOOKS_FOR_EXPORT));
         return caffeineCacheManager;
     }
 
@@ -92,8 +93,24 @@ public class Config {
     }
 
     @Bean
-    public CacheHelper cacheHelper(CacheManager cacheManager, List<CachePlugin> plugins) {
-        return new CacheHelper(cacheManager, plugins);
+    public CacheHelper cacheHelper(CacheManager cacheManager, List<CachePlugin> plugins,
+                                   @Value("${app.cache.local.maximum-size:1000}") long maximumSize,
+                                   @Value("${app.cache.local.maximum-weight:20000000}") long maximumWeight,
+                                   @Value("${app.cache.local.expire-after-access:1d}") Duration expireAfterAccess) {
+        return new CacheHelper(cacheManager, plugins, localCache(maximumSize, maximumWeight, expireAfterAccess));
+    }
+
+    /**
+     * The local tier is bounded by weight (characters of the cached response), every entry weighs
+     * at least {@code maximumWeight / maximumSize}, so the entry count is bounded by {@code maximumSize} too.
+     */
+    public static AsyncCache<String, Object> localCache(long maximumSize, long maximumWeight, Duration expireAfterAccess) {
+        int minWeight = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maximumWeight / Math.max(1, maximumSize)));
+        return Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((String key, Object value) -> Math.max(minWeight, weightOf(value)))
+                .expireAfterAccess(expireAfterAccess)
+                .buildAsync();
     }
 
     @Bean
@@ -168,6 +185,16 @@ public class Config {
                 .build());
     }
 
+    private static int weightOf(Object value) {
+        if (value instanceof AssistantClient.Result result && result.getText() != null) {
+            return result.getText().length();
+        } else if (value instanceof CharSequence text) {
+            return text.length();
+        }
+
+        return 1;
+    }
+
     @NoArgsConstructor(access = AccessLevel.PRIVATE)
     public static class CacheConstants {
 
@@ -175,27 +202,6 @@ public class Config {
 
         public static final String BOOKS_FOR_EXPORT = "booksForExport";
 
-        public static final String CHAPTER_DATA_SUMMARY = "chapterDataSummary";
-
-        public static final String CHAPTER_HEATMAP_DATA = "chapterHeatmapData";
-
-        public static final String CHAPTER_FINGERPRINT_DATA = "chapterFingerprintData";
-
-    }
-
-    @Configuration
-    public static class CacheExpiry {
-
-        @Scheduled(fixedRateString = "PT60S")
-        @CacheEvict(value = {
-                CHAPTER_DATA_SUMMARY,
-                CHAPTER_HEATMAP_DATA,
-                CHAPTER_FINGERPRINT_DATA
-        }, allEntries = true)
-        public void emptyCaches() {
-            log.trace("Emptying cache...");
-        }
-
     }
 
 }
@@ -7,6 +7,7 @@ import machinum.processor.client.GeminiAiClient;
 import machinum.processor.client.GeminiClient.JacksonJsonParser;
 import machinum.processor.client.GeminiClientPool;
 import machinum.processor.client.GeminiClientPool.GeminiClientItem;
+import machinum.processor.client.KeyRateLimiter;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -14,6 +15,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import swiss.ameri.gemini.api.GenAi;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -32,11 +35,15 @@ public class GeminiConfig {
         return new JacksonJsonParser(mapperHolder.copy());
     }
 
-    @Bean
-    public GeminiClientPool googleGeminiClient(@Value("${spring.ai.gemini-ai.token}") String[] tokens) {
-        var clients = Stream.of(tokens).map(apiKey ->
-                        Client.builder().apiKey(apiKey).build())
-                .map(GeminiClientItem::new)
+    @Bean(destroyMethod = "close")
+    public GeminiClientPool googleGeminiClient(@Value("${spring.ai.gemini-ai.token}") String[] tokens,
+                                               @Value("${spring.ai.gemini-ai.rate-limit.requests:15}") int rateLimitRequests,
+                                               @Value("${spring.ai.gemini-ai.rate-limit.interval:1m}") Duration rateLimitInterval,
+                                               @Value("${spring.ai.gemini-ai.max-concurrency:4}") int maxConcurrency) {
+        var counter = new AtomicInteger();
+        var clients = Stream.of(tokens).map(apiKey -> new GeminiClientItem(
+                        Client.builder().apiKey(apiKey).build(),
+                        KeyRateLimiter.of("gemini-" + counter.incrementAndGet(), rateLimitRequests, rateLimitInterval, maxConcurrency)))
                 .collect(Collectors.toList());
 
         return new GeminiClientPool(clients);
@@ -3,6 +3,7 @@ package machinum.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.observation.ObservationRegistry;
 import lombok.extern.slf4j.Slf4j;
+import machinum.processor.client.KeyRateLimiter;
 import machinum.processor.client.OpenRouterChatClientPool;
 import machinum.util.TraceUtil;
 import org.apache.commons.io.IOUtils;
@@ -17,6 +18,7 @@ import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.ai.openai.api.OpenAiApi;
 import org.springframework.ai.retry.RetryUtils;
 import org.springframework.async.AsyncHelper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -49,14 +51,17 @@ public class OpenRouterConfig {
 
     public static final Pattern PARAMETERS_PATTERN = Pattern.compile("(\\d+)b");
 
-    @Bean
+    @Bean(destroyMethod = "close")
     public OpenRouterChatClientPool openRouterChatClientPool(
             OpenAiConnectionProperties connectionProperties,
             OpenAiChatProperties chatProperties,
             WebClient.Builder webClientBuilder,
             RetryTemplate retryTemplate,
             OpenRouterAiChatProperties multiChatProperties,
-            Holder<WiremockRequestInterceptor> requestInterceptorHolder
+            Holder<WiremockRequestInterceptor> requestInterceptorHolder,
+            @Value("${spring.ai.openrouter.rate-limit.requests:20}") int rateLimitRequests,
+            @Value("${spring.ai.openrouter.rate-limit.interval:1m}") Duration rateLimitInterval,
+            @Value("${spring.ai.openrouter.max-concurrency:4}") int maxConcurrency
     ) {
         Set<String> models;
 
@@ -92,7 +97,8 @@ public class OpenRouterConfig {
                                             new SimpleLoggerAdvisor())
                                     .build();
 
-                            return new OpenRouterChatClientPool.OpenRouterClientItem(client, model);
+                            return new OpenRouterChatClientPool.OpenRouterClientItem(client, model,
+                                    KeyRateLimiter.of(model, rateLimitRequests, rateLimitInterval, maxConcurrency));
                         })
                         .collect(Collectors.toList()));
     }
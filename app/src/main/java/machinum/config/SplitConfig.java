@@ -53,6 +53,13 @@ public class SplitConfig {
         return new SplitStrategy.BalancedSentenceSplitter(maxCharactersSize);
     }
 
+    @Bean
+    @ConditionalOnProperty(name = "app.split.mode", havingValue = "tokens")
+    public SplitStrategy tokenSplitter(@Value("${app.logic-splitter.chunk-size}") int maxTokensPerChunk,
+                                       @Value("${app.split.overlap-tokens:0}") int overlapTokens) {
+        return new SplitStrategy.TokenSplitter(maxTokensPerChunk, overlapTokens);
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public SplitStrategy defaultSplitStrategy() {
@@ -1,10 +1,16 @@
 package machinum.config;
 
-import machinum.service.plugin.StatisticPlugin;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import machinum.service.StatisticService;
+import machinum.service.StatisticWriter;
+import machinum.service.plugin.StatisticPlugin;
 import org.springframework.async.AsyncHelper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
 
 @Configuration
 public class StatisticConfig {
@@ -14,4 +20,16 @@ public class StatisticConfig {
         return new StatisticPlugin(statisticService, asyncHelper);
     }
 
+    @Bean(destroyMethod = "close")
+    public StatisticWriter statisticWriter(JdbcTemplate jdbcTemplate,
+                                           ObjectMapper objectMapper,
+                                           @Value("${app.statistics.queue-capacity:10000}") int capacity,
+                                           @Value("${app.statistics.batch-size:100}") int batchSize,
+                                           @Value("${app.statistics.flush-interval:5s}") Duration flushInterval,
+                                           @Value("${app.statistics.messages.enabled:false}") boolean storeMessages,
+                                           @Value("${app.statistics.messages.sample-rate:0.0}") double messageSampleRate) {
+        return new StatisticWriter(jdbcTemplate, objectMapper, capacity, batchSize, flushInterval,
+                storeMessages, messageSampleRate);
+    }
+
 }
@@ -1,9 +1,9 @@
 package machinum.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVWriter;
-import io.micrometer.core.instrument.util.IOUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -17,6 +17,7 @@ import machinum.repository.BookRepository.BookExportResult;
 import machinum.service.BookFacade;
 import machinum.service.BookService;
 import machinum.util.TextUtil;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -26,16 +27,18 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -56,6 +59,8 @@ public class BookController implements ControllerTrait {
     private final ObjectMapper mapper;
     private final BookService bookService;
     private final BookFacade bookFacade;
+    @Value("${app.batch-size}")
+    private final Integer batchSize;
 
     @GetMapping
     public ResponseEntity<List<Book>> getAllChapters(@RequestParam(name = "query", required = false) String query,
@@ -84,28 +89,22 @@ public class BookController implements ControllerTrait {
                                                           @RequestParam(value = "overwrite", defaultValue = "false") Boolean overwrite) {
         log.debug("Got request to save book: {}", fileName);
 
-        List<Chapter> chapters;
-        if (file.getOriginalFilename().toLowerCase().endsWith(".zip")) {
-            // Handle ZIP file
-            chapters = processZipFile(file.getInputStream());
-        } else if (file.getOriginalFilename().toLowerCase().endsWith(".jsonl")) {
-            // Handle JSONL file directly
-            var text = IOUtils.toString(file.getInputStream());
-            chapters = jsonlConverter.convert(text);
-        } else {
+        if (!isJsonlSource(file)) {
             log.debug("Unknown type of file: {}", file.getOriginalFilename());
             return ResponseEntity.badRequest().build();
         }
 
-        var saved = bookFacade.save(overwrite, Book.builder()
-                .title(fileName)
-                .chapters(chapters.stream()
-                        .peek(c -> c.setId(null))
-                        .peek(c -> c.setBookId(null))
-                        .collect(Collectors.toList()))
-                .build());
+        try (var inputStream = openJsonl(file)) {
+            var batches = jsonlConverter.readBatches(inputStream, batchSize);
+            var saved = bookFacade.save(overwrite, Book.builder()
+                    .title(fileName)
+                    .build(), peek(batches, c -> {
+                c.setId(null);
+                c.setBookId(null);
+            }));
 
-        return new ResponseEntity<>(Map.of("id", saved.getId()), HttpStatus.OK);
+            return new ResponseEntity<>(Map.of("id", saved.getId()), HttpStatus.OK);
+        }
     }
 
     @SneakyThrows
@@ -115,24 +114,14 @@ public class BookController implements ControllerTrait {
                                                   @RequestParam("fileName") String fileName) {
         log.debug("Got request to import translations for book: {}, file={}", bookId, fileName);
 
-        List<Chapter> chapters;
-        if (file.getOriginalFilename().toLowerCase().endsWith(".zip")) {
-            // Handle ZIP file
-            chapters = processZipFile(file.getInputStream());
-        } else if (file.getOriginalFilename().toLowerCase().endsWith(".jsonl")) {
-            // Handle JSONL file directly
-            var text = IOUtils.toString(file.getInputStream());
-            chapters = jsonlConverter.convert(text);
-        } else {
+        if (!isJsonlSource(file)) {
             log.debug("Unknown type of file: {}", file.getOriginalFilename());
             return ResponseEntity.badRequest().build();
         }
 
-        bookFacade.importTranslation(Book.builder()
-                .id(bookId)
-                .title(fileName)
-                .chapters(chapters)
-                .build());
+        try (var inputStream = openJsonl(file)) {
+            bookFacade.importTranslation(bookId, jsonlConverter.readBatches(inputStream, batchSize));
+        }
 
         return ResponseEntity.noContent().build();
     }
@@ -193,64 +182,60 @@ public class BookController implements ControllerTrait {
                                               @RequestParam("fileName") String fileName) {
         log.debug("Got request to import chapters for book: {}, file={}", bookId, fileName);
 
-        List<Chapter> chapters;
-        if (file.getOriginalFilename().toLowerCase().endsWith(".zip")) {
-            // Handle ZIP file
-            chapters = processZipFile(file.getInputStream());
-        } else if (file.getOriginalFilename().toLowerCase().endsWith(".json")) {
+        if (file.getOriginalFilename().toLowerCase().endsWith(".json")) {
             // Handle JSON file directly
-            chapters = List.of(mapper.readValue(file.getInputStream(), Chapter[].class));
-        } else if (file.getOriginalFilename().toLowerCase().endsWith(".jsonl")) {
-            // Parse from jsonl
-            var text = IOUtils.toString(file.getInputStream());
-            chapters = jsonlConverter.convert(text);
+            bookFacade.importChaptersText(bookId, List.of(mapper.readValue(file.getInputStream(), Chapter[].class)));
+        } else if (isJsonlSource(file)) {
+            // Parse from jsonl, or jsonl inside of zip
+            try (var inputStream = openJsonl(file)) {
+                bookFacade.importChaptersText(bookId, jsonlConverter.readBatches(inputStream, batchSize));
+            }
         } else {
             log.debug("Unknown type of file: {}", file.getOriginalFilename());
             return ResponseEntity.badRequest().build();
         }
 
-        bookFacade.importChaptersText(bookId, chapters);
-
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/{bookId}/download")
-    public ResponseEntity<byte[]> exportChapters(@PathVariable("bookId") String bookId,
-                                                 @RequestParam(name = "from", required = false) Integer fromChapterNumber,
-                                                 @RequestParam(name = "to", required = false) Integer toChapterNumber) {
-        try {
-            // Create JSONL content
-            List<Chapter> chapters;
-            if (Objects.nonNull(fromChapterNumber) && Objects.nonNull(toChapterNumber)) {
-                chapters = bookFacade.loadBookChapters(bookId, fromChapterNumber, toChapterNumber);
-            } else {
-                chapters = bookFacade.loadBookChapters(bookId);
-            }
+    public ResponseEntity<StreamingResponseBody> exportChapters(@PathVariable("bookId") String bookId,
+                                                                @RequestParam(name = "from", required = false) Integer fromChapterNumber,
+                                                                @RequestParam(name = "to", required = false) Integer toChapterNumber) {
+        // Range is applied only when both bounds are given
+        var ranged = Objects.nonNull(fromChapterNumber) && Objects.nonNull(toChapterNumber);
+        var from = ranged ? fromChapterNumber : null;
+        var to = ranged ? toChapterNumber : null;
+
+        if (!bookFacade.hasChapters(bookId, from, to)) {
+            return ResponseEntity.badRequest().build();
+        }
 
-            if (chapters.isEmpty()) {
-                return ResponseEntity.badRequest().build();
+        // Chapters are written to the zip page by page, while the response is sent
+        StreamingResponseBody body = outputStream -> {
+            try (var zos = new ZipOutputStream(outputStream)) {
+                zos.putNextEntry(new ZipEntry("chapters_%s.jsonl".formatted(LocalDate.now().format(DATE_FORMATTER))));
+                try (var writer = jsonlConverter.writer(zos)) {
+                    bookFacade.forEachChapters(bookId, from, to, chapters -> {
+                        for (var chapter : chapters) {
+                            chapter.setId(null);
+                            chapter.setBookId(null);
+                        }
+                        writeAll(writer, chapters);
+                    });
+                }
+                zos.closeEntry();
             }
+        };
 
-            var jsonlContent = jsonlConverter.toJsonl(chapters.stream()
-                    .peek(c -> c.setId(null))
-                    .peek(c -> c.setBookId(null))
-                    .collect(Collectors.toList()));
-
-            // Create ZIP file with JSONL content
-            var zipBytes = createZipFile(jsonlContent);
-
-            // Set response headers
-            var headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", "chapters_%s.zip".formatted(LocalDateTime.now().format(DATETIME_FORMATTER)));
+        // Set response headers
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentDispositionFormData("attachment", "chapters_%s.zip".formatted(LocalDateTime.now().format(DATETIME_FORMATTER)));
 
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(zipBytes);
-        } catch (IOException e) {
-            log.error("Error exporting chapters", e);
-            return ResponseEntity.internalServerError().build();
-        }
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
     }
 
     @SneakyThrows
@@ -311,54 +296,99 @@ public class BookController implements ControllerTrait {
         return ResponseEntity.noContent().build();
     }
 
-    @SneakyThrows
     @PostMapping("/{bookId}/audio")
-    public ResponseEntity<byte[]> bookAudio(@PathVariable("bookId") String id,
-                                            @RequestParam(name = "from") Integer fromChapterNumber,
-                                            @RequestParam(name = "to") Integer toChapterNumber) {
+    public ResponseEntity<StreamingResponseBody> bookAudio(@PathVariable("bookId") String id,
+                                                           @RequestParam(name = "from") Integer fromChapterNumber,
+                                                           @RequestParam(name = "to") Integer toChapterNumber) {
         log.debug("Got request to return a audio: {}", id);
 
-        var content = bookFacade.loadBookAudio(id, fromChapterNumber, toChapterNumber);
+        if (!bookFacade.hasChapters(id, fromChapterNumber, toChapterNumber)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Chapter files are downloaded while the zip is sent
+        StreamingResponseBody body = outputStream -> bookFacade.loadBookAudio(id, fromChapterNumber, toChapterNumber, outputStream);
 
         var headers = new HttpHeaders();
         headers.setContentType(MediaType.parseMediaType("application/zip"));
-        headers.setContentLength(content.length);
         headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"%s.zip\"".formatted(hashStringWithCRC32(id)));
 
-        return new ResponseEntity<>(content, headers, HttpStatus.OK);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    @GetMapping("/{bookId}/audio/combined")
+    public ResponseEntity<StreamingResponseBody> bookCombinedAudio(@PathVariable("bookId") String id,
+                                                                   @RequestParam(name = "from") Integer fromChapterNumber,
+                                                                   @RequestParam(name = "to") Integer toChapterNumber) {
+        log.debug("Got request to return a combined audio: {}", id);
+
+        if (!bookFacade.hasChapters(id, fromChapterNumber, toChapterNumber)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Chapter files are downloaded and joined while the file is sent
+        StreamingResponseBody body = outputStream -> bookFacade.loadBookCombinedAudio(id, fromChapterNumber, toChapterNumber, null, outputStream);
+
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("audio/mpeg"));
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tts_%s_%s_%s.mp3\"".formatted(hashStringWithCRC32(id), fromChapterNumber, toChapterNumber));
+
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
 
     /* ============= */
 
-    private List<Chapter> processZipFile(InputStream inputStream) throws IOException {
-        try (var zipInputStream = new ZipInputStream(inputStream)) {
-            ZipEntry zipEntry;
-            while ((zipEntry = zipInputStream.getNextEntry()) != null) {
-                if (zipEntry.getName().toLowerCase().endsWith(".jsonl")) {
-                    var text = IOUtils.toString(zipInputStream);
-                    return jsonlConverter.convert(text);
-                }
+    private boolean isJsonlSource(MultipartFile file) {
+        var name = Objects.requireNonNullElse(file.getOriginalFilename(), "").toLowerCase();
+        return name.endsWith(".zip") || name.endsWith(".jsonl");
+    }
+
+    /**
+     * Opens the jsonl content of the upload, for a zip the stream is positioned at the first jsonl entry.
+     */
+    private InputStream openJsonl(MultipartFile file) throws IOException {
+        var inputStream = file.getInputStream();
+        if (!file.getOriginalFilename().toLowerCase().endsWith(".zip")) {
+            return inputStream;
+        }
+
+        var zipInputStream = new ZipInputStream(inputStream);
+        ZipEntry zipEntry;
+        while ((zipEntry = zipInputStream.getNextEntry()) != null) {
+            if (zipEntry.getName().toLowerCase().endsWith(".jsonl")) {
+                return zipInputStream;
             }
         }
 
-        return new ArrayList<>();
+        // No jsonl inside, same as an empty book
+        return zipInputStream;
     }
 
-    private byte[] createZipFile(String jsonlContent) throws IOException {
-        var baos = new ByteArrayOutputStream();
-        try (var zos = new ZipOutputStream(baos)) {
-            // Add JSONL file to ZIP
-            var entry = new ZipEntry("chapters_%s.jsonl".formatted(LocalDate.now().format(DATE_FORMATTER)));
-            zos.putNextEntry(entry);
+    private static Iterator<List<Chapter>> peek(Iterator<List<Chapter>> batches, Consumer<Chapter> action) {
+        return new Iterator<>() {
 
-            // Write JSONL content
-            zos.write(jsonlContent.getBytes(StandardCharsets.UTF_8));
+            @Override
+            public boolean hasNext() {
+                return batches.hasNext();
+            }
 
-            // Close the entry
-            zos.closeEntry();
-        }
+            @Override
+            public List<Chapter> next() {
+                var batch = batches.next();
+                batch.forEach(action);
 
-        return baos.toByteArray();
+                return batch;
+            }
+
+        };
+    }
+
+    private static void writeAll(SequenceWriter writer, List<Chapter> chapters) {
+        try {
+            writer.writeAll(chapters);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @SneakyThrows
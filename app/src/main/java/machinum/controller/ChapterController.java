@@ -7,6 +7,7 @@ import machinum.converter.ChapterMapper;
 import machinum.model.Chapter;
 import machinum.model.ChapterDataSummary;
 import machinum.model.ChapterDataSummary.ChapterHeatmapData;
+import machinum.model.ChapterDataSummary.ChapterReadinessDelta;
 import machinum.model.ChapterDataSummary.TextFingerprintData;
 import machinum.model.ChapterGlossary;
 import machinum.service.ChapterAnalysisService;
@@ -88,6 +89,12 @@ public class ChapterController implements ControllerTrait {
         return withCacheControl(chapterAnalysisService.getChapterDataSummary(bookId));
     }
 
+    @GetMapping("/api/books/{bookId}/chapters-readiness/changes")
+    public ResponseEntity<ChapterReadinessDelta> getChapterReadinessChanges(@PathVariable("bookId") String bookId, @RequestParam(value = "since", defaultValue = "0") Long since) {
+        log.info("Received request for chapter readiness changes, bookId: {}, since: {}", bookId, since);
+        return ResponseEntity.ok(chapterAnalysisService.getReadinessChanges(bookId, since));
+    }
+
     @GetMapping("/api/books/{bookId}/chapters-heatmap")
     public ResponseEntity<ChapterHeatmapData> getChapterHeatmap(@PathVariable("bookId") String bookId, @RequestParam(value = "forceUpdate", defaultValue = "false") Boolean forceUpdate) {
         log.info("Received request for chapter heatmap, bookId: {}", bookId);
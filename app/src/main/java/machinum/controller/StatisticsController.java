@@ -2,9 +2,11 @@ package machinum.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import machinum.flow.runner.ModelAffinityFlowRunner.ModelSnapshot;
 import machinum.model.Statistic;
 import machinum.model.StatisticsDto;
 import machinum.service.StatisticService;
+import machinum.service.StatisticWriter.OperationSnapshot;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -28,6 +30,18 @@ public class StatisticsController {
         return ResponseEntity.ok(statistics);
     }
 
+    @GetMapping("/operations")
+    public ResponseEntity<List<OperationSnapshot>> getOperations() {
+        log.info("Received request for operation statistics");
+        return ResponseEntity.ok(statisticsService.operationStatistics());
+    }
+
+    @GetMapping("/model-switches")
+    public ResponseEntity<List<ModelSnapshot>> getModelSwitches() {
+        log.info("Received request for model switch statistics");
+        return ResponseEntity.ok(statisticsService.modelSwitchStatistics());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Statistic> getById(@PathVariable("id") String id) {
         log.info("Received request for statistic by id: {}", id);
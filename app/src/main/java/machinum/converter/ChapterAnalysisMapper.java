@@ -5,11 +5,14 @@ import machinum.config.Holder;
 import machinum.model.ChapterDataSummary.ChapterReadinessItem;
 import machinum.processor.core.ChapterWarning;
 import machinum.repository.ChapterReportRepository.ChapterReadinessItemProjection;
+import machinum.repository.ChapterReportRepository.ChapterReadinessProjection;
+import machinum.service.BookReadiness.ChapterReadiness;
 import org.mapstruct.Mapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 
 import java.util.List;
+import java.util.Objects;
 
 @Mapper(componentModel = "spring")
 public abstract class ChapterAnalysisMapper {
@@ -19,12 +22,6 @@ public abstract class ChapterAnalysisMapper {
     private Holder<ObjectMapper> objectMapperHolder;
 
     public ChapterReadinessItem toDto(ChapterReadinessItemProjection projection) {
-        var builder = ChapterReadinessItem.builder()
-                .id(projection.getId())
-                .chapterNumber(projection.getNumber())
-                .chapterWarnings(objectMapperHolder.execute(mapper ->
-                        List.of(mapper.readValue(projection.getWarningsRaw(), ChapterWarning[].class))));
-
         // Field completion tracking
         boolean hasTitle = projection.getTitle() != null && !projection.getTitle().trim().isEmpty();
         boolean hasTranslatedTitle = projection.getTranslatedTitle() != null && !projection.getTranslatedTitle().trim().isEmpty();
@@ -35,6 +32,38 @@ public abstract class ChapterAnalysisMapper {
         boolean hasTranslatedNames = projection.getTranslatedNameCount() == 1;
         boolean hasNotWarnings = projection.getWarningCount() == null || projection.getWarningCount() == 0;
 
+        return toDto(projection.getId(), projection.getNumber(), projection.getWarningsRaw(), hasTitle, hasTranslatedTitle,
+                hasText, hasTranslatedText, hasSummary, hasNames, hasTranslatedNames, hasNotWarnings);
+    }
+
+    public ChapterReadinessItem toDto(ChapterReadiness readiness) {
+        return toDto(readiness.chapterId(), readiness.number(), readiness.warningsRaw(), readiness.hasTitle(),
+                readiness.hasTranslatedTitle(), readiness.hasText(), readiness.hasTranslatedText(), readiness.hasSummary(),
+                readiness.hasNames(), readiness.hasTranslatedNames(), readiness.hasNotWarnings());
+    }
+
+    public ChapterReadiness toReadiness(ChapterReadinessProjection projection) {
+        return new ChapterReadiness(projection.getChapterId(), projection.getNumber(),
+                Boolean.TRUE.equals(projection.getHasTitle()), Boolean.TRUE.equals(projection.getHasTranslatedTitle()),
+                Boolean.TRUE.equals(projection.getHasText()), Boolean.TRUE.equals(projection.getHasTranslatedText()),
+                Boolean.TRUE.equals(projection.getHasSummary()), projection.getNameCount(),
+                Objects.requireNonNullElse(projection.getTranslatedNameCount(), 0), projection.getWarningCount(),
+                projection.getWarningsRaw(), projection.getCharacterCount(), Boolean.TRUE.equals(projection.getDeleted()),
+                projection.getTxid());
+    }
+
+    /* ============= */
+
+    private ChapterReadinessItem toDto(String id, Integer number, String warningsRaw, boolean hasTitle,
+                                      boolean hasTranslatedTitle, boolean hasText, boolean hasTranslatedText,
+                                      boolean hasSummary, boolean hasNames, boolean hasTranslatedNames,
+                                      boolean hasNotWarnings) {
+        var builder = ChapterReadinessItem.builder()
+                .id(id)
+                .chapterNumber(number)
+                .chapterWarnings(Objects.isNull(warningsRaw) ? List.of() : objectMapperHolder.execute(mapper ->
+                        List.of(mapper.readValue(warningsRaw, ChapterWarning[].class))));
+
         builder.title(hasTitle)
                 .translatedTitle(hasTranslatedTitle)
                 .text(hasText)
@@ -12,6 +12,13 @@ import org.mapstruct.Mapping;
 import org.mapstruct.Named;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
 @Mapper(componentModel = "spring")
 public abstract class ChapterHistoryMapper implements BaseMapper<ChapterHistoryEntity, ChapterHistory> {
 
@@ -19,21 +26,28 @@ public abstract class ChapterHistoryMapper implements BaseMapper<ChapterHistoryE
     ChapterInfoHistoryConverter chapterInfoHistoryConverter;
 
     @Override
-    @Mapping(source = "patch", target = "patch", qualifiedByName = "toPatch")
+    @Mapping(target = "patch", ignore = true)
+    @Mapping(source = "patch", target = "packedPatch", qualifiedByName = "packPatch")
+    @Mapping(target = "keyframe", ignore = true)
     public abstract ChapterHistoryEntity toEntity(ChapterHistory value);
 
     @Override
-    @Mapping(source = "patch", target = "patch", qualifiedByName = "fromPatch")
+    @Mapping(source = ".", target = "patch", qualifiedByName = "fromPatch")
+    @Mapping(target = "content", ignore = true)
     public abstract ChapterHistory toDto(ChapterHistoryEntity value);
 
     @Named("fromPatch")
-    Patch<String> fromPatch(JsonNode jsonString) {
-        return chapterInfoHistoryConverter.convert(jsonString);
+    Patch<String> fromPatch(ChapterHistoryEntity entity) {
+        if (Objects.nonNull(entity.getPackedPatch())) {
+            return chapterInfoHistoryConverter.unpack(entity.getPackedPatch());
+        }
+
+        return chapterInfoHistoryConverter.convert(entity.getPatch());
     }
 
-    @Named("toPatch")
-    JsonNode toPatch(Patch<String> patchObject) {
-        return chapterInfoHistoryConverter.convert(patchObject);
+    @Named("packPatch")
+    byte[] packPatch(Patch<String> patchObject) {
+        return chapterInfoHistoryConverter.pack(patchObject);
     }
 
     @RequiredArgsConstructor
@@ -51,6 +65,41 @@ public abstract class ChapterHistoryMapper implements BaseMapper<ChapterHistoryE
             return mapper.valueToTree(patch);
         }
 
+        @SneakyThrows
+        public Patch<String> unpack(byte[] data) {
+            return mapper.readValue(gunzip(data), Patch.class);
+        }
+
+        @SneakyThrows
+        public byte[] pack(Patch<String> patch) {
+            return Objects.isNull(patch) ? null : gzip(mapper.writeValueAsBytes(patch));
+        }
+
+        public String unpackText(byte[] data) {
+            return new String(gunzip(data), StandardCharsets.UTF_8);
+        }
+
+        public byte[] packText(String text) {
+            return gzip(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @SneakyThrows
+        private static byte[] gzip(byte[] data) {
+            var output = new ByteArrayOutputStream(Math.max(32, data.length / 4));
+            try (var gzip = new GZIPOutputStream(output)) {
+                gzip.write(data);
+            }
+
+            return output.toByteArray();
+        }
+
+        @SneakyThrows
+        private static byte[] gunzip(byte[] data) {
+            try (var gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+                return gzip.readAllBytes();
+            }
+        }
+
     }
 
 }
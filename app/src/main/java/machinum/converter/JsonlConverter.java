@@ -1,8 +1,12 @@
 package machinum.converter;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.github.victools.jsonschema.generator.impl.Util;
 import machinum.model.Chapter;
 import machinum.util.TextUtil;
@@ -12,9 +16,9 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.*;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -58,6 +62,51 @@ public class JsonlConverter {
                 .collect(Collectors.joining("\n"));
     }
 
+    /**
+     * Parses chapters one line at a time and returns them in batches of {@code batchSize}, so only one
+     * batch is held in memory. The stream is read lazily and is not closed.
+     */
+    @SneakyThrows
+    public Iterator<List<Chapter>> readBatches(@NonNull InputStream inputStream, int batchSize) {
+        MappingIterator<Chapter> iterator = objectMapper.readerFor(typeReference)
+                .without(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+                .readValues(inputStream);
+
+        return new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public List<Chapter> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                var batch = new ArrayList<Chapter>(batchSize);
+                while (batch.size() < batchSize && iterator.hasNext()) {
+                    batch.add(process(iterator.next()));
+                }
+
+                return batch;
+            }
+
+        };
+    }
+
+    /**
+     * Creates a writer of jsonl lines over the given stream, closing the writer doesn't close the stream.
+     */
+    @SneakyThrows
+    public SequenceWriter writer(@NonNull OutputStream outputStream) {
+        return objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValues(outputStream);
+    }
+
     private Chapter process(@NonNull Chapter chapter) {
         if (isEmpty(chapter.getTitle()) && isNotEmpty(chapter.getText())) {
             var header = Arrays.stream(chapter.getText().split("[\r\n]"))
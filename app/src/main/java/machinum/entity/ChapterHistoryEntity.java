@@ -34,10 +34,23 @@ public class ChapterHistoryEntity {
 
     private String fieldName;
 
+    /**
+     * Patch of rows written before patches were compressed.
+     */
+    @ToString.Exclude
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(columnDefinition = "json")
     private JsonNode patch;
 
+    @ToString.Exclude
+    private byte[] packedPatch;
+
+    /**
+     * Compressed content of the field after the patch, written every few patches to limit replays.
+     */
+    @ToString.Exclude
+    private byte[] keyframe;
+
     private LocalDateTime createdAt;
 
 }
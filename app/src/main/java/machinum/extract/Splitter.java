@@ -57,7 +57,7 @@ public class Splitter {
         }
 
         var iterator = new AtomicInteger(1);
-        var chunks = splitStrategy.split(text).stream()
+        var chunks = splitStrategy.splitByTokens(text, chunkSize).stream()
                 .filter(Predicate.not(String::isBlank))
                 .map(ChunkItem::of)
                 .peek(chunkItem -> chunkItem.setPart(iterator.getAndIncrement()))
@@ -11,9 +11,14 @@ import machinum.service.MinioService;
 import machinum.service.TTSRestClient.Metadata;
 import machinum.service.TTSRestClient.TTSRequest;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.InMemoryCache;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
 import static machinum.config.Constants.TRANSLATED_TITLE;
 import static machinum.util.TextUtil.toShortDescription;
 
@@ -26,10 +31,13 @@ public class Synthesizer {
     private final String coverUrl;
     @Value("classpath:/static/android-chrome-192x192.png")
     private final Resource defaultCover;
+    @Value("${app.tts-service.segment-size:4000}")
+    private final Integer segmentSize;
 
     private final AudioService audioService;
     private final MinioService minioService;
     private final Metadata chapterMetadata;
+    private final InMemoryCache<String, Object> inMemoryCache;
 
     public FlowContext<Chapter> synthesize(FlowContext<Chapter> context) {
         var translatedTitle = context.arg(TRANSLATED_TITLE).stringValue();
@@ -38,31 +46,64 @@ public class Synthesizer {
 
         var chapter = context.getCurrentItem();
         var chapterId = chapter.getId();
+        var segments = toSegments(translatedTitle, text);
         var audioFile = audioService.generate(TTSRequest.builder()
-                .text("""
-                        %s 
-                        
-                        %s 
-                        """.formatted(translatedTitle, text))
+                .text(String.join("\n\n", segments))
                 //.voice("") //Use default one
                 .outputFile("%s.mp3".formatted(chapterId))
                 .enhance(Boolean.TRUE)
-                .returnZip(Boolean.TRUE)
                 .chapterId(chapterId)
                 .chapterTitle(chapter.getTitle())
-                .coverArt(resolveCoverArt())
+                .coverArt(resolveCoverArt(chapter.getBookId()))
                 //TODO refactor book, take metadata info from there
                 .metadata(chapterMetadata.toBuilder()
                         .title(chapter.getTranslatedTitle())
                         .track(String.valueOf(chapter.getNumber()))
                         .build())
-                .build());
+                .build(), segments);
 
         return context.rearrange(FlowContext::resultArg, FlowContextActions.result(audioFile));
     }
 
+    /* ============= */
+
+    /**
+     * Groups paragraphs into segments of about {@code segmentSize} characters, a paragraph is never split.
+     * The title goes first, so it keeps its pause before the text.
+     */
+    private List<String> toSegments(String title, String text) {
+        var segments = new ArrayList<String>();
+        var current = new StringBuilder(Objects.requireNonNullElse(title, "").trim());
+        for (var paragraph : Objects.requireNonNullElse(text, "").split("\n")) {
+            var trimmed = paragraph.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+
+            if (!current.isEmpty() && current.length() + trimmed.length() > segmentSize) {
+                segments.add(current.toString());
+                current.setLength(0);
+            }
+            if (!current.isEmpty()) {
+                current.append("\n\n");
+            }
+            current.append(trimmed);
+        }
+
+        if (!current.isEmpty()) {
+            segments.add(current.toString());
+        }
+
+        return segments;
+    }
+
+    private byte[] resolveCoverArt(String bookId) {
+        return inMemoryCache.getRaw("coverArt-%s-%s".formatted(bookId, coverUrl), key -> loadCoverArt());
+    }
+
     @SneakyThrows
-    private byte[] resolveCoverArt() {
+    private byte[] loadCoverArt() {
+        log.debug("Loading cover art: {}", coverUrl);
         if (!"none".equalsIgnoreCase(coverUrl)) {
             if (coverUrl.startsWith("http")) {
                 return minioService.downloadContent(coverUrl);
@@ -0,0 +1,101 @@
+package machinum.flow;
+
+import io.micrometer.core.instrument.*;
+import lombok.RequiredArgsConstructor;
+import machinum.flow.core.FlowMetrics;
+import machinum.flow.model.Flow;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records flow execution to Micrometer, the meters are exposed by the actuator prometheus endpoint:
+ * <ul>
+ *     <li>{@code flow.state} - time of a state over all items, by state and outcome</li>
+ *     <li>{@code flow.item} - time of the pipes of a state on one item, by state and outcome</li>
+ *     <li>{@code flow.items.active} - items being processed right now, by state</li>
+ *     <li>{@code flow.pipe} - time of a pipe, by state, pipe index and outcome</li>
+ *     <li>{@code flow.window.flush} - time of a window aggregation and {@code flow.window.size} - its size, by state</li>
+ *     <li>{@code flow.errors} - exceptions passed to the error strategy, by state, exception and whether the flow stopped</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class MicrometerFlowMetrics implements FlowMetrics {
+
+    private final MeterRegistry registry;
+
+    private final Map<String, AtomicInteger> activeItems = new ConcurrentHashMap<>();
+
+    @Override
+    public void stateCompleted(Flow.State state, long nanos, boolean failed) {
+        Timer.builder("flow.state")
+                .tag("state", name(state))
+                .tag("outcome", failed ? "failed" : "completed")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void itemStarted(Flow.State state) {
+        active(state).incrementAndGet();
+    }
+
+    @Override
+    public void itemCompleted(Flow.State state, long nanos, boolean failed) {
+        active(state).decrementAndGet();
+        Timer.builder("flow.item")
+                .tag("state", name(state))
+                .tag("outcome", failed ? "failed" : "completed")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void pipeCompleted(Flow.State state, int pipeIndex, long nanos, PipeOutcome outcome) {
+        Timer.builder("flow.pipe")
+                .tag("state", name(state))
+                .tag("pipe", String.valueOf(pipeIndex))
+                .tag("outcome", outcome.name().toLowerCase())
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void windowFlushed(Flow.State state, String windowId, int size, long nanos) {
+        // Window ids are random by default, so they are not used as tags
+        Timer.builder("flow.window.flush")
+                .tag("state", name(state))
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("flow.window.size")
+                .tag("state", name(state))
+                .register(registry)
+                .record(size);
+    }
+
+    @Override
+    public void errorHandled(Flow.State state, Exception exception, boolean stopped) {
+        Counter.builder("flow.errors")
+                .tag("state", name(state))
+                .tag("exception", exception.getClass().getSimpleName())
+                .tag("stopped", String.valueOf(stopped))
+                .register(registry)
+                .increment();
+    }
+
+    /* ============= */
+
+    private AtomicInteger active(Flow.State state) {
+        return activeItems.computeIfAbsent(name(state), key ->
+                registry.gauge("flow.items.active", Tags.of("state", key), new AtomicInteger()));
+    }
+
+    private static String name(Flow.State state) {
+        return state instanceof Enum<?> constant ? constant.name() : String.valueOf(state);
+    }
+
+}
@@ -0,0 +1,237 @@
+package machinum.listener;
+
+import com.github.difflib.DiffUtils;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import machinum.entity.ChapterEntity;
+import machinum.model.ChapterHistory;
+import machinum.util.TextUtil;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded queue of tracked chapter changes.
+ * Changes are partitioned by chapter id between a fixed number of worker threads, so the changes of one
+ * chapter keep their order, whether it is known by id or by source key. A worker takes up to
+ * {@code batchSize} changes, computes the diffs and hands the history rows to the {@link HistoryWriter} at once. When the partition of a chapter is full,
+ * {@link #submit} blocks the caller until a worker catches up.
+ */
+@Slf4j
+public class ChapterChangeQueue implements AutoCloseable {
+
+    private final Function<ChapterEntity, String> idResolver;
+    private final HistoryWriter writer;
+    private final int batchSize;
+    private final List<BlockingQueue<Pending>> partitions;
+    private final List<Thread> workers;
+    private volatile boolean closed;
+
+    /**
+     * @param workers    number of worker threads
+     * @param capacity   maximum number of changes waiting in all partitions
+     * @param batchSize  maximum number of changes written at once
+     * @param idResolver resolves the id of a chapter that is only known by source key
+     * @param writer     writes history rows of a batch
+     */
+    public ChapterChangeQueue(int workers, int capacity, int batchSize,
+                              @NonNull Function<ChapterEntity, String> idResolver, @NonNull HistoryWriter writer) {
+        var size = Math.max(workers, 1);
+        this.idResolver = idResolver;
+        this.writer = writer;
+        this.batchSize = Math.max(batchSize, 1);
+        this.partitions = new ArrayList<>(size);
+        this.workers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            var partition = new ArrayBlockingQueue<Pending>(Math.max(capacity / size, 1));
+            partitions.add(partition);
+            this.workers.add(Thread.ofPlatform()
+                    .name("chapter-change-", i)
+                    .daemon()
+                    .start(() -> work(partition)));
+        }
+    }
+
+    /**
+     * Queues a change, waits while the partition of the chapter is full.
+     * The id of a chapter that is only known by source key is resolved by the caller.
+     *
+     * @return future completed once the history row is written or the change turned out to be empty
+     */
+    public CompletableFuture<Void> submit(@NonNull Change change) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Change queue is closed"));
+        }
+
+        String chapterId;
+        try {
+            var chapter = change.chapter();
+            chapterId = TextUtil.isEmpty(chapter.getId()) ? idResolver.apply(chapter) : chapter.getId();
+        } catch (Exception e) {
+            log.error("Can't track change of chapter: {}", change.chapter(), e);
+            change.done().completeExceptionally(e);
+            return change.done();
+        }
+
+        try {
+            partitions.get(Math.floorMod(chapterId.hashCode(), partitions.size()))
+                    .put(new Pending(chapterId, change));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            change.done().completeExceptionally(e);
+        }
+
+        return change.done();
+    }
+
+    public int size() {
+        return partitions.stream()
+                .mapToInt(BlockingQueue::size)
+                .sum();
+    }
+
+    /**
+     * Stops accepting changes and waits until the queued ones are written.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (var worker : workers) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /* ============= */
+
+    private void work(BlockingQueue<Pending> partition) {
+        var batch = new ArrayList<Pending>(batchSize);
+        while (!closed || !partition.isEmpty()) {
+            try {
+                var first = partition.poll(100, TimeUnit.MILLISECONDS);
+                if (Objects.isNull(first)) {
+                    continue;
+                }
+
+                batch.add(first);
+                partition.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<Pending> batch) {
+        var resets = new LinkedHashSet<String>();
+        var histories = new ArrayList<ChapterHistory>(batch.size());
+        var written = new ArrayList<Change>(batch.size());
+        var now = LocalDateTime.now();
+
+        for (var pending : batch) {
+            var change = pending.change();
+            var chapterId = pending.chapterId();
+            try {
+                if (change.reset()) {
+                    // Rows of the chapter queued before the reset would be removed anyway
+                    resets.add(chapterId);
+                    histories.removeIf(history -> chapterId.equals(history.getChapterInfoId()));
+                }
+
+                var patch = diff(change.originalValue(), change.newValue());
+                if (Objects.nonNull(patch) && !patch.getDeltas().isEmpty()) {
+                    histories.add(ChapterHistory.builder()
+                            .chapterInfoId(chapterId)
+                            .fieldName(change.fieldName())
+                            .patch(patch)
+                            .content(change.newValue())
+                            .createdAt(now)
+                            .build());
+                }
+                written.add(change);
+            } catch (Exception e) {
+                // Log the error but don't stop the update
+                log.error("Can't track change of chapter: {}", change.chapter(), e);
+                change.done().completeExceptionally(e);
+            }
+        }
+
+        try {
+            writer.write(resets, histories);
+            written.forEach(change -> change.done().complete(null));
+            log.trace("Written {} history rows, reset {} chapters", histories.size(), resets.size());
+        } catch (Exception e) {
+            log.error("Can't write {} history rows", histories.size(), e);
+            written.forEach(change -> change.done().completeExceptionally(e));
+        }
+    }
+
+    private static com.github.difflib.patch.Patch<String> diff(String originalValue, String newValue) {
+        // Skip if values are the same or both null
+        if (Objects.equals(originalValue, newValue)) {
+            return null;
+        }
+
+        var originalLines = Objects.nonNull(originalValue)
+                ? Arrays.asList(originalValue.split("\n"))
+                : List.<String>of();
+        var newLines = Objects.nonNull(newValue)
+                ? Arrays.asList(newValue.split("\n"))
+                : List.<String>of();
+
+        return DiffUtils.diff(originalLines, newLines);
+    }
+
+    /* ============= */
+
+    /**
+     * A change of one tracked field.
+     *
+     * @param chapter       the chapter, only the id or the source key and book id are used
+     * @param fieldName     the tracked field
+     * @param originalValue the value before the change, {@code null} for the initial value
+     * @param newValue      the value after the change
+     * @param reset         the history of the chapter is removed before this change is written
+     * @param done          completed once the change is written
+     */
+    public record Change(ChapterEntity chapter, String fieldName, String originalValue, String newValue,
+                         boolean reset, CompletableFuture<Void> done) {
+
+        public static Change of(ChapterEntity chapter, String fieldName, String originalValue, String newValue) {
+            return new Change(chapter, fieldName, originalValue, newValue, false, new CompletableFuture<>());
+        }
+
+        public static Change reset(ChapterEntity chapter, String fieldName, String newValue) {
+            return new Change(chapter, fieldName, null, newValue, true, new CompletableFuture<>());
+        }
+
+    }
+
+    private record Pending(String chapterId, Change change) {
+
+    }
+
+    @FunctionalInterface
+    public interface HistoryWriter {
+
+        /**
+         * @param resetChapterIds chapters whose history must be removed before the rows are written
+         * @param histories       rows in the order of changes
+         */
+        void write(Set<String> resetChapterIds, List<ChapterHistory> histories);
+
+    }
+
+}
@@ -15,6 +15,10 @@ import java.util.Map;
 public class ChapterDataSummary {
 
     private String bookId;
+    /**
+     * Readiness version of the summary, pass it as {@code since} to get the following changes.
+     */
+    private Long version;
     private Long totalChapters;
     private Long emptyTitles;
     private Long emptyTranslatedTitles;
@@ -99,5 +103,24 @@ public class ChapterDataSummary {
 
     }
 
+    /**
+     * Chapters changed since a readiness version, along with the current summary.
+     */
+    @Data
+    @AllArgsConstructor
+    @Builder(toBuilder = true)
+    @NoArgsConstructor(access = AccessLevel.PUBLIC)
+    public static class ChapterReadinessDelta {
+
+        private String bookId;
+        private Long since;
+        private Long version;
+        private ChapterDataSummary summary;
+        @Builder.Default
+        private List<ChapterReadinessItem> chapters = new ArrayList<>();
+        @Builder.Default
+        private List<String> removedIds = new ArrayList<>();
+
+    }
 
 }
@@ -1,5 +1,6 @@
 package machinum.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonView;
 import com.github.difflib.patch.Patch;
 import machinum.controller.ChapterHistoryController;
@@ -28,6 +29,13 @@ public class ChapterHistory {
     @JsonView(Internal.class)
     private Patch<String> patch;
 
+    /**
+     * Content of the field after the patch, a keyframe is stored from it when due.
+     */
+    @ToString.Exclude
+    @JsonIgnore
+    private String content;
+
     private LocalDateTime createdAt;
 
     public static boolean isEmpty(@NonNull ChapterHistory history) {
@@ -36,4 +36,9 @@ public class ChapterSimilarityResult {
      */
     String matchedContent;
 
+    /**
+     * Offset of the matched chunk within the field, 0 for single chunk fields
+     */
+    Integer chunkIndex;
+
 }
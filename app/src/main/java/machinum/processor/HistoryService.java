@@ -34,7 +34,6 @@ public class HistoryService {
     private static final int TARGET_RESPONSE_RESERVE = 1_000;
     private static final double COMPRESSION_THRESHOLD = 0.7;
     private static final Pattern SENTENCE_PATTERN = Pattern.compile("(?<=[.!?])\\s+");
-    private static final Pattern DUPLICATE_PATTERN = Pattern.compile("\\b(\\w+(?:\\s+\\w+){0,3})\\b(?=.*\\b\\1\\b)", Pattern.CASE_INSENSITIVE);
 
 
     public List<Message> buildOptimizedContext(FlowContext<Chapter> flowContext,
@@ -131,17 +130,20 @@ public class HistoryService {
         return stage2;
     }
 
-    private String removeDuplicatesAndRedundancy(String text) {
-        // Remove duplicate sentences and phrases
+    /**
+     * Removes duplicate sentences in one pass over the text. The sentences keep their punctuation and are
+     * joined with a space.
+     * <p>
+     * Repeated phrases are kept as they are: the former phrase pattern replaced every repeated phrase with
+     * itself, while its look-ahead over the rest of the text made it quadratic on chapter-sized input.
+     */
+    String removeDuplicatesAndRedundancy(String text) {
         var sentences = SENTENCE_PATTERN.split(text);
         var uniqueSentences = Arrays.stream(sentences)
                 .distinct()
                 .collect(Collectors.toList());
 
-        var result = String.join(". ", uniqueSentences);
-
-        // Remove common redundant phrases
-        return DUPLICATE_PATTERN.matcher(result).replaceAll("$1");
+        return String.join(" ", uniqueSentences);
     }
 
     private String extractKeyInformation(String text, int targetTokens) {
@@ -157,7 +159,7 @@ public class HistoryService {
         for (var sentence : scoredSentences) {
             int sentenceTokens = countTokens(sentence.text());
             if (currentTokens + sentenceTokens <= targetTokens) {
-                result.append(sentence.text()).append(". ");
+                result.append(sentence.text()).append(' ');
                 currentTokens += sentenceTokens;
             }
         }
@@ -36,42 +36,40 @@ public class GeminiAiClient implements AiClient {
         log.info("|-->> Executing gemini request with context: {}", assistantContext);
         Exception lastException = null;
 
-        for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
-            try {
-                var item = clientPool.getAvailableClient();
-                var context = buildPromptContent(prompt);
+        var context = buildPromptContent(prompt);
+        // Quota errors move the request to another key, so every key may be tried once
+        var attempts = Math.max(MAX_RETRIES, clientPool.size());
 
+        for (int attempt = 0; attempt < attempts; attempt++) {
+            var item = clientPool.acquire().join();
+            try {
                 var response = item.execute(client -> client.models.generateContent(model, context.messages(), context.config()));
                 var responseText = Objects.requireNonNull(response.text(), "Response text can't be null");
+                clientPool.onSuccess(item);
 
                 log.info("|<<-- Successfully executed Gemini request: {}", TextUtil.toShortDescription(responseText));
 
                 return new AssistantMessage(responseText);
-            } catch (AppIllegalStateException e) {
+            } catch (Exception e) {
                 log.error("|X-- Error during Gemini execution: {}|{}", e.getClass(), e.getMessage());
                 lastException = e;
                 String errorMessage = e.getMessage();
 
                 if (isQuotaError(errorMessage)) {
-                    try {
-                        var failedItem = clientPool.getAvailableClient();
-                        clientPool.handleQuotaError(failedItem, errorMessage);
-                    } catch (RuntimeException poolException) {
-                        throw new AppIllegalStateException("All Gemini clients exhausted quota limits", e);
-                    }
-                } else {
-                    throw new AppIllegalStateException("Gemini API error: %s".formatted(errorMessage), e);
+                    clientPool.handleQuotaError(item, errorMessage);
+                    continue;
                 }
-            } catch (Exception e) {
-                log.error("|X-- Error during Gemini execution: {}|{}", e.getClass(), e.getMessage());
-                lastException = e;
-                if (attempt == MAX_RETRIES - 1) {
-                    throw new AppIllegalStateException("Error calling Gemini API after %d attempts".formatted(MAX_RETRIES), e);
+
+                clientPool.onFailure(item);
+                if (e instanceof AppIllegalStateException) {
+                    throw new AppIllegalStateException("Gemini API error: %s".formatted(errorMessage), e);
+                } else if (attempt >= MAX_RETRIES - 1) {
+                    throw new AppIllegalStateException("Error calling Gemini API after %d attempts".formatted(attempt + 1), e);
                 }
             }
         }
 
-        throw new RuntimeException("Failed to get response after %d attempts".formatted(MAX_RETRIES), lastException);
+        throw new AppIllegalStateException("All Gemini clients exhausted quota limits", lastException);
     }
 
     @Override
@@ -1,38 +1,58 @@
 package machinum.processor.client;
 
 import com.google.genai.Client;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import machinum.exception.AppIllegalStateException;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 @Slf4j
-@RequiredArgsConstructor
-public class GeminiClientPool {
+public class GeminiClientPool implements AutoCloseable {
 
-    private final List<GeminiClientItem> clients;
+    private final KeyDispatcher<GeminiClientItem> dispatcher;
 
-    private final AtomicInteger currentIndex = new AtomicInteger(0);
+    public GeminiClientPool(List<GeminiClientItem> clients) {
+        this.dispatcher = new KeyDispatcher<>("gemini", clients, GeminiClientItem::getLimiter, client -> true);
+    }
 
-    public GeminiClientItem getAvailableClient() {
-        for (int i = 0; i < clients.size(); i++) {
-            int index = currentIndex.getAndIncrement() % clients.size();
-            var client = clients.get(index);
-            if (client.isAvailable()) {
-                return client;
-            }
-        }
+    /**
+     * Takes a permit of the next key that is allowed to send a request, the caller must report the result
+     * with {@link #onSuccess}, {@link #onFailure} or {@link #handleQuotaError}.
+     *
+     * @return future of the client to use
+     */
+    public CompletableFuture<GeminiClientItem> acquire() {
+        return dispatcher.acquire();
+    }
 
-        throw new AppIllegalStateException("No available Gemini clients. All clients are quota-limited.");
+    public void onSuccess(GeminiClientItem client) {
+        client.getLimiter().onSuccess();
+        dispatcher.dispatch();
+    }
+
+    public void onFailure(GeminiClientItem client) {
+        client.getLimiter().onFailure();
+        dispatcher.dispatch();
     }
 
     public void handleQuotaError(GeminiClientItem client, String errorMessage) {
         long retryDelay = extractRetryDelay(errorMessage);
-        client.blockClient(retryDelay);
+        client.getLimiter().onRateLimited(Duration.ofSeconds(retryDelay));
+        dispatcher.dispatch();
+        log.warn("Gemini key blocked due to quota. Retry in {} seconds", retryDelay);
+    }
+
+    public int size() {
+        return dispatcher.enabledSize();
+    }
+
+    @Override
+    public void close() {
+        dispatcher.close();
     }
 
     private long extractRetryDelay(String errorMessage) {
@@ -57,29 +77,13 @@ public class GeminiClientPool {
 
         private final Client client;
 
-        private LocalDateTime blockedUntil;
-        private boolean isBlocked;
+        @Getter
+        private final KeyRateLimiter limiter;
 
         public <T> T execute(Function<Client, T> function) {
             return function.apply(client);
         }
 
-        public boolean isAvailable() {
-            if (!isBlocked) return true;
-            if (blockedUntil != null && LocalDateTime.now().isAfter(blockedUntil)) {
-                isBlocked = false;
-                blockedUntil = null;
-                return true;
-            }
-
-            return false;
-        }
-
-        public void blockClient(long retryDelaySeconds) {
-            this.isBlocked = true;
-            this.blockedUntil = LocalDateTime.now().plusSeconds(retryDelaySeconds);
-        }
-
     }
 
 
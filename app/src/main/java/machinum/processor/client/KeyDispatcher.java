@@ -0,0 +1,178 @@
+package machinum.processor.client;
+
+import lombok.extern.slf4j.Slf4j;
+import machinum.exception.AppIllegalStateException;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Hands out the items of a client pool through their {@link KeyRateLimiter}s.
+ * {@link #acquire()} never blocks: it returns a completed future when some key has a permit, otherwise the
+ * caller is queued and completed in FIFO order as soon as a key refills or a request in flight finishes.
+ * Keys are tried round-robin, so the sustained throughput is the sum of the key quotas.
+ *
+ * @param <T> type of the pool item
+ */
+@Slf4j
+public class KeyDispatcher<T> implements AutoCloseable {
+
+    private final String name;
+    private final List<T> items;
+    private final Function<T, KeyRateLimiter> limiterOf;
+    private final Predicate<T> enabled;
+    private final Queue<CompletableFuture<T>> waiters = new ArrayDeque<>();
+    private final ScheduledExecutorService scheduler;
+    private final LongSupplier nanoClock;
+
+    private ScheduledFuture<?> wakeUp;
+    private long wakeUpAt = Long.MAX_VALUE;
+    private int cursor;
+
+    /**
+     * @param name      the name used in logs and threads
+     * @param items     items of the pool
+     * @param limiterOf resolves the limiter of an item
+     * @param enabled   filters out disabled items
+     */
+    public KeyDispatcher(String name, List<T> items, Function<T, KeyRateLimiter> limiterOf, Predicate<T> enabled) {
+        this(name, items, limiterOf, enabled, System::nanoTime);
+    }
+
+    /**
+     * @param name      the name used in logs and threads
+     * @param items     items of the pool
+     * @param limiterOf resolves the limiter of an item
+     * @param enabled   filters out disabled items
+     * @param nanoClock source of {@link System#nanoTime()} values, the same as the one of the limiters
+     */
+    public KeyDispatcher(String name, List<T> items, Function<T, KeyRateLimiter> limiterOf, Predicate<T> enabled,
+                         LongSupplier nanoClock) {
+        this.name = name;
+        this.items = List.copyOf(items);
+        this.limiterOf = limiterOf;
+        this.enabled = enabled;
+        this.nanoClock = nanoClock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual()
+                .name(name + "-dispatcher-", 0)
+                .factory());
+    }
+
+    /**
+     * @return future completed with an item that holds a permit; the caller must report the result to the
+     * item's limiter and then call {@link #dispatch()}
+     */
+    public synchronized CompletableFuture<T> acquire() {
+        if (waiters.isEmpty()) {
+            var item = tryAcquire();
+            if (Objects.nonNull(item)) {
+                return CompletableFuture.completedFuture(item);
+            }
+        }
+
+        var waiter = new CompletableFuture<T>();
+        waiters.add(waiter);
+        scheduleWakeUp();
+
+        return waiter;
+    }
+
+    /**
+     * Hands out permits to the waiting callers, must be called after a limiter has changed.
+     */
+    public synchronized void dispatch() {
+        while (!waiters.isEmpty()) {
+            var item = tryAcquire();
+            if (Objects.isNull(item)) {
+                break;
+            }
+
+            var waiter = waiters.poll();
+            if (!waiter.complete(item)) {
+                // The caller has given up, return the permit
+                limiterOf.apply(item).onFailure();
+            }
+        }
+
+        scheduleWakeUp();
+    }
+
+    /**
+     * @return number of enabled items
+     */
+    public int enabledSize() {
+        return (int) items.stream().filter(enabled).count();
+    }
+
+    public synchronized int waiting() {
+        return waiters.size();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        synchronized (this) {
+            waiters.forEach(waiter -> waiter.completeExceptionally(new AppIllegalStateException("%s pool is closed", name)));
+            waiters.clear();
+        }
+    }
+
+    /* ============= */
+
+    private T tryAcquire() {
+        for (int i = 0; i < items.size(); i++) {
+            var item = items.get(cursor++ % items.size());
+            if (enabled.test(item) && limiterOf.apply(item).tryAcquire()) {
+                return item;
+            }
+        }
+
+        return null;
+    }
+
+    private void scheduleWakeUp() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+
+        var enabledItems = items.stream()
+                .filter(enabled)
+                .toList();
+        if (enabledItems.isEmpty()) {
+            log.error("No enabled {} clients left, rejecting {} requests", name, waiters.size());
+            waiters.forEach(waiter -> waiter.completeExceptionally(
+                    new AppIllegalStateException("No available %s clients. All clients are disabled.", name)));
+            waiters.clear();
+            return;
+        }
+
+        // Keys waiting for a request in flight are woken up by dispatch()
+        var nextAt = enabledItems.stream()
+                .mapToLong(item -> limiterOf.apply(item).availableAt())
+                .min()
+                .orElse(Long.MAX_VALUE);
+        if (nextAt == Long.MAX_VALUE || (Objects.nonNull(wakeUp) && !wakeUp.isDone() && wakeUpAt <= nextAt)) {
+            return;
+        }
+
+        if (Objects.nonNull(wakeUp)) {
+            wakeUp.cancel(false);
+        }
+        wakeUpAt = nextAt;
+        var delay = Math.max(0, nextAt - nanoClock.getAsLong());
+        wakeUp = scheduler.schedule(this::onWakeUp, delay, TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void onWakeUp() {
+        wakeUp = null;
+        wakeUpAt = Long.MAX_VALUE;
+        dispatch();
+    }
+
+}
@@ -0,0 +1,187 @@
+package machinum.processor.client;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Limiter of a single API key (or model lane) of a client pool.
+ * Requests are paced by a token bucket that refills with the quota of the key, and the number of requests
+ * in flight is limited by an AIMD window: every successful call grows the window by {@code 1/window},
+ * a rate limit response halves it and pauses the key for the retry delay, a payment error drops it to one.
+ *
+ * <p>All methods are thread safe; permits are taken by {@link KeyDispatcher}.</p>
+ */
+@Slf4j
+public class KeyRateLimiter {
+
+    private final String name;
+    private final int maxConcurrency;
+    private final LongSupplier nanoClock;
+
+    private double capacity;
+    private double refillPerNano;
+    private double tokens;
+    private long refilledAt;
+    private long pausedUntil;
+    private double concurrencyLimit = 1;
+    private int inFlight;
+
+    /**
+     * @param name           the name used in logs
+     * @param requests       number of requests allowed per interval
+     * @param interval       the quota interval
+     * @param burst          maximum number of requests sent at once, 1 paces requests evenly over the interval
+     * @param maxConcurrency upper bound of the AIMD window
+     * @param nanoClock      source of {@link System#nanoTime()} values
+     */
+    public KeyRateLimiter(String name, int requests, Duration interval, int burst, int maxConcurrency,
+                          LongSupplier nanoClock) {
+        this.name = name;
+        this.maxConcurrency = Math.max(maxConcurrency, 1);
+        this.nanoClock = nanoClock;
+        this.refilledAt = nanoClock.getAsLong();
+        this.pausedUntil = refilledAt;
+        updateRate(requests, interval, burst);
+        this.tokens = capacity;
+    }
+
+    public static KeyRateLimiter of(String name, int requests, Duration interval, int maxConcurrency) {
+        return new KeyRateLimiter(name, requests, interval, 1, maxConcurrency, System::nanoTime);
+    }
+
+    /**
+     * Changes the quota, e.g. when the provider reports the limits of the key.
+     */
+    public synchronized void updateRate(int requests, Duration interval, int burst) {
+        refill(nanoClock.getAsLong());
+        this.capacity = Math.max(burst, 1);
+        this.refillPerNano = (double) Math.max(requests, 1) / Math.max(interval.toNanos(), 1);
+        this.tokens = Math.min(tokens, capacity);
+        log.debug("Rate of {} is set to {} requests per {}, burst={}", name, requests, interval, capacity);
+    }
+
+    /**
+     * Lowers the rate if the given quota is stricter than the current one, e.g. when several lanes share
+     * the quota of one key.
+     */
+    public synchronized void limitRate(double requests, Duration interval) {
+        var rate = Math.max(requests, 0) / Math.max(interval.toNanos(), 1);
+        if (rate > 0 && rate < refillPerNano) {
+            refill(nanoClock.getAsLong());
+            this.refillPerNano = rate;
+            log.debug("Rate of {} is limited to {} requests per {}", name, requests, interval);
+        }
+    }
+
+    /**
+     * Takes a permit if both the bucket and the concurrency window allow it.
+     *
+     * @return {@code true} if the caller may send a request, it must report the result afterward
+     */
+    public synchronized boolean tryAcquire() {
+        var now = nanoClock.getAsLong();
+        refill(now);
+        if (now < pausedUntil || inFlight >= (int) concurrencyLimit || tokens < 1) {
+            return false;
+        }
+
+        tokens -= 1;
+        inFlight++;
+
+        return true;
+    }
+
+    /**
+     * @return nano time when a permit is expected to be available, {@link Long#MAX_VALUE} if the key waits
+     * for a request in flight to finish
+     */
+    public synchronized long availableAt() {
+        var now = nanoClock.getAsLong();
+        if (inFlight >= (int) concurrencyLimit) {
+            return Long.MAX_VALUE;
+        }
+
+        refill(now);
+        var tokensAt = tokens >= 1 ? now : now + (long) Math.ceil((1 - tokens) / refillPerNano);
+
+        return Math.max(tokensAt, pausedUntil);
+    }
+
+    /**
+     * Additive increase of the concurrency window.
+     */
+    public synchronized void onSuccess() {
+        release();
+        concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1 / concurrencyLimit);
+    }
+
+    /**
+     * Releases the permit without changing the window, e.g. after a network error.
+     */
+    public synchronized void onFailure() {
+        release();
+    }
+
+    /**
+     * Multiplicative decrease of the window and a pause for the delay reported by the provider.
+     */
+    public synchronized void onRateLimited(Duration retryAfter) {
+        release();
+        concurrencyLimit = Math.max(1, concurrencyLimit / 2);
+        pause(retryAfter);
+        log.debug("Key {} is rate limited, concurrency={}, pause={}", name, (int) concurrencyLimit, retryAfter);
+    }
+
+    /**
+     * The key has no credits: the window drops to one request and the key is paused.
+     */
+    public synchronized void onPaymentRequired(Duration retryAfter) {
+        release();
+        concurrencyLimit = 1;
+        pause(retryAfter);
+    }
+
+    public synchronized void pause(Duration duration) {
+        var now = nanoClock.getAsLong();
+        tokens = 0;
+        refilledAt = now;
+        pausedUntil = Math.max(pausedUntil, now + duration.toNanos());
+    }
+
+    public synchronized boolean isPaused() {
+        return nanoClock.getAsLong() < pausedUntil;
+    }
+
+    public synchronized Duration pausedFor() {
+        return Duration.ofNanos(Math.max(0, pausedUntil - nanoClock.getAsLong()));
+    }
+
+    public synchronized int getConcurrencyLimit() {
+        return (int) concurrencyLimit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    @Override
+    public String toString() {
+        return "KeyRateLimiter(" + name + ")";
+    }
+
+    /* ============= */
+
+    private void release() {
+        inFlight = Math.max(0, inFlight - 1);
+    }
+
+    private void refill(long now) {
+        if (now > refilledAt) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * refillPerNano);
+            refilledAt = now;
+        }
+    }
+
+}
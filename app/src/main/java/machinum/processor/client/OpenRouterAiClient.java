@@ -14,8 +14,6 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 
-import static machinum.util.JavaUtil.sleep;
-
 /**
  * Client implementation for interacting with OpenRouter AI services.
  * This class manages multiple client connections and handles retry logic
@@ -46,8 +44,10 @@ public class OpenRouterAiClient implements AiClient {
         int clientsSize = clientPool.availableSize();
         for (int attempt = 0; attempt < clientsSize; attempt++) {
             log.debug("Attempting to execute request with client, attempt: {}", attempt + 1);
+            currentClient = null;
             try {
-                currentClient = clientPool.getAvailableClient();
+                // Waits for the rate limiter of some client instead of running into 429
+                currentClient = clientPool.acquire().join();
 
                 var spec = currentClient.execute((client, model) -> {
                     ChatOptions options = localPrompt.getOptions();
@@ -60,7 +60,10 @@ public class OpenRouterAiClient implements AiClient {
                 });
 
                 log.trace("Executing request: {}", assistantContext);
-                return executeOriginRequest(spec);
+                var result = executeOriginRequest(spec);
+                clientPool.onSuccess(currentClient);
+
+                return result;
 
             } catch (Exception e) {
                 log.error("|X-- Error during OpenRouter execution (attempt {}): {}|{}",
@@ -75,8 +78,6 @@ public class OpenRouterAiClient implements AiClient {
                 if (attempt == clientsSize - 1) {
                     break;
                 }
-
-                sleep(1000);
             }
         }
 
@@ -168,6 +169,7 @@ public class OpenRouterAiClient implements AiClient {
             log.warn("|X-- Free model limit exceeded: {}", errorMessage);
         } else if (isRetryableError(e)) {
             // Don't block client for retryable errors like network issues
+            clientPool.onFailure(client);
             log.warn("|X-- Retryable error: {}", errorMessage);
         } else {
             // Non-rate-limit error, disable client and try next if available
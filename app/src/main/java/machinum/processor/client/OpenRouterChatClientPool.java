@@ -16,23 +16,26 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
 
 import static machinum.util.JavaUtil.parseDuration;
-import static machinum.util.JavaUtil.sleep;
 
 @Slf4j
-@RequiredArgsConstructor
-public class OpenRouterChatClientPool {
+public class OpenRouterChatClientPool implements AutoCloseable {
 
     private final List<OpenRouterClientItem> clients;
-    private final AtomicInteger currentIndex = new AtomicInteger(0);
+    private final KeyDispatcher<OpenRouterClientItem> dispatcher;
     private HealthHelper.RateLimit rateLimit;
 
+    public OpenRouterChatClientPool(List<OpenRouterClientItem> clients) {
+        this.clients = clients;
+        this.dispatcher = new KeyDispatcher<>("openrouter", clients, OpenRouterClientItem::getLimiter,
+                client -> !client.isDisabled());
+    }
+
     public OpenRouterChatClientPool init(String apiUrl, String apiKey) {
         var result = new HealthHelper().check(apiUrl, apiKey);
 
@@ -47,10 +50,11 @@ public class OpenRouterChatClientPool {
             log.warn("API key has reached credit limit. Usage: {}, Limit: {}", data.getUsage(), data.getLimit());
         }
 
-        // Log rate limit information
+        // All models share the rate limit of the key
         if (data.getRateLimit() != null) {
             log.info("Openrouter Rate limit: {} requests per {}", data.getRateLimit().getRequests(), data.getRateLimit().getInterval());
             this.rateLimit = data.getRateLimit();
+            applyRateLimit(rateLimit);
         }
 
         // Log free tier limitations
@@ -68,75 +72,75 @@ public class OpenRouterChatClientPool {
         return this;
     }
 
-    public OpenRouterClientItem getAvailableClient() {
-        // First, try to use the current client if it's available
-        var currentClient = clients.get(currentIndex.get());
-        if (currentClient.isAvailable()) {
-            return currentClient;
-        }
-
-        // Move to next client in rotation
-        currentIndex.getAndIncrement();
-
-        // First pass: check for immediately available clients
-        for (int i = 0; i < clients.size(); i++) {
-            int index = currentIndex.getAndIncrement() % clients.size();
-            var client = clients.get(index);
-            if (client.isAvailable()) {
-                return client;
-            }
-        }
-
-        // Second pass: find client with shortest remaining block time
-        OpenRouterClientItem nextAvailable = null;
-        LocalDateTime earliestUnblock = null;
-
-        for (var client : clients) {
-            if (client.getBlockedUntil() != null) {
-                if (earliestUnblock == null || client.getBlockedUntil().isBefore(earliestUnblock)) {
-                    earliestUnblock = client.getBlockedUntil();
-                    nextAvailable = client;
-                }
-            }
-        }
-
-        if (nextAvailable != null) {
-            long waitSeconds = Duration.between(LocalDateTime.now(), earliestUnblock).getSeconds();
-            log.warn("All clients rate limited. Next available in {} seconds", Math.max(0, waitSeconds));
-
-            waitUntilFree(waitSeconds);
+    /**
+     * Takes a permit of the next client that is allowed to send a request. The future completes when
+     * the rate limiter of some client allows it, the caller must report the result with
+     * {@link #onSuccess}, {@link #onFailure} or one of the error handlers.
+     *
+     * @return future of the client to use
+     */
+    public CompletableFuture<OpenRouterClientItem> acquire() {
+        return dispatcher.acquire();
+    }
 
-            // Try again after waiting
-            return getAvailableClient();
-        }
+    public void onSuccess(OpenRouterClientItem client) {
+        client.getLimiter().onSuccess();
+        dispatcher.dispatch();
+    }
 
-        throw new AppIllegalStateException("No available OpenRouter clients. All clients are rate-limited.");
+    public void onFailure(OpenRouterClientItem client) {
+        client.getLimiter().onFailure();
+        dispatcher.dispatch();
     }
 
     public void handleRateLimitError(OpenRouterClientItem client, String errorMessage) {
         long retryDelay = extractRetryDelay(errorMessage);
-        client.blockClient(retryDelay);
+        client.getLimiter().onRateLimited(Duration.ofSeconds(retryDelay));
+        dispatcher.dispatch();
         log.warn("Client blocked due to rate limit. Retry in {} seconds", retryDelay);
     }
 
     public void handle402Error(OpenRouterClientItem client) {
         // Block client for longer duration on 402 errors (negative balance)
-        client.blockClient(300); // 5 minutes
+        client.getLimiter().onPaymentRequired(Duration.ofMinutes(5));
+        dispatcher.dispatch();
         log.error("Client blocked due to 402 error (negative balance). Add credits to continue using API");
     }
 
     public void handleDDoSProtection(OpenRouterClientItem client) {
         // Block client for extended period on DDoS protection trigger
-        client.blockClient(600); // 10 minutes
+        client.getLimiter().onRateLimited(Duration.ofMinutes(10));
+        dispatcher.dispatch();
         log.error("Client blocked due to DDoS protection. Reduce request frequency");
     }
 
     public void disableClient(OpenRouterClientItem client) {
         client.disableClient();
+        client.getLimiter().onFailure();
+        dispatcher.dispatch();
     }
 
+    /**
+     * @return number of clients that are not disabled, rate limited ones included
+     */
     public int availableSize() {
-        return (int) clients.stream().filter(OpenRouterClientItem::isAvailable).count();
+        return dispatcher.enabledSize();
+    }
+
+    @Override
+    public void close() {
+        dispatcher.close();
+    }
+
+    private void applyRateLimit(HealthHelper.RateLimit rateLimit) {
+        try {
+            if (rateLimit.getRequests() > 0 && !clients.isEmpty()) {
+                var share = (double) rateLimit.getRequests() / clients.size();
+                clients.forEach(client -> client.getLimiter().limitRate(share, rateLimit.interval()));
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Can't parse rate limit interval: {}", rateLimit.getInterval());
+        }
     }
 
     private long extractRetryDelay(String errorMessage) {
@@ -169,11 +173,6 @@ public class OpenRouterChatClientPool {
         return 10; // Default 10 seconds if can't parse
     }
 
-    private void waitUntilFree(long waitSeconds) {
-        log.warn("Waiting for {} seconds", waitSeconds);
-        sleep(Math.max(0, waitSeconds) * 1000L);
-    }
-
     @Getter
     @ToString
     @RequiredArgsConstructor
@@ -182,52 +181,22 @@ public class OpenRouterChatClientPool {
         @ToString.Exclude
         private final ChatClient client;
         private final String model;
+        @ToString.Exclude
+        private final KeyRateLimiter limiter;
 
-        private LocalDateTime blockedUntil;
-        private boolean isBlocked;
-        private boolean disabled = false;
+        private volatile boolean disabled = false;
 
         public <T> T execute(BiFunction<ChatClient, String, T> function) {
-            if (!isAvailable()) {
-                throw new AppIllegalStateException("Client is currently blocked due to rate limits");
+            if (disabled) {
+                throw new AppIllegalStateException("Client is disabled: %s", model);
             }
             return function.apply(client, model);
         }
 
-        public boolean isAvailable() {
-            if (disabled) return false;
-
-            if (!isBlocked) return true;
-            if (blockedUntil != null && LocalDateTime.now().isAfter(blockedUntil)) {
-                unblockClient();
-                return true;
-            }
-
-            log.debug("Client is still blocked, time to wait: {}s", getSecondsUntilAvailable());
-            return false;
-        }
-
-        public void blockClient(long retryDelaySeconds) {
-            this.isBlocked = true;
-            this.blockedUntil = LocalDateTime.now().plusSeconds(retryDelaySeconds);
-            log.debug("Client blocked until: {}, model={}", blockedUntil, model);
-        }
-
         public void disableClient() {
             this.disabled = true;
             log.debug("Client disabled: {}", model);
         }
-
-        private void unblockClient() {
-            this.isBlocked = false;
-            this.blockedUntil = null;
-            log.debug("Client unblocked and available for use: {}", model);
-        }
-
-        public long getSecondsUntilAvailable() {
-            if (!isBlocked || blockedUntil == null) return 0;
-            return Math.max(0, Duration.between(LocalDateTime.now(), blockedUntil).getSeconds());
-        }
     }
 
     public static class HealthHelper {
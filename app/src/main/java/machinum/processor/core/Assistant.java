@@ -1,11 +1,11 @@
 package machinum.processor.core;
 
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import machinum.config.Constants;
 import machinum.exception.AppIllegalStateException;
 import machinum.flow.model.FlowContext;
+import machinum.processor.core.AssistantContext.MessageCount;
 import machinum.processor.core.AssistantContext.OutputType;
 import machinum.processor.exception.NoDataException;
 import machinum.util.CodeBlockExtractor;
@@ -14,22 +14,18 @@ import machinum.util.PropertiesParser;
 import machinum.util.TraceUtil;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.ai.ollama.api.OllamaOptions;
 import org.springframework.cache.CacheHelper;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StreamUtils;
 
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.function.Function;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static machinum.config.Constants.CHAPTER;
+import static machinum.flow.model.HashSupport.hashStringWith128Bit;
 import static machinum.flow.model.HashSupport.hashStringWithCRC32;
 import static machinum.processor.core.PromptConstants.NO_DATA_KEYWORD;
 import static machinum.service.plugin.StatisticPlugin.withStatistics;
@@ -42,14 +38,14 @@ import static machinum.util.TextUtil.*;
 @RequiredArgsConstructor
 public class Assistant {
 
-    private static final Pattern VAR_PATTERN = Pattern.compile("\\{(\\w+)}");
-
     private final AssistantClient assistantClient;
 
     private final CacheHelper cacheHelper;
 
     private final AssistantConverter assistantConverter;
 
+    private final PromptTemplateRegistry promptTemplates;
+
 
     public AssistantContext.Result process(AssistantContext assistantContext) {
         return TraceUtil.trace("assistant", () -> doProcess(assistantContext));
@@ -57,13 +53,18 @@ public class Assistant {
 
     private AssistantContext.Result doProcess(AssistantContext assistantContext) {
         var localHistory = new ArrayList<>(assistantContext.getHistory());
+        var historyCounts = localHistory.stream()
+                .map(MessageCount::of)
+                .collect(Collectors.toCollection(ArrayList::new));
         var chunkWordCount = countWords(assistantContext.getText());
-        var historyWordCount = countHistoryWords(localHistory);
         var values = new HashMap<>(assistantContext.getInputs());
         var resultContext = AssistantContext.Result.createNew(b -> b.history(localHistory)
+                .historyCounts(historyCounts)
                 .context(assistantContext)
                 .resultHistory(assistantContext.getResult().getResultHistory())
         );
+        var historyWordCount = resultContext.historyWords(localHistory.size());
+        var historyTokenCount = resultContext.historyTokens(localHistory.size());
         assistantContext.setResult(resultContext);
         var name = assistantContext.getOperation() + hashStringWithCRC32(assistantContext.getText());
         var options = assistantClient.parseOptions(assistantContext);
@@ -78,13 +79,16 @@ public class Assistant {
         var report = duration.measure(name, () -> {
             values.put("text", assistantContext.getText());
 
-            var message = fillVars(values, assistantContext.getActionResource(), new PromptTemplate(assistantContext.getActionResource()))
+            var template = promptTemplates.get(assistantContext.getActionResource());
+            var message = template.create(values)
                     .createMessage();
+            var messageCount = new MessageCount(template.countTokens(message.getText()), countWords(message.getText()));
 
             localHistory.add(message);
+            historyCounts.add(messageCount);
 
-            var totalTokens = countHistoryTokens(localHistory);
-            var totalWords = countHistoryWords(localHistory);
+            var totalTokens = historyTokenCount + messageCount.tokens();
+            var totalWords = historyWordCount + messageCount.words();
             var rayId = TraceUtil.getCurrentRayId();
 
             log.debug("""
@@ -104,12 +108,12 @@ public class Assistant {
                     formatVars(assistantContext.getInputs()),
                     totalTokens, totalWords,
                     options.getNumCtx() - totalTokens, calculatePercent(totalTokens, options.getNumCtx()),
-                    localHistory.size(), historyWordCount, -1,
+                    localHistory.size(), historyWordCount, historyTokenCount,
                     indent(toShortHistoryDescription(localHistory)));
 
             var prompt = new Prompt(localHistory, options);
             try {
-                var response = work(assistantContext, prompt, ignoreCacheMode);
+                var response = work(assistantContext, prompt, options, ignoreCacheMode);
                 var content = parseContent(response.getText());
 
                 if (Objects.nonNull(assistantContext.getOutputClass())) {
@@ -117,6 +121,7 @@ public class Assistant {
                 }
 
                 localHistory.add(response.getMessage());
+                historyCounts.add(MessageCount.of(response.getMessage()));
                 resultContext.replaceResult(content);
                 resultContext.setOllamaOptions(options);
 
@@ -136,8 +141,7 @@ public class Assistant {
 
                 return resultContext;
             } catch (Exception e) {
-                var cacheKey = hashStringWithCRC32(prompt.getContents());
-                cacheHelper.evictValue(cacheKey);
+                cacheHelper.evictValue(cacheKey(prompt, options));
                 ExceptionUtils.rethrow(e);
                 return null;
             }
@@ -152,8 +156,9 @@ public class Assistant {
 
     /* ============= */
 
-    private AssistantClient.Result work(AssistantContext assistantContext, Prompt prompt, Boolean ignoreCacheMode) {
-        var key = hashStringWithCRC32(prompt.getContents());
+    private AssistantClient.Result work(AssistantContext assistantContext, Prompt prompt, OllamaOptions options,
+                                        Boolean ignoreCacheMode) {
+        var key = cacheKey(prompt, options);
 
         if (ignoreCacheMode) {
             log.debug("Clear cache, to execute again for: {}", key);
@@ -165,31 +170,22 @@ public class Assistant {
         return cacheHelper.getOrCreate(key, () -> assistantClient.call(assistantContext, prompt));
     }
 
-    private PromptTemplate fillVars(Map<String, String> inputs, Resource template, PromptTemplate promptTemplate) {
-        Set<String> requiredVars = extractVariables(template);
-
-        for (String attribute : requiredVars) {
-            log.trace("Found var in template: {}", attribute);
-
-            if (inputs.containsKey(attribute)) {
-                String value = inputs.get(attribute);
-                log.debug("Filling in the template: {} => '{}...'", attribute, toShortDescription(value));
-                promptTemplate.add(attribute, value);
-            }
+    /**
+     * Builds a 128-bit key over the messages, the model and the options, so the same prompt
+     * sent to another model or with another temperature gets its own cache entry.
+     */
+    private String cacheKey(Prompt prompt, OllamaOptions options) {
+        var builder = new StringBuilder();
+        for (var message : prompt.getInstructions()) {
+            builder.append(message.getMessageType().getValue())
+                    .append(':')
+                    .append(message.getText())
+                    .append('\n');
         }
+        builder.append("model:").append(options.getModel()).append('\n')
+                .append("options:").append(new TreeMap<>(options.toMap()));
 
-        return promptTemplate;
-    }
-
-    @SneakyThrows
-    private Set<String> extractVariables(Resource template) {
-        var templateContent = StreamUtils.copyToString(template.getInputStream(), StandardCharsets.UTF_8);
-        Set<String> variables = new HashSet<>();
-        Matcher matcher = VAR_PATTERN.matcher(templateContent);
-        while (matcher.find()) {
-            variables.add(matcher.group(1));
-        }
-        return variables;
+        return hashStringWith128Bit(builder.toString());
     }
 
     private String parseContent(String content) {
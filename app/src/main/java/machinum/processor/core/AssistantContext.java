@@ -15,6 +15,10 @@ import java.util.*;
 import java.util.function.Function;
 
 import static machinum.util.JavaUtil.newId;
+import static machinum.util.TextUtil.countHistoryTokens;
+import static machinum.util.TextUtil.countHistoryWords;
+import static machinum.util.TextUtil.countTokens;
+import static machinum.util.TextUtil.countWords;
 
 @Data
 @AllArgsConstructor
@@ -171,6 +175,10 @@ public class AssistantContext implements Mergeable<AssistantContext> {
         @Builder.Default
         private List<Message> history = new ArrayList<>();
 
+        // Counts of the history messages in the same order, so every message is tokenized once per request
+        @Builder.Default
+        private List<MessageCount> historyCounts = new ArrayList<>();
+
         private OllamaOptions ollamaOptions;
 
         private AssistantContext context;
@@ -215,6 +223,32 @@ public class AssistantContext implements Mergeable<AssistantContext> {
             return (T) entity;
         }
 
+        /**
+         * Returns the tokens of the first messages of the history, they are counted again when no counts were kept.
+         */
+        public int historyTokens(int size) {
+            if (historyCounts.size() < size) {
+                return countHistoryTokens(history.subList(0, size));
+            }
+
+            return historyCounts.subList(0, size).stream()
+                    .mapToInt(MessageCount::tokens)
+                    .sum();
+        }
+
+        /**
+         * Returns the words of the first messages of the history, they are counted again when no counts were kept.
+         */
+        public int historyWords(int size) {
+            if (historyCounts.size() < size) {
+                return countHistoryWords(history.subList(0, size));
+            }
+
+            return historyCounts.subList(0, size).stream()
+                    .mapToInt(MessageCount::words)
+                    .sum();
+        }
+
         public Result copy(Function<Result.ResultBuilder, Result.ResultBuilder> fn) {
             return fn.apply(this.toBuilder())
                     .build();
@@ -253,10 +287,22 @@ public class AssistantContext implements Mergeable<AssistantContext> {
 
             newThis.history.clear();
             newThis.history.addAll(other.getHistory());
+            newThis.historyCounts = new ArrayList<>(other.getHistoryCounts());
 
             return newThis;
         }
 
     }
 
+    /**
+     * Token and word counts of a message.
+     */
+    public record MessageCount(int tokens, int words) {
+
+        public static MessageCount of(Message message) {
+            return new MessageCount(countTokens(message.getText()), countWords(message.getText()));
+        }
+
+    }
+
 }
@@ -0,0 +1,182 @@
+package machinum.processor.core;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import machinum.util.TextUtil;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import static machinum.util.TextUtil.toShortDescription;
+
+/**
+ * Keeps the prompt templates compiled, so the resources are read, scanned for variables and the static prefix is
+ * tokenized once instead of on every LLM call.
+ * All templates under {@code resources/prompts} are loaded on startup, other resources are compiled on first use.
+ * With {@code app.prompts.reload-enabled} a template is compiled again once its file has changed, which is meant
+ * for editing prompts in dev mode.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PromptTemplateRegistry {
+
+    public static final String PROMPTS_LOCATION = "classpath*:prompts/**/*.ST";
+
+    private static final Pattern VAR_PATTERN = Pattern.compile("\\{(\\w+)}");
+
+    @Value("${app.prompts.reload-enabled:false}")
+    private final Boolean reloadEnabled;
+
+    private final ResourceLoader resourceLoader;
+
+    private final Map<String, CompiledTemplate> templates = new ConcurrentHashMap<>();
+
+    @SneakyThrows
+    @PostConstruct
+    public void init() {
+        var resources = ResourcePatternUtils.getResourcePatternResolver(resourceLoader)
+                .getResources(PROMPTS_LOCATION);
+        for (var resource : resources) {
+            templates.put(keyOf(resource), compile(resource));
+        }
+
+        log.info("Compiled {} prompt templates from {}", templates.size(), PROMPTS_LOCATION);
+    }
+
+    /**
+     * Returns the compiled template for the given resource, compiling it on first use.
+     */
+    public CompiledTemplate get(Resource resource) {
+        var key = keyOf(resource);
+        var template = templates.computeIfAbsent(key, k -> compile(resource));
+
+        if (reloadEnabled && template.lastModified() != lastModified(resource)) {
+            log.debug("Prompt template has been changed, compiling again: {}", key);
+            template = compile(resource);
+            templates.put(key, template);
+        }
+
+        return template;
+    }
+
+    /**
+     * Creates a prompt template for the given resource, filled with the inputs the template refers to.
+     */
+    public PromptTemplate create(Resource resource, Map<String, String> inputs) {
+        return get(resource).create(inputs);
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    /* ============= */
+
+    @SneakyThrows
+    private CompiledTemplate compile(Resource resource) {
+        var content = StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8);
+        var variables = new LinkedHashSet<String>();
+        var firstVariable = -1;
+        var matcher = VAR_PATTERN.matcher(content);
+        while (matcher.find()) {
+            if (firstVariable < 0) {
+                firstVariable = matcher.start();
+            }
+            variables.add(matcher.group(1));
+        }
+        var staticPrefix = content.substring(0, firstVariable < 0 ? content.length() : prefixEnd(content, firstVariable));
+
+        return new CompiledTemplate(content, Collections.unmodifiableSet(variables), staticPrefix,
+                TextUtil.countTokens(staticPrefix), reloadEnabled ? lastModified(resource) : -1L);
+    }
+
+    /**
+     * Finds the end of the text every prompt of the template starts with, at the last line break followed by
+     * text before the first variable. The tokenizer always splits there, so the tokens of the prefix and of
+     * the rest add up to the tokens of the whole message.
+     */
+    private static int prefixEnd(String content, int firstVariable) {
+        for (int i = firstVariable - 1; i > 0; i--) {
+            if (content.charAt(i - 1) == '\n' && !Character.isWhitespace(content.charAt(i))) {
+                return i;
+            }
+        }
+
+        return 0;
+    }
+
+    private static String keyOf(Resource resource) {
+        try {
+            return resource.getURL().toExternalForm();
+        } catch (IOException e) {
+            return resource.getDescription();
+        }
+    }
+
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * A prompt template read and parsed once.
+     *
+     * @param content            the text of the template
+     * @param variables          the names of the variables the template refers to
+     * @param staticPrefix       the text before the first variable, which every prompt of the template starts with
+     * @param staticPrefixTokens the number of tokens of the static prefix
+     * @param lastModified       the modification time of the resource, -1 when it isn't tracked
+     */
+    public record CompiledTemplate(String content, Set<String> variables, String staticPrefix,
+                                   int staticPrefixTokens, long lastModified) {
+
+        /**
+         * Creates a new {@link PromptTemplate} on every call, as it keeps the filled values and can't be shared.
+         */
+        public PromptTemplate create(Map<String, String> inputs) {
+            var promptTemplate = new PromptTemplate(content);
+
+            for (var variable : variables) {
+                log.trace("Found var in template: {}", variable);
+
+                if (inputs.containsKey(variable)) {
+                    var value = inputs.get(variable);
+                    log.debug("Filling in the template: {} => '{}...'", variable, toShortDescription(value));
+                    promptTemplate.add(variable, value);
+                }
+            }
+
+            return promptTemplate;
+        }
+
+        /**
+         * Counts the tokens of a prompt rendered from this template, only the text after the static prefix is
+         * tokenized.
+         */
+        public int countTokens(String rendered) {
+            if (!staticPrefix.isEmpty() && rendered.startsWith(staticPrefix)) {
+                return staticPrefixTokens + TextUtil.countTokens(rendered.substring(staticPrefix.length()));
+            }
+
+            return TextUtil.countTokens(rendered);
+        }
+
+    }
+
+}
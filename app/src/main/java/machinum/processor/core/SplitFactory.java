@@ -45,6 +45,8 @@ public class SplitFactory {
                     new SplitStrategy.SentenceSplitter(parse(context, MAX_CHARACTERS_PER_CHUNK_PARAM, contentWindow));
             case BALANCED_SENTENCE ->
                     new SplitStrategy.BalancedSentenceSplitter(parse(context, MAX_CHARACTERS_PER_CHUNK_PARAM, contentWindow));
+            case TOKENS ->
+                    new SplitStrategy.TokenSplitter(parse(context, MAX_TOKENS_PER_CHUNK_PARAM, contentWindow), parse(context, OVERLAP_SIZE_PARAM, 0));
             default -> throw new IllegalArgumentException("Unknown type: " + type);
         };
     }
@@ -64,6 +66,7 @@ public class SplitFactory {
         BALANCED_PART,
         SENTENCE,
         BALANCED_SENTENCE,
+        TOKENS,
 
     }
 
@@ -1,13 +1,16 @@
 package machinum.processor.core;
 
+import com.knuddels.jtokkit.api.IntArrayList;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import machinum.extract.util.TextBalancer;
+import machinum.util.TextUtil;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -23,6 +26,14 @@ public interface SplitStrategy {
 
     List<String> split(String text);
 
+    /**
+     * Splits the text for the given token budget of a chunk, strategies without a token budget
+     * ignore the value.
+     */
+    default List<String> splitByTokens(String text, int maxTokensPerChunk) {
+        return split(text);
+    }
+
     interface Balanced {
 
         static List<String> rebalance(List<String> input) {
@@ -412,4 +423,287 @@ public interface SplitStrategy {
 
     }
 
+    /**
+     * Single pass splitter with an exact token budget.
+     * The text is tokenized once and cut into segments that end on a line or a sentence break at a token
+     * offset, chunk boundaries are picked from the prefix sums of segment tokens: every chunk gets about
+     * the same share of the remaining tokens, a line break close to that point is preferred over a sentence
+     * break. Overlap is taken from whole segments at the end of the previous chunk.
+     */
+    @Slf4j
+    class TokenSplitter implements SplitStrategy {
+
+        private static final int LINE_BREAK = 2;
+        private static final int SENTENCE_BREAK = 1;
+        private static final int WORD_BREAK = 0;
+
+        private final int maxTokensPerChunk;
+        private final int overlapTokens;
+
+        public TokenSplitter(int maxTokensPerChunk, int overlapTokens) {
+            if (maxTokensPerChunk < 1) {
+                throw new IllegalArgumentException("Max tokens per chunk must be positive");
+            }
+
+            this.maxTokensPerChunk = maxTokensPerChunk;
+            this.overlapTokens = Math.max(overlapTokens, 0);
+        }
+
+        @Override
+        public List<String> split(String text) {
+            return splitByTokens(text, maxTokensPerChunk);
+        }
+
+        @Override
+        public List<String> splitByTokens(@NonNull String text, int maxTokensPerChunk) {
+            var budget = Math.max(maxTokensPerChunk, 1);
+            var segments = Segments.of(text, budget);
+            var total = segments.prefix[segments.size];
+            if (total <= budget) {
+                return List.of(text);
+            }
+
+            var result = new ArrayList<String>();
+            int from = 0;
+            while (from < segments.size) {
+                var to = segments.nextBoundary(from, budget);
+                var start = segments.overlapStart(from, overlapTokens);
+                result.add(text.substring(segments.starts[start], segments.ends[to - 1]));
+                from = to;
+            }
+
+            log.debug("Splitting up document via 'Tokens': chunks[{}]={}", result.size(), toChunkSize(result));
+
+            return result;
+        }
+
+        /**
+         * Segments of a text with their token counts and prefix sums.
+         */
+        static final class Segments {
+
+            // Byte length per token id of the encoding, decoded once on first use, 0 when not known yet
+            private static final short[] TOKEN_BYTES = new short[1 << 17];
+
+            private int[] starts = new int[64];
+            private int[] ends = new int[64];
+            private int[] kinds = new int[64];
+            private int[] prefix = new int[65];
+            private int size;
+
+            static Segments of(String text, int budget) {
+                var segments = new Segments();
+                var offsets = tokenOffsets(text);
+                var tokens = offsets.length - 1;
+                int startToken = 0;
+                int token = 0;
+                int length = text.length();
+                int i = 0;
+                while (i < length) {
+                    var ch = text.charAt(i);
+                    int kind = -1;
+                    if (ch == '\n') {
+                        kind = LINE_BREAK;
+                    } else if ((ch == '.' || ch == '!' || ch == '?' || ch == '\u2026')
+                            && (i + 1 == length || Character.isWhitespace(text.charAt(i + 1)))) {
+                        kind = SENTENCE_BREAK;
+                    }
+
+                    i++;
+                    if (kind < 0) {
+                        continue;
+                    }
+
+                    // Trailing whitespace belongs to the segment, a line break inside it upgrades the break
+                    while (i < length && Character.isWhitespace(text.charAt(i))) {
+                        if (text.charAt(i) == '\n') {
+                            kind = LINE_BREAK;
+                        }
+                        i++;
+                    }
+
+                    // Cut at the last token start within the break, whitespace merged into the next token moves on
+                    while (token < tokens && offsets[token + 1] <= i) {
+                        token++;
+                    }
+                    if (token > startToken) {
+                        segments.addSegment(text, offsets, startToken, token, kind, budget);
+                        startToken = token;
+                    }
+                }
+
+                if (startToken < tokens) {
+                    segments.addSegment(text, offsets, startToken, tokens, LINE_BREAK, budget);
+                }
+
+                return segments;
+            }
+
+            /**
+             * Picks the end (exclusive segment index) of the chunk starting at the given segment.
+             */
+            int nextBoundary(int from, int budget) {
+                var remaining = prefix[size] - prefix[from];
+                if (remaining <= budget) {
+                    return size;
+                }
+
+                var chunks = (remaining + budget - 1) / budget;
+                var target = prefix[from] + remaining / chunks;
+                var limit = prefix[from] + budget;
+                var tolerance = Math.max(budget / 10, 1);
+
+                // Last segment end that fits the budget, at least one segment per chunk
+                var maxEnd = Math.max(upperBound(limit, from + 1), from + 1);
+                var best = -1;
+                var bestScore = Long.MAX_VALUE;
+                for (int end = maxEnd; end > from; end--) {
+                    var distance = Math.abs(prefix[end] - target);
+                    if (prefix[end] < target - tolerance && best > 0) {
+                        break;
+                    }
+
+                    // Line breaks near the target win over closer sentence breaks
+                    long score = (long) distance * 4 + (LINE_BREAK - kinds[end - 1]) * (long) tolerance * 2;
+                    if (score < bestScore) {
+                        bestScore = score;
+                        best = end;
+                    }
+                }
+
+                return best;
+            }
+
+            /**
+             * First segment of the overlap, taken backwards from the chunk start within the token budget.
+             */
+            int overlapStart(int from, int overlapTokens) {
+                var start = from;
+                while (start > 0 && prefix[from] - prefix[start - 1] <= overlapTokens) {
+                    start--;
+                }
+
+                return start;
+            }
+
+            private int upperBound(int limit, int minEnd) {
+                int low = minEnd;
+                int high = size;
+                int result = minEnd - 1;
+                while (low <= high) {
+                    int mid = (low + high) >>> 1;
+                    if (prefix[mid] <= limit) {
+                        result = mid;
+                        low = mid + 1;
+                    } else {
+                        high = mid - 1;
+                    }
+                }
+
+                return result;
+            }
+
+            private void addSegment(String text, int[] offsets, int startToken, int endToken, int kind, int budget) {
+                if (endToken - startToken <= budget) {
+                    append(offsets[startToken], offsets[endToken], kind, endToken - startToken);
+                    return;
+                }
+
+                // Too long for a chunk, fall back to tokens that start a word, or to the budget inside a word
+                int from = startToken;
+                for (int token = startToken + 1; token < endToken; token++) {
+                    var wordStart = Character.isWhitespace(text.charAt(offsets[token]))
+                            && !Character.isWhitespace(text.charAt(offsets[token - 1]));
+                    if (wordStart || token - from == budget) {
+                        append(offsets[from], offsets[token], WORD_BREAK, token - from);
+                        from = token;
+                    }
+                }
+                append(offsets[from], offsets[endToken], kind, endToken - from);
+            }
+
+            /**
+             * Encodes the text once and maps every token to the character where it starts,
+             * the last element is the text length.
+             */
+            private static int[] tokenOffsets(String text) {
+                var tokens = TextUtil.ENCODING.encodeOrdinary(text);
+                var offsets = new int[tokens.size() + 1];
+                long tokenBytes = 0;
+                long textBytes = 0;
+                int position = 0;
+                for (int i = 0; i < tokens.size(); i++) {
+                    // A token may start inside a multibyte character, it's mapped to that character
+                    while (position < text.length()) {
+                        var codePoint = text.codePointAt(position);
+                        var bytes = utf8Length(codePoint);
+                        if (textBytes + bytes > tokenBytes) {
+                            break;
+                        }
+                        textBytes += bytes;
+                        position += Character.charCount(codePoint);
+                    }
+                    offsets[i] = position;
+                    tokenBytes += byteLength(tokens.get(i));
+                }
+                offsets[tokens.size()] = text.length();
+
+                return offsets;
+            }
+
+            private static int byteLength(int token) {
+                if (token < 0 || token >= TOKEN_BYTES.length) {
+                    return decodeBytes(token);
+                }
+
+                // Concurrent callers may both decode a token, they store the same length
+                int bytes = TOKEN_BYTES[token];
+                if (bytes == 0) {
+                    bytes = decodeBytes(token);
+                    TOKEN_BYTES[token] = (short) bytes;
+                }
+
+                return bytes;
+            }
+
+            private static int decodeBytes(int token) {
+                var single = new IntArrayList(1);
+                single.add(token);
+
+                return TextUtil.ENCODING.decodeBytes(single).length;
+            }
+
+            private static int utf8Length(int codePoint) {
+                if (codePoint < 0x80 || Character.isSurrogate((char) codePoint)) {
+                    // Unpaired surrogates are encoded as '?'
+                    return 1;
+                } else if (codePoint < 0x800) {
+                    return 2;
+                } else if (codePoint < 0x10000) {
+                    return 3;
+                }
+
+                return 4;
+            }
+
+            private void append(int start, int end, int kind, int tokens) {
+                if (size == starts.length) {
+                    var capacity = size * 2;
+                    starts = Arrays.copyOf(starts, capacity);
+                    ends = Arrays.copyOf(ends, capacity);
+                    kinds = Arrays.copyOf(kinds, capacity);
+                    prefix = Arrays.copyOf(prefix, capacity + 1);
+                }
+
+                starts[size] = start;
+                ends[size] = end;
+                kinds[size] = kind;
+                prefix[size + 1] = prefix[size] + tokens;
+                size++;
+            }
+
+        }
+
+    }
+
 }
@@ -78,6 +78,20 @@ public interface BookRepository extends JpaRepository<BookEntity, String> {
             WHERE id = :id""", nativeQuery = true)
     void addProcessedChunk(@Param("id") String id, @Param("processedChunk") String processedChunk);
 
+    @Modifying
+    @Query(value = //language=sql
+            """
+                    UPDATE books SET 
+                    book_state = jsonb_set(jsonb_set(jsonb_set(jsonb_set(CAST(book_state AS jsonb), 
+                            '{processedChunks}', COALESCE(CAST(book_state AS jsonb) -> 'processedChunks', CAST('[]' AS jsonb)) || CAST(:processedChunks AS jsonb)), 
+                            '{itemIndex}', to_jsonb(0)), 
+                            '{promptIndex}', to_jsonb(0)), 
+                            '{state}', to_jsonb(:state))
+                    WHERE id = :id""", nativeQuery = true)
+    void addProcessedChunks(@Param("id") String id,
+                            @Param("processedChunks") String processedChunks,
+                            @Param("state") String state);
+
     @Modifying
     @Query(value = "UPDATE books SET book_state = cast(:bookState as json) WHERE id = :id", nativeQuery = true)
     void changeBookState(@Param("id") String id, @Param("bookState") String bookState);
@@ -0,0 +1,116 @@
+package machinum.repository;
+
+import com.pgvector.PGvector;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Chunk level embeddings of chapter fields, stored in {@code chapter_chunk_embedding}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChapterChunkEmbeddingDao {
+
+    /**
+     * Fields with a partial HNSW index, see {@code V2_5__chapter_chunk_embedding.sql}.
+     */
+    public static final Set<String> FIELD_TYPES = Set.of("title", "translated_title", "text", "translated_text", "summary");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Replaces all chunk embeddings of the chapter.
+     *
+     * @param chapterId     the chapter id
+     * @param bookId        the book id
+     * @param chapterNumber the chapter number
+     * @param chunks        the chunks to store
+     */
+    public void replaceChunks(String chapterId, String bookId, Integer chapterNumber, List<Chunk> chunks) {
+        deleteByChapterId(chapterId);
+
+        if (chunks.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO chapter_chunk_embedding (chapter_id, field_type, chunk_index, book_id, chapter_number, content, embedding)
+                        VALUES (?, ?, ?, ?, ?, ?, ?)
+                        """, chunks, chunks.size(),
+                (ps, chunk) -> {
+                    ps.setString(1, chapterId);
+                    ps.setString(2, chunk.fieldType());
+                    ps.setInt(3, chunk.chunkIndex());
+                    ps.setString(4, bookId);
+                    ps.setInt(5, chapterNumber);
+                    ps.setString(6, chunk.content());
+                    ps.setObject(7, new PGvector(chunk.embedding()));
+                });
+
+        log.debug("Saved {} chunk embeddings for chapter: {}", chunks.size(), chapterId);
+    }
+
+    public void deleteByChapterId(String chapterId) {
+        jdbcTemplate.update("DELETE FROM chapter_chunk_embedding WHERE chapter_id = ?", chapterId);
+    }
+
+    /**
+     * Finds the nearest chunks of a field within a book. The field type is a literal of the query, so
+     * the planner can pick the partial HNSW index of that field even for a generic plan. The index
+     * returns the nearest chunks of all books, so iterative scan is enabled to keep scanning until
+     * {@code limit} chunks of the book are found; the distance threshold is applied to the candidates afterward.
+     *
+     * @param bookId    the book id
+     * @param embedding the query vector
+     * @param fieldType the field to search in, one of {@link #FIELD_TYPES}
+     * @param threshold maximum cosine distance
+     * @param limit     maximum number of chunks
+     * @return matching chunks ordered by distance
+     */
+    @Transactional(readOnly = true)
+    public List<ChunkMatch> findNearest(String bookId, float[] embedding, String fieldType, double threshold, int limit) {
+        if (!FIELD_TYPES.contains(fieldType)) {
+            throw new IllegalArgumentException("Unknown field type: " + fieldType);
+        }
+        var vector = new PGvector(embedding);
+
+        jdbcTemplate.execute("SET LOCAL hnsw.iterative_scan = strict_order");
+
+        return jdbcTemplate.query("""
+                        SELECT * FROM (
+                            SELECT chapter_id, field_type, chunk_index, content,
+                                   embedding <=> ? AS distance
+                            FROM chapter_chunk_embedding
+                            WHERE field_type = '%s'
+                              AND book_id = ?
+                            ORDER BY embedding <=> ?
+                            LIMIT ?
+                        ) candidates
+                        WHERE distance < ?
+                        ORDER BY distance
+                        """.formatted(fieldType),
+                (rs, rowNum) -> new ChunkMatch(
+                        rs.getString("chapter_id"),
+                        rs.getString("field_type"),
+                        rs.getInt("chunk_index"),
+                        rs.getString("content"),
+                        rs.getDouble("distance")),
+                vector, bookId, vector, limit, threshold);
+    }
+
+    /* ============= */
+
+    public record Chunk(String fieldType, int chunkIndex, String content, float[] embedding) {
+    }
+
+    public record ChunkMatch(String chapterId, String fieldType, int chunkIndex, String content, double distance) {
+    }
+
+}
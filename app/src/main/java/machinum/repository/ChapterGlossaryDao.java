@@ -6,13 +6,18 @@ import lombok.extern.slf4j.Slf4j;
 import machinum.config.Holder;
 import machinum.controller.ChapterController.GlossarySearchRequest;
 import machinum.model.ObjectName;
+import machinum.service.GlossaryNameMatcher;
+import machinum.service.GlossaryNameMatcher.Algorithm;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.InMemoryCache;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.PostConstruct;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Map;
+import java.time.Duration;
+import java.util.*;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -28,12 +33,19 @@ public class ChapterGlossaryDao {
 
     private final JdbcTemplate jdbcTemplate;
     private final Holder<ObjectMapper> objectMapperHolder;
+    @Value("${app.glossary.search.native-matcher:true}")
+    private final boolean nativeMatcher;
+    @Value("${app.glossary.search.matcher-ttl:1m}")
+    private final Duration matcherTtl;
 
     // Functional algorithm registry: algorithm name -> (request, bookId) -> results
     private Map<String, BiFunction<GlossarySearchRequest, String, List<GlossarySearchResult>>> algorithms;
+    // In-memory dictionaries of the edit distance and phonetic passes: bookId -> matcher
+    private InMemoryCache<String, GlossaryNameMatcher> matchers;
 
     @PostConstruct
     public void initializeAlgorithmRegistry() {
+        matchers = InMemoryCache.create(matcherTtl, 16);
         algorithms = Map.of(
                 "exact", (request, bookId) -> executeAlgorithm("find_glossary_exact_matches", request, bookId),
                 "contains", (request, bookId) -> executeAlgorithm("find_glossary_contains_matches", request, bookId),
@@ -60,8 +72,18 @@ public class ChapterGlossaryDao {
 
         final String algorithm = request.getAlgorithm() != null ? request.getAlgorithm() : "all";
 
+        // Edit distance and phonetic passes run in one go over the in-memory dictionary of the book
+        var nativeAlgorithms = EnumSet.noneOf(Algorithm.class);
+        if (nativeMatcher) {
+            Arrays.stream(Algorithm.values())
+                    .filter(value -> "all".equals(algorithm) || algorithm.equals(value.value()))
+                    .forEach(nativeAlgorithms::add);
+        }
+        var nativeResults = searchNative(bookId, request, nativeAlgorithms);
+
         // Execute algorithms based on selection
-        var allResults = algorithms.entrySet().stream()
+        var sqlResults = algorithms.entrySet().stream()
+                .filter(entry -> Algorithm.of(entry.getKey()).filter(nativeAlgorithms::contains).isEmpty())
                 .filter(entry -> {
                     if ("all".equals(algorithm)) {
                         return true; // Run all algorithms
@@ -80,7 +102,8 @@ public class ChapterGlossaryDao {
                         log.error("Error executing algorithm {}", entry.getKey(), e);
                         return Stream.empty();
                     }
-                })
+                });
+        var allResults = Stream.concat(nativeResults.stream(), sqlResults)
                 .toList();
 
         // Deduplicate by glossary_id (keep highest score for each unique term)
@@ -110,6 +133,80 @@ public class ChapterGlossaryDao {
         return sortedResults;
     }
 
+    /**
+     * Drops the cached dictionary of the book, e.g. after its glossary was edited.
+     * Within a transaction it is dropped again after commit, a concurrent search could load the old rows meanwhile.
+     */
+    public void invalidate(@NonNull String bookId) {
+        matchers.invalidate(bookId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    matchers.invalidate(bookId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Execute the given passes with {@link GlossaryNameMatcher} instead of the database functions.
+     */
+    private List<GlossarySearchResult> searchNative(String bookId, GlossarySearchRequest request, Set<Algorithm> nativeAlgorithms) {
+        if (nativeAlgorithms.isEmpty()) {
+            return List.of();
+        }
+
+        try {
+            var matcher = matchers.get(bookId, this::loadMatcher);
+            var matches = matcher.search(request.getSearchText(),
+                    Objects.requireNonNullElse(request.getChapterStart(), 1),
+                    Objects.requireNonNullElse(request.getChapterEnd(), Integer.MAX_VALUE),
+                    nativeAlgorithms);
+
+            return matches.stream()
+                    .map(this::toSearchResult)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error("Error executing algorithms {}", nativeAlgorithms, e);
+            return List.of();
+        }
+    }
+
+    private GlossaryNameMatcher loadMatcher(String bookId) {
+        var entries = jdbcTemplate.query("""
+                        SELECT id, chapter_id, number, name, translated_name, category, description, raw_json
+                        FROM chapter_glossary
+                        WHERE book_id = ? AND name IS NOT NULL
+                        """,
+                (rs, rowNum) -> new GlossaryNameMatcher.Entry(
+                        rs.getString("id"),
+                        rs.getString("chapter_id"),
+                        rs.getObject("number", Integer.class),
+                        rs.getString("name"),
+                        rs.getString("translated_name"),
+                        rs.getString("category"),
+                        rs.getString("description"),
+                        rs.getString("raw_json")),
+                bookId);
+        var matcher = new GlossaryNameMatcher(entries);
+        log.debug("Loaded glossary name matcher for bookId={}, names={}", bookId, matcher.size());
+
+        return matcher;
+    }
+
+    private GlossarySearchResult toSearchResult(GlossaryNameMatcher.Match match) {
+        var entry = match.entry();
+        var objectName = parseRawJson(entry.rawJson());
+        if (objectName == null) {
+            return null;
+        }
+
+        return new GlossarySearchResult(entry.id(), entry.chapterId(), entry.name(), entry.translatedName(),
+                entry.category(), entry.description(), entry.number(), match.searchType(), match.score(), objectName);
+    }
+
     /**
      * Execute a single algorithm with the given function name.
      */
@@ -141,7 +238,10 @@ public class ChapterGlossaryDao {
      * Parse the raw_json column into an ObjectName object
      */
     private ObjectName parseRawJson(Map<String, Object> row) {
-        String rawJson = (String) row.get("raw_json");
+        return parseRawJson((String) row.get("raw_json"));
+    }
+
+    private ObjectName parseRawJson(String rawJson) {
         if (rawJson == null || rawJson.trim().isEmpty()) {
             return null;
         }
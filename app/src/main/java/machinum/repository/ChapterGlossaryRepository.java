@@ -417,6 +417,32 @@ public interface ChapterGlossaryRepository extends JpaRepository<ChapterGlossary
             """, nativeQuery = true)
     List<ChapterContextGlossaryProjection> findContextGlossary(@Param("bookId") String bookId);
 
+    @Query(value = """
+            SELECT
+                chapter_id as chapterId,
+                number as chapterNumber,
+                name,
+                embedding
+            FROM
+                chapter_context_glossary
+            WHERE
+                book_id = :bookId
+            ORDER BY number
+            """, nativeQuery = true)
+    List<GlossaryIndexProjection> findGlossaryIndexSource(@Param("bookId") String bookId);
+
+    interface GlossaryIndexProjection {
+
+        String getChapterId();
+
+        Integer getChapterNumber();
+
+        String getName();
+
+        float[] getEmbedding();
+
+    }
+
     interface ChapterContextGlossaryProjection {
         String getId();
 
@@ -3,9 +3,14 @@ package machinum.repository;
 import machinum.entity.ChapterHistoryEntity;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ChapterHistoryRepository extends JpaRepository<ChapterHistoryEntity, String> {
@@ -16,4 +21,77 @@ public interface ChapterHistoryRepository extends JpaRepository<ChapterHistoryEn
 
     List<ChapterHistoryEntity> findByChapterInfoIdAndFieldNameAndNumberLessThanEqual(String chapterInfoId, String fieldName, Integer number, Sort sort);
 
+    List<ChapterHistoryEntity> findByChapterInfoIdAndFieldNameAndNumberBetween(String chapterInfoId, String fieldName, Integer from, Integer to, Sort sort);
+
+    Optional<ChapterHistoryEntity> findFirstByChapterInfoIdAndFieldNameAndNumberLessThanEqualAndKeyframeIsNotNullOrderByNumberDesc(
+            String chapterInfoId, String fieldName, Integer number);
+
+    @Query(value = """
+            SELECT
+                count(*) AS patches,
+                coalesce(sum(coalesce(octet_length(h.packed_patch), octet_length(h.patch::text))), 0) AS bytes
+            FROM chapter_info_history h
+            WHERE h.chapter_info_id = :chapterInfoId
+              AND h.field_name = :fieldName
+              AND h.number > coalesce((
+                  SELECT max(k.number)
+                  FROM chapter_info_history k
+                  WHERE k.chapter_info_id = :chapterInfoId
+                    AND k.field_name = :fieldName
+                    AND k.keyframe IS NOT NULL), 0)
+            """, nativeQuery = true)
+    PatchesSinceKeyframe countPatchesSinceKeyframe(@Param("chapterInfoId") String chapterInfoId,
+                                                   @Param("fieldName") String fieldName);
+
+    /**
+     * Per chapter and field: the number of rows, and the patches and patch bytes written since the last keyframe.
+     */
+    @Query(value = """
+            WITH keyframes AS (
+                SELECT k.chapter_info_id, k.field_name, max(k.number) AS number
+                FROM chapter_info_history k
+                WHERE k.chapter_info_id IN (:chapterInfoIds)
+                  AND k.keyframe IS NOT NULL
+                GROUP BY k.chapter_info_id, k.field_name
+            )
+            SELECT
+                h.chapter_info_id AS chapterInfoId,
+                h.field_name AS fieldName,
+                count(*) AS total,
+                count(*) FILTER (WHERE h.number > coalesce(k.number, 0)) AS patches,
+                coalesce(sum(coalesce(octet_length(h.packed_patch), octet_length(h.patch::text)))
+                    FILTER (WHERE h.number > coalesce(k.number, 0)), 0) AS bytes
+            FROM chapter_info_history h
+            LEFT JOIN keyframes k ON k.chapter_info_id = h.chapter_info_id AND k.field_name = h.field_name
+            WHERE h.chapter_info_id IN (:chapterInfoIds)
+            GROUP BY h.chapter_info_id, h.field_name
+            """, nativeQuery = true)
+    List<HistoryState> findHistoryStates(@Param("chapterInfoIds") Collection<String> chapterInfoIds);
+
+    @Modifying
+    @Query("DELETE FROM ChapterHistoryEntity h WHERE h.chapterInfoId IN :chapterInfoIds")
+    void deleteByChapterInfoIdIn(@Param("chapterInfoIds") Collection<String> chapterInfoIds);
+
+    interface PatchesSinceKeyframe {
+
+        Long getPatches();
+
+        Long getBytes();
+
+    }
+
+    interface HistoryState {
+
+        String getChapterInfoId();
+
+        String getFieldName();
+
+        Long getTotal();
+
+        Long getPatches();
+
+        Long getBytes();
+
+    }
+
 }
@@ -134,6 +134,33 @@ public interface ChapterReportRepository extends JpaRepository<ChapterEntity, St
             """, nativeQuery = true)
     List<UniqueNamesProjection> getChapterUniqueNamesProgress(@Param("bookId") String bookId);
 
+    // Readiness rows maintained by triggers, see V2_9
+    @Query(value = """
+            SELECT
+                cr.chapter_id AS chapterId,
+                cr.number,
+                cr.has_title AS hasTitle,
+                cr.has_translated_title AS hasTranslatedTitle,
+                cr.has_text AS hasText,
+                cr.has_translated_text AS hasTranslatedText,
+                cr.has_summary AS hasSummary,
+                cr.name_count AS nameCount,
+                cr.translated_name_count AS translatedNameCount,
+                cr.warning_count AS warningCount,
+                cr.warnings AS warningsRaw,
+                cr.character_count AS characterCount,
+                cr.deleted,
+                CAST(CAST(cr.txid AS text) AS bigint) AS txid
+            FROM chapter_readiness cr
+            WHERE cr.book_id = :bookId
+            AND cr.txid >= CAST(CAST(:since AS text) AS xid8)""", nativeQuery = true)
+    List<ChapterReadinessProjection> findReadinessChangedSince(@Param("bookId") String bookId, @Param("since") long since);
+
+    /**
+     * Transactions below the returned id are finished, so rows they wrote are visible to later queries.
+     */
+    @Query(value = "SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint)", nativeQuery = true)
+    Long currentReadinessWatermark();
 
     /* ============= */
 
@@ -163,6 +190,38 @@ public interface ChapterReportRepository extends JpaRepository<ChapterEntity, St
 
     }
 
+    interface ChapterReadinessProjection {
+
+        String getChapterId();
+
+        Integer getNumber();
+
+        Boolean getHasTitle();
+
+        Boolean getHasTranslatedTitle();
+
+        Boolean getHasText();
+
+        Boolean getHasTranslatedText();
+
+        Boolean getHasSummary();
+
+        Integer getNameCount();
+
+        Integer getTranslatedNameCount();
+
+        Integer getWarningCount();
+
+        String getWarningsRaw();
+
+        Integer getCharacterCount();
+
+        Boolean getDeleted();
+
+        Long getTxid();
+
+    }
+
     /* ============= */
 
     interface CharacterCountProjection {
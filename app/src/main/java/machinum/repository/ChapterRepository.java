@@ -359,6 +359,50 @@ public interface ChapterRepository extends JpaRepository<ChapterEntity, String>
 
     Long countByBookId(String bookId);
 
+    @Query(value = """
+            SELECT c.id, c.number, c.title, c.source_key AS sourceKey
+            FROM chapter_info c
+            WHERE c.book_id = :bookId
+            AND (c.number, c.id) > (:afterNumber, :afterId)
+            ORDER BY c.number, c.id
+            LIMIT :limit""", nativeQuery = true)
+    List<ChapterHeaderDto> findHeadersAfter(@Param("bookId") String bookId,
+                                            @Param("afterNumber") Integer afterNumber,
+                                            @Param("afterId") String afterId,
+                                            @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT c.*
+            FROM chapter_info c
+            WHERE c.book_id = :bookId
+            AND c.number BETWEEN :startNumber AND :endNumber
+            AND (c.number, c.id) > (:afterNumber, :afterId)
+            ORDER BY c.number, c.id
+            LIMIT :limit""", nativeQuery = true)
+    List<ChapterEntity> findChaptersAfter(@Param("bookId") String bookId,
+                                          @Param("startNumber") Integer startNumber,
+                                          @Param("endNumber") Integer endNumber,
+                                          @Param("afterNumber") Integer afterNumber,
+                                          @Param("afterId") String afterId,
+                                          @Param("limit") int limit);
+
+    boolean existsByBookIdAndNumberBetween(String bookId, Integer startNumber, Integer endNumber);
+
+    @Query("SELECT c.summary FROM ChapterEntity c WHERE c.id = :id")
+    Optional<String> findSummaryById(@Param("id") String id);
+
+    interface ChapterHeaderDto {
+
+        String getId();
+
+        Integer getNumber();
+
+        String getTitle();
+
+        String getSourceKey();
+
+    }
+
     interface ChapterTitleDto {
 
         String getId();
@@ -1,23 +1,23 @@
 package machinum.service;
 
 import com.fasterxml.jackson.annotation.JsonAlias;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import io.minio.errors.MinioException;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
-import machinum.config.Holder;
 import machinum.converter.AudioFileMapper;
 import machinum.entity.AudioFileEntity;
 import machinum.exception.AppIllegalStateException;
-import machinum.flow.model.HashSupport;
 import machinum.model.AudioFile;
 import machinum.model.AudioFile.AudioFileType;
+import machinum.model.CheckedConsumer;
 import machinum.repository.AudioFileRepository;
 import machinum.service.TTSRestClient.Metadata;
 import machinum.service.TTSRestClient.TTSRequest;
+import machinum.util.Mp3Util;
+import machinum.util.Mp3Util.Mp3Part;
 import machinum.util.TextUtil;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheHelper;
 import org.springframework.cache.InMemoryCache;
 import org.springframework.data.domain.Sort;
@@ -26,22 +26,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.io.OutputStream;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.*;
 import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
 
 import static machinum.model.AudioFile.AudioFileType.SPEECH;
 import static machinum.model.CheckedFunction.checked;
@@ -61,11 +51,14 @@ public class AudioService {
 
     private final CacheHelper cacheHelper;
 
-    @Qualifier("ttsObjectMapper")
-    private final Holder<ObjectMapper> objectMapper;
-
     private final InMemoryCache<String, Object> inMemoryCache;
 
+    @Qualifier("ttsExecutor")
+    private final ExecutorService ttsExecutor;
+
+    @Value("${app.tts-service.read-ahead:4}")
+    private final Integer readAhead;
+
 
     @Transactional(readOnly = true)
     public List<AudioFile> getAllByBookId(String bookId) {
@@ -101,25 +94,41 @@ public class AudioService {
                 .orElseThrow(() -> new AppIllegalStateException("Audio not found for id: %s", id));
     }
 
+    /**
+     * Synthesizes the segments of one chapter concurrently and joins them into one mp3 file. The request
+     * describes the whole file: the cover and metadata are written to the joined file only.
+     */
     @SneakyThrows
     @Transactional
-    public AudioFile generate(TTSRequest request) {
+    public AudioFile generate(TTSRequest request, List<String> segments) {
         return inMemoryCache.getRaw(request.toKey(), checked(s -> {
-            if (request.getText() == null || request.getText().trim().isEmpty()) {
+            if (segments.stream().allMatch(String::isBlank)) {
                 log.error("Text is required for TTSRequest: {}", request);
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Text is required");
             }
 
-            //TODO add metadata check for minio file
-
             var fileId = UUID.randomUUID().toString();
             var chapterId = request.getChapterId();
             var minioKey = String.format("tts-%s.mp3", chapterId);
 
-            var data = generateAudio(request);
+            var stream = Mp3Util.join(generateSegments(request, segments), toId3Tag(request.getMetadata(), request.getCoverArt()));
             AudioFileEntity ttsFile = null;
             try {
-                var fileMetadata = uploadToMinio(request, data, minioKey, fileId, chapterId);
+                var fileMetadata = FileMetadata.builder()
+                        .filename(minioKey)
+                        .fileSizeBytes(stream.size())
+                        .durationSeconds(stream.durationSeconds())
+                        .bitrateBps(stream.bitrateBps())
+                        .sampleRateHz(stream.sampleRateHz())
+                        .channels(stream.channels())
+                        .format("mp3")
+                        .metadata(request.getMetadata())
+                        .build();
+
+                log.info("Uploading MP3 data to MinIO with key: {}, size={}kb", minioKey, stream.size() / 1024);
+                try (var input = stream.openStream()) {
+                    minioService.uploadToMinio(input, stream.size(), minioKey, fileId, chapterId, fileMetadata);
+                }
                 ttsFile = persistToDb(request, fileId, chapterId, minioKey, fileMetadata);
             } catch (Exception e) {
                 minioService.removeFromToMinio(minioKey);
@@ -127,95 +136,68 @@ public class AudioService {
             }
 
             var audioFile = audioFileMapper.toDto(ttsFile);
-            log.info("Generated AudioFile: {}", audioFile);
+            log.info("Generated AudioFile from {} segments: {}", segments.size(), audioFile);
 
             return audioFile;
         }));
     }
 
+    /**
+     * Joins the audio files into one mp3 written to the output, with a pause between files. Files are
+     * downloaded concurrently and their frames are copied as is, see {@link #forEachAudioContent}.
+     *
+     * @return the number of bytes of audio written
+     */
     @SneakyThrows
-    public byte[] joinAudioFiles(JoinRequest joinRequest) {
-        return inMemoryCache.getRaw(joinRequest.toKey(), checked(s -> {
-            log.debug("Joining {} audio files", joinRequest.getAudioFiles().size());
+    public long joinAudioFiles(JoinRequest joinRequest, OutputStream output) {
+        var audioFiles = joinRequest.getAudioFiles();
+        log.debug("Joining {} audio files", audioFiles.size());
 
-            if (joinRequest.getAudioFiles().size() < 2) {
-                throw new IllegalArgumentException("At least two audio files are required for joining");
-            }
-
-            // Download all files from MinIO
-            var downloadedFiles = new HashMap<String, byte[]>();
-            var audioFiles = joinRequest.getAudioFiles();
-            for (int i = 0; i < audioFiles.size(); i++) {
-                var audioFile = audioFiles.get(i);
-                try {
-                    var preSignedUrl = minioService.getPreSignedUrl(audioFile.getMinioKey());
-                    var content = minioService.downloadContent(preSignedUrl);
-                    downloadedFiles.put("%s_%s".formatted("%04d".formatted(i), audioFile.getMinioKey()), content);
-                    log.debug("Downloaded file: {}, size={}mb", audioFile.getMinioKey(), content.length / 1024 / 1024);
-                } catch (Exception e) {
-                    log.error("Failed to download file with key: {}", audioFile.getMinioKey(), e);
-                    throw new IOException("Failed to download file: " + audioFile.getMinioKey(), e);
-                }
-            }
+        if (audioFiles.isEmpty()) {
+            throw new IllegalArgumentException("At least one audio file is required for joining");
+        }
 
-            // Create ZIP file
-            byte[] zipContent = createZipFile(downloadedFiles);
-            log.debug("ZIP file with chapter created: size={}mb", zipContent.length / 1024 / 1024);
+        var appender = Mp3Util.appender(output, toId3Tag(joinRequest.getMetadata(), joinRequest.getCoverArt()));
+        forEachAudioContent(audioFiles, content -> {
+            appender.appendSilence(joinRequest.getSilenceSeconds());
+            appender.append(Mp3Util.scan(content.data()));
+        });
 
-            // Send to TTS service for joining
-            byte[] bytes = ttsRestClient.joinMp3Files(zipContent, joinRequest.getOutputName(), joinRequest.isEnhance(),
-                    joinRequest.getCoverArt(), joinRequest.getMetadata());
-            log.debug("Successfully joined {} chapters into one file, size={}mb", joinRequest.getAudioFiles().size(),
-                    bytes.length / 1024 / 1024);
+        log.debug("Successfully joined {} chapters into one file, size={}mb, duration={}s", audioFiles.size(),
+                appender.size() / 1024 / 1024, Math.round(appender.durationSeconds()));
 
-            return bytes;
-        }));
+        return appender.size();
     }
 
+    /**
+     * Downloads the contents of the audio files and passes them to the consumer in the given order. Up to
+     * {@code readAhead} files are downloaded concurrently ahead of the consumer, so only these are held
+     * in memory.
+     */
     @SneakyThrows
-    public Map<String, byte[]> getAudioContent(List<AudioFile> audioFiles) {
-        var downloadedFiles = new ConcurrentHashMap<String, byte[]>();
-        var executor = Executors.newFixedThreadPool(Math.min(audioFiles.size(), 10)); // adjust pool size as needed
-        var futures = new ArrayList<Future<?>>();
-
-        for (AudioFile audioFile : audioFiles) {
-            futures.add(executor.submit(() -> {
-                try {
-                    var preSignedUrl = minioService.getPreSignedUrl(audioFile.getMinioKey());
-                    var content = minioService.downloadContent(preSignedUrl);
-                    downloadedFiles.put(audioFile.getId(), content);
-                    log.debug("Downloaded file: {}, size={}mb", audioFile.getMinioKey(), content.length / 1024 / 1024);
-                } catch (Exception e) {
-                    log.error("Failed to download file with key: {}", audioFile.getMinioKey(), e);
-                    throw new RuntimeException("Failed to download file: " + audioFile.getMinioKey(), e);
-                }
-            }));
-        }
+    public void forEachAudioContent(List<AudioFile> audioFiles, CheckedConsumer<AudioContent> consumer) {
+        var pending = new ArrayDeque<CompletableFuture<AudioContent>>();
+        var iterator = audioFiles.iterator();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                while (iterator.hasNext() || !pending.isEmpty()) {
+                    while (iterator.hasNext() && pending.size() < readAhead) {
+                        var audioFile = iterator.next();
+                        pending.add(CompletableFuture.supplyAsync(() -> download(audioFile), executor));
+                    }
 
-        for (Future<?> future : futures) {
-            future.get(); // wait for all tasks to complete
+                    consumer.accept(pending.removeFirst().join());
+                }
+            } catch (Exception e) {
+                // Downloads not started yet are skipped
+                pending.forEach(future -> future.cancel(false));
+                ExceptionUtils.rethrow(e instanceof CompletionException && Objects.nonNull(e.getCause()) ? e.getCause() : e);
+            }
         }
-
-        executor.shutdown();
-        return downloadedFiles;
     }
 
     /* ============= */
 
-    private byte[] createZipFile(Map<String, byte[]> files) throws IOException {
-        var baos = new ByteArrayOutputStream();
-        try (var zos = new ZipOutputStream(baos)) {
-            for (var entry : files.entrySet()) {
-                var zipEntry = new ZipEntry(entry.getKey());
-                zos.putNextEntry(zipEntry);
-                zos.write(entry.getValue());
-                zos.closeEntry();
-            }
-        }
-
-        return baos.toByteArray();
-    }
-
     private AudioFileEntity persistToDb(TTSRequest request, String fileId, String chapterId, String minioKey, FileMetadata fileMetadata) {
         var ttsFile = ttsFileRepository.findOneByMinioKey(minioKey)
                 .map(entity -> {
@@ -245,67 +227,81 @@ public class AudioService {
         return ttsFile;
     }
 
-    private FileMetadata uploadToMinio(TTSRequest request, byte[] data, String minioKey, String fileId, String chapterId) throws IOException, MinioException, NoSuchAlgorithmException, InvalidKeyException {
-        if (request.getReturnZip()) {
-            return processZip(data, minioKey, fileId, chapterId, request.getMetadata());
-        } else {
-            log.info("Uploading MP3 data to MinIO with key: {}", minioKey);
-            var fileMetadata = FileMetadata.builder()
-                    .filename(minioKey)
-                    .fileSizeBytes(data.length)
-                    .durationSeconds(0)
-                    .bitrateBps(0)
-                    .sampleRateHz(0)
-                    .channels(0)
-                    .format("mp3")
-                    .metadata(request.getMetadata())
-                    .build();
-
-            minioService.uploadToMinio(data, minioKey, fileId, chapterId, fileMetadata);
-            return fileMetadata;
+    @SneakyThrows
+    private AudioContent download(AudioFile audioFile) {
+        try {
+            var preSignedUrl = minioService.getPreSignedUrl(audioFile.getMinioKey());
+            var content = minioService.downloadContent(preSignedUrl);
+            log.debug("Downloaded file: {}, size={}mb", audioFile.getMinioKey(), content.length / 1024 / 1024);
+
+            return new AudioContent(audioFile, content);
+        } catch (Exception e) {
+            log.error("Failed to download file with key: {}", audioFile.getMinioKey(), e);
+            throw new IOException("Failed to download file: " + audioFile.getMinioKey(), e);
         }
     }
 
-    @SneakyThrows
-    private byte[] generateAudio(TTSRequest request) {
-        if (minioService.isMinioEnabled()) {
-            log.info("Generating MP3 data for request: {}", request);
-            return ttsRestClient.generate(request);
-        } else {
+    private List<Mp3Part> generateSegments(TTSRequest request, List<String> segments) {
+        if (!minioService.isMinioEnabled()) {
             throw new AppIllegalStateException("Minio is not available, please connect service to proceed.");
         }
-    }
 
-    private FileMetadata processZip(byte[] data, String minioKey, String fileId,
-                                    String chapterId, Metadata metadata) throws IOException, MinioException, NoSuchAlgorithmException, InvalidKeyException {
-        FileMetadata output = null;
-        byte[] mp3Data = new byte[0];
-        try (var zis = new ZipInputStream(new ByteArrayInputStream(data))) {
-            ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                var name = entry.getName();
-                log.debug("Found {} file in zip", name);
-                if (name.endsWith(".mp3")) {
-                    log.info("Uploading MP3 data to MinIO with key: {}", minioKey);
-                    mp3Data = zis.readAllBytes();
-                } else if (name.endsWith(".json")) {
-                    byte[] jsonData = zis.readAllBytes();
-                    log.debug("Extracted JSON metadata from zip entry: {}", new String(jsonData, StandardCharsets.UTF_8));
-                    output = objectMapper.execute(mapper -> mapper.readValue(jsonData, FileMetadata.class));
-                    output.setMetadata(metadata);
-                } else {
-                    log.warn("Found different file: {}", name);
-                }
+        var futures = new ArrayList<CompletableFuture<Mp3Part>>(segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            if (segments.get(i).isBlank()) {
+                continue;
             }
+
+            // Cover and metadata belong to the joined file
+            var segmentRequest = request.toBuilder()
+                    .text(segments.get(i))
+                    .outputFile("%s-%04d.mp3".formatted(request.getChapterId(), i))
+                    .returnZip(Boolean.FALSE)
+                    .coverArt(null)
+                    .metadata(null)
+                    .build();
+            futures.add(CompletableFuture.supplyAsync(() -> generateSegment(segmentRequest), ttsExecutor));
         }
 
-        if (Objects.nonNull(mp3Data) && mp3Data.length > 0) {
-            minioService.uploadToMinio(mp3Data, minioKey, fileId, chapterId, output);
-        } else {
-            throw new AppIllegalStateException("MP3 file was not found in result zip");
+        var parts = new ArrayList<Mp3Part>(futures.size());
+        try {
+            for (var future : futures) {
+                parts.add(future.join());
+            }
+        } catch (CompletionException | CancellationException e) {
+            // Segments not started yet are skipped
+            futures.forEach(future -> future.cancel(false));
+            ExceptionUtils.rethrow(Objects.requireNonNullElse(e.getCause(), e));
         }
 
-        return output;
+        return parts;
+    }
+
+    @SneakyThrows
+    private Mp3Part generateSegment(TTSRequest request) {
+        log.debug("Generating MP3 data for segment: {}", request);
+        var part = Mp3Util.scan(ttsRestClient.generate(request));
+        log.debug("Generated segment {}: frames={}, duration={}s", request.getOutputFile(), part.frames(), part.durationSeconds());
+
+        return part;
+    }
+
+    private byte[] toId3Tag(Metadata metadata, byte[] coverArt) {
+        var frames = new LinkedHashMap<String, String>();
+        if (Objects.nonNull(metadata)) {
+            frames.put("TIT2", metadata.getTitle());
+            frames.put("TPE1", metadata.getArtist());
+            frames.put("TALB", metadata.getAlbum());
+            frames.put("TYER", metadata.getYear());
+            frames.put("TCON", metadata.getGenre());
+            frames.put("TLAN", metadata.getLanguage());
+            frames.put("TRCK", metadata.getTrack());
+            frames.put("TPUB", metadata.getPublisher());
+            frames.put("TCOP", metadata.getCopyright());
+            frames.put("COMM", metadata.getComments());
+        }
+
+        return Mp3Util.id3(frames, coverArt);
     }
 
     @Data
@@ -359,16 +355,17 @@ public class AudioService {
         private List<AudioFile> audioFiles = new ArrayList<>();
         @ToString.Include
         private String outputName;
-        private boolean enhance;
         private byte[] coverArt;
         private Metadata metadata;
+        @Builder.Default
+        private double silenceSeconds = 1.0;
 
-        public String toKey() {
-            return HashSupport.hashStringWithCRC32(audioFiles.stream()
-                    .map(AudioFile::getId)
-                    .collect(Collectors.joining("-")));
-        }
+    }
 
+    /**
+     * Downloaded content of an audio file.
+     */
+    public record AudioContent(AudioFile audioFile, byte[] data) {
     }
 
 }
@@ -19,13 +19,13 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.db.DbHelper;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -55,51 +55,102 @@ public class BookFacade {
 
 
     public Book save(boolean overwrite, @NonNull Book book) {
-        log.debug("Prepare to save book with chapters to db: {}", book);
-        var historyList = new ArrayList<Chapter>();
-        var bookResult = dbHelper.doInNewTransaction(() -> {
-            var persisted = bookService.save(overwrite, book);
-
-            var list = book.getChapters();
-            IntStream.range(0, list.size()).forEach(index -> {
-                var chapter = list.get(index);
+        return save(overwrite, book, toChunks(book.getChapters(), batchSize).iterator());
+    }
 
-                if (Objects.isNull(chapter.getNumber())) {
-                    chapter.setNumber(index + 1);
+    /**
+     * Saves the book with chapters taken from {@code batches} one batch at a time, chapters without
+     * a number are numbered by their position.
+     */
+    public Book save(boolean overwrite, @NonNull Book book, @NonNull Iterator<List<Chapter>> batches) {
+        log.debug("Prepare to save book with chapters to db: {}", book.getTitle());
+        var historyIds = new ArrayList<String>();
+        var bookResult = dbHelper.doInNewTransaction(() -> {
+            var persisted = bookService.save(overwrite, book.toBuilder()
+                    .chapters(List.of())
+                    .build());
+            var index = 0;
+
+            while (batches.hasNext()) {
+                var chunk = batches.next();
+                for (var chapter : chunk) {
+                    index++;
+                    if (Objects.isNull(chapter.getNumber())) {
+                        chapter.setNumber(index);
+                    }
+
+                    chapter.setBookId(persisted.getId());
                 }
 
-                chapter.setBookId(persisted.getId());
-            });
-
-            var chunks = toChunks(list, batchSize);
-            for (int i = 0; i < chunks.size(); i++) {
-                var persistedChunk = chapterService.saveAll(chunks.get(i));
-                historyList.addAll(persistedChunk);
+                chapterService.saveAll(chunk).forEach(chapter -> historyIds.add(chapter.getId()));
 
                 entityManager.flush();
                 entityManager.clear();
+                log.debug("Saved {} chapters of book: {}", index, persisted.getId());
             }
 
             return persisted;
         });
 
-        chapterEntityListener.preUpdate(chapterMapper.toEntity(historyList));
+        // History rows refer to committed chapters, texts are loaded again batch by batch
+        for (var ids : toChunks(historyIds, batchSize)) {
+            chapterEntityListener.preUpdate(chapterMapper.toEntity(chapterService.getChapterByIds(ids)));
+        }
 
         return bookResult;
     }
 
     public void importTranslation(Book book) {
-        log.debug("Prepare to import translation for: {}", book);
-        var chapters = book.getChapters();
-        var list = new ArrayList<Chapter>();
-
-        for (int i = 0; i < chapters.size(); i++) {
-            var chapter = chapters.get(i);
-            var number = i + 1;
-            list.add(chapterConverter.convert(chapter, number, book.getId()));
+        importTranslation(book.getId(), toChunks(book.getChapters(), batchSize).iterator());
+    }
+
+    /**
+     * Imports translations batch by batch, the import mode is detected by the first chapter.
+     */
+    public void importTranslation(@NonNull String bookId, @NonNull Iterator<List<Chapter>> batches) {
+        log.debug("Prepare to import translation for: {}", bookId);
+        Boolean importMode = null;
+        var number = 0;
+
+        while (batches.hasNext()) {
+            var chunk = batches.next();
+            var list = new ArrayList<Chapter>(chunk.size());
+            for (var chapter : chunk) {
+                list.add(chapterConverter.convert(chapter, ++number, bookId));
+            }
+
+            if (Objects.isNull(importMode)) {
+                importMode = chapterService.parseImportMode(list);
+            }
+            chapterService.importTranslation(bookId, list, importMode);
         }
+    }
+
+    /**
+     * Walks chapters among {@code [from, to]} in number order, one page of {@code batchSize} chapters
+     * at a time, so the whole book is never loaded at once.
+     */
+    public void forEachChapters(@NonNull String bookId, Integer from, Integer to, @NonNull Consumer<List<Chapter>> consumer) {
+        var startNumber = Objects.requireNonNullElse(from, Integer.MIN_VALUE);
+        var endNumber = Objects.requireNonNullElse(to, Integer.MAX_VALUE);
+        var afterNumber = Integer.MIN_VALUE;
+        var afterId = "";
+
+        List<Chapter> page;
+        do {
+            page = chapterService.loadBookChaptersAfter(bookId, startNumber, endNumber, afterNumber, afterId, batchSize);
+            if (!page.isEmpty()) {
+                var last = page.getLast();
+                afterNumber = last.getNumber();
+                afterId = last.getId();
+                consumer.accept(page);
+            }
+        } while (page.size() == batchSize);
+    }
 
-        chapterService.importTranslation(book.getId(), list);
+    public boolean hasChapters(@NonNull String bookId, Integer from, Integer to) {
+        return chapterService.existsInRange(bookId, Objects.requireNonNullElse(from, Integer.MIN_VALUE),
+                Objects.requireNonNullElse(to, Integer.MAX_VALUE));
     }
 
     public List<Chapter> loadBookChapters(String bookId) {
@@ -145,13 +196,17 @@ public class BookFacade {
     }
 
     public void importChaptersText(String bookId, List<Chapter> chapters) {
+        importChaptersText(bookId, toChunks(chapters, batchSize).iterator());
+    }
+
+    public void importChaptersText(String bookId, Iterator<List<Chapter>> batches) {
         Objects.requireNonNull(bookService.getById(bookId), "Book for given id, is not found");
-        log.debug("Got request for chapter text changing: {}, chapters={}", bookId, chapters.size());
+        log.debug("Got request for chapter text changing: {}", bookId);
 
         dbHelper.doInNewTransaction(() -> {
-            var chunks = toChunks(chapters, batchSize);
-            for (int i = 0; i < chunks.size(); i++) {
-                var chunk = chunks.get(i);
+            var processed = 0;
+            while (batches.hasNext()) {
+                var chunk = batches.next();
 
                 for (Chapter chapWithChanges : chunk) {
                     chapterService.findByNumber(bookId, chapWithChanges.getNumber())
@@ -166,14 +221,18 @@ public class BookFacade {
 
                 entityManager.flush();
                 entityManager.clear();
-                log.debug("Processed {}/{} chunk of chapters", i + 1, chunks.size());
+                processed += chunk.size();
+                log.debug("Processed {} chapters", processed);
             }
         });
 
         linesInfoService.recreate(bookId);
     }
 
-    public byte[] loadBookCombinedAudio(String bookId, Integer from, Integer to, byte[] coverArt) {
+    /**
+     * Writes audio of the ready chapters as one mp3 file, chapters are downloaded while the file is written.
+     */
+    public void loadBookCombinedAudio(String bookId, Integer from, Integer to, byte[] coverArt, OutputStream output) {
         log.debug("Got request for combined mp3 file, for: bookId={}, from={}, to={}", bookId, from, to);
         var chapters = chapterService.loadReadyChapters(bookId, from, to);
         var ids = chapters.stream()
@@ -186,20 +245,20 @@ public class BookFacade {
 //        }
 
         audioFiles.sort(Comparator.comparingInt(o -> ids.get(o.getChapterId())));
-        byte[] bytes = audioService.joinAudioFiles(AudioService.JoinRequest.builder()
+        var size = audioService.joinAudioFiles(AudioService.JoinRequest.builder()
                 .audioFiles(audioFiles)
                 .outputName("tts_%s_%s_%s.mp3".formatted(bookId, from, to))
-                .enhance(Boolean.TRUE)
                 .coverArt(coverArt)
-                .build());
+                .build(), output);
 
-        log.info("Combined {} files into one mp3 file: size={}mb", audioFiles.size(), (bytes.length / 1024 / 1024));
-
-        return bytes;
+        log.info("Combined {} files into one mp3 file: size={}mb", audioFiles.size(), (size / 1024 / 1024));
     }
 
+    /**
+     * Writes audio files of the ready chapters to a zip, chapters are downloaded while the zip is written.
+     */
     @SneakyThrows
-    public byte[] loadBookAudio(String bookId, Integer from, Integer to) {
+    public void loadBookAudio(String bookId, Integer from, Integer to, OutputStream output) {
         log.debug("Got request for release mp3 files, for: bookId={}, from={}, to={}", bookId, from, to);
         var chapters = chapterService.loadReadyChapters(bookId, from, to);
         var ids = chapters.stream()
@@ -211,21 +270,20 @@ public class BookFacade {
                     ids.keySet(), audioFiles.stream().map(AudioFile::getChapterId).toList());
         }
 
-        var audioContent = audioService.getAudioContent(audioFiles);
+        audioFiles.sort(Comparator.comparingInt(o -> ids.get(o.getChapterId()).getNumber()));
         var counter = new AtomicInteger(1);
-        var audioFileMap = audioFiles.stream()
-                .sorted(Comparator.comparingInt(o -> ids.get(o.getChapterId()).getNumber()))
-                .collect(Collectors.toMap(o -> {
-                            String title = toSnakeCase(ids.get(o.getChapterId()).getTitle());
-                            return "%04d_%s.mp3".formatted(counter.getAndIncrement(), title);
-                        },
-                        o -> audioContent.get(o.getId()), (f, s) -> f, LinkedHashMap::new));
-
-        byte[] bytes = createZipFile(audioFileMap);
-
-        log.info("Collected {} files into one mp3 file: size={}mb", audioFiles.size(), (bytes.length / 1024 / 1024));
+        var size = new AtomicLong();
+        try (var zos = new ZipOutputStream(output)) {
+            audioService.forEachAudioContent(audioFiles, content -> {
+                var title = toSnakeCase(ids.get(content.audioFile().getChapterId()).getTitle());
+                zos.putNextEntry(new ZipEntry("%04d_%s.mp3".formatted(counter.getAndIncrement(), title)));
+                zos.write(content.data());
+                zos.closeEntry();
+                size.addAndGet(content.data().length);
+            });
+        }
 
-        return bytes;
+        log.info("Collected {} files into one zip file: size={}mb", audioFiles.size(), (size.get() / 1024 / 1024));
     }
 
     public Book countChapters(Book book) {
@@ -234,20 +292,4 @@ public class BookFacade {
                 .build();
     }
 
-    /* ============= */
-
-    private byte[] createZipFile(Map<String, byte[]> files) throws IOException {
-        var baos = new ByteArrayOutputStream();
-        try (var zos = new ZipOutputStream(baos)) {
-            for (var entry : files.entrySet()) {
-                var zipEntry = new ZipEntry(entry.getKey());
-                zos.putNextEntry(zipEntry);
-                zos.write(entry.getValue());
-                zos.closeEntry();
-            }
-        }
-
-        return baos.toByteArray();
-    }
-
 }
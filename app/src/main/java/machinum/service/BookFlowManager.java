@@ -8,6 +8,7 @@ import machinum.repository.BookRepository;
 import machinum.service.BookProcessor.ProcessorState;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Map;
 
 import static machinum.config.Constants.BOOK_ID;
@@ -52,11 +53,13 @@ public class BookFlowManager implements StateManager {
 
     @Override
     public void setChunkIsProcessed(Map<String, Object> metadata, String hashString) {
+        setChunksAreProcessed(metadata, List.of(hashString));
+    }
+
+    @Override
+    public void setChunksAreProcessed(Map<String, Object> metadata, List<String> hashStrings) {
         var bookId = resolveBookId(metadata);
-        var book = bookService.getById(bookId);
-        bookService.changeBookState(bookId, book.getBookState()
-                .addProcessedChunks(hashString)
-                .clearState());
+        bookService.addProcessedChunks(bookId, hashStrings);
     }
 
     /* ============= */
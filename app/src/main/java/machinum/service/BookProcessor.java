@@ -1,18 +1,26 @@
 package machinum.service;
 
 import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import machinum.controller.BookOperationController.BookOperationRequest;
 import machinum.converter.ChapterConverter;
 import machinum.exception.AppIllegalStateException;
+import machinum.flow.MicrometerFlowMetrics;
+import machinum.flow.core.BufferedStateManager;
 import machinum.flow.core.ErrorStrategy.RetryAfterDelayErrorStrategy;
+import machinum.flow.core.FlowMetrics;
 import machinum.flow.core.FlowRunner;
+import machinum.flow.core.StateManager;
 import machinum.flow.model.Flow;
 import machinum.flow.runner.BatchFlowRunner;
+import machinum.flow.runner.ModelAffinityFlowRunner;
+import machinum.flow.runner.ModelAffinityFlowRunner.SwitchStats;
 import machinum.flow.runner.OneStepRunner;
 import machinum.flow.runner.OneStepRunner.Aggregation;
+import machinum.flow.runner.ParallelStepRunner;
 import machinum.flow.runner.RecursiveFlowRunner;
 import machinum.model.Chapter;
 import machinum.util.DurationMeasureUtil;
@@ -23,16 +31,18 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 import static machinum.config.Constants.*;
 import static machinum.controller.BookOperationController.BookOperationRequest.RuleConfig.RuleType.ALL;
@@ -47,9 +57,11 @@ import static machinum.flow.runner.OneStepRunner.Window.tumbling;
 @RequiredArgsConstructor
 public class BookProcessor {
 
-    private final BookFacade bookFacade;
+    private final BookService bookService;
+    private final ChapterService chapterService;
     private final FlowFactory flowFactory;
     private final AsyncHelper asyncHelper;
+    private final BufferedStateManager bookStateManager;
 
     public CompletableFuture<Void> start(BookOperationRequest request) {
         return asyncHelper.runAsync(() -> {
@@ -64,20 +76,22 @@ public class BookProcessor {
     public void doStart(BookOperationRequest request) {
         log.debug("Prepare to process book with ai: {}", request);
 
-        var book = bookFacade.get(request.getId());
-
         if (!List.of(ALL, RANGE).contains(request.getConfig().getRuleType())) {
             throw new AppIllegalStateException("RuleType[%s] is not supported", request.getConfig().getRuleType());
         }
 
-        var chapters = new ArrayList<>(book.getChapters());
-        var bookId = book.getId();
-        var bookState = book.getBookState().state();
+        var bookId = request.getId();
+        var bookState = bookService.getBookState(bookId).state();
+        var chapters = chapterService.loadChapterSource(bookId);
 
         var flow = enrichMetadata(flowFactory.createFlow(request.getOperationName(), bookId, chapters), request)
                 .withErrorStrategy(new RetryAfterDelayErrorStrategy<>(() -> start(request)));
-        flowFactory.createRunner(request, flow)
-                .run(bookState);
+        try {
+            flowFactory.createRunner(request, flow)
+                    .run(bookState);
+        } finally {
+            bookStateManager.release(flow.getMetadata());
+        }
     }
 
     private Flow<Chapter> enrichMetadata(Flow<Chapter> flow, BookOperationRequest request) {
@@ -89,22 +103,27 @@ public class BookProcessor {
         ));
     }
 
+    @Getter
+    @RequiredArgsConstructor
     public enum ProcessorState implements Flow.State {
 
-        SUMMARY,
-        CLEANING,
-        EMBEDDING,
-        GLOSSARY,
-        GLOSSARY_CONSOLIDATION,
-        PROOFREAD,
-        TRANSLATE_GLOSSARY,
-        TRANSLATE_TITLE,
-        TRANSLATE,
-        COPYEDIT,
-        SYNTHESIZE,
-        FINISHED,
+        SUMMARY(false),
+        CLEANING(false),
+        EMBEDDING(false),
+        // Glossary of a chapter is extracted with the context of the previous one
+        GLOSSARY(true),
+        GLOSSARY_CONSOLIDATION(true),
+        PROOFREAD(false),
+        TRANSLATE_GLOSSARY(false),
+        TRANSLATE_TITLE(true),
+        TRANSLATE(false),
+        COPYEDIT(false),
+        SYNTHESIZE(false),
+        FINISHED(true),
         ;
 
+        private final boolean sequential;
+
         public static ProcessorState defaultState() {
             return ProcessorState.SUMMARY;
         }
@@ -126,22 +145,41 @@ public class BookProcessor {
     @Configuration
     public static class ProcessorConfig {
 
+        // Model property per state, states without a model (external APIs, tts, cooldown) run whenever they are ready
+        private static final Map<ProcessorState, String> STATE_MODEL_PROPERTIES = Map.of(
+                ProcessorState.SUMMARY, "app.summary.model",
+                ProcessorState.CLEANING, "app.rewrite.model",
+                ProcessorState.EMBEDDING, "spring.ai.ollama.embedding.model",
+                ProcessorState.GLOSSARY, "app.glossary.extract.model",
+                ProcessorState.GLOSSARY_CONSOLIDATION, "spring.ai.ollama.embedding.model",
+                ProcessorState.PROOFREAD, "app.proofread.en.model",
+                ProcessorState.TRANSLATE, "app.translate.model",
+                ProcessorState.COPYEDIT, "app.translate.copy-editing.model"
+        );
+
+        @Bean(destroyMethod = "close")
+        public BufferedStateManager bookStateManager(BookFlowManager bookFlowManager,
+                                                     @Value("${app.flow.state.flush-interval:5s}") Duration flushInterval) {
+            return new BufferedStateManager(bookFlowManager, metadata -> String.valueOf(metadata.get(BOOK_ID)), flushInterval);
+        }
+
         public BiFunction<String, List<Chapter>, Flow<Chapter>> baseFlow(ChapterConverter chapterConverter,
                                                                          ChapterFacade chapterFacade,
-                                                                         BookFlowManager bookFlowManager,
+                                                                         StateManager stateManager,
+                                                                         FlowMetrics flowMetrics,
                                                                          @Value("${app.run-id}") String runId) {
             //@formatter:off
             return (bookId, chapters) -> Flow.from(chapters)
                     .metadata(BOOK_ID, bookId)
 //                    .map(chapterConverter::convert)
                     //.map(chapterConverter::restore)
-                    .withStateManager(bookFlowManager)
+                    .withStateManager(stateManager)
+                    .withMetrics(flowMetrics)
                     .bootstrap(chapterFacade::bootstrap)
                     .refresh(chapterFacade::refresh)
                     .extend(chapterFacade::extend)
                     .beforeAll(ctx -> log.info("┌── Started book state[{}] processing: {}", ctx.getState(), runId))
-                    .aroundAll((ctx, action) -> DurationMeasureUtil.measure("bookFlow-%s".formatted(ctx.getState()), action))
-                    .aroundEachState((ctx, action) -> DurationMeasureUtil.measure("stateFlow-%s-%s".formatted(ctx.iteration(), ctx.getState()), () -> {
+                    .aroundEachState((ctx, action) -> {
                         Map<ProcessorState, Boolean> availableStates = ctx.metadata(AVAILABLE_STATES);
 
                         if(Objects.nonNull(availableStates) && Boolean.FALSE.equals(availableStates.get(ctx.getState()))) {
@@ -150,7 +188,7 @@ public class BookProcessor {
                             log.info("|== Current item is : {}) {}", ctx.iteration(), ctx.getCurrentItem());
                             TraceUtil.trace("pipeAction", action);
                         }
-                    }))
+                    })
                     .eachCondition(ctx -> {
                         Boolean allowOverrideMode = ctx.metadata(ALLOW_OVERRIDE_MODE, Boolean.FALSE);
                         if(allowOverrideMode && !chapterFacade.checkExecutionIsAllowed(ctx)) {
@@ -160,7 +198,7 @@ public class BookProcessor {
 
                         return accept(ctx);
                     })
-                    .aroundEach((ctx, action) -> DurationMeasureUtil.measure("pipeFlow-%s-%s-%s".formatted(ctx.getCurrentPipeIndex(), ctx.iteration(), ctx.getState()), () -> {
+                    .aroundEach((ctx, action) -> {
                         log.info("|-- Working with pipe №%s".formatted(ctx.getCurrentPipeIndex()));
 
                         var currentNumber = ctx.getCurrentItem().getNumber();
@@ -200,7 +238,7 @@ public class BookProcessor {
 //                        } else {
 //                            return result;
 //                        }
-                    }).result())
+                    })
                     .exception((ctx, e) -> {
                         log.error("|--! Got exception(%s iteration): {}|{}".formatted(ctx.iteration()), e.getClass(), e.getMessage());
 
@@ -215,11 +253,12 @@ public class BookProcessor {
         public BiFunction<String, List<Chapter>, Flow<Chapter>> simpleFlow(ChapterConverter chapterConverter,
                                                                            TemplateAiFacade templateAiFacade,
                                                                            ChapterFacade chapterFacade,
-                                                                           BookFlowManager bookFlowManager,
+                                                                           BufferedStateManager bookStateManager,
+                                                                           MicrometerFlowMetrics flowMetrics,
                                                                            @Value("${app.run-id}") String runId,
                                                                            @Value("${app.flow.cooldown}") Duration cooldown) {
             //@formatter:off
-            return baseFlow(chapterConverter, chapterFacade, bookFlowManager, runId)
+            return baseFlow(chapterConverter, chapterFacade, bookStateManager, flowMetrics, runId)
                     .andThen(flow -> flow.copy(Function.identity()))
                     .andThen(flow -> flow
                         .metadata(FLOW_TYPE, "simple")
@@ -251,12 +290,13 @@ public class BookProcessor {
         public BiFunction<String, List<Chapter>, Flow<Chapter>> complexFlow(ChapterConverter chapterConverter,
                                                                             TemplateAiFacade templateAiFacade,
                                                                             ChapterFacade chapterFacade,
-                                                                            BookFlowManager bookFlowManager,
+                                                                            BufferedStateManager bookStateManager,
+                                                                            MicrometerFlowMetrics flowMetrics,
                                                                             @Value("${app.run-id}") String runId,
                                                                             @Value("${app.flow.cooldown}") Duration cooldown,
                                                                             @Value("${app.flow.batch-size}") int batchSize) {
             //@formatter:off
-            return baseFlow(chapterConverter, chapterFacade, bookFlowManager, runId )
+            return baseFlow(chapterConverter, chapterFacade, bookStateManager, flowMetrics, runId)
                     .andThen(flow -> flow.copy(Function.identity()))
                     .andThen(flow -> flow
                         .metadata(FLOW_TYPE, "complex")
@@ -314,11 +354,29 @@ public class BookProcessor {
             //@formatter:on
         }
 
+        @Bean
+        public SwitchStats modelSwitchStats() {
+            return new SwitchStats();
+        }
+
         @Bean
         public FlowFactory flowFactory(@Qualifier("simpleFlow") BiFunction<String, List<Chapter>, Flow<Chapter>> simpleFlow,
                                        @Qualifier("complexFlow") BiFunction<String, List<Chapter>, Flow<Chapter>> complexFlow,
-                                       @Value("${app.flow.batch-size}") int batchSize) {
-            return new FlowFactory(simpleFlow, complexFlow, batchSize);
+                                       @Value("${app.flow.batch-size}") int batchSize,
+                                       @Value("${app.flow.parallel.concurrency:1}") int concurrency,
+                                       @Value("#{${app.flow.parallel.states:{:}}}") Map<String, Integer> stateConcurrency,
+                                       @Value("${app.flow.affinity.enabled:false}") boolean affinityEnabled,
+                                       @Value("${app.flow.affinity.lookahead:100}") int affinityLookahead,
+                                       SwitchStats modelSwitchStats,
+                                       Environment environment) {
+            var stateModels = new EnumMap<ProcessorState, String>(ProcessorState.class);
+            STATE_MODEL_PROPERTIES.forEach((state, property) ->
+                    stateModels.put(state, environment.getRequiredProperty(property)));
+
+            return new FlowFactory(simpleFlow, complexFlow, batchSize, state ->
+                    stateConcurrency.getOrDefault(state.toString(), concurrency),
+                    affinityEnabled, affinityLookahead, stateModels::get,
+                    modelSwitchStats);
         }
 
     }
@@ -329,10 +387,17 @@ public class BookProcessor {
         public static final String ONE_STEP_RUNNER = "OneStepRunner";
         public static final String RECURSIVE_FLOW_RUNNER = "RecursiveFlowRunner";
         public static final String BATCH_FLOW_RUNNER = "BatchFlowRunner";
+        public static final String PARALLEL_STEP_RUNNER = "ParallelStepRunner";
+        public static final String MODEL_AFFINITY_RUNNER = "ModelAffinityRunner";
 
         private final BiFunction<String, List<Chapter>, Flow<Chapter>> simpleFlow;
         private final BiFunction<String, List<Chapter>, Flow<Chapter>> complexFlow;
         private final int batchSize;
+        private final ToIntFunction<Flow.State> concurrency;
+        private final boolean affinityEnabled;
+        private final int affinityLookahead;
+        private final Function<Flow.State, String> modelResolver;
+        private final ModelAffinityFlowRunner.Listener affinityListener;
 
         public Flow<Chapter> createFlow(String discriminator, String bookId, List<Chapter> chapters) {
             return switch (discriminator) {
@@ -344,22 +409,26 @@ public class BookProcessor {
 
         public FlowRunner<Chapter> createRunner(BookOperationRequest request, Flow<Chapter> flow) {
             var runner = new OneStepRunner<>(flow);
+            var parallelRunner = new ParallelStepRunner<>(runner, concurrency);
 
-            var recursiveRunner = new RecursiveFlowRunner<>(runner, runnable -> DurationMeasureUtil.measure("flowRun", runnable));
+            var recursiveRunner = new RecursiveFlowRunner<>(parallelRunner, runnable -> DurationMeasureUtil.measure("flowRun", runnable));
             var batchRunner = new BatchFlowRunner<>(recursiveRunner, batchSize, BookProcessor.ProcessorState.defaultState());
+            var affinityRunner = new ModelAffinityFlowRunner<>(parallelRunner, modelResolver, affinityLookahead, affinityListener);
 
             if (TextUtil.isNotEmpty(request.getRunner())) {
                 return switch (request.getRunner()) {
                     case ONE_STEP_RUNNER -> runner;
                     case RECURSIVE_FLOW_RUNNER -> recursiveRunner;
                     case BATCH_FLOW_RUNNER -> batchRunner;
+                    case PARALLEL_STEP_RUNNER -> parallelRunner;
+                    case MODEL_AFFINITY_RUNNER -> affinityRunner;
                     default -> throw new AppIllegalStateException("Unknown type of runner: " + request.getRunner());
                 };
             }
 
             return switch (request.getOperationName()) {
                 case Operations.SIMPLE_FLOW -> runner;
-                case Operations.COMPLEX_FLOW -> batchRunner;
+                case Operations.COMPLEX_FLOW -> affinityEnabled ? affinityRunner : batchRunner;
                 default -> throw new AppIllegalStateException("Unknown flow: " + request.getOperationName());
             };
         }
@@ -0,0 +1,195 @@
+package machinum.service;
+
+import machinum.model.ChapterDataSummary;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Readiness of the chapters of one book, kept up to date by applying the {@code chapter_readiness} rows
+ * changed since the last refresh. Counters of the summary are adjusted per changed chapter, views built
+ * from the rows (heatmap, fingerprint) are kept until the next change.
+ *
+ * <p>Not thread safe, callers synchronize on the instance.</p>
+ */
+public class BookReadiness {
+
+    private final String bookId;
+    private final Map<String, ChapterReadiness> chapters = new HashMap<>();
+    private final Map<String, Long> removed = new HashMap<>();
+    private final Map<String, Object> views = new HashMap<>();
+    private long watermark;
+
+    private long total;
+    private long emptyTitles;
+    private long emptyTranslatedTitles;
+    private long emptyTexts;
+    private long emptyTranslatedTexts;
+    private long emptySummaries;
+    private long emptyNames;
+    private long emptyTranslatedNames;
+    private long emptyWarnings;
+
+    public BookReadiness(String bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+
+    /**
+     * @return rows written by transactions at or above the watermark may be not applied yet
+     */
+    public long getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Applies the rows changed since the current watermark.
+     *
+     * @param changes   the changed rows, rows applied before may come again
+     * @param watermark the watermark taken before the rows were read
+     */
+    public void apply(List<ChapterReadiness> changes, long watermark) {
+        for (var change : changes) {
+            var previous = chapters.remove(change.chapterId());
+            if (Objects.nonNull(previous)) {
+                count(previous, -1);
+            }
+
+            if (change.deleted()) {
+                removed.put(change.chapterId(), change.txid());
+            } else {
+                removed.remove(change.chapterId());
+                chapters.put(change.chapterId(), change);
+                count(change, 1);
+            }
+        }
+
+        if (!changes.isEmpty()) {
+            views.clear();
+        }
+        this.watermark = Math.max(this.watermark, watermark);
+    }
+
+    public ChapterDataSummary summary() {
+        return ChapterDataSummary.builder()
+                .bookId(bookId)
+                .version(watermark)
+                .totalChapters(total)
+                .emptyTitles(emptyTitles)
+                .emptyTranslatedTitles(emptyTranslatedTitles)
+                .emptyTexts(emptyTexts)
+                .emptyTranslatedTexts(emptyTranslatedTexts)
+                .emptySummaries(emptySummaries)
+                .emptyNames(emptyNames)
+                .emptyTranslatedNames(emptyTranslatedNames)
+                .emptyWarnings(emptyWarnings)
+                .titleCompletionPercentage(percentage(emptyTitles))
+                .translatedTitleCompletionPercentage(percentage(emptyTranslatedTitles))
+                .textCompletionPercentage(percentage(emptyTexts))
+                .translatedTextCompletionPercentage(percentage(emptyTranslatedTexts))
+                .summaryCompletionPercentage(percentage(emptySummaries))
+                .namesCompletionPercentage(percentage(emptyNames))
+                .translatedNamesCompletionPercentage(percentage(emptyTranslatedNames))
+                .warningsPercentage(percentage(emptyWarnings))
+                .build();
+    }
+
+    /**
+     * @return chapters ordered by number
+     */
+    public List<ChapterReadiness> chapters() {
+        return view("chapters", () -> chapters.values().stream()
+                .sorted(Comparator.comparing(ChapterReadiness::number, Comparator.nullsFirst(Comparator.naturalOrder()))
+                        .thenComparing(ChapterReadiness::chapterId))
+                .toList());
+    }
+
+    /**
+     * @return chapters written by transactions at or above {@code since}, ordered by number
+     */
+    public List<ChapterReadiness> changedSince(long since) {
+        return chapters().stream()
+                .filter(chapter -> chapter.txid() >= since)
+                .toList();
+    }
+
+    /**
+     * @return ids of chapters removed by transactions at or above {@code since}
+     */
+    public List<String> removedSince(long since) {
+        return removed.entrySet().stream()
+                .filter(entry -> entry.getValue() >= since)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Returns a value derived from the chapters, computed once per change.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T view(String name, Supplier<T> supplier) {
+        // Views may be built from other views, so the map is not changed while computing
+        var value = views.get(name);
+        if (Objects.isNull(value)) {
+            value = supplier.get();
+            views.put(name, value);
+        }
+
+        return (T) value;
+    }
+
+    /* ============= */
+
+    private void count(ChapterReadiness chapter, int sign) {
+        total += sign;
+        emptyTitles += chapter.hasTitle() ? 0 : sign;
+        emptyTranslatedTitles += chapter.hasTranslatedTitle() ? 0 : sign;
+        emptyTexts += chapter.hasText() ? 0 : sign;
+        emptyTranslatedTexts += chapter.hasTranslatedText() ? 0 : sign;
+        emptySummaries += chapter.hasSummary() ? 0 : sign;
+        emptyNames += chapter.hasNames() ? 0 : sign;
+        emptyTranslatedNames += chapter.hasUntranslatedNames() ? sign : 0;
+        emptyWarnings += chapter.hasNotWarnings() ? sign : 0;
+    }
+
+    private Double percentage(long empty) {
+        return total == 0 ? 0.0 : ((double) (total - empty) / total) * 100;
+    }
+
+    /* ============= */
+
+    /**
+     * A row of {@code chapter_readiness}.
+     *
+     * @param nameCount    the number of glossary names, {@code null} without a glossary
+     * @param warningCount the number of warnings, {@code null} without warnings
+     * @param txid         the transaction of the last change
+     */
+    public record ChapterReadiness(String chapterId, Integer number, boolean hasTitle, boolean hasTranslatedTitle,
+                                   boolean hasText, boolean hasTranslatedText, boolean hasSummary, Integer nameCount,
+                                   int translatedNameCount, Integer warningCount, String warningsRaw,
+                                   Integer characterCount, boolean deleted, long txid) {
+
+        public boolean hasNames() {
+            return Objects.nonNull(nameCount) && nameCount > 0;
+        }
+
+        public boolean hasTranslatedNames() {
+            return hasNames() && translatedNameCount == nameCount;
+        }
+
+        public boolean hasUntranslatedNames() {
+            return Objects.nonNull(nameCount) && translatedNameCount != nameCount;
+        }
+
+        public boolean hasNotWarnings() {
+            return Objects.isNull(warningCount) || warningCount == 0;
+        }
+
+    }
+
+}
@@ -97,6 +97,19 @@ public class BookService {
         bookRepository.addProcessedChunk(id, hashString);
     }
 
+    /**
+     * Appends processed chunks to the book state and resets the state to its defaults with one statement.
+     *
+     * @param id          the book id
+     * @param hashStrings hashes of processed chunks
+     */
+    @Transactional
+    public void addProcessedChunks(@NonNull String id, @NonNull List<String> hashStrings) {
+        log.debug("Prepare to add processed chunks to book: {}, chunks={}", id, hashStrings);
+        bookRepository.addProcessedChunks(id, objectMapperHolder.execute(mapper -> mapper.writeValueAsString(hashStrings)),
+                BookProcessor.ProcessorState.defaultStateName());
+    }
+
     @SneakyThrows
     @Transactional
     public void changeBookState(@NonNull String id, @NonNull BookState bookState) {
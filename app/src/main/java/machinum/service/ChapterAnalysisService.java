@@ -5,22 +5,22 @@ import lombok.extern.slf4j.Slf4j;
 import machinum.converter.ChapterAnalysisMapper;
 import machinum.model.ChapterDataSummary;
 import machinum.model.ChapterDataSummary.ChapterHeatmapData;
+import machinum.model.ChapterDataSummary.ChapterReadinessDelta;
 import machinum.model.ChapterDataSummary.ChapterReadinessItem;
 import machinum.model.ChapterDataSummary.ChapterTextFingerprint;
 import machinum.model.ChapterDataSummary.TextFingerprintData;
 import machinum.repository.ChapterReportRepository;
-import machinum.repository.ChapterReportRepository.CharacterCountProjection;
 import machinum.repository.ChapterReportRepository.UniqueNamesProjection;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import machinum.service.BookReadiness.ChapterReadiness;
+import org.springframework.cache.InMemoryCache;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Map;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
-import static machinum.config.Config.CacheConstants.*;
-
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -29,87 +29,91 @@ public class ChapterAnalysisService {
     private final ChapterReportRepository chapterReportRepository;
     private final ChapterAnalysisMapper chapterAnalysisMapper;
 
+    // Readiness aggregates: bookId -> aggregate, reloaded from scratch once expired
+    private final InMemoryCache<String, BookReadiness> readinessCache = InMemoryCache.create(Duration.ofHours(1), 64);
 
+    /**
+     * Returns the summary of the aggregate, only chapters changed since the previous call are read.
+     */
     @Transactional(readOnly = true)
-    @Cacheable(CHAPTER_DATA_SUMMARY)
     public ChapterDataSummary getChapterDataSummary(String bookId) {
-        log.info("Generating chapter data summary for bookId: {}", bookId);
-
-        Long totalChapters = chapterReportRepository.countByBookId(bookId);
+        log.debug("Generating chapter data summary for bookId: {}", bookId);
+        var readiness = refresh(bookId);
+        synchronized (readiness) {
+            return readiness.summary();
+        }
+    }
 
-        if (totalChapters == 0) {
-            return ChapterDataSummary.builder()
+    /**
+     * Returns chapters whose readiness changed since the given version, a zero version returns all chapters.
+     */
+    @Transactional(readOnly = true)
+    public ChapterReadinessDelta getReadinessChanges(String bookId, long since) {
+        log.debug("Collecting readiness changes for bookId: {}, since={}", bookId, since);
+        var readiness = refresh(bookId);
+        synchronized (readiness) {
+            return ChapterReadinessDelta.builder()
                     .bookId(bookId)
-                    .totalChapters(0L)
-                    .emptyTitles(0L)
-                    .emptyTranslatedTitles(0L)
-                    .emptyTexts(0L)
-                    .emptyTranslatedTexts(0L)
-                    .emptySummaries(0L)
-                    .emptyNames(0L)
-                    .emptyWarnings(0L)
-                    .titleCompletionPercentage(0.0)
-                    .translatedTitleCompletionPercentage(0.0)
-                    .textCompletionPercentage(0.0)
-                    .translatedTextCompletionPercentage(0.0)
-                    .summaryCompletionPercentage(0.0)
-                    .namesCompletionPercentage(0.0)
-                    .warningsPercentage(0.0)
+                    .since(since)
+                    .version(readiness.getWatermark())
+                    .summary(readiness.summary())
+                    .chapters(readiness.changedSince(since).stream()
+                            .map(chapterAnalysisMapper::toDto)
+                            .collect(Collectors.toList()))
+                    .removedIds(readiness.removedSince(since))
                     .build();
         }
-
-        Long emptyTitles = chapterReportRepository.countEmptyTitlesByBookId(bookId);
-        Long emptyTranslatedTitles = chapterReportRepository.countEmptyTranslatedTitlesByBookId(bookId);
-        Long emptyTexts = chapterReportRepository.countEmptyTextsByBookId(bookId);
-        Long emptyTranslatedTexts = chapterReportRepository.countEmptyTranslatedTextsByBookId(bookId);
-        Long emptySummaries = chapterReportRepository.countEmptySummariesByBookId(bookId);
-        Long emptyNames = chapterReportRepository.countEmptyNamesByBookId(bookId);
-        Long emptyTranslatedNames = chapterReportRepository.countTranslatedNamesByBookId(bookId);
-        Long emptyWarnings = chapterReportRepository.countEmptyWarningsByBookId(bookId);
-
-        // Calculate completion percentages
-        Double titleCompletionPercentage = ((double) (totalChapters - emptyTitles) / totalChapters) * 100;
-        Double translatedTitleCompletionPercentage = ((double) (totalChapters - emptyTranslatedTitles) / totalChapters) * 100;
-        Double textCompletionPercentage = ((double) (totalChapters - emptyTexts) / totalChapters) * 100;
-        Double translatedTextCompletionPercentage = ((double) (totalChapters - emptyTranslatedTexts) / totalChapters) * 100;
-        Double summaryCompletionPercentage = ((double) (totalChapters - emptySummaries) / totalChapters) * 100;
-        Double namesCompletionPercentage = ((double) (totalChapters - emptyNames) / totalChapters) * 100;
-        Double translatedNamesCompletionPercentage = ((double) (totalChapters - emptyTranslatedNames) / totalChapters) * 100;
-        Double warningsPercentage = ((double) (totalChapters - emptyWarnings) / totalChapters) * 100;
-
-        return ChapterDataSummary.builder()
-                .bookId(bookId)
-                .totalChapters(totalChapters)
-                .emptyTitles(emptyTitles)
-                .emptyTranslatedTitles(emptyTranslatedTitles)
-                .emptyTexts(emptyTexts)
-                .emptyTranslatedTexts(emptyTranslatedTexts)
-                .emptySummaries(emptySummaries)
-                .emptyNames(emptyNames)
-                .emptyTranslatedNames(emptyTranslatedNames)
-                .emptyWarnings(emptyWarnings)
-                .titleCompletionPercentage(titleCompletionPercentage)
-                .translatedTitleCompletionPercentage(translatedTitleCompletionPercentage)
-                .textCompletionPercentage(textCompletionPercentage)
-                .translatedTextCompletionPercentage(translatedTextCompletionPercentage)
-                .summaryCompletionPercentage(summaryCompletionPercentage)
-                .namesCompletionPercentage(namesCompletionPercentage)
-                .translatedNamesCompletionPercentage(translatedNamesCompletionPercentage)
-                .warningsPercentage(warningsPercentage)
-                .build();
     }
 
-    @CacheEvict(CHAPTER_HEATMAP_DATA)
     public void clearHeatmapCache(String bookId) {
         log.debug("Will clean heatmap cache due user request: {}", bookId);
+        readinessCache.invalidate(bookId);
     }
 
     @Transactional(readOnly = true)
-    @Cacheable(CHAPTER_HEATMAP_DATA)
     public ChapterHeatmapData getChapterHeatmapData(String bookId) {
-        log.info("Generating chapter heatmap data for bookId: {}", bookId);
+        log.debug("Generating chapter heatmap data for bookId: {}", bookId);
+        var readiness = refresh(bookId);
+        synchronized (readiness) {
+            return readiness.view("heatmap", () -> createHeatmapData(readiness));
+        }
+    }
+
+    public void clearFingerprintCache(String bookId) {
+        log.debug("Will clean fingerprint cache for bookId: {}", bookId);
+        readinessCache.invalidate(bookId);
+    }
+
+    @Transactional(readOnly = true)
+    public TextFingerprintData getTextFingerprintData(String bookId) {
+        log.debug("Generating text fingerprint data for bookId: {}", bookId);
+        var readiness = refresh(bookId);
+        synchronized (readiness) {
+            return readiness.view("fingerprint", () -> createTextFingerprintData(readiness));
+        }
+    }
+
+    /* ============= */
+
+    /**
+     * Loads the aggregate of the book and applies rows changed since its watermark. The watermark is taken
+     * before the rows, so rows of transactions still running at that moment are read again next time.
+     */
+    private BookReadiness refresh(String bookId) {
+        var readiness = readinessCache.get(bookId, BookReadiness::new);
+        synchronized (readiness) {
+            var watermark = chapterReportRepository.currentReadinessWatermark();
+            var changes = chapterReportRepository.findReadinessChangedSince(bookId, readiness.getWatermark());
+            readiness.apply(changes.stream()
+                    .map(chapterAnalysisMapper::toReadiness)
+                    .toList(), watermark);
+        }
+
+        return readiness;
+    }
 
-        var chapters = chapterReportRepository.getChapterReadinessData(bookId).stream()
+    private ChapterHeatmapData createHeatmapData(BookReadiness readiness) {
+        var chapters = readiness.chapters().stream()
                 .map(chapterAnalysisMapper::toDto)
                 .collect(Collectors.toList());
 
@@ -124,24 +128,20 @@ public class ChapterAnalysisService {
                         ChapterReadinessItem::getStatus,
                         Collectors.collectingAndThen(Collectors.counting(), Math::toIntExact)));
 
-        return new ChapterHeatmapData(bookId, chapters, averageReadiness, statusCounts, chapters.size());
+        return new ChapterHeatmapData(readiness.getBookId(), chapters, averageReadiness, statusCounts, chapters.size());
     }
 
-    @CacheEvict(CHAPTER_FINGERPRINT_DATA)
-    public void clearFingerprintCache(String bookId) {
-        log.debug("Will clean fingerprint cache for bookId: {}", bookId);
-    }
-
-    @Transactional(readOnly = true)
-    @Cacheable(CHAPTER_FINGERPRINT_DATA)
-    public TextFingerprintData getTextFingerprintData(String bookId) {
-        log.info("Generating text fingerprint data for bookId: {}", bookId);
-
-        var characterCounts = chapterReportRepository.getChapterCharacterCounts(bookId).stream()
+    private TextFingerprintData createTextFingerprintData(BookReadiness readiness) {
+        var bookId = readiness.getBookId();
+        var characterCounts = readiness.chapters().stream()
+                .filter(chapter -> Objects.nonNull(chapter.number()))
                 .collect(Collectors.toMap(
-                        CharacterCountProjection::getNumber,
-                        CharacterCountProjection::getSampledChars));
+                        ChapterReadiness::number,
+                        chapter -> Objects.requireNonNullElse(chapter.characterCount(), 0),
+                        (first, second) -> first,
+                        TreeMap::new));
 
+        // Names come from the glossary table, the query runs once per change of the book
         var uniqueNamesData = chapterReportRepository.getChapterUniqueNamesProgress(bookId).stream()
                 .collect(Collectors.toMap(
                         UniqueNamesProjection::getChapterNumber,
@@ -161,7 +161,6 @@ public class ChapterAnalysisService {
 
         // Build chapter fingerprints in order
         var chapterFingerprints = characterCounts.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
                 .map(entry -> {
                     var chapterNumber = entry.getKey();
                     var characterCount = entry.getValue() != null ? entry.getValue() : 0;
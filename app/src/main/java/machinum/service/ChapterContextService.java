@@ -5,11 +5,15 @@ import lombok.extern.slf4j.Slf4j;
 import machinum.converter.ChapterContextMapper;
 import machinum.entity.ChapterContextEntity;
 import machinum.model.ChapterContext;
+import machinum.repository.ChapterChunkEmbeddingDao;
+import machinum.repository.ChapterChunkEmbeddingDao.Chunk;
+import machinum.repository.ChapterChunkEmbeddingDao.ChunkMatch;
 import machinum.repository.ChapterContextRepository;
-import machinum.repository.ChapterContextRepository.ChapterSimilarityProjection;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 
 @Slf4j
@@ -19,10 +23,12 @@ public class ChapterContextService {
 
     private final ChapterContextRepository chapterContextRepository;
     private final ChapterContextMapper chapterContextMapper;
+    private final ChapterChunkEmbeddingDao chapterChunkEmbeddingDao;
 
     @Transactional
     public void deleteById(String id) {
         chapterContextRepository.deleteById(id);
+        chapterChunkEmbeddingDao.deleteByChapterId(id);
     }
 
     @Transactional
@@ -31,14 +37,40 @@ public class ChapterContextService {
         chapterContextRepository.save(entity);
     }
 
+    @Transactional
+    public void replaceChunks(ChapterContext chapterContext, List<Chunk> chunks) {
+        chapterChunkEmbeddingDao.replaceChunks(chapterContext.getId(), chapterContext.getBookId(),
+                chapterContext.getChapterNumber(), chunks);
+    }
+
+    /**
+     * Finds the nearest chunks of the field with an index scan.
+     *
+     * @param maxDistance maximum cosine distance of a chunk
+     * @return matching chunks with their offsets, ordered by distance
+     */
     @Transactional(readOnly = true)
-    public List<ChapterSimilarityProjection> findSimilarByFieldProjected(String bookId, String embeddingStr, String fieldType, double threshold, int limit) {
-        return chapterContextRepository.findSimilarByFieldProjected(bookId, embeddingStr, fieldType, threshold, limit);
+    public List<ChunkMatch> findSimilarByFieldProjected(String bookId, float[] embedding, String fieldType, double maxDistance, int limit) {
+        return chapterChunkEmbeddingDao.findNearest(bookId, embedding, fieldType, maxDistance, limit);
     }
 
     @Transactional(readOnly = true)
-    public List<ChapterSimilarityProjection> findSimilarAcrossFieldsProjected(String bookId, String embeddingStr, double threshold, int limit) {
-        return chapterContextRepository.findSimilarAcrossFieldsProjected(bookId, embeddingStr, threshold, limit);
+    public List<ChapterContext> findAllById(Collection<String> ids) {
+        return chapterContextMapper.toDto(chapterContextRepository.findAllById(ids));
+    }
+
+    /**
+     * Finds the nearest chunks of every field, each field is searched with its own index scan.
+     *
+     * @param maxDistance maximum cosine distance of a chunk
+     * @return matching chunks of all fields, ordered by distance
+     */
+    @Transactional(readOnly = true)
+    public List<ChunkMatch> findSimilarAcrossFieldsProjected(String bookId, float[] embedding, double maxDistance, int limit) {
+        return ChapterChunkEmbeddingDao.FIELD_TYPES.stream()
+                .flatMap(fieldType -> chapterChunkEmbeddingDao.findNearest(bookId, embedding, fieldType, maxDistance, limit).stream())
+                .sorted(Comparator.comparingDouble(ChunkMatch::distance))
+                .toList();
     }
 
     @Transactional(readOnly = true)
@@ -3,7 +3,6 @@ package machinum.service;
 import jakarta.persistence.EntityManager;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import machinum.exception.AppIllegalStateException;
 import machinum.flow.model.FlowContext;
@@ -14,7 +13,6 @@ import machinum.model.ObjectName;
 import machinum.processor.client.GeminiClient;
 import machinum.util.TextUtil;
 import org.apache.commons.lang3.ObjectUtils;
-import org.springframework.async.AsyncHelper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -39,8 +37,6 @@ public class ChapterFacade {
     private final ChapterGlossaryService chapterGlossaryService;
     private final LineService lineService;
     private final TemplateAiFacade templateAiFacade;
-    private final LinesInfoDao lineDao;
-    private final AsyncHelper asyncHelper;
     private final DbHelper dbHelper;
 
     @Value("${app.batch-size}")
@@ -57,7 +53,7 @@ public class ChapterFacade {
                 var flow = context.getFlow();
                 var currentChap = context.getCurrentItem();
                 var previousChap = chapterService.findByNumber(currentChap.getBookId(),
-                        currentChap.getNumber() - 1).orElse(context.getCurrentItem());
+                        currentChap.getNumber() - 1).orElseGet(() -> chapterService.getById(currentChap.getId()));
                 var initState = flow.isInitState(context.getState());
                 var actualChap = loadItemForBootstrap(initState, previousChap);
 
@@ -84,14 +80,8 @@ public class ChapterFacade {
         chapterService.saveWithContext(context);
     }
 
-    @SneakyThrows
     public Chapter updateChapter(Chapter updatedChapter) {
-        var result = chapterService.updateChapter(updatedChapter);
-        asyncHelper.inNewTransaction(() ->
-                        lineDao.refreshView(updatedChapter.getBookId(), updatedChapter.getNumber()),
-                (r, throwable) -> log.debug("MatView update status: {}", r ? "success" : "failed"));
-
-        return result;
+        return chapterService.updateChapter(updatedChapter);
     }
 
     public FlowContext<Chapter> extend(FlowContext<Chapter> context) {
@@ -46,6 +46,7 @@ public class ChapterGlossaryService {
     private final ChapterGlossaryMapper chapterGlossaryMapper;
     private final ChapterMapper chapterMapper;
     private final ChapterGlossaryDao chapterGlossaryDao;
+    private final GlossaryIndexService glossaryIndexService;
     private final AsyncHelper asyncHelper;
 
     @Transactional(readOnly = true)
@@ -349,6 +350,8 @@ public class ChapterGlossaryService {
     public void replaceText(@NonNull String bookId, String search, String replacement) {
         log.debug("Replacing text in bookId: {}", bookId);
         chapterGlossaryRepository.replaceText(bookId, search, replacement);
+        chapterGlossaryDao.invalidate(bookId);
+        glossaryIndexService.invalidate(bookId);
         log.debug("Text replacement completed for bookId: {}", bookId);
     }
 
@@ -380,6 +383,8 @@ public class ChapterGlossaryService {
         }
         log.debug("Updating glossary ru name in bookId: {}", bookId);
         String result = chapterGlossaryRepository.updateGlossaryRuName(bookId, oldRuName, newRuName, returnIds, nameFilter);
+        chapterGlossaryDao.invalidate(bookId);
+        glossaryIndexService.invalidate(bookId);
         log.debug("Glossary ru name update completed for bookId: {}", bookId);
         if (returnIds != null && returnIds) {
             try {
@@ -426,6 +431,8 @@ public class ChapterGlossaryService {
             }
 
             chapterService.save(chapter);
+            chapterGlossaryDao.invalidate(bookId);
+            glossaryIndexService.invalidate(bookId);
             log.debug("Glossary property '{}' updated successfully for chapterGlossaryId: {}", field, chapterGlossaryId);
         } catch (Exception e) {
             log.error("Failed to update glossary property '{}' for id: {}", field, chapterGlossaryId, e);
@@ -1,17 +1,24 @@
 package machinum.service;
 
 import com.github.difflib.DiffUtils;
+import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import machinum.converter.ChapterHistoryMapper;
+import machinum.converter.ChapterHistoryMapper.ChapterInfoHistoryConverter;
+import machinum.entity.ChapterHistoryEntity;
 import machinum.model.ChapterHistory;
 import machinum.repository.ChapterHistoryRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
 
 import static machinum.listener.ChapterEntityListener.TRACKED_FIELDS;
 import static org.springframework.data.domain.Sort.Order.asc;
@@ -22,14 +29,98 @@ import static org.springframework.data.domain.Sort.Order.desc;
 @RequiredArgsConstructor
 public class ChapterHistoryService {
 
+    public static final String INSERT_SQL = """
+            INSERT INTO chapter_info_history (id, chapter_info_id, number, field_name, packed_patch, keyframe, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)""";
+
     private final ChapterHistoryRepository chapterHistoryRepository;
     private final ChapterHistoryMapper chapterHistoryMapper;
+    private final ChapterInfoHistoryConverter chapterInfoHistoryConverter;
+    private final JdbcTemplate jdbcTemplate;
+    @Value("${app.chapter-history.keyframe-interval:10}")
+    private final int keyframeInterval;
+    @Value("${app.chapter-history.keyframe-patch-bytes:65536}")
+    private final long keyframePatchBytes;
 
 
+    /**
+     * Saves the patch compressed. When the history has a content and enough patches (or patch bytes) were
+     * written since the last keyframe, the content is stored as a new keyframe.
+     */
     @Transactional
     public void save(ChapterHistory history) {
         log.debug("Prepare to save history for chapter: {}", history);
-        chapterHistoryRepository.save(chapterHistoryMapper.toEntity(history));
+        var entity = chapterHistoryMapper.toEntity(history);
+        if (Objects.nonNull(history.getContent())) {
+            var since = chapterHistoryRepository.countPatchesSinceKeyframe(history.getChapterInfoId(), history.getFieldName());
+            if (isKeyframeDue(since.getPatches(), since.getBytes() + length(entity.getPackedPatch()))) {
+                entity.setKeyframe(packKeyframe(history.getContent()));
+            }
+        }
+
+        chapterHistoryRepository.save(entity);
+    }
+
+    /**
+     * Saves histories with one batch insert. Numbers and keyframes follow the same rules as {@link #save},
+     * the state of every chapter's field is loaded once and advanced in memory.
+     */
+    @Transactional
+    public void saveAll(List<ChapterHistory> histories) {
+        if (histories.isEmpty()) {
+            return;
+        }
+
+        log.debug("Prepare to save {} histories", histories.size());
+        var chapterIds = histories.stream()
+                .map(ChapterHistory::getChapterInfoId)
+                .collect(Collectors.toSet());
+        var states = chapterHistoryRepository.findHistoryStates(chapterIds).stream()
+                .collect(Collectors.toMap(state -> key(state.getChapterInfoId(), state.getFieldName()),
+                        state -> new KeyframeState(state.getTotal(), state.getPatches(), state.getBytes())));
+
+        var entities = new ArrayList<ChapterHistoryEntity>(histories.size());
+        for (var history : histories) {
+            var entity = chapterHistoryMapper.toEntity(history);
+            var state = states.computeIfAbsent(key(history.getChapterInfoId(), history.getFieldName()),
+                    key -> new KeyframeState(0, 0, 0));
+            var patchBytes = length(entity.getPackedPatch());
+
+            entity.setId(UUID.randomUUID().toString());
+            entity.setNumber((int) ++state.total);
+            if (Objects.nonNull(history.getContent()) && isKeyframeDue(state.patches, state.bytes + patchBytes)) {
+                entity.setKeyframe(packKeyframe(history.getContent()));
+                state.patches = 0;
+                state.bytes = 0;
+            } else {
+                state.patches++;
+                state.bytes += patchBytes;
+            }
+            entities.add(entity);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, entities, entities.size(), (ps, entity) -> {
+            ps.setString(1, entity.getId());
+            ps.setString(2, entity.getChapterInfoId());
+            ps.setInt(3, entity.getNumber());
+            ps.setString(4, entity.getFieldName());
+            ps.setBytes(5, entity.getPackedPatch());
+            ps.setBytes(6, entity.getKeyframe());
+            ps.setObject(7, Objects.requireNonNullElseGet(entity.getCreatedAt(), LocalDateTime::now));
+        });
+    }
+
+    /**
+     * Removes the whole history of the given chapters
+     */
+    @Transactional
+    public void removeHistory(Collection<String> chapterIds) {
+        if (chapterIds.isEmpty()) {
+            return;
+        }
+
+        log.debug("Prepare to remove history for chapters: {}", chapterIds);
+        chapterHistoryRepository.deleteByChapterInfoIdIn(chapterIds);
     }
 
     /**
@@ -53,18 +144,24 @@ public class ChapterHistoryService {
     }
 
     /**
-     * Rebuilds the content at a specific point in time by applying patches
+     * Rebuilds the content at a specific point in time by applying patches, starting from the nearest
+     * keyframe at or before the point
      */
     @SneakyThrows
     @Transactional(readOnly = true)
     public String rebuildContentAtPoint(String chapterId, String fieldName, Integer point) {
         log.debug("Restoring content for chapter's field: {}, field={}", chapterId, fieldName);
-        var list = chapterHistoryRepository.findByChapterInfoIdAndFieldNameAndNumberLessThanEqual(chapterId, fieldName,
-                point, Sort.by(asc("number"), asc("createdAt")));
+        var keyframe = chapterHistoryRepository.findFirstByChapterInfoIdAndFieldNameAndNumberLessThanEqualAndKeyframeIsNotNullOrderByNumberDesc(
+                chapterId, fieldName, point);
+        var from = keyframe.map(ChapterHistoryEntity::getNumber)
+                .orElse(0);
+        var list = chapterHistoryRepository.findByChapterInfoIdAndFieldNameAndNumberBetween(chapterId, fieldName,
+                from + 1, point, Sort.by(asc("number"), asc("createdAt")));
         var infoHistory = chapterHistoryMapper.toDto(list);
 
         // Apply patches in order
-        var contentLines = List.<String>of();
+        var contentLines = keyframe.map(entity -> lines(chapterInfoHistoryConverter.unpackText(entity.getKeyframe())))
+                .orElse(List.of());
 
         for (var chapterInfoHistory : infoHistory) {
             // Parse the patch string (simplified - in real implementation you'd need a proper parser)
@@ -76,4 +173,42 @@ public class ChapterHistoryService {
         return String.join("\n", contentLines);
     }
 
+    /* ============= */
+
+    /**
+     * @param patches the number of patches since the last keyframe, without the new one
+     * @param bytes   the patch bytes since the last keyframe, with the new patch
+     */
+    private boolean isKeyframeDue(long patches, long bytes) {
+        return patches + 1 >= keyframeInterval || bytes >= keyframePatchBytes;
+    }
+
+    private byte[] packKeyframe(String content) {
+        // Lines are stored the way patches see them, so replays from the keyframe give the same text
+        return chapterInfoHistoryConverter.packText(String.join("\n", lines(content)));
+    }
+
+    private static int length(byte[] data) {
+        return Objects.isNull(data) ? 0 : data.length;
+    }
+
+    private static String key(String chapterId, String fieldName) {
+        return chapterId + ":" + fieldName;
+    }
+
+    private List<String> lines(String content) {
+        return Arrays.asList(content.split("\n"));
+    }
+
+    @AllArgsConstructor
+    private static final class KeyframeState {
+
+        private long total;
+
+        private long patches;
+
+        private long bytes;
+
+    }
+
 }
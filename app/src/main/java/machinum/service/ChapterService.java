@@ -18,6 +18,7 @@ import machinum.flow.model.Pack;
 import machinum.listener.ChapterEntityListener;
 import machinum.model.Chapter;
 import machinum.model.ObjectName;
+import machinum.repository.ChapterGlossaryDao;
 import machinum.repository.ChapterGlossaryRepository.GlossaryByQueryResult;
 import machinum.repository.ChapterIndexRepository;
 import machinum.repository.ChapterRepository;
@@ -49,6 +50,7 @@ import static machinum.util.TextUtil.isNotEmpty;
 public class ChapterService {
 
     public static final String NEW_EN_NAME = "newName";
+    public static final int CHAPTER_SOURCE_PAGE_SIZE = 500;
 
     private final ChapterIndexRepository chapterIndexRepository;
     private final ChapterRepository chapterRepository;
@@ -56,6 +58,8 @@ public class ChapterService {
     @Qualifier("objectMapperHolder")
     private final Holder<ObjectMapper> objectMapperHolder;
     private final ChapterEntityListener chapterEntityListener;
+    private final ChapterGlossaryDao chapterGlossaryDao;
+    private final GlossaryIndexService glossaryIndexService;
 
     @Value("${app.batch-size}")
     private final Integer batchSize;
@@ -198,6 +202,44 @@ public class ChapterService {
         return chapters.map(chapterMapper::toDto);
     }
 
+    /**
+     * Loads a page of chapters among {@code [startNumber, endNumber]} that follow the given chapter
+     * in {@code (number, id)} order.
+     */
+    @Transactional(readOnly = true)
+    public List<Chapter> loadBookChaptersAfter(String bookId, Integer startNumber, Integer endNumber,
+                                               Integer afterNumber, String afterId, int limit) {
+        log.debug("Loading chapters page from db: {}, after={}/{}", bookId, afterNumber, afterId);
+        return chapterMapper.toDto(chapterRepository.findChaptersAfter(bookId, startNumber, endNumber,
+                afterNumber, afterId, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public boolean existsInRange(String bookId, Integer startNumber, Integer endNumber) {
+        return chapterRepository.existsByBookIdAndNumberBetween(bookId, startNumber, endNumber);
+    }
+
+    /**
+     * Creates a flow source of the book, only chapter headers are loaded.
+     *
+     * @param bookId the book id
+     * @return chapters of the book ordered by number
+     */
+    @Transactional(readOnly = true)
+    public ChapterSource loadChapterSource(String bookId) {
+        log.debug("Loading chapter headers from db: {}", bookId);
+        var source = ChapterSource.load(bookId, CHAPTER_SOURCE_PAGE_SIZE, (afterNumber, afterId, limit) ->
+                chapterRepository.findHeadersAfter(bookId, afterNumber, afterId, limit));
+        log.debug("Loaded chapter headers from db: {}, size={}", bookId, source.size());
+
+        return source;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<String> findSummaryById(@NonNull String id) {
+        return chapterRepository.findSummaryById(id);
+    }
+
     @Transactional(readOnly = true)
     public Optional<Chapter> findByNumber(String bookId, Integer chapterNumber) {
         if (chapterNumber <= 0) {
@@ -246,6 +288,7 @@ public class ChapterService {
                             ctx.getCurrentItem().setNames(glossary);
                             var glossaryText = objectMapperHolder.execute(mapper -> toJsonString(mapper, glossary));
                             chapterRepository.updateGlossary(chapterInfo.getId(), glossaryText);
+                            invalidateGlossary(chapterInfo);
                         });
                 ctx.optionalValue(FlowContext::chunksArg)
                         .ifPresent(chunks -> {
@@ -268,6 +311,7 @@ public class ChapterService {
                             ctx.getCurrentItem().setNames(glossary);
                             var glossaryText = objectMapperHolder.execute(mapper -> toJsonString(mapper, glossary));
                             chapterRepository.updateGlossary(chapterInfo.getId(), glossaryText);
+                            invalidateGlossary(chapterInfo);
                         });
             }
             case TRANSLATE_TITLE -> {
@@ -368,20 +412,11 @@ public class ChapterService {
 
     @Transactional(readOnly = true)
     public Chapter refresh(FlowContext<Chapter> context) {
-        var flow = context.getFlow();
-        var currentState = context.getState();
-        var nextState = flow.nextState(currentState);
-        var initState = flow.isInitState(currentState);
-
-        //For second step and next, we try to refresh item from db
-        if (Objects.nonNull(nextState) && !initState) {
-            var currentItem = context.getCurrentItem();
-            log.debug("Refreshing data from db for: {}", currentItem);
-
-            return getById(currentItem.getId());
-        }
+        //Flow source holds only chapter headers, so the item is always hydrated from db before its pipes
+        var currentItem = context.getCurrentItem();
+        log.debug("Refreshing data from db for: {}", currentItem);
 
-        return context.getCurrentItem();
+        return getById(currentItem.getId());
     }
 
     @Transactional(readOnly = true)
@@ -411,9 +446,15 @@ public class ChapterService {
     //TODO move to facade
     @Transactional
     public void importTranslation(String bookId, List<Chapter> list) {
-        log.debug("Import translation for book: {}, list={}", bookId, list.size());
+        importTranslation(bookId, list, parseImportMode(list));
+    }
 
-        boolean importMode = parseImportMode(list);
+    /**
+     * @param importMode use content of translated fields when true, otherwise regular text fields
+     */
+    @Transactional
+    public void importTranslation(String bookId, List<Chapter> list, boolean importMode) {
+        log.debug("Import translation for book: {}, list={}", bookId, list.size());
 
         for (int i = 0; i < list.size(); i++) {
             var chapterInfo = list.get(i);
@@ -500,6 +541,7 @@ public class ChapterService {
 
         if (persist) {
             chapterRepository.updateGlossary(chapter.getId(), objectMapperHolder.execute(mapper -> mapper.writeValueAsString(chapter.getNames())));
+            invalidateGlossary(chapter);
         }
     }
 
@@ -522,6 +564,7 @@ public class ChapterService {
         if (persist) {
             chapterRepository.updateGlossary(chapter.getId(), objectMapperHolder.execute(
                     mapper -> mapper.writeValueAsString(chapter.getNames())));
+            invalidateGlossary(chapter);
         }
     }
 
@@ -537,6 +580,14 @@ public class ChapterService {
                 .writeValueAsString(value);
     }
 
+    private void invalidateGlossary(Chapter chapter) {
+        // chapter_glossary is synced by a trigger, the cached matcher and index of the book are stale now
+        if (Objects.nonNull(chapter.getBookId())) {
+            chapterGlossaryDao.invalidate(chapter.getBookId());
+            glossaryIndexService.invalidate(chapter.getBookId());
+        }
+    }
+
     @Deprecated(forRemoval = true)
     private List<String> findMissingNames(List<GlossaryByQueryResult> pairs, List<String> dtoNames) {
         // Find Pair's first values that are not in dtoNames
@@ -546,7 +597,7 @@ public class ChapterService {
                 .collect(Collectors.toList());
     }
 
-    private boolean parseImportMode(List<Chapter> list) {
+    public boolean parseImportMode(List<Chapter> list) {
         // if true then use content of translated fields, otherwise use regular text fields
         if (!list.isEmpty()) {
             var first = list.getFirst();
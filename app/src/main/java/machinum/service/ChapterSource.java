@@ -0,0 +1,105 @@
+package machinum.service;
+
+import machinum.model.Chapter;
+import machinum.repository.ChapterRepository.ChapterHeaderDto;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Flow source of a book that keeps only chapter headers on the heap. Items are light chapters with
+ * id, number, title and source key (the values used by {@link Chapter#hashValues()}); the full chapter is
+ * loaded by the flow refresh action just before its pipes run, so heap use doesn't grow with the
+ * book text.
+ */
+public class ChapterSource extends AbstractList<Chapter> implements RandomAccess {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final String bookId;
+
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private int[] numbers = new int[INITIAL_CAPACITY];
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private String[] sourceKeys = new String[INITIAL_CAPACITY];
+    private int size;
+
+    private ChapterSource(String bookId) {
+        this.bookId = bookId;
+    }
+
+    /**
+     * Reads chapter headers of the book page by page, using the last seen {@code (number, id)} as the key
+     * of the next page.
+     *
+     * @param bookId   the book id
+     * @param pageSize number of headers per query
+     * @param pager    loads a page of headers after the given key
+     * @return the source ordered by chapter number
+     */
+    public static ChapterSource load(String bookId, int pageSize, HeaderPager pager) {
+        var source = new ChapterSource(bookId);
+        var afterNumber = Integer.MIN_VALUE;
+        var afterId = "";
+
+        List<ChapterHeaderDto> page;
+        do {
+            page = pager.load(afterNumber, afterId, pageSize);
+            for (var header : page) {
+                source.add(header);
+                afterNumber = source.numbers[source.size - 1];
+                afterId = header.getId();
+            }
+        } while (page.size() == pageSize);
+
+        return source;
+    }
+
+    @Override
+    public Chapter get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        return Chapter.builder()
+                .id(ids[index])
+                .number(numbers[index])
+                .title(titles[index])
+                .sourceKey(sourceKeys[index])
+                .bookId(bookId)
+                .build();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /* ============= */
+
+    private void add(ChapterHeaderDto header) {
+        if (size == ids.length) {
+            var newCapacity = size * 2;
+            ids = Arrays.copyOf(ids, newCapacity);
+            numbers = Arrays.copyOf(numbers, newCapacity);
+            titles = Arrays.copyOf(titles, newCapacity);
+            sourceKeys = Arrays.copyOf(sourceKeys, newCapacity);
+        }
+
+        ids[size] = header.getId();
+        numbers[size] = header.getNumber() == null ? 0 : header.getNumber();
+        titles[size] = header.getTitle();
+        sourceKeys[size] = header.getSourceKey();
+        size++;
+    }
+
+    @FunctionalInterface
+    public interface HeaderPager {
+
+        List<ChapterHeaderDto> load(Integer afterNumber, String afterId, int limit);
+
+    }
+
+}
@@ -0,0 +1,76 @@
+package machinum.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Generates embeddings with the batch API of the embedding model.
+ * Texts are split into batches of {@code app.embedding.batch-size}, up to
+ * {@code app.embedding.concurrency} batches are sent at the same time.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmbeddingBatcher {
+
+    private final EmbeddingModel embeddingModel;
+
+    @Value("${app.embedding.batch-size:32}")
+    private final int batchSize;
+
+    @Value("${app.embedding.concurrency:4}")
+    private final int concurrency;
+
+    /**
+     * Embeds the given texts, the result has the same size and order as the input.
+     * A failed batch doesn't fail the others, its positions are filled with {@code null}.
+     *
+     * @param texts the texts to embed
+     * @return embeddings in the input order, {@code null} for texts of a failed batch
+     */
+    public List<float[]> embed(List<String> texts) {
+        if (texts.isEmpty()) {
+            return List.of();
+        }
+
+        var size = Math.max(1, batchSize);
+        var result = new float[texts.size()][];
+        var permits = new Semaphore(Math.max(1, concurrency));
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int from = 0; from < texts.size(); from += size) {
+                var start = from;
+                var batch = texts.subList(start, Math.min(start + size, texts.size()));
+
+                executor.execute(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        var embeddings = embeddingModel.embed(batch);
+                        for (int i = 0; i < embeddings.size(); i++) {
+                            result[start + i] = embeddings.get(i);
+                        }
+                    } catch (Exception e) {
+                        log.warn("Failed to generate embeddings for batch [{}..{}): {}",
+                                start, start + batch.size(), e.getMessage());
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+
+        log.debug("Generated embeddings for {} texts in batches of {}", texts.size(), size);
+
+        return new ArrayList<>(Arrays.asList(result));
+    }
+
+}
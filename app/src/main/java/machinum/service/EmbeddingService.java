@@ -3,27 +3,24 @@ package machinum.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import machinum.controller.ChapterController.GlossarySearchRequest;
-import machinum.converter.ChapterContextMapper;
 import machinum.converter.NamesContextMapper;
 import machinum.extract.NameRelationAnalyzer;
 import machinum.extract.NameRelationAnalyzer.GlossarySimilarityRecord;
 import machinum.extract.Splitter;
 import machinum.flow.model.FlowContext;
 import machinum.model.*;
-import machinum.repository.ChapterContextRepository.ChapterSimilarityProjection;
-import machinum.repository.ChapterGlossaryRepository;
+import machinum.repository.ChapterChunkEmbeddingDao.Chunk;
+import machinum.repository.ChapterChunkEmbeddingDao.ChunkMatch;
+import machinum.service.GlossaryIndex.LookupOptions;
 import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static machinum.service.ChapterGlossaryService.generateTrigrams;
-
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -35,12 +32,15 @@ public class EmbeddingService {
     public static final String TRANSLATED_TEXT = "translated_text";
     public static final String SUMMARY = "summary";
 
+    private static final int CHUNK_CANDIDATES_PER_CHAPTER = 4;
+    private static final double CLOSE_MATCH_SCORE = 0.6;
+
     private final EmbeddingModel embeddingModel;
+    private final EmbeddingBatcher embeddingBatcher;
     private final NamesContextService namesContextService;
     private final ChapterContextService chapterContextService;
     private final ChapterGlossaryService chapterGlossaryService;
-    private final ChapterGlossaryRepository chapterRepository;
-    private final ChapterContextMapper chapterContextMapper;
+    private final GlossaryIndexService glossaryIndexService;
     private final NamesContextMapper namesContextMapper;
     private final ObjectMapper objectMapper;
     private final Splitter splitter;
@@ -70,18 +70,16 @@ public class EmbeddingService {
         try {
             switch (type) {
                 case ALL -> {
-                    log.info("ALL case: calling generateChapterFieldEmbeddings");
-                    generateChapterFieldEmbeddings(chapter);
-                    log.info("ALL case: calling generateNamesEmbeddings");
-                    generateNamesEmbeddings(chapter);
+                    log.info("ALL case: calling generateEmbeddings");
+                    generateEmbeddings(chapter, true, true);
                 }
                 case ONLY_CHAPTER -> {
-                    log.info("ONLY_CHAPTER case: calling generateChapterFieldEmbeddings");
-                    generateChapterFieldEmbeddings(chapter);
+                    log.info("ONLY_CHAPTER case: calling generateEmbeddings");
+                    generateEmbeddings(chapter, true, false);
                 }
                 case ONLY_NAMES -> {
-                    log.info("ONLY_NAMES case: calling generateNamesEmbeddings");
-                    generateNamesEmbeddings(chapter);
+                    log.info("ONLY_NAMES case: calling generateEmbeddings");
+                    generateEmbeddings(chapter, false, true);
                 }
                 case NONE -> log.info("Skipping embedding generation for chapter {}", chapter.getNumber());
             }
@@ -116,11 +114,18 @@ public class EmbeddingService {
                 return context;
             }
 
-            // Process each name to find initial similar names
-            var records = chapterNames.stream()
-                    .map(objectName -> findSimilarNamesForGlossaryItem(bookId, chapter, objectName))
-                    .collect(Collectors.toList());
+            // All candidates come from the in-memory index of the book, query embeddings are made in one batch.
+            // The index holds embeddings of ObjectName#stringValue (see names_context), so the same text is embedded here
+            var index = glossaryIndexService.getIndex(bookId);
+            var embeddings = embeddingBatcher.embed(chapterNames.stream()
+                    .map(ObjectName::stringValue)
+                    .toList());
 
+            // Process each name to find initial similar names
+            var records = new ArrayList<GlossarySimilarityRecord>();
+            for (int i = 0; i < chapterNames.size(); i++) {
+                records.add(findSimilarNamesForGlossaryItem(index, bookId, chapter, chapterNames.get(i), embeddings.get(i)));
+            }
             // Use LLM analyzer to refine similar names
             var updatedNames = records.stream()
                     .map(record -> {
@@ -145,6 +150,8 @@ public class EmbeddingService {
                         return updatedName;
                     })
                     .collect(Collectors.toList());
+            // Names keep their order, so the embeddings still line up with them
+            glossaryIndexService.appendChapter(chapter, updatedNames, embeddings);
 
             // Update the chapter with enriched names
             var updatedChapter = chapter.toBuilder()
@@ -168,13 +175,80 @@ public class EmbeddingService {
     }
 
     /**
-     * Generate embeddings for specified chapter fields.
-     * Creates one ChapterContextEntity record per chapter with all field embeddings.
+     * Generate embeddings for the chapter fields and/or the glossary names.
+     * All texts are collected first and sent to the model in batches, see {@link EmbeddingBatcher}.
+     */
+    private void generateEmbeddings(Chapter chapter, boolean withFields, boolean withNames) {
+        var texts = new ArrayList<String>();
+        var fields = withFields ? collectFieldSegments(chapter, texts) : null;
+        var names = withNames ? collectNames(chapter) : List.<ObjectName>of();
+        var namesSegment = Segment.append(texts, names.stream()
+                .map(ObjectName::stringValue)
+                .toList());
+
+        var embeddings = embeddingBatcher.embed(texts);
+
+        if (withFields) {
+            saveChapterFieldEmbeddings(chapter, fields, embeddings);
+        }
+        if (withNames) {
+            saveNamesEmbeddings(chapter, names, namesSegment.slice(embeddings));
+        }
+    }
+
+    private Map<String, Segment> collectFieldSegments(Chapter chapter, List<String> texts) {
+        var segments = new HashMap<String, Segment>();
+        segments.put(TITLE, Segment.append(texts, singleField(chapter.getTitle())));
+        segments.put(TRANSLATED_TITLE, Segment.append(texts, singleField(chapter.getTranslatedTitle())));
+        segments.put(TEXT, Segment.append(texts, chunkField(chapter, TEXT, chapter.getText())));
+        segments.put(TRANSLATED_TEXT, Segment.append(texts, chunkField(chapter, TRANSLATED_TEXT, chapter.getTranslatedText())));
+        segments.put(SUMMARY, Segment.append(texts, singleField(chapter.getSummary())));
+
+        return segments;
+    }
+
+    private List<String> singleField(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return List.of();
+        }
+
+        return List.of(value);
+    }
+
+    private List<String> chunkField(Chapter chapter, String field, String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return List.of();
+        }
+
+        try {
+            return splitter.work(value, 1000).stream() // Split text into chunks
+                    .map(chunk -> chunk.getText())
+                    .collect(Collectors.toList());
+        } catch (Exception e) {
+            log.warn("Failed to split {} in chapter {}: {}", field, chapter.getNumber(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    private List<ObjectName> collectNames(Chapter chapter) {
+        if (chapter.getNames() == null) {
+            return List.of();
+        }
+
+        return chapter.getNames().stream()
+                .filter(name -> name.getName() != null && !name.getName().trim().isEmpty())
+                .toList();
+    }
+
+    /**
+     * Creates one ChapterContextEntity record per chapter with the title and summary embeddings,
+     * every embedded chunk of every field is stored in the chunk table.
      */
-    private void generateChapterFieldEmbeddings(Chapter chapter) {
-        log.info("ENTERING generateChapterFieldEmbeddings for chapter: {}", chapter.getNumber());
+    private void saveChapterFieldEmbeddings(Chapter chapter, Map<String, Segment> fields, List<float[]> embeddings) {
+        log.info("ENTERING saveChapterFieldEmbeddings for chapter: {}", chapter.getNumber());
         // Build the ChapterContextEntity with all field contents and embeddings
-        // Initialize JSONB fields with empty arrays to avoid null insertion issues
+        // Initialize JSONB fields with empty arrays to avoid null insertion issues,
+        // chunk embeddings live in chapter_chunk_embedding only
         var builder = ChapterContext.builder()
                 .id(chapter.getId())
                 .bookId(chapter.getBookId())
@@ -182,113 +256,111 @@ public class EmbeddingService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .textContent("[]")           // Default empty JSON array for failed text processing
-                .textEmbedding("[]")         // Default empty JSON array for failed embedding
+                .textEmbedding("[]")
                 .translatedTextContent("[]") // Default empty JSON array for failed text processing
-                .translatedTextEmbedding("[]"); // Default empty JSON array for failed embedding
-
-        // Generate embeddings for each field
-        if (chapter.getTitle() != null && !chapter.getTitle().trim().isEmpty()) {
-            try {
-                builder.titleContent(chapter.getTitle())
-                        .titleEmbedding(embeddingModel.embed(chapter.getTitle()));
-            } catch (Exception e) {
-                log.warn("Failed to generate embedding for title in chapter {}: {}",
-                        chapter.getNumber(), e.getMessage());
-            }
-        }
+                .translatedTextEmbedding("[]");
+        var chunks = new ArrayList<Chunk>();
 
-        if (chapter.getTranslatedTitle() != null && !chapter.getTranslatedTitle().trim().isEmpty()) {
-            try {
-                builder.translatedTitleContent(chapter.getTranslatedTitle())
-                        .translatedTitleEmbedding(embeddingModel.embed(chapter.getTranslatedTitle()));
-            } catch (Exception e) {
-                log.warn("Failed to generate embedding for translatedTitle in chapter {}: {}",
-                        chapter.getNumber(), e.getMessage());
-            }
-        }
+        fieldEmbedding(chapter, TITLE, fields.get(TITLE), embeddings, chunks)
+                .ifPresent(embedding -> builder.titleContent(chapter.getTitle())
+                        .titleEmbedding(embedding));
 
-        if (chapter.getText() != null && !chapter.getText().trim().isEmpty()) {
-            try {
-                var chunks = splitter.work(chapter.getText(), 1000); // Split text into chunks
-                var chunkTexts = chunks.stream()
-                        .map(chunk -> chunk.getText())
-                        .collect(Collectors.toList());
-                var chunkEmbeddings = chunks.stream()
-                        .map(chunk -> embeddingModel.embed(chunk.getText()))
-                        .collect(Collectors.toList());
-                builder.textContent(objectMapper.writeValueAsString(chunkTexts))
-                        .textEmbedding(objectMapper.writeValueAsString(chunkEmbeddings));
-            } catch (Exception e) {
-                log.warn("Failed to generate embedding for text in chapter {}: {}",
-                        chapter.getNumber(), e.getMessage());
-            }
-        }
+        fieldEmbedding(chapter, TRANSLATED_TITLE, fields.get(TRANSLATED_TITLE), embeddings, chunks)
+                .ifPresent(embedding -> builder.translatedTitleContent(chapter.getTranslatedTitle())
+                        .translatedTitleEmbedding(embedding));
 
-        if (chapter.getTranslatedText() != null && !chapter.getTranslatedText().trim().isEmpty()) {
-            try {
-                var chunks = splitter.work(chapter.getTranslatedText(), 1000); // Split translated text into chunks
-                var chunkTexts = chunks.stream()
-                        .map(chunk -> chunk.getText())
-                        .collect(Collectors.toList());
-                var chunkEmbeddings = chunks.stream()
-                        .map(chunk -> embeddingModel.embed(chunk.getText()))
-                        .collect(Collectors.toList());
-                builder.translatedTextContent(objectMapper.writeValueAsString(chunkTexts))
-                        .translatedTextEmbedding(objectMapper.writeValueAsString(chunkEmbeddings));
-            } catch (Exception e) {
-                log.warn("Failed to generate embedding for translatedText in chapter {}: {}",
-                        chapter.getNumber(), e.getMessage());
-            }
-        }
+        chunkContent(chapter, TEXT, fields.get(TEXT), embeddings, chunks)
+                .ifPresent(builder::textContent);
 
-        if (chapter.getSummary() != null && !chapter.getSummary().trim().isEmpty()) {
-            try {
-                builder.summaryContent(chapter.getSummary())
-                        .summaryEmbedding(embeddingModel.embed(chapter.getSummary()));
-            } catch (Exception e) {
-                log.warn("Failed to generate embedding for summary in chapter {}: {}",
-                        chapter.getNumber(), e.getMessage());
-            }
-        }
+        chunkContent(chapter, TRANSLATED_TEXT, fields.get(TRANSLATED_TEXT), embeddings, chunks)
+                .ifPresent(builder::translatedTextContent);
+
+        fieldEmbedding(chapter, SUMMARY, fields.get(SUMMARY), embeddings, chunks)
+                .ifPresent(embedding -> builder.summaryContent(chapter.getSummary())
+                        .summaryEmbedding(embedding));
 
         // Save the single ChapterContextEntity record
         var entity = builder.build();
         log.info("About to save ChapterContext entity: id={}, bookId={}, titleContent length={}",
                 entity.getId(), entity.getBookId(), entity.getTitleContent() != null ? entity.getTitleContent().length() : 0);
         chapterContextService.save(entity);
-        log.info("Saved chapter context embeddings for chapter {}", chapter.getNumber());
+        chapterContextService.replaceChunks(entity, chunks);
+        log.info("Saved chapter context embeddings for chapter {}: {} chunks", chapter.getNumber(), chunks.size());
+    }
+
+    private Optional<float[]> fieldEmbedding(Chapter chapter, String field, Segment segment, List<float[]> embeddings,
+                                             List<Chunk> chunks) {
+        if (segment.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var embedding = segment.slice(embeddings).getFirst();
+        if (embedding == null) {
+            log.warn("Failed to generate embedding for {} in chapter {}", field, chapter.getNumber());
+            return Optional.empty();
+        }
+
+        chunks.add(new Chunk(field, 0, segment.values().getFirst(), embedding));
+
+        return Optional.of(embedding);
     }
 
     /**
-     * Generate embeddings for all names from the chapter glossary.
+     * Collects the chunk embeddings of a field and returns the chunk texts serialized to JSON,
+     * or empty if the field has no chunks or any of the chunk embeddings is missing.
      */
-    private void generateNamesEmbeddings(Chapter chapter) {
-        var namesContextEntities = new ArrayList<NamesContext>();
+    private Optional<String> chunkContent(Chapter chapter, String field, Segment segment, List<float[]> embeddings,
+                                          List<Chunk> chunks) {
+        if (segment.isEmpty()) {
+            return Optional.empty();
+        }
 
-        if (chapter.getNames() != null) {
-            int counter = 1; // Start sequential numbering
-            for (var name : chapter.getNames()) {
-                if (name.getName() != null && !name.getName().trim().isEmpty()) {
-                    try {
-                        var embedding = embeddingModel.embed(name.stringValue());
-                        var id = chapter.getId() + counter; // chapterId + sequential number
-                        var entity = NamesContext.builder()
-                                .id(id)
-                                .chapterId(chapter.getId())
-                                .name(name.getName())
-                                .embedding(embedding)
-                                .createdAt(LocalDateTime.now())
-                                .updatedAt(LocalDateTime.now())
-                                .build();
+        var chunkEmbeddings = segment.slice(embeddings);
+        if (chunkEmbeddings.stream().anyMatch(Objects::isNull)) {
+            log.warn("Failed to generate embedding for {} in chapter {}", field, chapter.getNumber());
+            return Optional.empty();
+        }
 
-                        namesContextEntities.add(entity);
-                        counter++;
-                    } catch (Exception e) {
-                        log.warn("Failed to generate embedding for name '{}' in chapter {}: {}",
-                                name.getName(), chapter.getNumber(), e.getMessage());
-                    }
-                }
+        try {
+            var content = objectMapper.writeValueAsString(segment.values());
+            for (int i = 0; i < chunkEmbeddings.size(); i++) {
+                chunks.add(new Chunk(field, i, segment.values().get(i), chunkEmbeddings.get(i)));
             }
+
+            return Optional.of(content);
+        } catch (Exception e) {
+            log.warn("Failed to serialize chunks for {} in chapter {}: {}",
+                    field, chapter.getNumber(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Saves embeddings for all names from the chapter glossary.
+     */
+    private void saveNamesEmbeddings(Chapter chapter, List<ObjectName> names, List<float[]> embeddings) {
+        var namesContextEntities = new ArrayList<NamesContext>();
+
+        int counter = 1; // Start sequential numbering
+        for (int i = 0; i < names.size(); i++) {
+            var name = names.get(i);
+            var embedding = embeddings.get(i);
+            if (embedding == null) {
+                log.warn("Failed to generate embedding for name '{}' in chapter {}",
+                        name.getName(), chapter.getNumber());
+                continue;
+            }
+
+            var id = chapter.getId() + counter; // chapterId + sequential number
+            namesContextEntities.add(NamesContext.builder()
+                    .id(id)
+                    .chapterId(chapter.getId())
+                    .name(name.getName())
+                    .embedding(embedding)
+                    .createdAt(LocalDateTime.now())
+                    .updatedAt(LocalDateTime.now())
+                    .build());
+            counter++;
         }
 
         if (!namesContextEntities.isEmpty()) {
@@ -313,15 +385,11 @@ public class EmbeddingService {
 
         try {
             var embedding = embeddingModel.embed(content);
-            var embeddingStr = Arrays.toString(embedding);
-            var results = chapterContextService.findSimilarByFieldProjected(bookId, embeddingStr, fieldType, threshold, limit);
-
-            return results.stream()
-                    .map(this::convertToChapterSimilarityResult)
-                    .filter(result -> result.getSimilarity() >= threshold)
-                    .sorted(Comparator.comparing(ChapterSimilarityResult::getSimilarity).reversed())
-                    .limit(limit)
-                    .collect(Collectors.toList());
+            // Several chunks of one chapter may match, fetch more candidates than chapters requested
+            var matches = chapterContextService.findSimilarByFieldProjected(bookId, embedding, fieldType,
+                    1.0 - threshold, limit * CHUNK_CANDIDATES_PER_CHAPTER);
+
+            return toChapterSimilarityResults(matches, threshold, limit);
         } catch (Exception e) {
             log.error("Failed to search chapters by field: {}", e.getMessage(), e);
             return List.of();
@@ -342,74 +410,47 @@ public class EmbeddingService {
 
         try {
             var embedding = embeddingModel.embed(content);
-            var embeddingStr = Arrays.toString(embedding);
-            var results = chapterContextService.findSimilarAcrossFieldsProjected(bookId, embeddingStr, threshold, limit);
-
-            return results.stream()
-                    .map(this::convertToChapterSimilarityResult_Deprecated)
-                    .filter(result -> result.getSimilarity() >= threshold)
-                    .sorted(Comparator.comparing(ChapterSimilarityResult::getSimilarity).reversed())
-                    .limit(limit)
-                    .collect(Collectors.toList());
+            var matches = chapterContextService.findSimilarAcrossFieldsProjected(bookId, embedding,
+                    1.0 - threshold, limit * CHUNK_CANDIDATES_PER_CHAPTER);
+
+            return toChapterSimilarityResults(matches, threshold, limit);
         } catch (Exception e) {
             log.error("Failed to search chapters across fields: {}", e.getMessage(), e);
             return List.of();
         }
     }
 
-    private ChapterSimilarityResult convertToChapterSimilarityResult(ChapterSimilarityProjection projection) {
-        var entity = projection.getEntity();
-        var chapterContext = chapterContextMapper.toDto(entity);
-
-        // Use projection data directly
-        double distance = projection.getDistance();
-        String matchedField = projection.getMatchedField();
-        String matchedContent = switch (matchedField) {
-            case TITLE -> entity.getTitleContent();
-            case TRANSLATED_TITLE -> entity.getTranslatedTitleContent();
-            case TEXT -> entity.getTextContent();
-            case TRANSLATED_TEXT -> entity.getTranslatedTextContent();
-            case SUMMARY -> entity.getSummaryContent();
-            default -> null;
-        };
-
-        double similarity = Math.max(0.0, 1.0 - distance);
-
-        return ChapterSimilarityResult.builder()
-                .distance(distance)
-                .similarity(similarity)
-                .chapterContext(chapterContext)
-                .matchedField(matchedField)
-                .matchedContent(matchedContent)
-                .build();
+    /**
+     * Keeps the closest chunk of each chapter, the chapter is reported with the field and content of that chunk.
+     */
+    private List<ChapterSimilarityResult> toChapterSimilarityResults(List<ChunkMatch> matches, double threshold, int limit) {
+        var bestMatches = matches.stream()
+                .collect(Collectors.toMap(ChunkMatch::chapterId, Function.identity(),
+                        (first, second) -> first.distance() <= second.distance() ? first : second,
+                        LinkedHashMap::new));
+        var contexts = chapterContextService.findAllById(bestMatches.keySet()).stream()
+                .collect(Collectors.toMap(ChapterContext::getId, Function.identity()));
+
+        return bestMatches.values().stream()
+                .filter(match -> contexts.containsKey(match.chapterId()))
+                .map(match -> convertToChapterSimilarityResult(match, contexts.get(match.chapterId())))
+                .filter(result -> result.getSimilarity() >= threshold)
+                .sorted(Comparator.comparing(ChapterSimilarityResult::getSimilarity).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
     }
 
-    //TODO: remove duplicate code
-    @Deprecated(forRemoval = true)
-    private ChapterSimilarityResult convertToChapterSimilarityResult_Deprecated(ChapterSimilarityProjection projection) {
-        var entity = projection.getEntity();
-        var chapterContext = chapterContextMapper.toDto(entity);
-
-        // Use projection data directly
-        double distance = projection.getDistance();
-        String matchedField = projection.getMatchedField();
-        String matchedContent = switch (matchedField) {
-            case TITLE -> entity.getTitleContent();
-            case TRANSLATED_TITLE -> entity.getTranslatedTitleContent();
-            case TEXT -> entity.getTextContent();
-            case TRANSLATED_TEXT -> entity.getTranslatedTextContent();
-            case SUMMARY -> entity.getSummaryContent();
-            default -> null;
-        };
-
+    private ChapterSimilarityResult convertToChapterSimilarityResult(ChunkMatch match, ChapterContext chapterContext) {
+        double distance = match.distance();
         double similarity = Math.max(0.0, 1.0 - distance);
 
         return ChapterSimilarityResult.builder()
                 .distance(distance)
                 .similarity(similarity)
                 .chapterContext(chapterContext)
-                .matchedField(matchedField)
-                .matchedContent(matchedContent)
+                .matchedField(match.fieldType())
+                .matchedContent(match.content())
+                .chunkIndex(match.chunkIndex())
                 .build();
     }
 
@@ -437,44 +478,47 @@ public class EmbeddingService {
     /**
      * Find similar names for a single glossary item.
      * Checks if the name is unique in previous chapters and searches for similar names if it is.
-     * Returns a record with initial similarities found from database and embedding searches.
+     * Returns a record with initial similarities found by the glossary index.
      */
-    private GlossarySimilarityRecord findSimilarNamesForGlossaryItem(String bookId, Chapter chapter, ObjectName objectName) {
+    private GlossarySimilarityRecord findSimilarNamesForGlossaryItem(GlossaryIndex index, String bookId, Chapter chapter,
+                                                                     ObjectName objectName, float[] embedding) {
+        var record = new GlossarySimilarityRecord();
+        record.setObjectName(objectName);
+        record.setInitialSimilarities(List.of());
+        record.setChapter(chapter);
+        record.setBookId(bookId);
+
         try {
+            var lookup = index.lookup(objectName.getName(), embedding, chapter.getNumber(), LookupOptions.defaults());
+
             // Check if this name appears in previous chapters (uniqueness check)
-            var existingNames = chapterRepository.findGlossaryByQuery(
-                    List.of(objectName.getName()),
-                    chapter.getNumber(),
-                    bookId,
-                    PageRequest.of(0, 100)
-            );
-
-            boolean isUnique = existingNames.isEmpty() ||
-                    existingNames.stream().noneMatch(result ->
-                            Objects.equals(result.getName(), objectName.getName()));
-
-            if (!isUnique) {
+            if (!lookup.exact().isEmpty()) {
                 log.debug("Name '{}' is not unique in previous chapters, skipping similarity search", objectName.getName());
-                return new GlossarySimilarityRecord() {{
-                    setObjectName(objectName);
-                    setInitialSimilarities(List.of());
-                    setChapter(chapter);
-                    setBookId(bookId);
-                }};
+                return record;
             }
 
             // Search for similar names using multiple methods
             var similarNames = new ArrayList<NameSimilarity>();
 
-            // 1. Database search functions
-            similarNames.addAll(searchSimilarNamesInGlossary(bookId, chapter, objectName));
+            // 1. Close and loose trigram matches
+            for (var match : lookup.fuzzy()) {
+                var close = match.score() >= CLOSE_MATCH_SCORE;
+                similarNames.add(toNameSimilarity(match, close ? 0.7 : 0.5,
+                        close ? NameSimilarity.TrustLevel.CONFIRMED : NameSimilarity.TrustLevel.SUGGESTED,
+                        close ? "Glossary index match" : "Fuzzy glossary index match"));
+            }
 
             // 2. Embedding-based search
-            similarNames.addAll(searchSimilarNamesInEmbedding(bookId, chapter, objectName));
+            for (var match : lookup.semantic()) {
+                similarNames.add(toNameSimilarity(match, match.score(), NameSimilarity.TrustLevel.CONFIRMED,
+                        "Embedding similarity match"));
+            }
 
             // Remove duplicates and limit to top 5
             var uniqueSimilarNames = similarNames.stream()
-                    .distinct()
+                    .collect(Collectors.toMap(NameSimilarity::getName, Function.identity(),
+                            (first, second) -> first.getConfidence() >= second.getConfidence() ? first : second))
+                    .values().stream()
                     .sorted(Comparator.comparing(NameSimilarity::getConfidence).reversed())
                     //TODO: before cut top 5 put data into LLM, create prompt, send, then parse result
                     .limit(5)
@@ -487,119 +531,51 @@ public class EmbeddingService {
                             .map(sim -> String.format("%s (%.2f)", sim.getName(), sim.getConfidence()))
                             .collect(Collectors.joining(", ")));
 
-            var record = new GlossarySimilarityRecord();
-            record.setObjectName(objectName);
             record.setInitialSimilarities(uniqueSimilarNames);
-            record.setChapter(chapter);
-            record.setBookId(bookId);
             return record;
-
         } catch (Exception e) {
             log.warn("Failed to find similar names for '{}': {}", objectName.getName(), e.getMessage());
-            var record = new GlossarySimilarityRecord();
-            record.setObjectName(objectName);
-            record.setInitialSimilarities(List.of());
-            record.setChapter(chapter);
-            record.setBookId(bookId);
             return record;
         }
     }
 
+    private NameSimilarity toNameSimilarity(GlossaryIndex.Match match, double confidence,
+                                            NameSimilarity.TrustLevel trustLevel, String reason) {
+        return NameSimilarity.builder()
+                .name(match.name())
+                .chapterId(match.chapterId())
+                .chapterNumber(match.chapterNumber())
+                .confidence(confidence)
+                .trustLevel(trustLevel)
+                .reason(reason)
+                .lastUpdated(LocalDateTime.now())
+                .build();
+    }
+
+    private String truncateContent(String content) {
+        return content.length() > 50 ? content.substring(0, 47) + "..." : content;
+    }
+
     /**
-     * Search for similar names using database search functions (search_glossary, fuzzy_search_glossary).
+     * A contiguous range of texts in the batch sent to the embedding model.
      */
-    private List<NameSimilarity> searchSimilarNamesInGlossary(String bookId, Chapter chapter, ObjectName objectName) {
-        var similarNames = new ArrayList<NameSimilarity>();
+    private record Segment(int from, List<String> values) {
 
-        try {
-            // Regular search
-            var searchRequest = new GlossarySearchRequest();
-            searchRequest.setSearchText(objectName.getName());
-            searchRequest.setChapterStart(1);
-            searchRequest.setChapterEnd(chapter.getNumber() - 1);
-            searchRequest.setTopK(5);
-            searchRequest.setMinScore(0.6f);
-
-            var regularResults = chapterGlossaryService.searchGlossary(bookId, searchRequest);
-            for (var result : regularResults) {
-                var confidence = 0.7; // Default confidence for database search results
-
-                similarNames.add(NameSimilarity.builder()
-                        .name(result.getObjectName().getName())
-                        .chapterId(result.getChapterId())
-                        .chapterNumber(result.getChapterNumber())
-                        .confidence(confidence)
-                        .trustLevel(NameSimilarity.TrustLevel.CONFIRMED)
-                        .reason("Database search match")
-                        .lastUpdated(LocalDateTime.now())
-                        .build());
-            }
-
-            // Fuzzy search using trigrams
-            var fuzzyText = String.format("{\"query\": \"%s\", \"lengthRange\": {\"min\": %d, \"max\": %d}, \"nGrams\": %s}",
-                    objectName.getName(),
-                    Math.max(1, (int) Math.floor(objectName.getName().length() * 0.7)),
-                    (int) Math.ceil(objectName.getName().length() * 1.3),
-                    generateTrigrams(objectName.getName()));
-
-            var fuzzyRequest = new GlossarySearchRequest();
-            fuzzyRequest.setFuzzyText(fuzzyText);
-            fuzzyRequest.setChapterStart(1);
-            fuzzyRequest.setChapterEnd(chapter.getNumber() - 1);
-            fuzzyRequest.setTopK(3);
-            fuzzyRequest.setMinScore(0.4f);
-
-            var fuzzyResults = chapterGlossaryService.searchGlossaryFuzzy(bookId, fuzzyRequest);
-            for (var result : fuzzyResults) {
-                var confidence = 0.5; // Default confidence for fuzzy database search results
-
-                similarNames.add(NameSimilarity.builder()
-                        .name(result.getObjectName().getName())
-                        .chapterId(result.getChapterId())
-                        .chapterNumber(result.getChapterNumber())
-                        .confidence(confidence)
-                        .trustLevel(NameSimilarity.TrustLevel.SUGGESTED)
-                        .reason("Fuzzy database search match")
-                        .lastUpdated(LocalDateTime.now())
-                        .build());
-            }
+        static Segment append(List<String> texts, List<String> values) {
+            var segment = new Segment(texts.size(), values);
+            texts.addAll(values);
 
-        } catch (Exception e) {
-            log.warn("Failed to search similar names using database functions for '{}': {}",
-                    objectName.getName(), e.getMessage());
+            return segment;
         }
 
-        return similarNames;
-    }
-
-    /**
-     * Search for similar names using embedding-based similarity.
-     */
-    private List<NameSimilarity> searchSimilarNamesInEmbedding(String bookId, Chapter chapter, ObjectName objectName) {
-        try {
-            var results = findByEmbeddingSimilarNames(bookId, objectName.getName(), 0.7, 10);
-
-            return results.stream()
-                    .filter(result -> result.getSimilarity() >= 0.7)
-                    .map(result -> NameSimilarity.builder()
-                            .name(result.getObjectName().getName())
-                            .chapterId(chapter.getId())
-                            .chapterNumber(0)
-                            .confidence(result.getSimilarity())
-                            .trustLevel(NameSimilarity.TrustLevel.CONFIRMED)
-                            .reason("Embedding similarity match")
-                            .lastUpdated(LocalDateTime.now())
-                            .build())
-                    .collect(Collectors.toList());
+        boolean isEmpty() {
+            return values.isEmpty();
+        }
 
-        } catch (Exception e) {
-            log.warn("Failed to search similar names using embeddings for '{}': {}", objectName.getName(), e.getMessage());
-            return List.of();
+        List<float[]> slice(List<float[]> embeddings) {
+            return embeddings.subList(from, from + values.size());
         }
-    }
 
-    private String truncateContent(String content) {
-        return content.length() > 50 ? content.substring(0, 47) + "..." : content;
     }
 
     public enum EmbeddingExecutionType {
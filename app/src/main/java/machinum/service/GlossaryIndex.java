@@ -0,0 +1,349 @@
+package machinum.service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory similarity index over the glossary names of one book.
+ * Holds normalized names for exact lookups, trigram postings for fuzzy lookups and
+ * a flat float32 matrix of unit vectors for semantic lookups, so all candidates of
+ * a name come from one {@link #lookup} call.
+ *
+ * <p>Entries are only appended; entries of a re-processed chapter are marked as removed
+ * and skipped by lookups.</p>
+ */
+public class GlossaryIndex {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int dimensions;
+
+    private final Map<String, List<Integer>> byNormalizedName = new HashMap<>();
+    private final Map<String, List<Integer>> trigramPostings = new HashMap<>();
+    private final Map<String, List<Integer>> byChapterId = new HashMap<>();
+    private final BitSet removed = new BitSet();
+    private final BitSet embedded = new BitSet();
+
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] normalizedNames = new String[INITIAL_CAPACITY];
+    private String[] chapterIds = new String[INITIAL_CAPACITY];
+    private int[] chapterNumbers = new int[INITIAL_CAPACITY];
+    private int[] trigramCounts = new int[INITIAL_CAPACITY];
+    private float[] vectors;
+    private int size;
+
+    /**
+     * @param dimensions the size of the name embeddings
+     */
+    public GlossaryIndex(int dimensions) {
+        this.dimensions = dimensions;
+        this.vectors = new float[INITIAL_CAPACITY * dimensions];
+    }
+
+    /**
+     * Appends a glossary name.
+     *
+     * @param chapterId     the chapter of the name
+     * @param chapterNumber the number of the chapter
+     * @param name          the glossary name
+     * @param embedding     the name embedding, may be {@code null}
+     */
+    public void add(String chapterId, int chapterNumber, String name, float[] embedding) {
+        var normalized = normalize(name);
+        if (normalized.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            ensureCapacity(size + 1);
+            var id = size++;
+            names[id] = name;
+            normalizedNames[id] = normalized;
+            chapterIds[id] = chapterId;
+            chapterNumbers[id] = chapterNumber;
+
+            byNormalizedName.computeIfAbsent(normalized, key -> new ArrayList<>()).add(id);
+            byChapterId.computeIfAbsent(chapterId, key -> new ArrayList<>()).add(id);
+
+            var trigrams = trigrams(normalized);
+            trigramCounts[id] = trigrams.size();
+            for (var trigram : trigrams) {
+                trigramPostings.computeIfAbsent(trigram, key -> new ArrayList<>()).add(id);
+            }
+
+            if (Objects.nonNull(embedding) && embedding.length == dimensions && normalizeInto(embedding, vectors, id * dimensions)) {
+                embedded.set(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marks all names of the chapter as removed, used before the chapter is appended again.
+     *
+     * @param chapterId the chapter id
+     */
+    public void removeChapter(String chapterId) {
+        lock.writeLock().lock();
+        try {
+            var ids = byChapterId.remove(chapterId);
+            if (Objects.nonNull(ids)) {
+                ids.forEach(removed::set);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size - removed.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Collects exact, fuzzy and semantic candidates of a name among chapters before the given one.
+     * Candidates are unique by normalized name, the best scoring (then the latest) entry wins.
+     *
+     * @param name          the name to look up
+     * @param embedding     the name embedding, semantic candidates are skipped if {@code null}
+     * @param beforeChapter only names of chapters with a lower number are considered
+     * @param options       thresholds and limits of the lookup
+     * @return found candidates
+     */
+    public Lookup lookup(String name, float[] embedding, int beforeChapter, LookupOptions options) {
+        var normalized = normalize(name);
+        if (normalized.isEmpty()) {
+            return Lookup.EMPTY;
+        }
+
+        lock.readLock().lock();
+        try {
+            var exact = findExact(normalized, beforeChapter);
+            var fuzzy = findFuzzy(normalized, beforeChapter, options);
+            var semantic = findSemantic(embedding, beforeChapter, options);
+
+            return new Lookup(exact, fuzzy, semantic);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* ============= */
+
+    static String normalize(String name) {
+        if (Objects.isNull(name)) {
+            return "";
+        }
+
+        var builder = new StringBuilder(name.length());
+        var space = false;
+        for (int i = 0; i < name.length(); i++) {
+            var ch = name.charAt(i);
+            if (Character.isLetterOrDigit(ch)) {
+                if (space && !builder.isEmpty()) {
+                    builder.append(' ');
+                }
+                builder.append(Character.toLowerCase(ch));
+                space = false;
+            } else if (Character.isWhitespace(ch)) {
+                space = true;
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Trigrams of every word of a normalized name, words shorter than three characters are kept as is.
+     */
+    static Set<String> trigrams(String normalized) {
+        var result = new HashSet<String>();
+        for (var word : normalized.split(" ")) {
+            if (word.length() < 3) {
+                if (!word.isEmpty()) {
+                    result.add(word);
+                }
+                continue;
+            }
+
+            for (int i = 0; i <= word.length() - 3; i++) {
+                result.add(word.substring(i, i + 3));
+            }
+        }
+
+        return result;
+    }
+
+    private List<Match> findExact(String normalized, int beforeChapter) {
+        var ids = byNormalizedName.getOrDefault(normalized, List.of());
+        var result = new ArrayList<Match>();
+        for (var id : ids) {
+            if (isVisible(id, beforeChapter)) {
+                result.add(toMatch(id, 1.0));
+            }
+        }
+
+        result.sort(Comparator.comparingInt(Match::chapterNumber).reversed());
+
+        return result;
+    }
+
+    private List<Match> findFuzzy(String normalized, int beforeChapter, LookupOptions options) {
+        var trigrams = trigrams(normalized);
+        if (trigrams.isEmpty()) {
+            return List.of();
+        }
+
+        var shared = new HashMap<Integer, Integer>();
+        for (var trigram : trigrams) {
+            for (var id : trigramPostings.getOrDefault(trigram, List.of())) {
+                shared.merge(id, 1, Integer::sum);
+            }
+        }
+
+        var minLength = normalized.length() * options.minLengthRatio();
+        var maxLength = normalized.length() * options.maxLengthRatio();
+        var best = new HashMap<String, Match>();
+        for (var entry : shared.entrySet()) {
+            int id = entry.getKey();
+            if (!isVisible(id, beforeChapter)) {
+                continue;
+            }
+
+            var candidate = normalizedNames[id];
+            if (candidate.equals(normalized) || candidate.length() < minLength || candidate.length() > maxLength) {
+                continue;
+            }
+
+            // Dice coefficient over trigram sets
+            var score = 2.0 * entry.getValue() / (trigrams.size() + trigramCounts[id]);
+            if (score >= options.minFuzzyScore()) {
+                best.merge(candidate, toMatch(id, score), GlossaryIndex::better);
+            }
+        }
+
+        return top(best.values(), options.fuzzyLimit());
+    }
+
+    private List<Match> findSemantic(float[] embedding, int beforeChapter, LookupOptions options) {
+        if (Objects.isNull(embedding) || embedding.length != dimensions) {
+            return List.of();
+        }
+
+        var query = new float[dimensions];
+        if (!normalizeInto(embedding, query, 0)) {
+            return List.of();
+        }
+
+        var best = new HashMap<String, Match>();
+        for (int id = embedded.nextSetBit(0); id >= 0; id = embedded.nextSetBit(id + 1)) {
+            if (!isVisible(id, beforeChapter)) {
+                continue;
+            }
+
+            var offset = id * dimensions;
+            var dot = 0.0f;
+            for (int i = 0; i < dimensions; i++) {
+                dot += query[i] * vectors[offset + i];
+            }
+
+            if (dot >= options.minSemanticScore()) {
+                best.merge(normalizedNames[id], toMatch(id, dot), GlossaryIndex::better);
+            }
+        }
+
+        return top(best.values(), options.semanticLimit());
+    }
+
+    private boolean isVisible(int id, int beforeChapter) {
+        return chapterNumbers[id] < beforeChapter && !removed.get(id);
+    }
+
+    private Match toMatch(int id, double score) {
+        return new Match(names[id], chapterIds[id], chapterNumbers[id], score);
+    }
+
+    private static Match better(Match first, Match second) {
+        if (first.score() != second.score()) {
+            return first.score() > second.score() ? first : second;
+        }
+
+        return first.chapterNumber() >= second.chapterNumber() ? first : second;
+    }
+
+    private static List<Match> top(Collection<Match> matches, int limit) {
+        return matches.stream()
+                .sorted(Comparator.comparingDouble(Match::score).reversed()
+                        .thenComparing(Comparator.comparingInt(Match::chapterNumber).reversed()))
+                .limit(limit)
+                .toList();
+    }
+
+    private static boolean normalizeInto(float[] source, float[] target, int offset) {
+        var norm = 0.0;
+        for (var value : source) {
+            norm += value * value;
+        }
+
+        if (norm == 0.0) {
+            return false;
+        }
+
+        var scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < source.length; i++) {
+            target[offset + i] = source[i] * scale;
+        }
+
+        return true;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= names.length) {
+            return;
+        }
+
+        var newCapacity = Math.max(capacity, names.length * 2);
+        names = Arrays.copyOf(names, newCapacity);
+        normalizedNames = Arrays.copyOf(normalizedNames, newCapacity);
+        chapterIds = Arrays.copyOf(chapterIds, newCapacity);
+        chapterNumbers = Arrays.copyOf(chapterNumbers, newCapacity);
+        trigramCounts = Arrays.copyOf(trigramCounts, newCapacity);
+        vectors = Arrays.copyOf(vectors, newCapacity * dimensions);
+    }
+
+    /* ============= */
+
+    public record Match(String name, String chapterId, int chapterNumber, double score) {
+    }
+
+    public record Lookup(List<Match> exact, List<Match> fuzzy, List<Match> semantic) {
+
+        public static final Lookup EMPTY = new Lookup(List.of(), List.of(), List.of());
+
+    }
+
+    /**
+     * @param minFuzzyScore    minimal Dice coefficient over trigrams
+     * @param minLengthRatio   minimal length of a fuzzy candidate relative to the name
+     * @param maxLengthRatio   maximal length of a fuzzy candidate relative to the name
+     * @param fuzzyLimit       maximum number of fuzzy candidates
+     * @param minSemanticScore minimal cosine similarity of a semantic candidate
+     * @param semanticLimit    maximum number of semantic candidates
+     */
+    public record LookupOptions(double minFuzzyScore, double minLengthRatio, double maxLengthRatio, int fuzzyLimit,
+                                double minSemanticScore, int semanticLimit) {
+
+        public static LookupOptions defaults() {
+            return new LookupOptions(0.4, 0.7, 1.3, 8, 0.7, 10);
+        }
+
+    }
+
+}
@@ -0,0 +1,92 @@
+package machinum.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import machinum.model.Chapter;
+import machinum.model.ObjectName;
+import machinum.repository.ChapterGlossaryRepository;
+import org.springframework.cache.InMemoryCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps a {@link GlossaryIndex} per book. The index is loaded from the database on first use and
+ * then appended to as chapters are consolidated; it's rebuilt when it expires.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GlossaryIndexService {
+
+    public static final int EMBEDDING_DIMENSIONS = 384;
+
+    private final InMemoryCache<String, GlossaryIndex> indexes = InMemoryCache.create(Duration.ofMinutes(30), 8);
+
+    private final ChapterGlossaryRepository chapterGlossaryRepository;
+
+    /**
+     * Returns the index of the book, building it on first use.
+     *
+     * @param bookId the book id
+     * @return the glossary index of the book
+     */
+    @Transactional(readOnly = true)
+    public GlossaryIndex getIndex(String bookId) {
+        return indexes.get(bookId, this::buildIndex);
+    }
+
+    /**
+     * Replaces the names of the chapter in the book index.
+     *
+     * @param chapter    the processed chapter
+     * @param names      the chapter names
+     * @param embeddings the name embeddings in the order of names, an element may be {@code null}
+     */
+    public void appendChapter(Chapter chapter, List<ObjectName> names, List<float[]> embeddings) {
+        indexes.get(chapter.getBookId()).ifPresent(index -> {
+            index.removeChapter(chapter.getId());
+            for (int i = 0; i < names.size(); i++) {
+                var embedding = i < embeddings.size() ? embeddings.get(i) : null;
+                index.add(chapter.getId(), chapter.getNumber(), names.get(i).getName(), embedding);
+            }
+        });
+    }
+
+    /**
+     * Drops the index of the book after its glossary was edited. Within a transaction it is dropped
+     * again after commit, a concurrent lookup could load the old rows meanwhile.
+     */
+    public void invalidate(String bookId) {
+        indexes.invalidate(bookId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    indexes.invalidate(bookId);
+                }
+            });
+        }
+    }
+
+    /* ============= */
+
+    private GlossaryIndex buildIndex(String bookId) {
+        var index = new GlossaryIndex(EMBEDDING_DIMENSIONS);
+        var rows = chapterGlossaryRepository.findGlossaryIndexSource(bookId);
+        for (var row : rows) {
+            index.add(row.getChapterId(), Objects.requireNonNullElse(row.getChapterNumber(), 0),
+                    row.getName(), row.getEmbedding());
+        }
+
+        log.debug("Built glossary index for book: {}, names={}", bookId, index.size());
+
+        return index;
+    }
+
+}
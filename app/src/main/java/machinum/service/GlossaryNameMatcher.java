@@ -0,0 +1,284 @@
+package machinum.service;
+
+import machinum.util.FuzzyMatchUtil;
+import machinum.util.FuzzyMatchUtil.LevenshteinPattern;
+import org.apache.commons.codec.language.DoubleMetaphone;
+import org.apache.commons.codec.language.Soundex;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static machinum.util.FuzzyMatchUtil.*;
+
+/**
+ * In-memory fuzzy matcher over the glossary names of one book.
+ * Implements the edit distance and phonetic passes of the glossary search ({@code find_glossary_*_matches}
+ * functions) over a dictionary loaded once, and returns the same {@code search_type} categories and scores.
+ *
+ * <p>As in the database, a name gets the first category it matches: names that are exact, contain
+ * the query or are trigram similar are left to the database passes, then come levenshtein, phonetic,
+ * jaro-winkler and fuzzy. The full-text pass is not repeated here, so a name that only matches by
+ * stemming may also be reported by a pass below it.</p>
+ *
+ * <p>Candidates of the levenshtein and fuzzy passes are taken from length buckets, phonetic candidates
+ * from code lookups; only the jaro-winkler pass scans the whole dictionary.</p>
+ */
+public class GlossaryNameMatcher {
+
+    /**
+     * The default {@code pg_trgm.similarity_threshold} of the {@code %} operator.
+     */
+    public static final double TRIGRAM_THRESHOLD = 0.3;
+    public static final double JARO_WINKLER_THRESHOLD = 0.7;
+    public static final int FUZZY_LENGTH_TOLERANCE = 2;
+
+    private static final DoubleMetaphone DOUBLE_METAPHONE = new DoubleMetaphone();
+
+    private final Term[] terms;
+    private final Map<Integer, int[]> byLength;
+    private final Map<String, int[]> byMetaphone;
+    private final Map<String, int[]> byMetaphoneAlt;
+    private final Map<String, int[]> bySoundex;
+
+    public GlossaryNameMatcher(List<Entry> entries) {
+        this.terms = entries.stream()
+                .filter(entry -> Objects.nonNull(entry.name()))
+                .map(Term::of)
+                .toArray(Term[]::new);
+        this.byLength = group(term -> term.lowerName().length());
+        this.byMetaphone = group(Term::metaphone);
+        this.byMetaphoneAlt = group(Term::metaphoneAlt);
+        this.bySoundex = group(Term::soundex);
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    /**
+     * Finds names of the given categories among chapters {@code [chapterStart, chapterEnd]}.
+     *
+     * @param searchText   the query
+     * @param chapterStart the first chapter number
+     * @param chapterEnd   the last chapter number
+     * @param algorithms   the passes to report
+     * @return matches in dictionary order
+     */
+    public List<Match> search(String searchText, int chapterStart, int chapterEnd, Set<Algorithm> algorithms) {
+        if (Objects.isNull(searchText) || searchText.isEmpty() || algorithms.isEmpty()) {
+            return List.of();
+        }
+
+        var query = Query.of(searchText);
+        var candidates = new BitSet(terms.length);
+        if (algorithms.contains(Algorithm.JARO_WINKLER)) {
+            candidates.set(0, terms.length);
+        } else {
+            if (algorithms.contains(Algorithm.LEVENSHTEIN)) {
+                addLengths(candidates, query.length() - query.maxDistance(), query.length() + query.maxDistance());
+            }
+            if (algorithms.contains(Algorithm.FUZZY) && query.fuzzyTrigrams().length > 0) {
+                addLengths(candidates, Math.max(1, query.length() - FUZZY_LENGTH_TOLERANCE),
+                        query.length() + FUZZY_LENGTH_TOLERANCE);
+            }
+            if (algorithms.contains(Algorithm.PHONETIC)) {
+                addAll(candidates, byMetaphone.get(query.metaphone()));
+                addAll(candidates, byMetaphoneAlt.get(query.metaphoneAlt()));
+                addAll(candidates, bySoundex.get(query.soundex()));
+            }
+        }
+
+        var result = new ArrayList<Match>();
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            var term = terms[id];
+            var number = term.entry().number();
+            if (Objects.isNull(number) || number < chapterStart || number > chapterEnd) {
+                continue;
+            }
+
+            var match = classify(term, query);
+            if (Objects.nonNull(match) && algorithms.contains(match.algorithm())) {
+                result.add(match);
+            }
+        }
+
+        return result;
+    }
+
+    /* ============= */
+
+    private Match classify(Term term, Query query) {
+        var name = term.lowerName();
+        if (name.equals(query.lowerText()) || name.contains(query.lowerText())
+                || term.lowerDescription().contains(query.lowerText())) {
+            return null;
+        }
+
+        if (isTrigramSimilar(term.nameTrigrams(), query.trigrams())
+                || isTrigramSimilar(term.searchTrigrams(), query.trigrams())) {
+            return null;
+        }
+
+        var distance = query.pattern().distance(name, query.maxDistance());
+        if (distance <= query.maxDistance()) {
+            return new Match(term.entry(), Algorithm.LEVENSHTEIN, "5_levenshtein", (float) (1.0 / (1.0 + distance)));
+        }
+
+        var primary = !term.metaphone().isEmpty() && term.metaphone().equals(query.metaphone());
+        var alternative = !term.metaphoneAlt().isEmpty() && term.metaphoneAlt().equals(query.metaphoneAlt());
+        if (primary && alternative) {
+            return new Match(term.entry(), Algorithm.PHONETIC, "6_metaphone_exact", 0.6f);
+        } else if (primary) {
+            return new Match(term.entry(), Algorithm.PHONETIC, "6_metaphone_primary", 0.5f);
+        } else if (alternative) {
+            return new Match(term.entry(), Algorithm.PHONETIC, "6_metaphone_alt", 0.4f);
+        } else if (!term.soundex().isEmpty() && term.soundex().equals(query.soundex())) {
+            // Equal codes always have the maximal difference()
+            return new Match(term.entry(), Algorithm.PHONETIC, "8_soundex", 0.35f);
+        }
+
+        var jaroWinkler = jaroWinkler(term.entry().name(), query.text());
+        if (jaroWinkler >= JARO_WINKLER_THRESHOLD) {
+            return new Match(term.entry(), Algorithm.JARO_WINKLER, "7_jaro_winkler", (float) (0.55 * jaroWinkler));
+        }
+
+        var lengthDiff = Math.abs(name.length() - query.length());
+        if (lengthDiff <= FUZZY_LENGTH_TOLERANCE && name.length() >= 1 && containsAny(name, query.fuzzyTrigrams())) {
+            var lengthScore = Math.max(0, 1.0 - (double) lengthDiff / query.length());
+            var score = 0.7 * lengthScore + 0.3 * trigramSimilarity(term.nameTrigrams(), query.trigrams());
+
+            return new Match(term.entry(), Algorithm.FUZZY, "8_fuzzy", (float) score);
+        }
+
+        return null;
+    }
+
+    private static boolean isTrigramSimilar(long[] trigrams, long[] queryTrigrams) {
+        return maxTrigramSimilarity(trigrams.length, queryTrigrams.length) >= TRIGRAM_THRESHOLD
+                && trigramSimilarity(trigrams, queryTrigrams) >= TRIGRAM_THRESHOLD;
+    }
+
+    private static boolean containsAny(String name, String[] parts) {
+        for (var part : parts) {
+            if (name.contains(part)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void addLengths(BitSet candidates, int from, int to) {
+        for (int length = Math.max(0, from); length <= to; length++) {
+            addAll(candidates, byLength.get(length));
+        }
+    }
+
+    private static void addAll(BitSet candidates, int[] ids) {
+        if (Objects.nonNull(ids)) {
+            for (var id : ids) {
+                candidates.set(id);
+            }
+        }
+    }
+
+    private <K> Map<K, int[]> group(Function<Term, K> keyFn) {
+        var groups = new HashMap<K, List<Integer>>();
+        for (int i = 0; i < terms.length; i++) {
+            groups.computeIfAbsent(keyFn.apply(terms[i]), key -> new ArrayList<>()).add(i);
+        }
+
+        var result = new HashMap<K, int[]>(groups.size());
+        groups.forEach((key, ids) -> result.put(key, ids.stream().mapToInt(Integer::intValue).toArray()));
+
+        return result;
+    }
+
+    static String metaphone(String text, boolean alternate) {
+        return Objects.requireNonNullElse(DOUBLE_METAPHONE.doubleMetaphone(text, alternate), "");
+    }
+
+    static String soundex(String text) {
+        try {
+            return Objects.requireNonNullElse(Soundex.US_ENGLISH.soundex(text), "");
+        } catch (IllegalArgumentException e) {
+            // Letters outside of the english alphabet have no code
+            return "";
+        }
+    }
+
+    /* ============= */
+
+    public enum Algorithm {
+
+        LEVENSHTEIN("levenshtein"),
+        PHONETIC("phonetic"),
+        JARO_WINKLER("jaro_winkler"),
+        FUZZY("fuzzy");
+
+        private final String value;
+
+        Algorithm(String value) {
+            this.value = value;
+        }
+
+        public String value() {
+            return value;
+        }
+
+        public static Optional<Algorithm> of(String value) {
+            return Arrays.stream(values())
+                    .filter(algorithm -> algorithm.value.equals(value))
+                    .findFirst();
+        }
+
+    }
+
+    /**
+     * A row of {@code chapter_glossary}.
+     */
+    public record Entry(String id, String chapterId, Integer number, String name, String translatedName,
+                        String category, String description, String rawJson) {
+    }
+
+    public record Match(Entry entry, Algorithm algorithm, String searchType, float score) {
+    }
+
+    record Term(Entry entry, String lowerName, String lowerDescription, long[] nameTrigrams, long[] searchTrigrams,
+                String metaphone, String metaphoneAlt, String soundex) {
+
+        static Term of(Entry entry) {
+            var name = entry.name();
+            var description = Objects.requireNonNullElse(entry.description(), "");
+            var lowerName = name.toLowerCase(Locale.ROOT);
+            var lowerDescription = description.toLowerCase(Locale.ROOT);
+            // search_string3 is null without a description
+            var searchTrigrams = Objects.isNull(entry.description()) ? new long[0] : trigrams(lowerName + " " + lowerDescription);
+
+            return new Term(entry, lowerName, lowerDescription, trigrams(name), searchTrigrams,
+                    GlossaryNameMatcher.metaphone(name, false), GlossaryNameMatcher.metaphone(name, true),
+                    GlossaryNameMatcher.soundex(name));
+        }
+
+    }
+
+    record Query(String text, String lowerText, int length, int maxDistance, LevenshteinPattern pattern,
+                 long[] trigrams, String[] fuzzyTrigrams, String metaphone, String metaphoneAlt, String soundex) {
+
+        static Query of(String text) {
+            var lowerText = text.toLowerCase(Locale.ROOT);
+            var length = text.length();
+            var fuzzyTrigrams = new String[Math.max(0, length - 2)];
+            for (int i = 0; i < fuzzyTrigrams.length; i++) {
+                fuzzyTrigrams[i] = lowerText.substring(i, i + 3);
+            }
+
+            return new Query(text, lowerText, length, (int) Math.round(Math.max(3, length * 0.3)),
+                    FuzzyMatchUtil.levenshteinPattern(lowerText), FuzzyMatchUtil.trigrams(text), fuzzyTrigrams,
+                    GlossaryNameMatcher.metaphone(text, false), GlossaryNameMatcher.metaphone(text, true),
+                    GlossaryNameMatcher.soundex(text));
+        }
+
+    }
+
+}
@@ -15,7 +15,6 @@ import machinum.model.Line;
 import machinum.repository.LineDao;
 import machinum.repository.LineRepository;
 import org.apache.commons.lang3.exception.ExceptionUtils;
-import org.springframework.async.AsyncHelper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -26,7 +25,6 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
@@ -47,7 +45,6 @@ public class LineService {
     private final LineDao lineDao;
     private final LinesInfoDao linesInfoDao;
     private final ChapterService chapterService;
-    private final AsyncHelper asyncHelper;
     private final DbHelper dbHelper;
 
 
@@ -259,16 +256,8 @@ public class LineService {
             }
         });
 
-        // Refresh materialized view if changes were made
         if (hasChanges.get()) {
-            log.debug("Perform material view refresh");
-            asyncHelper.inNewTransaction(() -> lines.get().stream()
-                                    .collect(Collectors.groupingBy(Line::getBookId)).entrySet().stream()
-                                    .allMatch(entry -> linesInfoDao.refreshView(entry.getKey(), entry.getValue().stream()
-                                            .map(Line::getNumber)
-                                            .collect(Collectors.toList()))),
-                            (r, throwable) -> log.debug("MatView update status: {}", r ? "success" : "failed"))
-                    .get(1, TimeUnit.HOURS);
+            log.debug("Lines were replaced, lines_info is synced by the chapter trigger");
         }
     }
 
@@ -276,9 +265,9 @@ public class LineService {
 
     /**
      * Erases multiple lines from chapter_info by setting both text and translated_text to empty
-     * for the given list of line ids from lines_info materialized view
+     * for the given list of line ids from lines_info table
      *
-     * @param lineIds list of IDs of the lines from lines_info view to erase
+     * @param lineIds list of IDs of the lines from lines_info to erase
      * @param fields  fields to erase
      * @return map containing the results of the operation for each lineId
      */
@@ -330,13 +319,7 @@ public class LineService {
         }
 
         if (results.stream().anyMatch(b -> b)) {
-            asyncHelper.inNewTransaction(() -> linesList.stream()
-                                    .collect(Collectors.groupingBy(LineView::getBookId)).entrySet().stream()
-                                    .allMatch(entry -> linesInfoDao.refreshView(entry.getKey(), entry.getValue().stream()
-                                            .map(LineView::getNumber)
-                                            .collect(Collectors.toList()))),
-                            (r, throwable) -> log.debug("MatView update status: {}", r ? "success" : "failed"))
-                    .get(1, TimeUnit.HOURS);
+            log.debug("Lines were erased, lines_info is synced by the chapter trigger");
         }
     }
 
@@ -344,7 +327,7 @@ public class LineService {
     private void doUpdateChapterLine(Line updatedLine) {
         log.debug("Updating line with ID: {}", updatedLine.getId());
 
-        // Get current line from materialized view
+        // Get current line from lines_info
         Line currentLine = repository.findById(updatedLine.getId())
                 .map(mapper::toDto)
                 .orElseThrow(() -> new RuntimeException("Line not found with id: " + updatedLine.getId()));
@@ -368,17 +351,13 @@ public class LineService {
                         }
                     });
         } catch (LineHashMismatchException e) {
-            asyncHelper.inNewTransaction(() ->
-                            linesInfoDao.refreshView(currentLine.getBookId(), currentLine.getNumber()),
-                    (r, throwable) -> log.debug("MatView update status: {}", r ? "success" : "failed"));
+            // Stored line is stale, repair the chapter lines so the client can reload them,
+            // in its own transaction as the current one is rolled back by the rethrow
+            dbHelper.doInNewTransaction(() -> linesInfoDao.syncChapters(List.of(currentLine.getChapterId())));
             ExceptionUtils.rethrow(e);
         }
 
-        if (result) {
-            asyncHelper.inNewTransaction(() ->
-                            linesInfoDao.refreshView(currentLine.getBookId(), currentLine.getNumber()),
-                    (r, throwable) -> log.debug("MatView update status: {}", r ? "success" : "failed"));
-        }
+        log.debug("Line update status: {}", result ? "changed" : "unchanged");
     }
 
     /**
@@ -16,6 +16,7 @@ import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -73,6 +74,13 @@ public class MinioService {
     }
 
     public void uploadToMinio(byte[] mp3Data, String objectKey, String fileId, String chapterId, FileMetadata output) throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        uploadToMinio(new ByteArrayInputStream(mp3Data), mp3Data.length, objectKey, fileId, chapterId, output);
+    }
+
+    /**
+     * Uploads the content of the stream, the stream is read once and not closed.
+     */
+    public void uploadToMinio(InputStream mp3Data, long size, String objectKey, String fileId, String chapterId, FileMetadata output) throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
         if (!checkEnabled) {
             createBucket();
         }
@@ -85,7 +93,7 @@ public class MinioService {
                     PutObjectArgs.builder()
                             .bucket(minioBucketName)
                             .object(objectKey)
-                            .stream(new ByteArrayInputStream(mp3Data), mp3Data.length, -1)
+                            .stream(mp3Data, size, -1)
                             .contentType("audio/mpeg")
                             .tags(Map.of(
                                     "fileId", fileId,
@@ -5,10 +5,15 @@ import lombok.extern.slf4j.Slf4j;
 import machinum.converter.NamesContextMapper;
 import machinum.model.NamesContext;
 import machinum.repository.NamesContextRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 @Slf4j
 @Service
@@ -17,6 +22,7 @@ public class NamesContextService {
 
     private final NamesContextRepository namesContextRepository;
     private final NamesContextMapper namesContextMapper;
+    private final JdbcTemplate jdbcTemplate;
 
     @Transactional(readOnly = true)
     public List<NamesContext> getNamesContextsByChapterId(String chapterId) {
@@ -30,12 +36,41 @@ public class NamesContextService {
         namesContextRepository.deleteAllByChapterId(chapterId);
     }
 
+    /**
+     * Upserts the names contexts with one batched statement, the driver rewrites the batch
+     * into a multi-row insert ({@code reWriteBatchedInserts=true}).
+     */
     @Transactional
     public List<NamesContext> saveAllNamesContexts(List<NamesContext> namesContexts) {
         log.debug("Save batch of names contexts to db: {}", namesContexts.size());
-        var entities = namesContextMapper.toEntity(namesContexts);
-        var saved = namesContextRepository.saveAll(entities);
-        return namesContextMapper.toDto(saved);
+        // Pending JPA removals must hit the table before the plain JDBC insert
+        namesContextRepository.flush();
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO names_context (id, chapter_id, name, category, description, translated_name,
+                                                   embedding, created_at, updated_at)
+                        VALUES (?, ?, ?, ?, ?, ?, CAST(? AS vector(384)), ?, ?)
+                        ON CONFLICT (id) DO UPDATE SET
+                            chapter_id = EXCLUDED.chapter_id,
+                            name = EXCLUDED.name,
+                            category = EXCLUDED.category,
+                            description = EXCLUDED.description,
+                            translated_name = EXCLUDED.translated_name,
+                            embedding = EXCLUDED.embedding,
+                            updated_at = EXCLUDED.updated_at
+                        """, namesContexts, namesContexts.size(),
+                (ps, namesContext) -> {
+                    ps.setString(1, namesContext.getId());
+                    ps.setString(2, namesContext.getChapterId());
+                    ps.setString(3, namesContext.getName());
+                    ps.setString(4, namesContext.getCategory());
+                    ps.setString(5, namesContext.getDescription());
+                    ps.setString(6, namesContext.getTranslatedName());
+                    ps.setString(7, Objects.nonNull(namesContext.getEmbedding()) ? Arrays.toString(namesContext.getEmbedding()) : null);
+                    ps.setTimestamp(8, toTimestamp(namesContext.getCreatedAt()));
+                    ps.setTimestamp(9, toTimestamp(namesContext.getUpdatedAt()));
+                });
+
+        return namesContexts;
     }
 
     @Transactional(readOnly = true)
@@ -44,4 +79,8 @@ public class NamesContextService {
         return namesContextMapper.toDto(namesContextRepository.findSimilarEmbeddings(bookId, embedding, threshold, limit));
     }
 
+    private static Timestamp toTimestamp(LocalDateTime value) {
+        return Timestamp.valueOf(Objects.requireNonNullElseGet(value, LocalDateTime::now));
+    }
+
 }
@@ -7,10 +7,13 @@ import lombok.extern.slf4j.Slf4j;
 import machinum.converter.StatisticMapper;
 import machinum.converter.StatisticsMapper;
 import machinum.exception.AppIllegalStateException;
+import machinum.flow.runner.ModelAffinityFlowRunner.ModelSnapshot;
+import machinum.flow.runner.ModelAffinityFlowRunner.SwitchStats;
 import machinum.model.Statistic;
 import machinum.model.StatisticsDto;
 import machinum.repository.StatisticRepository;
 import machinum.repository.StatisticsRepository;
+import machinum.service.StatisticWriter.OperationSnapshot;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
@@ -30,6 +33,8 @@ public class StatisticService {
     @Deprecated(forRemoval = true)
     private final StatisticsRepository statisticsRepository;
     private final StatisticsMapper statisticsMapper;
+    private final StatisticWriter statisticWriter;
+    private final SwitchStats modelSwitchStats;
 
     @Getter
     @Value("${app.run-id}")
@@ -45,6 +50,23 @@ public class StatisticService {
         return mapper.toDto(statisticRepository.findAllByDate(currentDate));
     }
 
+    /**
+     * Queues the statistic for a batched insert, the caller doesn't wait for the database.
+     *
+     * @param statistic the statistic of an operation
+     */
+    public void record(Statistic statistic) {
+        statisticWriter.offer(statistic);
+    }
+
+    public List<OperationSnapshot> operationStatistics() {
+        return statisticWriter.snapshot();
+    }
+
+    public List<ModelSnapshot> modelSwitchStatistics() {
+        return modelSwitchStats.snapshot();
+    }
+
     @Transactional
     public Statistic save(Statistic statistic) {
         var entity = mapper.toEntity(statistic.toBuilder()
@@ -0,0 +1,265 @@
+package machinum.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import machinum.model.Statistic;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous sink of LLM call statistics.
+ * Rows are put into a bounded queue and inserted by a background thread with JDBC batches, so callers
+ * never wait for the database; when the queue is full new rows are dropped and counted.
+ * Per-operation counters and a duration histogram are kept in memory for every recorded row.
+ *
+ * <p>Message bodies are only stored when {@code storeMessages} is enabled or the row is picked by
+ * {@code messageSampleRate}, the other rows are written with an empty message list.</p>
+ */
+@Slf4j
+public class StatisticWriter implements AutoCloseable {
+
+    static final long[] DURATION_BOUNDS_SECONDS = {1, 5, 15, 30, 60, 120, 300, 600};
+
+    private static final String INSERT_SQL = """
+            INSERT INTO statistics (date, position, mode, run_id, operation_name, operation_type, chapter, ray_id,
+                operation_date, operation_time_seconds, operation_time_string, input_history_tokens,
+                input_history_words, input_tokens, input_words, output_history_tokens, output_history_words,
+                output_tokens, output_words, conversion_percent, tokens, tokens_left, ai_options, messages)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?::jsonb, ?::jsonb)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<Statistic> queue;
+    private final int batchSize;
+    private final boolean storeMessages;
+    private final double messageSampleRate;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a writer and starts the periodic flush.
+     *
+     * @param jdbcTemplate      the jdbc template
+     * @param objectMapper      mapper for the JSON columns
+     * @param capacity          maximum number of rows waiting for insert
+     * @param batchSize         maximum number of rows in one insert batch
+     * @param flushInterval     the interval between two flushes
+     * @param storeMessages     store message bodies of every row
+     * @param messageSampleRate share of rows (0..1) stored with message bodies
+     */
+    public StatisticWriter(@NonNull JdbcTemplate jdbcTemplate, @NonNull ObjectMapper objectMapper,
+                           int capacity, int batchSize, @NonNull Duration flushInterval,
+                           boolean storeMessages, double messageSampleRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper.copy()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        this.queue = new ArrayBlockingQueue<>(Math.max(capacity, 1));
+        this.batchSize = Math.max(batchSize, 1);
+        this.storeMessages = storeMessages;
+        this.messageSampleRate = messageSampleRate;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual()
+                .name("statistic-flush-", 0)
+                .factory());
+        var millis = Math.max(flushInterval.toMillis(), 1);
+        this.scheduler.scheduleWithFixedDelay(this::flush, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Accounts the row in the in-memory aggregates and queues it for insert.
+     *
+     * @param statistic the row to write
+     * @return {@code false} if the queue is full and the row is dropped
+     */
+    public boolean offer(Statistic statistic) {
+        aggregate(statistic);
+
+        var row = shouldStoreMessages() ? statistic : statistic.toBuilder()
+                .clearMessages()
+                .build();
+
+        if (!queue.offer(row)) {
+            var count = dropped.incrementAndGet();
+            if (count == 1 || count % 100 == 0) {
+                log.warn("Statistic queue is full, rows dropped: {}", count);
+            }
+
+            return false;
+        }
+
+        if (queue.size() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+            scheduler.execute(this::flush);
+        }
+
+        return true;
+    }
+
+    /**
+     * Writes all queued rows.
+     */
+    public void flush() {
+        flushScheduled.set(false);
+        var batch = new ArrayList<Statistic>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                insert(batch);
+            } catch (Exception e) {
+                log.error("Can't write {} statistic rows", batch.size(), e);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * @return aggregates per operation type, since the application start
+     */
+    public List<OperationSnapshot> snapshot() {
+        return operations.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                .sorted(Comparator.comparing(OperationSnapshot::operationType))
+                .toList();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Statistic flush didn't finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        flush();
+    }
+
+    /* ============= */
+
+    private boolean shouldStoreMessages() {
+        return storeMessages || (messageSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < messageSampleRate);
+    }
+
+    private void aggregate(Statistic statistic) {
+        var operationType = Objects.requireNonNullElse(statistic.getOperationType(), "unknown");
+        operations.computeIfAbsent(operationType, key -> new OperationStats())
+                .add(statistic);
+    }
+
+    private void insert(List<Statistic> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, statistic) -> {
+            var date = Objects.requireNonNullElseGet(statistic.getDate(), LocalDate::now);
+            var operationDate = Objects.requireNonNullElseGet(statistic.getOperationDate(), LocalDateTime::now);
+
+            ps.setTimestamp(1, Timestamp.valueOf(date.atStartOfDay()));
+            ps.setObject(2, statistic.getPosition());
+            ps.setString(3, statistic.getMode());
+            ps.setString(4, statistic.getRunId());
+            ps.setString(5, statistic.getOperationName());
+            ps.setString(6, statistic.getOperationType());
+            ps.setString(7, Objects.toString(statistic.getChapter(), null));
+            ps.setString(8, statistic.getRayId());
+            ps.setTimestamp(9, Timestamp.valueOf(operationDate));
+            ps.setObject(10, Objects.isNull(statistic.getOperationTimeSeconds()) ? null : statistic.getOperationTimeSeconds().intValue());
+            ps.setString(11, statistic.getOperationTimeString());
+            ps.setObject(12, statistic.getInputHistoryTokens());
+            ps.setObject(13, statistic.getInputHistoryWords());
+            ps.setObject(14, statistic.getInputTokens());
+            ps.setObject(15, statistic.getInputWords());
+            ps.setObject(16, statistic.getOutputHistoryTokens());
+            ps.setObject(17, statistic.getOutputHistoryWords());
+            ps.setObject(18, statistic.getOutputTokens());
+            ps.setObject(19, statistic.getOutputWords());
+            ps.setBigDecimal(20, Objects.isNull(statistic.getConversionPercent()) ? null : BigDecimal.valueOf(statistic.getConversionPercent()));
+            ps.setObject(21, statistic.getTokens());
+            ps.setObject(22, statistic.getTokensLeft());
+            ps.setString(23, toJson(Objects.requireNonNullElse(statistic.getAiOptions(), Map.of())));
+            ps.setString(24, toJson(Objects.requireNonNullElse(statistic.getMessages(), List.of())));
+        });
+
+        log.trace("Written {} statistic rows", batch.size());
+    }
+
+    @SneakyThrows
+    private String toJson(Object value) {
+        return objectMapper.writeValueAsString(value);
+    }
+
+    /* ============= */
+
+    static class OperationStats {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalSeconds = new LongAdder();
+        private final LongAdder inputTokens = new LongAdder();
+        private final LongAdder outputTokens = new LongAdder();
+        private final AtomicLong maxSeconds = new AtomicLong();
+        private final AtomicLongArray histogram = new AtomicLongArray(DURATION_BOUNDS_SECONDS.length + 1);
+
+        void add(Statistic statistic) {
+            long seconds = Objects.requireNonNullElse(statistic.getOperationTimeSeconds(), 0L);
+            count.increment();
+            totalSeconds.add(seconds);
+            inputTokens.add(Objects.requireNonNullElse(statistic.getInputHistoryTokens(), 0));
+            outputTokens.add(Objects.requireNonNullElse(statistic.getOutputTokens(), 0));
+            maxSeconds.accumulateAndGet(seconds, Math::max);
+            histogram.incrementAndGet(bucketOf(seconds));
+        }
+
+        OperationSnapshot snapshot(String operationType) {
+            var buckets = new LinkedHashMap<String, Long>();
+            for (int i = 0; i < histogram.length(); i++) {
+                var label = i < DURATION_BOUNDS_SECONDS.length ? "le_" + DURATION_BOUNDS_SECONDS[i] + "s" : "inf";
+                buckets.put(label, histogram.get(i));
+            }
+
+            return new OperationSnapshot(operationType, count.sum(), totalSeconds.sum(), maxSeconds.get(),
+                    inputTokens.sum(), outputTokens.sum(), buckets);
+        }
+
+        static int bucketOf(long seconds) {
+            for (int i = 0; i < DURATION_BOUNDS_SECONDS.length; i++) {
+                if (seconds <= DURATION_BOUNDS_SECONDS[i]) {
+                    return i;
+                }
+            }
+
+            return DURATION_BOUNDS_SECONDS.length;
+        }
+
+    }
+
+    /**
+     * @param operationType     the operation type, e.g. {@code summary}
+     * @param count             number of calls
+     * @param totalSeconds      summary duration of the calls
+     * @param maxSeconds        the longest call
+     * @param inputTokens       summary of input history tokens
+     * @param outputTokens      summary of output tokens
+     * @param durationHistogram number of calls per duration bucket, a bucket counts calls longer than the previous bound
+     */
+    public record OperationSnapshot(String operationType, long count, long totalSeconds, long maxSeconds,
+                                    long inputTokens, long outputTokens, Map<String, Long> durationHistogram) {
+    }
+
+}
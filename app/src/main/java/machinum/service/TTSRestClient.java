@@ -102,65 +102,6 @@ public class TTSRestClient {
         return response.body();
     }
 
-    public byte[] joinMp3Files(byte[] zipContent, String outputName, boolean enhance, byte[] coverArt,
-                               Metadata metadata) throws IOException {
-        log.debug("Sending MP3 join request to TTS service");
-
-        String boundary = "----WebKitFormBoundary" + System.currentTimeMillis();
-        ByteArrayOutputStream body = new ByteArrayOutputStream();
-
-        addFormField(body, boundary, "output_name", outputName);
-        addFormField(body, boundary, "enhance", enhance + "");
-        if (enhance) {
-            addFormField(body, boundary, "enhance_preset", "podcast");
-        }
-        addFormField(body, boundary, "max_file_size", "20mb");
-        addFormField(body, boundary, "add_silent_gaps", "true");
-
-        if (!Metadata.isEmpty(metadata)) {
-            String metadataJson = objectMapper.execute(mapper -> mapper.writeValueAsString(metadata));
-            addFormField(body, boundary, "metadata", metadataJson);
-        }
-
-        if (Objects.nonNull(coverArt) && coverArt.length > 0) {
-            addFilePart(body, boundary, "cover_art", "cover.jpg", coverArt, "image/jpeg");
-        }
-        if (Objects.nonNull(zipContent) && zipContent.length > 0) {
-            addFilePart(body, boundary, "file", "audio.zip", zipContent, "application/zip");
-        }
-
-        // Add the final boundary to signify the end of the request
-        body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
-
-        URI uri = URI.create(ttsServiceUrl + "/api/join");
-        log.debug(">> POST {}", uri);
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(uri)
-                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
-                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
-                .build();
-
-        HttpResponse<byte[]> response = null;
-        try {
-            response = httpClient.execute(client -> client.send(request, HttpResponse.BodyHandlers.ofByteArray()));
-        } finally {
-            if (Objects.nonNull(response)) {
-                log.debug("<< POST {} {}", uri, response.statusCode());
-            } else {
-                log.debug("<< POST {} -1", uri);
-            }
-        }
-
-        if (response.statusCode() != HttpStatus.OK.value()) {
-            String errorBody = new String(response.body(), StandardCharsets.UTF_8);
-            throw new IOException("Failed to join MP3 files with status %s: %s".formatted(response.statusCode(), errorBody));
-        }
-
-        log.debug("Successfully joined MP3 files");
-        return response.body();
-    }
-
     /* ============= */
 
     /**
@@ -35,6 +35,7 @@ public class TemplateAiFacade {
     private final Synthesizer synthesizer;
     private final ExternalTitleTranslater externalTitleTranslater;
     private final EmbeddingService embeddingService;
+    private final ChapterService chapterService;
 
 
     public FlowContext<Chapter> rewrite(FlowContext<Chapter> context) {
@@ -235,7 +236,8 @@ public class TemplateAiFacade {
 
         try {
             var previousItem = context.getPreviousItem();
-            var previousSummary = previousItem.getSummary();
+            var previousSummary = chapterService.findSummaryById(previousItem.getId())
+                    .orElse(null);
 
             if (TextUtil.isNotEmpty(previousSummary)) {
                 return previousSummary;
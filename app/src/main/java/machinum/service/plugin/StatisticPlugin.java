@@ -76,15 +76,16 @@ public class StatisticPlugin implements DurationPlugin {
             var options = result.getOllamaOptions();
             var rayId = TraceUtil.getCurrentRayId();
 
-            var inputHistoryTokens = countHistoryTokens(inputHistory);
-            var inputHistoryWords = countHistoryWords(inputHistory);
+            // The assistant keeps the counts of the history messages, the input history is its beginning
+            var inputHistoryTokens = result.historyTokens(inputHistory.size());
+            var inputHistoryWords = result.historyWords(inputHistory.size());
             var inputTokens = countTokens(ctx.getText());
             var inputWords = countWords(ctx.getText());
 
             var outputTokens = countTokens(result.result());
             var outputWords = countWords(result.result());
-            var outputHistoryTokens = countHistoryTokens(outputHistory);
-            var outputHistoryWords = countHistoryWords(outputHistory);
+            var outputHistoryTokens = result.historyTokens(outputHistory.size());
+            var outputHistoryWords = result.historyWords(outputHistory.size());
 
             var percent = round(calculatePercent(outputHistoryTokens, options.getNumCtx()), 2);
             int left = options.getNumCtx() - outputHistoryTokens;
@@ -120,7 +121,7 @@ public class StatisticPlugin implements DurationPlugin {
                             .collect(Collectors.toList()))
                     .build();
 
-            statisticService.save(statistic);
+            statisticService.record(statistic);
         }
 
     }
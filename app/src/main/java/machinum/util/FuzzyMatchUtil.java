@@ -0,0 +1,315 @@
+package machinum.util;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * String distances used by the glossary search, with the same semantics as their database counterparts:
+ * {@code levenshtein} of fuzzystrmatch, {@code similarity} of pg_trgm and the {@code jaro_winkler} function.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class FuzzyMatchUtil {
+
+    /**
+     * Length of a pattern that fits into one machine word of the bit-parallel algorithm.
+     */
+    public static final int WORD_SIZE = Long.SIZE;
+
+    public static int levenshtein(CharSequence first, CharSequence second) {
+        return levenshteinPattern(first).distance(second, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Compiles a pattern that is compared with many texts, e.g. a search query against a dictionary.
+     */
+    public static LevenshteinPattern levenshteinPattern(CharSequence pattern) {
+        return new LevenshteinPattern(pattern);
+    }
+
+    /**
+     * Jaro-Winkler similarity over upper-cased strings with a common prefix of up to four characters.
+     */
+    public static double jaroWinkler(String first, String second) {
+        var s1 = first.toUpperCase(Locale.ROOT);
+        var s2 = second.toUpperCase(Locale.ROOT);
+        var len1 = s1.length();
+        var len2 = s2.length();
+        if (len1 == 0 && len2 == 0) {
+            return 1.0;
+        }
+        if (len1 == 0 || len2 == 0) {
+            return 0.0;
+        }
+
+        var matchDistance = Math.max(Math.max(len1, len2) / 2 - 1, 0);
+        var matched1 = new boolean[len1];
+        var matched2 = new boolean[len2];
+        var matches = 0;
+        for (int i = 0; i < len1; i++) {
+            var end = Math.min(len2 - 1, i + matchDistance);
+            for (int j = Math.max(0, i - matchDistance); j <= end; j++) {
+                if (!matched2[j] && s1.charAt(i) == s2.charAt(j)) {
+                    matched1[i] = true;
+                    matched2[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+
+        if (matches == 0) {
+            return 0.0;
+        }
+
+        var transpositions = 0;
+        for (int i = 0, k = 0; i < len1; i++) {
+            if (matched1[i]) {
+                while (!matched2[k]) {
+                    k++;
+                }
+                if (s1.charAt(i) != s2.charAt(k)) {
+                    transpositions++;
+                }
+                k++;
+            }
+        }
+
+        var jaro = ((double) matches / len1 + (double) matches / len2 + (matches - transpositions / 2.0) / matches) / 3.0;
+        var prefix = 0;
+        while (prefix < 4 && prefix < len1 && prefix < len2 && s1.charAt(prefix) == s2.charAt(prefix)) {
+            prefix++;
+        }
+
+        return jaro + prefix * 0.1 * (1.0 - jaro);
+    }
+
+    /**
+     * Trigrams of pg_trgm: every alphanumeric word is lower-cased and padded with two spaces in front and
+     * one behind. Trigrams are packed into longs and returned sorted and unique.
+     */
+    public static long[] trigrams(String text) {
+        if (text == null || text.isEmpty()) {
+            return new long[0];
+        }
+
+        var result = new long[text.length() * 3 + 3];
+        var size = 0;
+        var length = text.length();
+        var i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            var start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (start == i) {
+                break;
+            }
+
+            // "  word " -> "  w", " wo", "wor", "ord", "rd "
+            char a = ' ', b = ' ';
+            for (int j = start; j <= i; j++) {
+                var c = j < i ? Character.toLowerCase(text.charAt(j)) : ' ';
+                result[size++] = pack(a, b, c);
+                a = b;
+                b = c;
+            }
+        }
+
+        var trigrams = Arrays.copyOf(result, size);
+        Arrays.sort(trigrams);
+
+        return unique(trigrams);
+    }
+
+    /**
+     * Shared trigrams divided by the trigrams of both texts, as {@code similarity()} of pg_trgm.
+     *
+     * @param first  sorted trigrams of {@link #trigrams(String)}
+     * @param second sorted trigrams of {@link #trigrams(String)}
+     */
+    public static double trigramSimilarity(long[] first, long[] second) {
+        if (first.length == 0 || second.length == 0) {
+            return 0.0;
+        }
+
+        var shared = 0;
+        for (int i = 0, j = 0; i < first.length && j < second.length; ) {
+            if (first[i] == second[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (first[i] < second[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+
+        return (double) shared / (first.length + second.length - shared);
+    }
+
+    public static double trigramSimilarity(String first, String second) {
+        return trigramSimilarity(trigrams(first), trigrams(second));
+    }
+
+    /**
+     * The best similarity two texts may reach given their trigram counts, used to skip long texts.
+     */
+    public static double maxTrigramSimilarity(int firstCount, int secondCount) {
+        if (firstCount == 0 || secondCount == 0) {
+            return 0.0;
+        }
+
+        return (double) Math.min(firstCount, secondCount) / Math.max(firstCount, secondCount);
+    }
+
+    /* ============= */
+
+    private static long pack(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static long[] unique(long[] sorted) {
+        if (sorted.length < 2) {
+            return sorted;
+        }
+
+        var size = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    /* ============= */
+
+    /**
+     * Levenshtein distance of a fixed pattern to any text.
+     * Patterns up to {@link #WORD_SIZE} characters use the bit-parallel algorithm of Myers (in the
+     * formulation of Hyyrö), which handles one text character per a few word operations; longer patterns
+     * fall back to the two-row dynamic programming.
+     */
+    public static class LevenshteinPattern {
+
+        private final String pattern;
+        private final long[] asciiMasks = new long[128];
+        private final Map<Character, Long> otherMasks = new HashMap<>();
+        private final long lastBit;
+        private final long allBits;
+
+        LevenshteinPattern(CharSequence pattern) {
+            this.pattern = pattern.toString();
+            var length = this.pattern.length();
+            this.lastBit = length == 0 ? 0 : 1L << (Math.min(length, WORD_SIZE) - 1);
+            this.allBits = length >= WORD_SIZE ? -1L : (1L << length) - 1;
+            if (length <= WORD_SIZE) {
+                for (int i = 0; i < length; i++) {
+                    var ch = this.pattern.charAt(i);
+                    if (ch < 128) {
+                        asciiMasks[ch] |= 1L << i;
+                    } else {
+                        otherMasks.merge(ch, 1L << i, (a, b) -> a | b);
+                    }
+                }
+            }
+        }
+
+        public int length() {
+            return pattern.length();
+        }
+
+        /**
+         * @param text        the text to compare with
+         * @param maxDistance the distance of interest, the calculation stops once it can't be reached
+         * @return the distance, or {@code maxDistance + 1} if it's greater than {@code maxDistance}
+         */
+        public int distance(CharSequence text, int maxDistance) {
+            var m = pattern.length();
+            var n = text.length();
+            var limit = maxDistance == Integer.MAX_VALUE ? maxDistance : maxDistance + 1;
+            if (Math.abs(m - n) > maxDistance) {
+                return limit;
+            }
+            if (m == 0 || n == 0) {
+                return Math.min(Math.max(m, n), limit);
+            }
+            if (m > WORD_SIZE) {
+                return dynamicDistance(text, limit);
+            }
+
+            var pv = allBits;
+            var mv = 0L;
+            var score = m;
+            for (int j = 0; j < n; j++) {
+                var eq = mask(text.charAt(j));
+                var xv = eq | mv;
+                var xh = (((eq & pv) + pv) ^ pv) | eq;
+                var ph = mv | ~(xh | pv);
+                var mh = pv & xh;
+                if ((ph & lastBit) != 0) {
+                    score++;
+                } else if ((mh & lastBit) != 0) {
+                    score--;
+                }
+
+                // Each remaining character lowers the score by one at most
+                if (score - (n - j - 1) > maxDistance) {
+                    return limit;
+                }
+
+                ph = (ph << 1) | 1;
+                mh <<= 1;
+                pv = mh | ~(xv | ph);
+                mv = ph & xv;
+            }
+
+            return Math.min(score, limit);
+        }
+
+        private long mask(char ch) {
+            return ch < 128 ? asciiMasks[ch] : otherMasks.getOrDefault(ch, 0L);
+        }
+
+        private int dynamicDistance(CharSequence text, int limit) {
+            var m = pattern.length();
+            var previous = new int[m + 1];
+            var current = new int[m + 1];
+            for (int i = 0; i <= m; i++) {
+                previous[i] = i;
+            }
+
+            for (int j = 1; j <= text.length(); j++) {
+                current[0] = j;
+                var rowMin = current[0];
+                var ch = text.charAt(j - 1);
+                for (int i = 1; i <= m; i++) {
+                    var cost = pattern.charAt(i - 1) == ch ? 0 : 1;
+                    current[i] = Math.min(Math.min(current[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+                    rowMin = Math.min(rowMin, current[i]);
+                }
+                if (rowMin >= limit) {
+                    return limit;
+                }
+
+                var swap = previous;
+                previous = current;
+                current = swap;
+            }
+
+            return Math.min(previous[m], limit);
+        }
+
+    }
+
+}
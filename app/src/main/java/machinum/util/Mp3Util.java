@@ -0,0 +1,466 @@
+package machinum.util;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Frame level helpers for MPEG layer III audio. Parts synthesized separately are joined without
+ * re-encoding: tags and VBR info frames of the parts are dropped, audio frames are copied as is, and one
+ * tag and one info frame for the whole stream are written in front of them.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class Mp3Util {
+
+    private static final int[] MPEG1_BITRATES = {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320};
+    private static final int[] MPEG2_BITRATES = {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160};
+    private static final int[][] SAMPLE_RATES = {
+            {11025, 12000, 8000},   // MPEG 2.5
+            {0, 0, 0},              // reserved
+            {22050, 24000, 16000},  // MPEG 2
+            {44100, 48000, 32000}   // MPEG 1
+    };
+    private static final int ID3V1_SIZE = 128;
+
+    /**
+     * Finds the audio frames of the given mp3 file.
+     *
+     * @throws IllegalArgumentException when the data has no layer III frames
+     */
+    public static Mp3Part scan(byte[] data) {
+        var start = id3v2Size(data);
+        var end = hasId3v1(data) ? data.length - ID3V1_SIZE : data.length;
+        var ranges = new ArrayList<Range>();
+        Header first = null;
+        long frames = 0;
+        long samples = 0;
+        long audioBytes = 0;
+        var bitrates = new HashSet<Integer>();
+
+        var position = sync(data, start, end);
+        while (position >= 0 && position + 4 <= end) {
+            var header = Header.parse(data, position);
+            if (Objects.isNull(header) || position + header.length() > end) {
+                var next = sync(data, position + 1, end);
+                if (next >= 0) {
+                    log.debug("Skipped {} bytes of broken mp3 stream at {}", next - position, position);
+                }
+                position = next;
+                continue;
+            }
+
+            if (Objects.isNull(first) && header.isInfoFrame(data, position)) {
+                // The info frame describes the part only, a new one is written for the joined stream
+                position += header.length();
+                continue;
+            }
+
+            if (Objects.isNull(first)) {
+                first = header;
+            } else if (header.sampleRate() != first.sampleRate() || header.channels() != first.channels()) {
+                throw new IllegalArgumentException("Mp3 stream changes format at %s".formatted(position));
+            }
+
+            var last = ranges.isEmpty() ? null : ranges.getLast();
+            if (Objects.nonNull(last) && last.offset() + last.length() == position) {
+                ranges.set(ranges.size() - 1, new Range(last.offset(), last.length() + header.length()));
+            } else {
+                ranges.add(new Range(position, header.length()));
+            }
+            bitrates.add(header.bitrate());
+            frames++;
+            samples += header.samples();
+            audioBytes += header.length();
+            position += header.length();
+        }
+
+        if (Objects.isNull(first)) {
+            throw new IllegalArgumentException("No mp3 frames found");
+        }
+
+        return new Mp3Part(data, List.copyOf(ranges), first, frames, samples, audioBytes, bitrates.size() == 1);
+    }
+
+    /**
+     * Joins the parts in the given order.
+     *
+     * @param tag ID3 tag written in front of the audio, may be empty
+     * @throws IllegalArgumentException when the parts have different sample rates or channels
+     */
+    public static Mp3Stream join(List<Mp3Part> parts, byte[] tag) {
+        if (parts.isEmpty()) {
+            throw new IllegalArgumentException("At least one mp3 part is required");
+        }
+
+        var format = parts.getFirst().format();
+        var frames = 0L;
+        var samples = 0L;
+        var audioBytes = 0L;
+        var constantBitrate = true;
+        var bitrate = format.bitrate();
+        for (var part : parts) {
+            if (part.format().sampleRate() != format.sampleRate() || part.format().channels() != format.channels()) {
+                throw new IllegalArgumentException("Can't join mp3 parts of different formats: %s Hz/%s ch and %s Hz/%s ch".formatted(
+                        format.sampleRate(), format.channels(), part.format().sampleRate(), part.format().channels()));
+            }
+            frames += part.frames();
+            samples += part.samples();
+            audioBytes += part.audioBytes();
+            constantBitrate &= part.constantBitrate() && part.format().bitrate() == bitrate;
+        }
+
+        var infoFrame = infoFrame(format, constantBitrate, frames, audioBytes);
+        var size = tag.length + infoFrame.length + audioBytes;
+        var durationSeconds = (double) samples / format.sampleRate();
+        var bitrateBps = durationSeconds > 0 ? (int) Math.round(audioBytes * 8 / durationSeconds) : 0;
+
+        return new Mp3Stream(tag, infoFrame, parts, size, durationSeconds, bitrateBps, format.sampleRate(), format.channels());
+    }
+
+    /**
+     * Writes an ID3v2.3 tag.
+     *
+     * @param textFrames frame id to text, e.g. {@code TIT2}, {@code TPE1}; {@code COMM} is written as a comment
+     * @param cover      jpeg or png image, may be {@code null}
+     */
+    public static byte[] id3(Map<String, String> textFrames, byte[] cover) {
+        var frames = new ByteArrayOutputStream();
+        textFrames.forEach((id, text) -> {
+            if (TextUtil.isEmpty(text)) {
+                return;
+            }
+
+            if ("COMM".equals(id)) {
+                var language = Objects.requireNonNullElse(textFrames.get("TLAN"), "");
+                var content = new ByteArrayOutputStream();
+                content.write(1);
+                content.writeBytes((language.length() == 3 ? language : "eng").getBytes(StandardCharsets.ISO_8859_1));
+                content.writeBytes(utf16(""));
+                content.write(0);
+                content.write(0);
+                content.writeBytes(utf16(text));
+                writeFrame(frames, id, content.toByteArray());
+            } else {
+                var content = new ByteArrayOutputStream();
+                content.write(1);
+                content.writeBytes(utf16(text));
+                writeFrame(frames, id, content.toByteArray());
+            }
+        });
+
+        if (Objects.nonNull(cover) && cover.length > 0) {
+            var content = new ByteArrayOutputStream();
+            content.write(0);
+            content.writeBytes(imageMimeType(cover).getBytes(StandardCharsets.ISO_8859_1));
+            content.write(0);
+            // Front cover
+            content.write(3);
+            content.write(0);
+            content.writeBytes(cover);
+            writeFrame(frames, "APIC", content.toByteArray());
+        }
+
+        if (frames.size() == 0) {
+            return new byte[0];
+        }
+
+        var size = frames.size();
+        var tag = new ByteArrayOutputStream(size + 10);
+        tag.writeBytes(new byte[]{'I', 'D', '3', 3, 0, 0});
+        tag.writeBytes(new byte[]{(byte) ((size >> 21) & 0x7F), (byte) ((size >> 14) & 0x7F), (byte) ((size >> 7) & 0x7F), (byte) (size & 0x7F)});
+        tag.writeBytes(frames.toByteArray());
+
+        return tag.toByteArray();
+    }
+
+    /**
+     * Writes parts to the output as they come, for joins too large to keep in memory. The stream has no
+     * info frame, as frame counts are not known upfront.
+     *
+     * @param tag ID3 tag written in front of the audio, may be empty
+     */
+    public static Mp3Appender appender(OutputStream output, byte[] tag) throws IOException {
+        output.write(tag);
+        return new Mp3Appender(output);
+    }
+
+    public static String imageMimeType(byte[] image) {
+        if (image.length > 4 && (image[0] & 0xFF) == 0x89 && image[1] == 'P' && image[2] == 'N' && image[3] == 'G') {
+            return "image/png";
+        }
+
+        return "image/jpeg";
+    }
+
+    /* ============= */
+
+    private static int id3v2Size(byte[] data) {
+        if (data.length < 10 || data[0] != 'I' || data[1] != 'D' || data[2] != '3') {
+            return 0;
+        }
+
+        var size = ((data[6] & 0x7F) << 21) | ((data[7] & 0x7F) << 14) | ((data[8] & 0x7F) << 7) | (data[9] & 0x7F);
+        var footer = (data[5] & 0x10) != 0 ? 10 : 0;
+
+        return Math.min(data.length, 10 + size + footer);
+    }
+
+    private static boolean hasId3v1(byte[] data) {
+        var offset = data.length - ID3V1_SIZE;
+        return offset >= 0 && data[offset] == 'T' && data[offset + 1] == 'A' && data[offset + 2] == 'G';
+    }
+
+    /**
+     * @return the first position with a valid header followed by another one or the end, -1 if none
+     */
+    private static int sync(byte[] data, int from, int end) {
+        for (int i = Math.max(from, 0); i + 4 <= end; i++) {
+            var header = Header.parse(data, i);
+            if (Objects.nonNull(header)) {
+                var next = i + header.length();
+                if (next == end || (next + 4 <= end && Objects.nonNull(Header.parse(data, next)))) {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    private static byte[] infoFrame(Header format, boolean constantBitrate, long frames, long audioBytes) {
+        // Same format as the audio, without padding and CRC, so players can read it as a regular frame
+        var raw = format.raw() & ~0x200 | 0x10000;
+        var header = Header.parse(raw);
+        // Low bitrate frames are shorter than the info header, the next bitrate is taken then, as LAME does
+        while (header.length() < 4 + header.sideInfoSize() + 16) {
+            raw += 0x1000;
+            header = Header.parse(raw);
+        }
+        var frame = new byte[header.length()];
+        var buffer = ByteBuffer.wrap(frame);
+        buffer.putInt(raw);
+        buffer.position(4 + header.sideInfoSize());
+        buffer.put((constantBitrate ? "Info" : "Xing").getBytes(StandardCharsets.ISO_8859_1));
+        // Frames and bytes fields are present
+        buffer.putInt(0x3);
+        buffer.putInt((int) frames);
+        buffer.putInt((int) (audioBytes + frame.length));
+
+        return frame;
+    }
+
+    private static void writeFrame(ByteArrayOutputStream output, String id, byte[] content) {
+        output.writeBytes(id.getBytes(StandardCharsets.ISO_8859_1));
+        output.writeBytes(ByteBuffer.allocate(4).putInt(content.length).array());
+        output.write(0);
+        output.write(0);
+        output.writeBytes(content);
+    }
+
+    private static byte[] utf16(String text) {
+        // Written with a byte order mark
+        return text.isEmpty() ? new byte[]{(byte) 0xFE, (byte) 0xFF} : text.getBytes(StandardCharsets.UTF_16);
+    }
+
+    /* ============= */
+
+    public record Range(int offset, int length) {
+    }
+
+    /**
+     * Audio frames of one mp3 file.
+     *
+     * @param ranges          continuous runs of frames in {@code data}
+     * @param format          header of the first audio frame
+     * @param constantBitrate all frames have the same bitrate
+     */
+    public record Mp3Part(byte[] data, List<Range> ranges, Header format, long frames, long samples,
+                          long audioBytes, boolean constantBitrate) {
+
+        public double durationSeconds() {
+            return (double) samples / format.sampleRate();
+        }
+
+    }
+
+    /**
+     * Joined stream, the audio is read from the buffers of the parts.
+     */
+    public record Mp3Stream(byte[] tag, byte[] infoFrame, List<Mp3Part> parts, long size, double durationSeconds,
+                            int bitrateBps, int sampleRateHz, int channels) {
+
+        public InputStream openStream() {
+            var streams = new ArrayList<InputStream>();
+            streams.add(new ByteArrayInputStream(tag));
+            streams.add(new ByteArrayInputStream(infoFrame));
+            for (var part : parts) {
+                for (var range : part.ranges()) {
+                    streams.add(new ByteArrayInputStream(part.data(), range.offset(), range.length()));
+                }
+            }
+
+            return new SequenceInputStream(Collections.enumeration(streams));
+        }
+
+    }
+
+    /**
+     * Appends frames of parts to an output stream, see {@link #appender(OutputStream, byte[])}.
+     */
+    public static class Mp3Appender {
+
+        private final OutputStream output;
+        private Header format;
+        private long frames;
+        private long samples;
+        private long size;
+
+        private Mp3Appender(OutputStream output) {
+            this.output = output;
+        }
+
+        /**
+         * @throws IllegalArgumentException when the part has another sample rate or channels
+         */
+        public void append(Mp3Part part) throws IOException {
+            if (Objects.isNull(format)) {
+                format = part.format();
+            } else if (part.format().sampleRate() != format.sampleRate() || part.format().channels() != format.channels()) {
+                throw new IllegalArgumentException("Can't join mp3 parts of different formats: %s Hz/%s ch and %s Hz/%s ch".formatted(
+                        format.sampleRate(), format.channels(), part.format().sampleRate(), part.format().channels()));
+            }
+
+            for (var range : part.ranges()) {
+                output.write(part.data(), range.offset(), range.length());
+            }
+            frames += part.frames();
+            samples += part.samples();
+            size += part.audioBytes();
+        }
+
+        /**
+         * Appends silent frames in the format of the previous part, does nothing before the first part.
+         */
+        public void appendSilence(double seconds) throws IOException {
+            if (Objects.isNull(format) || seconds <= 0) {
+                return;
+            }
+
+            // A frame without side info and main data decodes to silence
+            var header = Header.parse(format.raw() & ~0x200 | 0x10000);
+            var frame = new byte[header.length()];
+            ByteBuffer.wrap(frame).putInt(header.raw());
+            var count = (int) Math.ceil(seconds * header.sampleRate() / header.samples());
+            for (int i = 0; i < count; i++) {
+                output.write(frame);
+            }
+            frames += count;
+            samples += (long) count * header.samples();
+            size += (long) count * frame.length;
+        }
+
+        public long frames() {
+            return frames;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        public double durationSeconds() {
+            return Objects.isNull(format) ? 0 : (double) samples / format.sampleRate();
+        }
+
+    }
+
+    /**
+     * Header of a layer III frame.
+     *
+     * @param raw the four header bytes
+     */
+    public record Header(int raw, int version, int bitrate, int sampleRate, boolean padding, boolean crc,
+                         int channels) {
+
+        /**
+         * @return {@code null} when the bytes are not a layer III frame header
+         */
+        public static Header parse(byte[] data, int offset) {
+            if (offset + 4 > data.length) {
+                return null;
+            }
+
+            return parse(ByteBuffer.wrap(data, offset, 4).getInt());
+        }
+
+        public static Header parse(int raw) {
+            if ((raw >>> 21) != 0x7FF) {
+                return null;
+            }
+
+            var version = (raw >>> 19) & 0x3;
+            var layer = (raw >>> 17) & 0x3;
+            var bitrateIndex = (raw >>> 12) & 0xF;
+            var sampleRateIndex = (raw >>> 10) & 0x3;
+            if (version == 1 || layer != 1 || bitrateIndex == 0 || bitrateIndex == 0xF || sampleRateIndex == 3) {
+                return null;
+            }
+
+            var bitrate = (version == 3 ? MPEG1_BITRATES : MPEG2_BITRATES)[bitrateIndex] * 1000;
+            var sampleRate = SAMPLE_RATES[version][sampleRateIndex];
+            var padding = ((raw >>> 9) & 0x1) == 1;
+            var crc = ((raw >>> 16) & 0x1) == 0;
+            var channels = ((raw >>> 6) & 0x3) == 3 ? 1 : 2;
+
+            return new Header(raw, version, bitrate, sampleRate, padding, crc, channels);
+        }
+
+        public boolean mpeg1() {
+            return version == 3;
+        }
+
+        public int samples() {
+            return mpeg1() ? 1152 : 576;
+        }
+
+        public int length() {
+            return (mpeg1() ? 144 : 72) * bitrate / sampleRate + (padding ? 1 : 0);
+        }
+
+        public int sideInfoSize() {
+            var size = mpeg1() ? (channels == 1 ? 17 : 32) : (channels == 1 ? 9 : 17);
+            return crc ? size + 2 : size;
+        }
+
+        boolean isInfoFrame(byte[] data, int offset) {
+            return matches(data, offset + 4 + sideInfoSize(), "Xing")
+                    || matches(data, offset + 4 + sideInfoSize(), "Info")
+                    || matches(data, offset + 36, "VBRI");
+        }
+
+        private static boolean matches(byte[] data, int offset, String tag) {
+            if (offset + tag.length() > data.length) {
+                return false;
+            }
+            for (int i = 0; i < tag.length(); i++) {
+                if (data[offset + i] != tag.charAt(i)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+    }
+
+}
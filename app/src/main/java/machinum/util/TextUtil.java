@@ -180,10 +180,7 @@ public class TextUtil {
     }
 
     public static Integer countTokens(String text) {
-        return ENCODING
-                .encode(text)
-                .boxed()
-                .size();
+        return ENCODING.countTokens(text);
     }
 
     @SneakyThrows
@@ -1,5 +1,6 @@
 package org.springframework.cache;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
@@ -11,6 +12,8 @@ import org.springframework.cache.annotation.Cacheable;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static machinum.config.Config.CacheConstants.STORE;
 
@@ -18,6 +21,10 @@ import static machinum.config.Config.CacheConstants.STORE;
  * Helper class that provides a flexible key-value store abstraction.
  * Values can be retrieved by key from configured plugins, or generated
  * and stored if they don't exist.
+ *
+ * <p>{@link #getOrCreate} keeps a bounded local tier in front of the plugins. The local tier holds
+ * futures, so concurrent requests for the same key wait for the first one instead of creating
+ * the value again.</p>
  */
 @Slf4j
 @RequiredArgsConstructor
@@ -25,6 +32,7 @@ public class CacheHelper {
 
     private final CacheManager cacheManager;
     private final List<CachePlugin> plugins;
+    private final AsyncCache<String, Object> localCache;
 
     @Cacheable(value = STORE, key = "#p0", condition = "#p0 != null", unless = "#result == null")
     public <T> Optional<T> getValue(String key) {
@@ -40,6 +48,7 @@ public class CacheHelper {
     @CacheEvict(value = STORE, key = "#p0", condition = "#p0 != null")
     public void evictValue(String key) {
         log.info("Cache evicted for key: {}", key);
+        localCache.synchronous().invalidate(key);
 
         for (CachePlugin plugin : plugins) {
             plugin.remove(key);
@@ -52,6 +61,9 @@ public class CacheHelper {
 
     /**
      * Gets a value for a key, or creates and stores it if not found.
+     * Lookup order is the local tier, then the plugins, then the supplier. Only one caller
+     * creates the value for a key at a time, the others wait for its result; if creation fails
+     * a waiting caller retries on its own.
      *
      * @param <T>      Type of value to get or create
      * @param key      The key to look up
@@ -59,15 +71,47 @@ public class CacheHelper {
      * @return The retrieved or newly created value
      */
     @SneakyThrows
+    @SuppressWarnings("unchecked")
     public <T> T getOrCreate(@NonNull String key, CheckedSupplier<T> supplier) {
+        while (true) {
+            var future = new CompletableFuture<Object>();
+            var existing = localCache.asMap().putIfAbsent(key, future);
+            if (existing == null) {
+                return (T) load(key, future, supplier);
+            }
+
+            try {
+                var value = existing.join();
+                log.debug("Return value from local cache: {}", key);
+                return (T) value;
+            } catch (CompletionException e) {
+                log.debug("Concurrent creation failed, retry for: {}", key);
+            }
+        }
+    }
+
+    /* ============= */
+
+    private <T> T load(String key, CompletableFuture<Object> future, CheckedSupplier<T> supplier) throws Exception {
+        try {
+            T value = loadFromPlugins(key, supplier);
+            future.complete(value);
+
+            return value;
+        } catch (Exception e) {
+            localCache.asMap().remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private <T> T loadFromPlugins(String key, CheckedSupplier<T> supplier) throws Exception {
         // First try to get from any plugin
         for (CachePlugin plugin : plugins) {
-            if (plugin.hasKey(key)) {
-                Optional<T> value = plugin.get(key);
-                if (value.isPresent()) {
-                    log.warn("Return value from cache: {}", key);
-                    return value.get();
-                }
+            Optional<T> value = plugin.find(key);
+            if (value.isPresent()) {
+                log.warn("Return value from cache: {}", key);
+                return value.get();
             }
         }
 
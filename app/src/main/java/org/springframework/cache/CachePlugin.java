@@ -26,6 +26,22 @@ public interface CachePlugin {
      */
     <T> Optional<T> get(String key);
 
+    /**
+     * Looks up a value for the given key in one step. Plugins backed by a remote storage
+     * should override it to avoid a separate existence check.
+     *
+     * @param <T> The expected type of the value
+     * @param key The key to look up
+     * @return Optional containing the value if found, empty Optional otherwise
+     */
+    default <T> Optional<T> find(String key) {
+        if (hasKey(key)) {
+            return get(key);
+        }
+
+        return Optional.empty();
+    }
+
     /**
      * Saves a value with the given key.
      *
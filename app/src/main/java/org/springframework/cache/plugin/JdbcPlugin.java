@@ -46,22 +46,28 @@ public class JdbcPlugin implements CachePlugin {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <T> Optional<T> get(String key) {
+        return find(key);
+    }
+
+    /**
+     * Reads the value and its type with a single query.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> find(String key) {
         try {
-            String json = jdbcTemplate.queryForObject(
-                    "SELECT value_data FROM cache_store WHERE key_name = ?",
-                    String.class,
+            var rows = jdbcTemplate.query(
+                    "SELECT value_data, value_type FROM cache_store WHERE key_name = ?",
+                    (rs, rowNum) -> new String[]{rs.getString("value_data"), rs.getString("value_type")},
                     key);
 
-            if (json == null) {
+            if (rows.isEmpty() || rows.getFirst()[0] == null) {
                 return Optional.empty();
             }
 
-            String className = jdbcTemplate.queryForObject(
-                    "SELECT value_type FROM cache_store WHERE key_name = ?",
-                    String.class,
-                    key);
+            String json = rows.getFirst()[0];
+            String className = rows.getFirst()[1];
 
             Class<?> valueClass = Class.forName(className);
             T value = (T) objectMapper.execute(mapper -> {
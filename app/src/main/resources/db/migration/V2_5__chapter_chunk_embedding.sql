@@ -0,0 +1,67 @@
+CREATE TABLE IF NOT EXISTS chapter_chunk_embedding (
+    chapter_id VARCHAR(36) NOT NULL,
+    field_type VARCHAR(32) NOT NULL,
+    chunk_index INTEGER NOT NULL,
+    book_id VARCHAR(36) NOT NULL,
+    chapter_number INTEGER NOT NULL,
+    content TEXT NOT NULL,
+    embedding vector(384) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (chapter_id, field_type, chunk_index),
+    CONSTRAINT fk_chapter_chunk_embedding_chapter
+        FOREIGN KEY(chapter_id)
+        REFERENCES chapter_info(id)
+        ON DELETE CASCADE,
+    CONSTRAINT fk_chapter_chunk_embedding_book
+        FOREIGN KEY(book_id)
+        REFERENCES books(id)
+        ON DELETE CASCADE
+);
+
+-- One partial HNSW index per field, a search always targets a single field
+CREATE INDEX IF NOT EXISTS chapter_chunk_embedding_title_idx ON chapter_chunk_embedding
+    USING hnsw (embedding vector_cosine_ops) WHERE field_type = 'title';
+CREATE INDEX IF NOT EXISTS chapter_chunk_embedding_translated_title_idx ON chapter_chunk_embedding
+    USING hnsw (embedding vector_cosine_ops) WHERE field_type = 'translated_title';
+CREATE INDEX IF NOT EXISTS chapter_chunk_embedding_text_idx ON chapter_chunk_embedding
+    USING hnsw (embedding vector_cosine_ops) WHERE field_type = 'text';
+CREATE INDEX IF NOT EXISTS chapter_chunk_embedding_translated_text_idx ON chapter_chunk_embedding
+    USING hnsw (embedding vector_cosine_ops) WHERE field_type = 'translated_text';
+CREATE INDEX IF NOT EXISTS chapter_chunk_embedding_summary_idx ON chapter_chunk_embedding
+    USING hnsw (embedding vector_cosine_ops) WHERE field_type = 'summary';
+
+CREATE INDEX IF NOT EXISTS chapter_chunk_embedding_book_id_idx ON chapter_chunk_embedding(book_id, field_type);
+
+-- Move existing embeddings from chapter_context
+INSERT INTO chapter_chunk_embedding (chapter_id, field_type, chunk_index, book_id, chapter_number, content, embedding)
+SELECT id, 'title', 0, book_id, chapter_number, title_content, title_embedding
+FROM chapter_context
+WHERE title_embedding IS NOT NULL AND title_content IS NOT NULL
+UNION ALL
+SELECT id, 'translated_title', 0, book_id, chapter_number, translated_title_content, translated_title_embedding
+FROM chapter_context
+WHERE translated_title_embedding IS NOT NULL AND translated_title_content IS NOT NULL
+UNION ALL
+SELECT id, 'summary', 0, book_id, chapter_number, summary_content, summary_embedding
+FROM chapter_context
+WHERE summary_embedding IS NOT NULL AND summary_content IS NOT NULL
+UNION ALL
+SELECT cc.id, 'text', (e.ordinality - 1)::int, cc.book_id, cc.chapter_number,
+       cc.text_content ->> (e.ordinality - 1)::int, (e.value::text)::vector(384)
+FROM chapter_context cc,
+     jsonb_array_elements(cc.text_embedding) WITH ORDINALITY AS e(value, ordinality)
+WHERE jsonb_typeof(cc.text_embedding) = 'array'
+  AND cc.text_content ->> (e.ordinality - 1)::int IS NOT NULL
+UNION ALL
+SELECT cc.id, 'translated_text', (e.ordinality - 1)::int, cc.book_id, cc.chapter_number,
+       cc.translated_text_content ->> (e.ordinality - 1)::int, (e.value::text)::vector(384)
+FROM chapter_context cc,
+     jsonb_array_elements(cc.translated_text_embedding) WITH ORDINALITY AS e(value, ordinality)
+WHERE jsonb_typeof(cc.translated_text_embedding) = 'array'
+  AND cc.translated_text_content ->> (e.ordinality - 1)::int IS NOT NULL
+ON CONFLICT DO NOTHING;
+
+-- Chunk embeddings are no longer kept as JSON
+UPDATE chapter_context
+SET text_embedding = '[]'::jsonb,
+    translated_text_embedding = '[]'::jsonb;
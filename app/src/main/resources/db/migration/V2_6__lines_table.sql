@@ -0,0 +1,143 @@
+/* Replace per-book materialized sub views with an incrementally maintained table */
+
+DROP VIEW IF EXISTS lines_info CASCADE;
+DROP MATERIALIZED VIEW IF EXISTS lines_info CASCADE;
+
+DO $$
+DECLARE
+    view_name TEXT;
+BEGIN
+    FOR view_name IN SELECT matviewname FROM pg_matviews WHERE matviewname LIKE 'lines_info_%'
+    LOOP
+        EXECUTE format('DROP MATERIALIZED VIEW IF EXISTS %I CASCADE', view_name);
+    END LOOP;
+END;
+$$;
+
+DROP FUNCTION IF EXISTS create_single_sub_view(TEXT, VARCHAR, INTEGER, INTEGER);
+DROP FUNCTION IF EXISTS create_view_indexes(TEXT);
+DROP FUNCTION IF EXISTS refresh_single_view(TEXT);
+DROP FUNCTION IF EXISTS refresh_single_view_concurrently(TEXT);
+DROP FUNCTION IF EXISTS drop_single_view(TEXT);
+DROP FUNCTION IF EXISTS view_exists(TEXT);
+DROP FUNCTION IF EXISTS create_lines_info_view(TEXT[]);
+DROP TABLE IF EXISTS line_settings;
+
+CREATE TABLE lines_info (
+    id TEXT PRIMARY KEY,
+    chapter_id VARCHAR(36) NOT NULL,
+    source_key TEXT,
+    number INTEGER,
+    book_id VARCHAR(36),
+    line_index INTEGER NOT NULL,
+    original_line TEXT,
+    translated_line TEXT,
+    original_sentences JSONB,
+    translated_sentences JSONB,
+    CONSTRAINT fk_lines_info_chapter
+        FOREIGN KEY(chapter_id)
+        REFERENCES chapter_info(id)
+        ON DELETE CASCADE
+);
+
+CREATE INDEX idx_lines_info_chapter_id ON lines_info(chapter_id);
+CREATE INDEX idx_lines_info_book_id ON lines_info(book_id, number);
+CREATE INDEX idx_lines_info_source_key ON lines_info(source_key);
+
+CREATE INDEX idx_lines_info_original_sentences ON lines_info USING GIN (original_sentences);
+CREATE INDEX idx_lines_info_translated_sentences ON lines_info USING GIN (translated_sentences);
+
+CREATE INDEX idx_lines_info_original_line_ts ON lines_info USING GIN (to_tsvector('english', original_line));
+CREATE INDEX idx_lines_info_translated_line_ts ON lines_info USING GIN (to_tsvector('russian', translated_line));
+
+CREATE INDEX idx_lines_info_original_line_gin ON lines_info USING GIN (original_line gin_trgm_ops);
+CREATE INDEX idx_lines_info_translated_line_gin ON lines_info USING GIN (translated_line gin_trgm_ops);
+
+-- Lines of the given chapters, same shape as the former materialized view
+CREATE OR REPLACE FUNCTION chapter_lines(p_chapter_ids VARCHAR(36)[])
+RETURNS SETOF lines_info AS $$
+    SELECT
+        MD5(ci0.id || '-' || l.line_index)::text AS id,
+        ci0.id AS chapter_id,
+        ci0.source_key,
+        ci0.number,
+        ci0.book_id,
+        l.line_index::int,
+        l.original_line,
+        l.translated_line,
+        to_jsonb(
+            regexp_split_to_array(
+                regexp_replace(l.original_line, '([.!?])\s+', '\1|', 'g'),
+                '\|'
+        )) AS original_sentences,
+        to_jsonb(
+            regexp_split_to_array(
+                regexp_replace(l.translated_line, '([.!?])\s+', '\1|', 'g'),
+                '\|'
+        )) AS translated_sentences
+    FROM chapter_info ci0,
+         unnest(string_to_array(ci0.text, E'\n'), string_to_array(ci0.translated_text, E'\n'))
+             WITH ORDINALITY AS l(original_line, translated_line, line_index)
+    WHERE ci0.id = ANY(p_chapter_ids)
+      AND (LENGTH(l.original_line) > 0 OR LENGTH(l.translated_line) > 0);
+$$ LANGUAGE sql STABLE;
+
+-- Diffs the stored lines of one chapter against its text, only changed lines are written
+CREATE OR REPLACE FUNCTION sync_chapter_lines(p_chapter_id VARCHAR(36))
+RETURNS INTEGER AS $$
+DECLARE
+    changed INTEGER := 0;
+    removed INTEGER := 0;
+BEGIN
+    DELETE FROM lines_info li
+    WHERE li.chapter_id = p_chapter_id
+      AND NOT EXISTS (SELECT 1 FROM chapter_lines(ARRAY[p_chapter_id]) cl WHERE cl.id = li.id);
+    GET DIAGNOSTICS removed = ROW_COUNT;
+
+    INSERT INTO lines_info
+    SELECT * FROM chapter_lines(ARRAY[p_chapter_id])
+    ON CONFLICT (id) DO UPDATE SET
+        source_key = EXCLUDED.source_key,
+        number = EXCLUDED.number,
+        book_id = EXCLUDED.book_id,
+        original_line = EXCLUDED.original_line,
+        translated_line = EXCLUDED.translated_line,
+        original_sentences = EXCLUDED.original_sentences,
+        translated_sentences = EXCLUDED.translated_sentences
+    WHERE lines_info.original_line IS DISTINCT FROM EXCLUDED.original_line
+       OR lines_info.translated_line IS DISTINCT FROM EXCLUDED.translated_line
+       OR lines_info.number IS DISTINCT FROM EXCLUDED.number
+       OR lines_info.source_key IS DISTINCT FROM EXCLUDED.source_key
+       OR lines_info.book_id IS DISTINCT FROM EXCLUDED.book_id;
+    GET DIAGNOSTICS changed = ROW_COUNT;
+
+    RETURN changed + removed;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION sync_chapter_lines_fn()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM sync_chapter_lines(NEW.id);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER sync_chapter_lines_insert_tr
+    AFTER INSERT ON chapter_info
+    FOR EACH ROW
+    EXECUTE FUNCTION sync_chapter_lines_fn();
+
+CREATE TRIGGER sync_chapter_lines_update_tr
+    AFTER UPDATE OF text, translated_text, number, source_key, book_id ON chapter_info
+    FOR EACH ROW
+    WHEN (OLD.text IS DISTINCT FROM NEW.text
+       OR OLD.translated_text IS DISTINCT FROM NEW.translated_text
+       OR OLD.number IS DISTINCT FROM NEW.number
+       OR OLD.source_key IS DISTINCT FROM NEW.source_key
+       OR OLD.book_id IS DISTINCT FROM NEW.book_id)
+    EXECUTE FUNCTION sync_chapter_lines_fn();
+
+-- Initial fill
+INSERT INTO lines_info
+SELECT * FROM chapter_lines(ARRAY(SELECT id FROM chapter_info));
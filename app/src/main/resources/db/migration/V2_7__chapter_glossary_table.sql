@@ -0,0 +1,167 @@
+/* Replace the JSON-exploding chapter_glossary view with an indexed table synced from chapter_info.names */
+
+DROP VIEW IF EXISTS chapter_context_glossary;
+DROP VIEW IF EXISTS chapter_glossary;
+
+CREATE TABLE chapter_glossary (
+    id TEXT PRIMARY KEY,
+    chapter_id VARCHAR(36) NOT NULL,
+    source_key TEXT,
+    number INTEGER,
+    title TEXT,
+    book_id VARCHAR(36),
+    name TEXT,
+    category TEXT,
+    description TEXT,
+    translated BOOLEAN,
+    translated_name TEXT,
+    raw_json TEXT,
+    search_string1 TSVECTOR GENERATED ALWAYS AS (to_tsvector('english', name)) STORED,
+    search_string2 TSVECTOR GENERATED ALWAYS AS (to_tsvector('english', name) || to_tsvector('english', description)) STORED,
+    search_string3 TEXT GENERATED ALWAYS AS (lower(name || ' ' || description)) STORED,
+    CONSTRAINT fk_chapter_glossary_chapter
+        FOREIGN KEY(chapter_id)
+        REFERENCES chapter_info(id)
+        ON DELETE CASCADE
+);
+
+CREATE INDEX idx_chapter_glossary_book_number ON chapter_glossary(book_id, number);
+CREATE INDEX idx_chapter_glossary_chapter_id ON chapter_glossary(chapter_id);
+CREATE INDEX idx_chapter_glossary_name_lower ON chapter_glossary(book_id, lower(name));
+
+CREATE INDEX idx_chapter_glossary_search_string1 ON chapter_glossary USING GIN (search_string1);
+CREATE INDEX idx_chapter_glossary_search_string2 ON chapter_glossary USING GIN (search_string2);
+
+-- The contains pass filters on lower(name) LIKE '%...%', the trigram pass compares name with %
+CREATE INDEX idx_chapter_glossary_name_lower_trgm ON chapter_glossary USING GIN (lower(name) gin_trgm_ops);
+CREATE INDEX idx_chapter_glossary_name_trgm ON chapter_glossary USING GIN (name gin_trgm_ops);
+CREATE INDEX idx_chapter_glossary_search_string3_trgm ON chapter_glossary USING GIN (search_string3 gin_trgm_ops);
+
+-- Glossary entries of the given chapters, same ids and values as the former view
+CREATE OR REPLACE FUNCTION chapter_glossary_entries(p_chapter_ids VARCHAR(36)[])
+RETURNS TABLE(
+    id TEXT,
+    chapter_id VARCHAR(36),
+    source_key TEXT,
+    number INTEGER,
+    title TEXT,
+    book_id VARCHAR(36),
+    name TEXT,
+    category TEXT,
+    description TEXT,
+    translated BOOLEAN,
+    translated_name TEXT,
+    raw_json TEXT
+) AS $$
+    SELECT
+        MD5(ci.id || '-' || coalesce(elems.c1 ->> 'name', '') || '-' || coalesce(elems.c1 ->> 'category', '') || '-' || order_num)::text,
+        ci.id,
+        ci.source_key,
+        ci.number,
+        ci.title,
+        ci.book_id,
+        elems.c1 ->> 'name',
+        elems.c1 ->> 'category',
+        elems.c1 ->> 'description',
+        elems.c1 ->> 'ruName' IS NOT NULL,
+        elems.c1 ->> 'ruName',
+        elems.c1 #>> '{}'
+    FROM chapter_info ci,
+         json_array_elements(ci.names) WITH ORDINALITY AS elems (c1, order_num)
+    WHERE ci.id = ANY(p_chapter_ids);
+$$ LANGUAGE sql STABLE;
+
+-- Diffs the stored glossary of one chapter against its names, only changed entries are written
+CREATE OR REPLACE FUNCTION sync_chapter_glossary(p_chapter_id VARCHAR(36))
+RETURNS INTEGER AS $$
+DECLARE
+    changed INTEGER := 0;
+    removed INTEGER := 0;
+BEGIN
+    DELETE FROM chapter_glossary cg
+    WHERE cg.chapter_id = p_chapter_id
+      AND NOT EXISTS (SELECT 1 FROM chapter_glossary_entries(ARRAY[p_chapter_id]) e WHERE e.id = cg.id);
+    GET DIAGNOSTICS removed = ROW_COUNT;
+
+    INSERT INTO chapter_glossary (id, chapter_id, source_key, number, title, book_id, name, category, description,
+                                  translated, translated_name, raw_json)
+    SELECT * FROM chapter_glossary_entries(ARRAY[p_chapter_id])
+    ON CONFLICT (id) DO UPDATE SET
+        source_key = EXCLUDED.source_key,
+        number = EXCLUDED.number,
+        title = EXCLUDED.title,
+        book_id = EXCLUDED.book_id,
+        description = EXCLUDED.description,
+        translated = EXCLUDED.translated,
+        translated_name = EXCLUDED.translated_name,
+        raw_json = EXCLUDED.raw_json
+    WHERE chapter_glossary.raw_json IS DISTINCT FROM EXCLUDED.raw_json
+       OR chapter_glossary.number IS DISTINCT FROM EXCLUDED.number
+       OR chapter_glossary.title IS DISTINCT FROM EXCLUDED.title
+       OR chapter_glossary.source_key IS DISTINCT FROM EXCLUDED.source_key
+       OR chapter_glossary.book_id IS DISTINCT FROM EXCLUDED.book_id;
+    GET DIAGNOSTICS changed = ROW_COUNT;
+
+    RETURN changed + removed;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION sync_chapter_glossary_fn()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM sync_chapter_glossary(NEW.id);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER sync_chapter_glossary_insert_tr
+    AFTER INSERT ON chapter_info
+    FOR EACH ROW
+    EXECUTE FUNCTION sync_chapter_glossary_fn();
+
+-- json has no equality operator, names are compared as text
+CREATE TRIGGER sync_chapter_glossary_update_tr
+    AFTER UPDATE OF names, number, title, source_key, book_id ON chapter_info
+    FOR EACH ROW
+    WHEN (OLD.names::text IS DISTINCT FROM NEW.names::text
+       OR OLD.number IS DISTINCT FROM NEW.number
+       OR OLD.title IS DISTINCT FROM NEW.title
+       OR OLD.source_key IS DISTINCT FROM NEW.source_key
+       OR OLD.book_id IS DISTINCT FROM NEW.book_id)
+    EXECUTE FUNCTION sync_chapter_glossary_fn();
+
+-- Initial fill
+INSERT INTO chapter_glossary (id, chapter_id, source_key, number, title, book_id, name, category, description,
+                              translated, translated_name, raw_json)
+SELECT * FROM chapter_glossary_entries(ARRAY(SELECT id FROM chapter_info))
+ON CONFLICT (id) DO NOTHING;
+
+ANALYZE chapter_glossary;
+
+-- Same view as in V2_4, now on top of the table
+CREATE OR REPLACE VIEW chapter_context_glossary AS
+SELECT
+    cg.id,
+    cg.chapter_id,
+    cg.source_key,
+    cg.number,
+    cg.title,
+    cg.book_id,
+    cg.name,
+    cg.category,
+    cg.description,
+    cg.translated,
+    cg.translated_name,
+    cg.raw_json,
+    cg.search_string1,
+    cg.search_string2,
+    cg.search_string3,
+    nc.description AS context_description,
+    nc.translated_name AS context_translated_name,
+    nc.embedding,
+    nc.created_at AS context_created_at,
+    nc.updated_at AS context_updated_at
+FROM
+    chapter_glossary cg
+LEFT JOIN
+    names_context nc ON cg.chapter_id = nc.chapter_id AND cg.name = nc.name;
@@ -0,0 +1,12 @@
+/* Compressed patches and periodic full-text keyframes of chapter_info_history */
+
+-- New rows keep the gzipped patch in packed_patch, old rows keep their json patch
+ALTER TABLE chapter_info_history ALTER COLUMN patch DROP NOT NULL;
+ALTER TABLE chapter_info_history ADD COLUMN packed_patch BYTEA;
+
+-- Gzipped content of the field after the patch of the row was applied
+ALTER TABLE chapter_info_history ADD COLUMN keyframe BYTEA;
+
+CREATE INDEX idx_chapter_info_history_number ON chapter_info_history(chapter_info_id, field_name, number);
+CREATE INDEX idx_chapter_info_history_keyframe ON chapter_info_history(chapter_info_id, field_name, number)
+    WHERE keyframe IS NOT NULL;
@@ -0,0 +1,130 @@
+/* Per chapter readiness flags, kept in sync with chapter_info by triggers */
+
+-- txid is the transaction of the last change, readers fetch rows changed since the xmin of their previous snapshot
+-- A chapter moved to another book keeps a tombstone row under the former one
+CREATE TABLE chapter_readiness (
+    chapter_id VARCHAR(36) NOT NULL,
+    book_id VARCHAR(36) NOT NULL,
+    number INTEGER,
+    has_title BOOLEAN NOT NULL DEFAULT FALSE,
+    has_translated_title BOOLEAN NOT NULL DEFAULT FALSE,
+    has_text BOOLEAN NOT NULL DEFAULT FALSE,
+    has_translated_text BOOLEAN NOT NULL DEFAULT FALSE,
+    has_summary BOOLEAN NOT NULL DEFAULT FALSE,
+    name_count INTEGER,
+    translated_name_count INTEGER NOT NULL DEFAULT 0,
+    warning_count INTEGER,
+    warnings TEXT,
+    character_count INTEGER,
+    deleted BOOLEAN NOT NULL DEFAULT FALSE,
+    txid XID8 NOT NULL DEFAULT pg_current_xact_id(),
+
+    PRIMARY KEY (chapter_id, book_id),
+    CONSTRAINT fk_chapter_readiness_book
+        FOREIGN KEY (book_id)
+        REFERENCES books(id)
+        ON DELETE CASCADE
+);
+
+CREATE INDEX idx_chapter_readiness_book_txid ON chapter_readiness(book_id, txid);
+
+CREATE OR REPLACE FUNCTION sync_chapter_readiness(p_chapter_id VARCHAR(36))
+RETURNS VOID AS $$
+BEGIN
+    INSERT INTO chapter_readiness (chapter_id, book_id, number, has_title, has_translated_title, has_text,
+                                   has_translated_text, has_summary, name_count, translated_name_count,
+                                   warning_count, warnings, character_count, deleted, txid)
+    SELECT
+        ci0.id,
+        ci0.book_id,
+        ci0.number,
+        coalesce(btrim(ci0.title), '') <> '',
+        coalesce(btrim(ci0.translated_title), '') <> '',
+        coalesce(btrim(ci0.text), '') <> '',
+        coalesce(btrim(ci0.translated_text), '') <> '',
+        coalesce(btrim(ci0.summary), '') <> '',
+        CASE WHEN json_typeof(ci0.names) = 'array' THEN json_array_length(ci0.names) END,
+        CASE WHEN json_typeof(ci0.names) = 'array' THEN (
+            SELECT COUNT(*)
+            FROM json_array_elements(ci0.names) AS elem
+            WHERE elem->>'ruName' IS NOT NULL AND elem->>'ruName' != ''
+        ) ELSE 0 END,
+        CASE WHEN jsonb_typeof(ci0.warnings) = 'array' THEN jsonb_array_length(ci0.warnings) END,
+        ci0.warnings #>> '{}',
+        -- Same sampling as the text fingerprint report
+        CASE
+            WHEN LENGTH(ci0.text) > 50000 THEN (
+                LENGTH(SUBSTRING(ci0.text, 1, 10000)) +
+                LENGTH(SUBSTRING(ci0.text, GREATEST(1, LENGTH(ci0.text)/2 - 5000), 10000)) +
+                LENGTH(SUBSTRING(ci0.text, GREATEST(1, LENGTH(ci0.text) - 10000), 10000))
+            ) / 3
+            ELSE LENGTH(ci0.text)
+        END,
+        FALSE,
+        pg_current_xact_id()
+    FROM chapter_info ci0
+    WHERE ci0.id = p_chapter_id
+      AND ci0.book_id IS NOT NULL
+    ON CONFLICT (chapter_id, book_id) DO UPDATE SET
+        number = EXCLUDED.number,
+        has_title = EXCLUDED.has_title,
+        has_translated_title = EXCLUDED.has_translated_title,
+        has_text = EXCLUDED.has_text,
+        has_translated_text = EXCLUDED.has_translated_text,
+        has_summary = EXCLUDED.has_summary,
+        name_count = EXCLUDED.name_count,
+        translated_name_count = EXCLUDED.translated_name_count,
+        warning_count = EXCLUDED.warning_count,
+        warnings = EXCLUDED.warnings,
+        character_count = EXCLUDED.character_count,
+        deleted = FALSE,
+        txid = EXCLUDED.txid;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION sync_chapter_readiness_fn()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND OLD.book_id IS DISTINCT FROM NEW.book_id) THEN
+        -- Kept as a tombstone for readers of changes of the former book, removed with the book
+        UPDATE chapter_readiness
+        SET deleted = TRUE, txid = pg_current_xact_id()
+        WHERE chapter_id = OLD.id AND book_id = OLD.book_id AND NOT deleted;
+    END IF;
+
+    IF TG_OP <> 'DELETE' THEN
+        PERFORM sync_chapter_readiness(NEW.id);
+    END IF;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER sync_chapter_readiness_insert_tr
+    AFTER INSERT ON chapter_info
+    FOR EACH ROW
+    EXECUTE FUNCTION sync_chapter_readiness_fn();
+
+CREATE TRIGGER sync_chapter_readiness_update_tr
+    AFTER UPDATE OF title, translated_title, text, translated_text, summary, names, warnings, number, book_id ON chapter_info
+    FOR EACH ROW
+    WHEN (OLD.title IS DISTINCT FROM NEW.title
+       OR OLD.translated_title IS DISTINCT FROM NEW.translated_title
+       OR OLD.text IS DISTINCT FROM NEW.text
+       OR OLD.translated_text IS DISTINCT FROM NEW.translated_text
+       OR OLD.summary IS DISTINCT FROM NEW.summary
+       OR OLD.names::text IS DISTINCT FROM NEW.names::text
+       OR OLD.warnings IS DISTINCT FROM NEW.warnings
+       OR OLD.number IS DISTINCT FROM NEW.number
+       OR OLD.book_id IS DISTINCT FROM NEW.book_id)
+    EXECUTE FUNCTION sync_chapter_readiness_fn();
+
+CREATE TRIGGER sync_chapter_readiness_delete_tr
+    AFTER DELETE ON chapter_info
+    FOR EACH ROW
+    EXECUTE FUNCTION sync_chapter_readiness_fn();
+
+-- Initial fill
+SELECT sync_chapter_readiness(id) FROM chapter_info;
+
+ANALYZE chapter_readiness;
@@ -0,0 +1,80 @@
+package machinum.converter;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import machinum.model.Chapter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class JsonlConverterTest {
+
+    private final JsonlConverter converter = new JsonlConverter(new TypeReference<>() {
+    }, new ObjectMapper()
+            .findAndRegisterModules()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false));
+
+    @Test
+    void testReadBatches() {
+        var jsonl = """
+                {"title":"One","text":"First"}
+                {"title":"Two","text":"Second"}
+
+                {"text":"Three\\nThird"}
+                {"title":"Four","text":"Fourth"}
+                {"title":"Five","text":"Fifth"}""";
+        var inputStream = new ByteArrayInputStream(jsonl.getBytes(StandardCharsets.UTF_8));
+
+        var batches = new ArrayList<List<Chapter>>();
+        converter.readBatches(inputStream, 2).forEachRemaining(batches::add);
+
+        assertThat(batches)
+                .hasSize(3)
+                .extracting(List::size)
+                .containsExactly(2, 2, 1);
+        assertThat(batches.get(0))
+                .extracting(Chapter::getTitle)
+                .containsExactly("One", "Two");
+        // The title of a chapter without one is taken from the first line of its text
+        assertThat(batches.get(1))
+                .extracting(Chapter::getTitle, Chapter::getText)
+                .containsExactly(tuple("Three", "\nThird"), tuple("Four", "Fourth"));
+        assertThat(batches.get(2))
+                .extracting(Chapter::getTitle)
+                .containsExactly("Five");
+    }
+
+    @Test
+    void testWriterRoundTrip() throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+        try (var writer = converter.writer(outputStream)) {
+            writer.writeAll(List.of(chapter("One"), chapter("Two")));
+            writer.write(chapter("Three"));
+        }
+        var jsonl = outputStream.toString(StandardCharsets.UTF_8);
+
+        assertThat(jsonl.lines())
+                .hasSize(3);
+        assertThat(converter.convert(jsonl))
+                .extracting(Chapter::getTitle)
+                .containsExactly("One", "Two", "Three");
+    }
+
+    /* ============= */
+
+    private static Chapter chapter(String title) {
+        return Chapter.builder()
+                .title(title)
+                .text("Text of " + title)
+                .build();
+    }
+
+}
@@ -0,0 +1,106 @@
+package machinum.flow;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import machinum.flow.core.ErrorStrategy;
+import machinum.flow.model.Flow;
+import machinum.flow.model.Flow.State;
+import machinum.flow.model.FlowContext;
+import machinum.flow.model.helper.FlowContextActions;
+import machinum.flow.runner.OneStepRunner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MicrometerFlowMetricsTest {
+
+    private final Function<FlowContext<String>, FlowContext<String>> failOnSecondItem = ctx -> {
+        if ("item2".equals(ctx.getCurrentItem())) {
+            throw new IllegalStateException("Broken item");
+        }
+
+        return ctx;
+    };
+
+    private MeterRegistry registry;
+    private Flow<String> flow;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        flow = Flow.from(List.of("item1", "item2"))
+                .withMetrics(new MicrometerFlowMetrics(registry))
+                .onState(TestState.STEP1)
+                .pipe(ctx -> ctx.addArgs(FlowContextActions.text("first")))
+                .onState(TestState.STEP2)
+                .pipe(ctx -> ctx.addArgs(FlowContextActions.text("second")))
+                .pipe(failOnSecondItem)
+                .build()
+                .sink(ctx -> {
+                });
+    }
+
+    @Test
+    void testStateMetrics_success() {
+        new OneStepRunner<>(flow).run(TestState.STEP1);
+
+        assertThat(registry.get("flow.state").tags("state", "STEP1", "outcome", "completed").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("flow.item").tags("state", "STEP1", "outcome", "completed").timer().count())
+                .isEqualTo(2);
+        assertThat(registry.get("flow.pipe").tags("state", "STEP1", "pipe", "0", "outcome", "executed").timer().count())
+                .isEqualTo(2);
+        assertThat(registry.get("flow.items.active").tag("state", "STEP1").gauge().value())
+                .isZero();
+        assertThat(registry.find("flow.errors").counters())
+                .isEmpty();
+    }
+
+    @Test
+    void testErrorMetrics_ignored() {
+        new OneStepRunner<>(flow.withErrorStrategy(new ErrorStrategy.IgnoreErrors<>()))
+                .run(TestState.STEP2);
+
+        assertThat(registry.get("flow.state").tags("state", "STEP2", "outcome", "completed").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("flow.item").tags("state", "STEP2", "outcome", "completed").timer().count())
+                .isEqualTo(2);
+        assertThat(registry.get("flow.pipe").tags("state", "STEP2", "pipe", "0", "outcome", "executed").timer().count())
+                .isEqualTo(2);
+        assertThat(registry.get("flow.pipe").tags("state", "STEP2", "pipe", "1", "outcome", "executed").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("flow.pipe").tags("state", "STEP2", "pipe", "1", "outcome", "failed").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("flow.errors").tags("state", "STEP2", "exception", "IllegalStateException", "stopped", "false")
+                .counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testErrorMetrics_stopped() {
+        var runner = new OneStepRunner<>(flow.withErrorStrategy(new ErrorStrategy.FailFast<>()));
+
+        assertThatThrownBy(() -> runner.run(TestState.STEP2))
+                .isInstanceOf(RuntimeException.class);
+
+        assertThat(registry.get("flow.state").tags("state", "STEP2", "outcome", "failed").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("flow.errors").tags("state", "STEP2", "stopped", "true").counter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("flow.items.active").tag("state", "STEP2").gauge().value())
+                .isZero();
+    }
+
+    enum TestState implements State {
+
+        STEP1,
+        STEP2,
+
+    }
+
+}
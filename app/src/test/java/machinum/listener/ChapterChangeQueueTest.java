@@ -0,0 +1,151 @@
+package machinum.listener;
+
+import machinum.entity.ChapterEntity;
+import machinum.listener.ChapterChangeQueue.Change;
+import machinum.model.ChapterHistory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static machinum.listener.ChapterEntityListener.ChapterInfoConstants.CLEAN_TEXT;
+import static machinum.listener.ChapterEntityListener.ChapterInfoConstants.TRANSLATED_TEXT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChapterChangeQueueTest {
+
+    private final List<ChapterHistory> written = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> resets = Collections.synchronizedList(new ArrayList<>());
+    private ChapterChangeQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        queue.close();
+    }
+
+    @Test
+    @DisplayName("Should write the changes of a chapter in order and skip unchanged fields")
+    void shouldWriteChangesInOrder() {
+        queue = new ChapterChangeQueue(4, 64, 10, chapter -> "id-" + chapter.getSourceKey(), this::write);
+
+        var futures = new ArrayList<CompletableFuture<Void>>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(queue.submit(Change.of(chapter("1"), CLEAN_TEXT, "line " + i, "line " + (i + 1))));
+        }
+        futures.add(queue.submit(Change.of(chapter("1"), TRANSLATED_TEXT, "same", "same")));
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        var expected = IntStream.rangeClosed(1, 20)
+                .mapToObj(i -> "line " + i)
+                .toList();
+        assertThat(written)
+                .hasSize(20)
+                .allSatisfy(history -> assertThat(history.getChapterInfoId()).isEqualTo("id-1"))
+                .extracting(ChapterHistory::getContent)
+                .containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    @DisplayName("Should keep the order of a chapter known by id and by source key")
+    void shouldWriteChangesInOrderByChapterId() {
+        queue = new ChapterChangeQueue(4, 64, 1, chapter -> "id-" + chapter.getSourceKey(), this::write);
+
+        var futures = new ArrayList<CompletableFuture<Void>>();
+        for (int i = 0; i < 20; i++) {
+            var chapter = i % 2 == 0 ? chapter("1") : ChapterEntity.builder().id("id-1").build();
+            futures.add(queue.submit(Change.of(chapter, CLEAN_TEXT, "line " + i, "line " + (i + 1))));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        assertThat(written)
+                .extracting(ChapterHistory::getContent)
+                .containsExactlyElementsOf(IntStream.rangeClosed(1, 20)
+                        .mapToObj(i -> "line " + i)
+                        .toList());
+    }
+
+    @Test
+    @DisplayName("Should drop the queued rows of a chapter before its reset")
+    void shouldResetHistory() throws InterruptedException {
+        var blocked = new CountDownLatch(1);
+        queue = new ChapterChangeQueue(1, 16, 10, chapter -> "id-" + chapter.getSourceKey(), (resetChapterIds, histories) -> {
+            await(blocked);
+            write(resetChapterIds, histories);
+        });
+
+        // The first batch waits in the writer, so the rest is taken as one batch
+        var first = queue.submit(Change.of(chapter("1"), CLEAN_TEXT, null, "first"));
+        TimeUnit.MILLISECONDS.sleep(200);
+        queue.submit(Change.of(chapter("1"), CLEAN_TEXT, "first", "second"));
+        queue.submit(Change.of(chapter("2"), CLEAN_TEXT, null, "other"));
+        var reset = queue.submit(Change.reset(chapter("1"), TRANSLATED_TEXT, "imported"));
+        blocked.countDown();
+        CompletableFuture.allOf(first, reset).join();
+
+        assertThat(resets)
+                .containsExactly("id-1");
+        assertThat(written)
+                .extracting(ChapterHistory::getContent)
+                .containsExactly("first", "other", "imported");
+    }
+
+    @Test
+    @DisplayName("Should block producers while the queue is full")
+    void shouldApplyBackpressure() throws InterruptedException {
+        var blocked = new CountDownLatch(1);
+        queue = new ChapterChangeQueue(1, 2, 1, chapter -> "id-" + chapter.getSourceKey(), (resetChapterIds, histories) -> {
+            await(blocked);
+            write(resetChapterIds, histories);
+        });
+
+        var producer = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < 10; i++) {
+                queue.submit(Change.of(chapter("1"), CLEAN_TEXT, null, "text " + i));
+            }
+        });
+        TimeUnit.MILLISECONDS.sleep(300);
+
+        assertThat(producer.isAlive())
+                .isTrue();
+        assertThat(queue.size())
+                .isEqualTo(2);
+
+        blocked.countDown();
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+        queue.close();
+
+        assertThat(written)
+                .hasSize(10);
+    }
+
+    /* ============= */
+
+    private void write(Set<String> resetChapterIds, List<ChapterHistory> histories) {
+        resets.addAll(resetChapterIds);
+        written.addAll(histories);
+    }
+
+    private static ChapterEntity chapter(String sourceKey) {
+        return ChapterEntity.builder()
+                .sourceKey(sourceKey)
+                .bookId("book")
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
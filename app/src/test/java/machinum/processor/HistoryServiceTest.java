@@ -0,0 +1,98 @@
+package machinum.processor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryServiceTest {
+
+    private static final Path CORPUS = Path.of("src/test/resources");
+    private static final Pattern SENTENCE_PATTERN = Pattern.compile("(?<=[.!?])\\s+");
+    private static final Pattern DUPLICATE_PATTERN = Pattern.compile("\\b(\\w+(?:\\s+\\w+){0,3})\\b(?=.*\\b\\1\\b)", Pattern.CASE_INSENSITIVE);
+    private static final int TEXT_SIZE = 200 * 1024;
+    private static final int ITERATIONS = 5;
+
+    private final HistoryService historyService = new HistoryService();
+
+    @Test
+    @DisplayName("Should compress chapters like the phrase pattern")
+    void shouldCompressLikePhrasePattern() throws IOException {
+        var chapters = corpus();
+
+        assertThat(chapters).isNotEmpty();
+        for (var chapter : chapters) {
+            var text = Files.readString(chapter);
+
+            assertThat(historyService.removeDuplicatesAndRedundancy(text))
+                    .as(chapter.toString())
+                    .isEqualTo(legacyRemoveDuplicates(text));
+        }
+    }
+
+    @Test
+    @DisplayName("Should remove duplicate sentences")
+    void shouldRemoveDuplicateSentences() {
+        var text = "He drew the sword. The sword was cold. He drew the sword. The sword was cold!";
+
+        assertThat(historyService.removeDuplicatesAndRedundancy(text))
+                .isEqualTo("He drew the sword. The sword was cold. The sword was cold!");
+    }
+
+    @Test
+    @DisplayName("Should compress 200 KB of text well under 100 ms")
+    void shouldCompressLargeTextQuickly() throws IOException {
+        var builder = new StringBuilder(TEXT_SIZE + 16 * 1024);
+        var chapters = corpus();
+        for (int i = 0; builder.length() < TEXT_SIZE; i++) {
+            // Number the copies, so the sentences of each copy stay unique
+            builder.append("Part ").append(i).append(". ")
+                    .append(Files.readString(chapters.get(i % chapters.size())).replace(".", " " + i + "."))
+                    .append('\n');
+        }
+        var text = builder.toString();
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            var result = historyService.removeDuplicatesAndRedundancy(text);
+            best = Math.min(best, System.nanoTime() - start);
+            assertThat(result).isNotBlank();
+        }
+
+        assertThat(best / 1_000_000).isLessThan(100);
+    }
+
+    /* ============= */
+
+    private static List<Path> corpus() throws IOException {
+        try (Stream<Path> files = Files.walk(CORPUS)) {
+            return files.filter(path -> path.getParent().getFileName().toString().startsWith("chapter"))
+                    .filter(path -> path.toString().endsWith(".md"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    // The former HistoryService#removeDuplicatesAndRedundancy, without the extra period it put after every sentence
+    private static String legacyRemoveDuplicates(String text) {
+        var sentences = SENTENCE_PATTERN.split(text);
+        var uniqueSentences = Arrays.stream(sentences)
+                .distinct()
+                .collect(Collectors.toList());
+
+        var result = String.join(" ", uniqueSentences);
+
+        return DUPLICATE_PATTERN.matcher(result).replaceAll("$1");
+    }
+
+}
@@ -0,0 +1,120 @@
+package machinum.processor.client;
+
+import machinum.exception.AppIllegalStateException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeyDispatcherTest {
+
+    private static final int REQUESTS = 20;
+    private static final Duration INTERVAL = Duration.ofSeconds(1);
+    private static final Duration STEP = Duration.ofMillis(5);
+
+    @Test
+    @DisplayName("Should reach the summed quota of all keys without rate limit errors")
+    void shouldReachSummedQuota() {
+        var clock = new AtomicLong();
+        var keys = IntStream.range(0, 3)
+                .mapToObj(i -> new KeyRateLimiter("key-" + i, REQUESTS, INTERVAL, 1, 4, clock::get))
+                .toList();
+        var server = new SlidingWindowServer(clock);
+        var rejected = new AtomicInteger();
+        var total = REQUESTS * keys.size();
+
+        try (var dispatcher = new KeyDispatcher<>("test", keys, limiter -> limiter, limiter -> true, clock::get)) {
+            var futures = IntStream.range(0, total)
+                    .mapToObj(i -> dispatcher.acquire())
+                    .toList();
+            var handled = new HashSet<CompletableFuture<KeyRateLimiter>>();
+            var lastGrantedAt = 0L;
+
+            while (handled.size() < total && clock.get() < INTERVAL.toNanos() * 10) {
+                for (var future : futures) {
+                    if (future.isDone() && handled.add(future)) {
+                        var key = future.join();
+                        if (!server.accept(key)) {
+                            rejected.incrementAndGet();
+                        }
+                        key.onSuccess();
+                        lastGrantedAt = clock.get();
+                    }
+                }
+                clock.addAndGet(STEP.toNanos());
+                dispatcher.dispatch();
+            }
+
+            assertThat(handled)
+                    .hasSize(total);
+            assertThat(rejected.get())
+                    .isZero();
+            // 3 keys x 20 rps: the first request of every key is free, the other 19 are 50 ms apart
+            assertThat(Duration.ofNanos(lastGrantedAt))
+                    .isBetween(Duration.ofMillis(950), Duration.ofMillis(950).plus(STEP));
+            for (var key : keys) {
+                assertThat(futures)
+                        .filteredOn(future -> future.join() == key)
+                        .hasSize(REQUESTS);
+            }
+            assertThat(dispatcher.waiting())
+                    .isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail waiting callers when every key is disabled")
+    void shouldFailWithoutKeys() {
+        var limiter = KeyRateLimiter.of("key", 1, Duration.ofMinutes(1), 1);
+        var enabled = new AtomicInteger(1);
+
+        try (var dispatcher = new KeyDispatcher<>("test", List.of(limiter), key -> key, key -> enabled.get() > 0)) {
+            var first = dispatcher.acquire().join();
+            var second = dispatcher.acquire();
+
+            assertThat(second).isNotDone();
+
+            enabled.set(0);
+            first.onFailure();
+            dispatcher.dispatch();
+
+            assertThatThrownBy(second::join)
+                    .isInstanceOf(CompletionException.class)
+                    .hasCauseInstanceOf(AppIllegalStateException.class);
+        }
+    }
+
+    static class SlidingWindowServer {
+
+        private final Map<KeyRateLimiter, Deque<Long>> calls = new HashMap<>();
+        private final AtomicLong clock;
+
+        SlidingWindowServer(AtomicLong clock) {
+            this.clock = clock;
+        }
+
+        boolean accept(KeyRateLimiter key) {
+            var now = clock.get();
+            var deque = calls.computeIfAbsent(key, k -> new ArrayDeque<>());
+            while (!deque.isEmpty() && deque.peekFirst() <= now - INTERVAL.toNanos()) {
+                deque.pollFirst();
+            }
+            if (deque.size() >= REQUESTS) {
+                return false;
+            }
+            deque.addLast(now);
+            return true;
+        }
+
+    }
+
+}
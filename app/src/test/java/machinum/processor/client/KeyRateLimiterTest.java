@@ -0,0 +1,101 @@
+package machinum.processor.client;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000);
+
+    @Test
+    @DisplayName("Should pace requests by the quota of the key")
+    void shouldRefillBucket() {
+        var limiter = new KeyRateLimiter("key", 10, Duration.ofSeconds(1), 2, 100, clock::get);
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.onSuccess();
+        }
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.availableAt())
+                .isEqualTo(clock.get() + Duration.ofMillis(100).toNanos());
+
+        advance(Duration.ofMillis(100));
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.onSuccess();
+        assertThat(limiter.tryAcquire()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should grow the concurrency window additively and halve it on rate limit")
+    void shouldAdjustConcurrency() {
+        var limiter = new KeyRateLimiter("key", 1_000, Duration.ofSeconds(1), 1_000, 8, clock::get);
+
+        for (int i = 0; i < 30; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.onSuccess();
+        }
+        assertThat(limiter.getConcurrencyLimit())
+                .isEqualTo(7);
+
+        for (int i = 0; i < 7; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.availableAt())
+                .isEqualTo(Long.MAX_VALUE);
+
+        limiter.onRateLimited(Duration.ofSeconds(30));
+
+        assertThat(limiter.getConcurrencyLimit())
+                .isEqualTo(3);
+        assertThat(limiter.isPaused())
+                .isTrue();
+        assertThat(limiter.availableAt())
+                .isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    @DisplayName("Should pause the key for the retry delay")
+    void shouldPauseOnRateLimit() {
+        var limiter = new KeyRateLimiter("key", 60, Duration.ofMinutes(1), 1, 4, clock::get);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.onPaymentRequired(Duration.ofSeconds(10));
+
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.pausedFor())
+                .isEqualTo(Duration.ofSeconds(10));
+
+        advance(Duration.ofSeconds(10));
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.getConcurrencyLimit())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should only lower the rate when the key quota is shared")
+    void shouldLimitRate() {
+        var limiter = new KeyRateLimiter("key", 20, Duration.ofMinutes(1), 1, 4, clock::get);
+        limiter.limitRate(60, Duration.ofMinutes(1));
+        limiter.limitRate(10, Duration.ofMinutes(1));
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.onSuccess();
+
+        assertThat(limiter.availableAt())
+                .isEqualTo(clock.get() + Duration.ofSeconds(6).toNanos());
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+
+}
@@ -0,0 +1,161 @@
+package machinum.processor.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static machinum.util.TextUtil.countTokens;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PromptTemplateRegistryTest {
+
+    private static final Pattern VAR_PATTERN = Pattern.compile("\\{(\\w+)}");
+
+    private PromptTemplateRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new PromptTemplateRegistry(false, new DefaultResourceLoader());
+        registry.init();
+    }
+
+    @Test
+    @DisplayName("Should render every prompt like the template read from the resource")
+    void shouldRenderLikeResourceTemplate() throws IOException {
+        var resources = new PathMatchingResourcePatternResolver()
+                .getResources(PromptTemplateRegistry.PROMPTS_LOCATION);
+
+        assertThat(resources).isNotEmpty();
+        assertThat(registry.size()).isEqualTo(resources.length);
+
+        for (var resource : resources) {
+            var inputs = new HashMap<String, String>();
+            VAR_PATTERN.matcher(resource.getContentAsString(StandardCharsets.UTF_8))
+                    .results()
+                    .forEach(result -> inputs.put(result.group(1), "value of " + result.group(1)));
+
+            assertThat(render(() -> registry.create(resource, inputs)))
+                    .as(resource.getFilename())
+                    .isEqualTo(render(() -> fillVars(new PromptTemplate(resource), inputs)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should read a resource only once and cache its variables")
+    void shouldReadResourceOnce() {
+        var resource = new CountingResource("You are an editor.\n{glossary}\nFix the text:\n{text}\n{glossary}");
+
+        for (int i = 0; i < 3; i++) {
+            var message = registry.create(resource, Map.of("text", "Some text", "glossary", "none"))
+                    .createMessage();
+            assertThat(message.getText()).isEqualTo("You are an editor.\nnone\nFix the text:\nSome text\nnone");
+        }
+
+        var template = registry.get(resource);
+
+        assertThat(resource.reads).hasValue(1);
+        assertThat(template.variables()).containsExactly("glossary", "text");
+    }
+
+    @Test
+    @DisplayName("Should count the tokens of a rendered prompt like the whole text")
+    void shouldCountTokensWithStaticPrefix() throws IOException {
+        var template = registry.get(new CountingResource("You are an editor.\nFix the text:\n{text}\n{glossary}"));
+
+        assertThat(template.staticPrefix()).isEqualTo("You are an editor.\n");
+        assertThat(template.staticPrefixTokens()).isEqualTo(countTokens("You are an editor.\n"));
+
+        var resources = new PathMatchingResourcePatternResolver()
+                .getResources(PromptTemplateRegistry.PROMPTS_LOCATION);
+
+        for (var resource : resources) {
+            var inputs = new HashMap<String, String>();
+            VAR_PATTERN.matcher(resource.getContentAsString(StandardCharsets.UTF_8))
+                    .results()
+                    .forEach(result -> inputs.put(result.group(1), "  value of " + result.group(1) + "\n"));
+            var text = render(() -> registry.create(resource, inputs));
+
+            assertThat(registry.get(resource).countTokens(text))
+                    .as(resource.getFilename())
+                    .isEqualTo(countTokens(text));
+        }
+    }
+
+    @Test
+    @DisplayName("Should compile a template again after its file has changed when reload is enabled")
+    void shouldReloadChangedTemplate() {
+        var reloading = new PromptTemplateRegistry(true, new DefaultResourceLoader());
+        var resource = new CountingResource("Hello {name}");
+        var lastModified = new AtomicInteger(1);
+        var changing = new CountingResource("Hello {name}") {
+            @Override
+            public long lastModified() {
+                return lastModified.get();
+            }
+        };
+
+        reloading.get(resource);
+        reloading.get(resource);
+        reloading.get(changing);
+        lastModified.incrementAndGet();
+        reloading.get(changing);
+        reloading.get(changing);
+
+        assertThat(resource.reads).hasValue(1);
+        assertThat(changing.reads).hasValue(2);
+    }
+
+    /* ============= */
+
+    // The former Assistant#fillVars, which read the resource once more to find the variables
+    private static PromptTemplate fillVars(PromptTemplate promptTemplate, Map<String, String> inputs) {
+        inputs.forEach(promptTemplate::add);
+        return promptTemplate;
+    }
+
+    private static String render(ThrowingSupplier supplier) {
+        try {
+            return supplier.get().createMessage().getText();
+        } catch (Exception e) {
+            return e.getClass().getName();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThrowingSupplier {
+
+        PromptTemplate get() throws Exception;
+
+    }
+
+    private static class CountingResource extends ByteArrayResource {
+
+        private static final AtomicInteger COUNTER = new AtomicInteger();
+
+        final AtomicInteger reads = new AtomicInteger();
+
+        CountingResource(String content) {
+            super(content.getBytes(StandardCharsets.UTF_8), "template " + COUNTER.incrementAndGet());
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            reads.incrementAndGet();
+            return super.getInputStream();
+        }
+
+    }
+
+}
@@ -0,0 +1,121 @@
+package machinum.processor.core;
+
+import machinum.util.TextUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenSplitterTest {
+
+    @Test
+    @DisplayName("Should keep a small text in one chunk")
+    void shouldNotSplitSmallText() {
+        var splitter = new SplitStrategy.TokenSplitter(100, 0);
+
+        assertThat(splitter.split("Just a short sentence. And another one."))
+                .containsExactly("Just a short sentence. And another one.");
+    }
+
+    @Test
+    @DisplayName("Should split on sentence breaks within the token budget")
+    void shouldSplitWithinBudget() {
+        var text = text(40);
+        var splitter = new SplitStrategy.TokenSplitter(200, 0);
+
+        var chunks = splitter.split(text);
+
+        assertThat(String.join("", chunks))
+                .isEqualTo(text);
+        assertThat(chunks)
+                .hasSizeGreaterThan(1)
+                .allSatisfy(chunk -> {
+                    assertThat(TextUtil.countTokens(chunk)).isLessThanOrEqualTo(200);
+                    assertThat(chunk.strip()).endsWith(".");
+                });
+
+        var sizes = chunks.stream()
+                .mapToInt(TextUtil::countTokens)
+                .summaryStatistics();
+        assertThat(sizes.getMin())
+                .isGreaterThan(sizes.getMax() / 2);
+    }
+
+    @Test
+    @DisplayName("Should use the budget passed by the caller and add overlap")
+    void shouldUseCallerBudgetAndOverlap() {
+        var text = text(40);
+        var splitter = new SplitStrategy.TokenSplitter(10_000, 30);
+
+        var chunks = splitter.splitByTokens(text, 300);
+
+        assertThat(chunks)
+                .hasSizeGreaterThan(1)
+                .allSatisfy(chunk -> assertThat(TextUtil.countTokens(chunk)).isLessThanOrEqualTo(330));
+        assertThat(chunks.stream().mapToInt(String::length).sum())
+                .isGreaterThan(text.length());
+        assertThat(text)
+                .startsWith(chunks.getFirst())
+                .endsWith(chunks.getLast());
+    }
+
+    @Test
+    @DisplayName("Should split a text without breaks on words")
+    void shouldSplitLongSentence() {
+        var text = "word ".repeat(2_000);
+        var splitter = new SplitStrategy.TokenSplitter(500, 0);
+
+        var chunks = splitter.split(text);
+
+        assertThat(String.join("", chunks))
+                .isEqualTo(text);
+        assertThat(chunks)
+                .allSatisfy(chunk -> assertThat(TextUtil.countTokens(chunk)).isLessThanOrEqualTo(500));
+    }
+
+    @Test
+    @DisplayName("Should cut a multibyte text at token offsets within the budget")
+    void shouldSplitMultibyteText() {
+        var text = "Он обнажил меч, и клинок сверкнул в лунном свете. Ветер поднялся над холмами! \n".repeat(100);
+        var splitter = new SplitStrategy.TokenSplitter(250, 0);
+
+        var chunks = splitter.split(text);
+
+        assertThat(String.join("", chunks))
+                .isEqualTo(text);
+        assertThat(chunks)
+                .hasSizeGreaterThan(1)
+                .allSatisfy(chunk -> assertThat(TextUtil.countTokens(chunk)).isLessThanOrEqualTo(250));
+    }
+
+    @Test
+    @DisplayName("Should not pass the token budget to strategies without one")
+    void shouldIgnoreBudgetInOtherStrategies() {
+        var text = text(40);
+        var splitter = new SplitStrategy.BalancedSentenceSplitter(1_000);
+
+        assertThat(splitter.splitByTokens(text, 640))
+                .isEqualTo(splitter.split(text));
+    }
+
+    private String text(int paragraphs) {
+        var random = new Random(42);
+        var builder = new StringBuilder();
+        for (int p = 0; p < paragraphs; p++) {
+            var sentences = 1 + random.nextInt(5);
+            for (int s = 0; s < sentences; s++) {
+                var words = 4 + random.nextInt(16);
+                for (int w = 0; w < words; w++) {
+                    builder.append(w == 0 ? "Word" : "word").append(random.nextInt(100));
+                    builder.append(w == words - 1 ? ". " : " ");
+                }
+            }
+            builder.append("\n\n");
+        }
+
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,154 @@
+package machinum.repository;
+
+import com.pgvector.PGvector;
+import machinum.TestApplication;
+import machinum.repository.ChapterChunkEmbeddingDao.Chunk;
+import machinum.repository.ChapterChunkEmbeddingDao.ChunkMatch;
+import machinum.service.DbTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.MOCK,
+        classes = TestApplication.class
+)
+@Transactional
+class ChapterChunkEmbeddingDaoTest extends DbTest {
+
+    private static final int DIMENSIONS = 384;
+
+    @Autowired
+    ChapterChunkEmbeddingDao chapterChunkEmbeddingDao;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should create a partial HNSW index for every field type")
+    void shouldCreatePartialIndexes() {
+        var indexes = jdbcTemplate.queryForList("""
+                SELECT indexdef FROM pg_indexes
+                WHERE tablename = 'chapter_chunk_embedding' AND indexdef LIKE '%USING hnsw%'
+                """, String.class);
+
+        assertThat(indexes).hasSize(ChapterChunkEmbeddingDao.FIELD_TYPES.size());
+        for (var fieldType : ChapterChunkEmbeddingDao.FIELD_TYPES) {
+            assertThat(indexes).anyMatch(index -> index.endsWith("WHERE ((field_type)::text = '%s'::text)".formatted(fieldType)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should find the nearest chunks of the field within the book")
+    void shouldFindNearestInBookAndField() {
+        var bookId = book();
+        var chapterId = chapter(bookId, 1);
+        chapterChunkEmbeddingDao.replaceChunks(chapterId, bookId, 1, List.of(
+                new Chunk("text", 0, "far", vector(0.9f, 1)),
+                new Chunk("text", 1, "near", vector(0.1f, 2)),
+                new Chunk("text", 2, "middle", vector(0.4f, 3)),
+                new Chunk("summary", 0, "summary", vector(0f, 4)),
+                new Chunk("text", 3, "opposite", opposite())));
+
+        var result = chapterChunkEmbeddingDao.findNearest(bookId, query(), "text", 0.5, 10);
+
+        assertThat(result)
+                .extracting(ChunkMatch::content)
+                .containsExactly("near", "middle", "far");
+        assertThat(result).allMatch(match -> match.chapterId().equals(chapterId) && match.fieldType().equals("text"));
+        assertThat(chapterChunkEmbeddingDao.findNearest(bookId, query(), "text", 0.5, 2))
+                .extracting(ChunkMatch::content)
+                .containsExactly("near", "middle");
+    }
+
+    @Test
+    @DisplayName("Should fill the limit from the book when other books have closer chunks")
+    void shouldNotStarveBookFilter() {
+        // Disallow plans other than the ordered HNSW index scan
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        jdbcTemplate.execute("SET LOCAL enable_sort = off");
+
+        for (int i = 0; i < 3; i++) {
+            var otherBookId = book();
+            var chapterId = chapter(otherBookId, 1);
+            var chunks = new ArrayList<Chunk>();
+            for (int j = 0; j < 150; j++) {
+                chunks.add(new Chunk("text", j, "other " + j, vector(0.01f, 1 + j)));
+            }
+            chapterChunkEmbeddingDao.replaceChunks(chapterId, otherBookId, 1, chunks);
+        }
+        var bookId = book();
+        var chapterId = chapter(bookId, 1);
+        var chunks = new ArrayList<Chunk>();
+        for (int j = 0; j < 20; j++) {
+            chunks.add(new Chunk("text", j, "own " + j, vector(0.2f + j * 0.01f, 1 + j)));
+        }
+        chapterChunkEmbeddingDao.replaceChunks(chapterId, bookId, 1, chunks);
+
+        var plan = String.join("\n", jdbcTemplate.queryForList("""
+                EXPLAIN SELECT chapter_id FROM chapter_chunk_embedding
+                WHERE field_type = 'text' AND book_id = ?
+                ORDER BY embedding <=> ?::vector LIMIT 10
+                """, String.class, bookId, new PGvector(query()).toString()));
+        assertThat(plan).contains("chapter_chunk_embedding_text_idx");
+
+        var result = chapterChunkEmbeddingDao.findNearest(bookId, query(), "text", 0.5, 10);
+
+        assertThat(result)
+                .extracting(ChunkMatch::content)
+                .containsExactly("own 0", "own 1", "own 2", "own 3", "own 4", "own 5", "own 6", "own 7", "own 8", "own 9");
+    }
+
+    @Test
+    @DisplayName("Should reject a field type without an index")
+    void shouldRejectUnknownFieldType() {
+        assertThatThrownBy(() -> chapterChunkEmbeddingDao.findNearest(book(), query(), "text' OR '1' = '1", 0.5, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /* ============= */
+
+    private String book() {
+        var id = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO books (id, title) VALUES (?, ?)", id, "book-" + id);
+        return id;
+    }
+
+    private String chapter(String bookId, int number) {
+        var id = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO chapter_info (id, number, title, source_key, book_id) VALUES (?, ?, ?, ?, ?)",
+                id, number, "Chapter " + number, "chapter-" + number, bookId);
+        return id;
+    }
+
+    private static float[] query() {
+        return vector(0f, 0);
+    }
+
+    // The query direction with a side step of the given size, the cosine distance grows with the step
+    private static float[] vector(float step, int side) {
+        var vector = new float[DIMENSIONS];
+        vector[0] = 1f;
+        if (side > 0) {
+            vector[1 + (side - 1) % (DIMENSIONS - 1)] = step;
+        }
+        return vector;
+    }
+
+    private static float[] opposite() {
+        var vector = new float[DIMENSIONS];
+        vector[0] = -1f;
+        return vector;
+    }
+
+}
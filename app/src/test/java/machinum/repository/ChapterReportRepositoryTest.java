@@ -0,0 +1,71 @@
+package machinum.repository;
+
+import machinum.TestApplication;
+import machinum.repository.ChapterReportRepository.ChapterReadinessProjection;
+import machinum.service.DbTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.MOCK,
+        classes = TestApplication.class
+)
+@Transactional
+class ChapterReportRepositoryTest extends DbTest {
+
+    @Autowired
+    ChapterReportRepository chapterReportRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should leave a tombstone in the former book of a moved chapter")
+    void shouldTrackChapterMovedToAnotherBook() {
+        var firstBookId = book();
+        var secondBookId = book();
+        var chapterId = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO chapter_info (id, number, title, source_key, book_id) VALUES (?, ?, ?, ?, ?)",
+                chapterId, 1, "Chapter 1", "chapter-1", firstBookId);
+        assertThat(chapterReportRepository.findReadinessChangedSince(firstBookId, 0))
+                .extracting(ChapterReadinessProjection::getChapterId, ChapterReadinessProjection::getDeleted)
+                .containsExactly(tuple(chapterId, false));
+
+        jdbcTemplate.update("UPDATE chapter_info SET book_id = ? WHERE id = ?", secondBookId, chapterId);
+
+        assertThat(chapterReportRepository.findReadinessChangedSince(firstBookId, 0))
+                .extracting(ChapterReadinessProjection::getChapterId, ChapterReadinessProjection::getDeleted)
+                .containsExactly(tuple(chapterId, true));
+        assertThat(chapterReportRepository.findReadinessChangedSince(secondBookId, 0))
+                .extracting(ChapterReadinessProjection::getChapterId, ChapterReadinessProjection::getDeleted)
+                .containsExactly(tuple(chapterId, false));
+
+        // Moved back, the row of the first book is live again
+        jdbcTemplate.update("UPDATE chapter_info SET book_id = ? WHERE id = ?", firstBookId, chapterId);
+
+        assertThat(chapterReportRepository.findReadinessChangedSince(firstBookId, 0))
+                .extracting(ChapterReadinessProjection::getChapterId, ChapterReadinessProjection::getDeleted)
+                .containsExactly(tuple(chapterId, false));
+        assertThat(chapterReportRepository.findReadinessChangedSince(secondBookId, 0))
+                .extracting(ChapterReadinessProjection::getChapterId, ChapterReadinessProjection::getDeleted)
+                .containsExactly(tuple(chapterId, true));
+    }
+
+    /* ============= */
+
+    private String book() {
+        var id = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO books (id, title) VALUES (?, ?)", id, "book-" + id);
+        return id;
+    }
+
+}
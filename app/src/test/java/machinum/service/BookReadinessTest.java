@@ -0,0 +1,85 @@
+package machinum.service;
+
+import machinum.service.BookReadiness.ChapterReadiness;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookReadinessTest {
+
+    private BookReadiness readiness;
+
+    @BeforeEach
+    void setUp() {
+        readiness = new BookReadiness("book");
+        readiness.apply(List.of(
+                chapter("c1", 1, true, 10),
+                chapter("c2", 2, false, 10),
+                chapter("c3", 3, false, 10)), 11);
+    }
+
+    @Test
+    @DisplayName("Should count empty fields of all chapters")
+    void shouldCountChapters() {
+        var summary = readiness.summary();
+
+        assertThat(summary.getVersion()).isEqualTo(11L);
+        assertThat(summary.getTotalChapters()).isEqualTo(3L);
+        assertThat(summary.getEmptyTranslatedTexts()).isEqualTo(2L);
+        assertThat(summary.getEmptyTexts()).isZero();
+        assertThat(readiness.chapters())
+                .extracting(ChapterReadiness::chapterId)
+                .containsExactly("c1", "c2", "c3");
+    }
+
+    @Test
+    @DisplayName("Should replace counters of a chapter applied again")
+    void shouldApplyChangedChapter() {
+        readiness.apply(List.of(chapter("c2", 2, true, 12)), 13);
+        readiness.apply(List.of(chapter("c2", 2, true, 12)), 13);
+
+        var summary = readiness.summary();
+        assertThat(summary.getTotalChapters()).isEqualTo(3L);
+        assertThat(summary.getEmptyTranslatedTexts()).isEqualTo(1L);
+        assertThat(readiness.changedSince(12))
+                .extracting(ChapterReadiness::chapterId)
+                .containsExactly("c2");
+    }
+
+    @Test
+    @DisplayName("Should drop removed chapters and report them as removed")
+    void shouldApplyRemovedChapter() {
+        var removed = new ChapterReadiness("c3", 3, false, false, false, false, false,
+                null, 0, null, null, null, true, 12);
+        readiness.apply(List.of(removed), 13);
+
+        assertThat(readiness.summary().getTotalChapters()).isEqualTo(2L);
+        assertThat(readiness.chapters()).hasSize(2);
+        assertThat(readiness.removedSince(12)).containsExactly("c3");
+        assertThat(readiness.removedSince(13)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should keep views until the next change")
+    void shouldCacheViews() {
+        var first = readiness.view("test", Object::new);
+
+        assertThat(readiness.view("test", Object::new)).isSameAs(first);
+        readiness.apply(List.of(), 20);
+        assertThat(readiness.view("test", Object::new)).isSameAs(first);
+        readiness.apply(List.of(chapter("c1", 1, false, 20)), 21);
+        assertThat(readiness.view("test", Object::new)).isNotSameAs(first);
+    }
+
+    /* ============= */
+
+    private static ChapterReadiness chapter(String id, int number, boolean translated, long txid) {
+        return new ChapterReadiness(id, number, true, translated, true, translated, true,
+                2, translated ? 2 : 0, 0, "[]", 100, false, txid);
+    }
+
+}
@@ -4,12 +4,15 @@ import com.github.difflib.DiffUtils;
 import machinum.TestApplication;
 import machinum.model.Chapter;
 import machinum.model.ChapterHistory;
+import machinum.repository.ChapterHistoryRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -28,6 +31,9 @@ class ChapterHistoryServiceTest extends NormalTest {
     @Autowired
     ChapterService chapterService;
 
+    @Autowired
+    ChapterHistoryRepository chapterHistoryRepository;
+
     private String chapterInfoId;
     private String fieldName;
 
@@ -74,6 +80,43 @@ class ChapterHistoryServiceTest extends NormalTest {
                 .containsExactly(actualState1, actualState2, actualState3);
     }
 
+    @Test
+    void testRebuildFromKeyframes() {
+        //Given
+        var base = chapterHistoryService.getPatches(chapterInfoId, fieldName).size();
+        var previous = base == 0 ? List.<String>of() : lines(chapterHistoryService.rebuildContentAtPoint(chapterInfoId, fieldName, base));
+        var states = new ArrayList<String>();
+
+        //When
+        for (int i = 1; i <= 25; i++) {
+            var next = new ArrayList<>(previous);
+            next.add(next.isEmpty() ? 0 : i % next.size(), "Line of version " + i);
+            var content = String.join("\n", next);
+            chapterHistoryService.save(ChapterHistory.builder()
+                    .chapterInfoId(chapterInfoId)
+                    .fieldName(fieldName)
+                    .patch(DiffUtils.diff(previous, next))
+                    .content(content)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+
+            states.add(content);
+            previous = next;
+        }
+
+        //Then
+        var keyframes = chapterHistoryRepository.findByChapterInfoIdAndFieldName(chapterInfoId, fieldName, Sort.unsorted()).stream()
+                .filter(entity -> entity.getKeyframe() != null)
+                .toList();
+        assertThat(keyframes)
+                .hasSizeGreaterThanOrEqualTo(2);
+
+        for (int i = 0; i < states.size(); i++) {
+            assertThat(chapterHistoryService.rebuildContentAtPoint(chapterInfoId, fieldName, base + i + 1))
+                    .isEqualTo(states.get(i));
+        }
+    }
+
     private List<String> lines(String text) {
         return Arrays.asList(text.split("\n"));
     }
@@ -0,0 +1,93 @@
+package machinum.service;
+
+import machinum.model.Chapter;
+import machinum.repository.ChapterRepository.ChapterHeaderDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChapterSourceTest {
+
+    private final List<Header> headers = IntStream.rangeClosed(1, 1_000)
+            .mapToObj(i -> new Header("id-%04d".formatted(i), i, "Title " + i, "key-" + i))
+            .toList();
+
+    @Test
+    @DisplayName("Should read all headers page by page")
+    void shouldLoadAllPages() {
+        var requests = new ArrayList<String>();
+        var source = ChapterSource.load("book", 300, (afterNumber, afterId, limit) -> {
+            requests.add(afterNumber + "/" + afterId);
+            return page(afterNumber, afterId, limit);
+        });
+
+        assertThat(source)
+                .hasSize(1_000);
+        assertThat(requests)
+                .containsExactly(Integer.MIN_VALUE + "/", "300/id-0300", "600/id-0600", "900/id-0900");
+        assertThat(source.get(499))
+                .extracting(Chapter::getId, Chapter::getNumber, Chapter::getTitle, Chapter::getSourceKey, Chapter::getBookId)
+                .containsExactly("id-0500", 500, "Title 500", "key-500", "book");
+    }
+
+    @Test
+    @DisplayName("Should keep the hash of a fully loaded chapter")
+    void shouldKeepChapterHash() {
+        var source = ChapterSource.load("book", 100, this::page);
+        var fullChapter = Chapter.builder()
+                .id("id-0042")
+                .number(42)
+                .title("Title 42")
+                .sourceKey("key-42")
+                .bookId("book")
+                .text("Some long text")
+                .build();
+
+        assertThat(source.get(41).hash())
+                .isEqualTo(fullChapter.hash());
+        assertThatThrownBy(() -> source.get(1_000))
+                .isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    private List<ChapterHeaderDto> page(Integer afterNumber, String afterId, int limit) {
+        return headers.stream()
+                .filter(header -> header.number() > afterNumber
+                        || (header.number().equals(afterNumber) && header.id().compareTo(afterId) > 0))
+                .sorted(Comparator.comparing(Header::number).thenComparing(Header::id))
+                .limit(limit)
+                .map(ChapterHeaderDto.class::cast)
+                .toList();
+    }
+
+    record Header(String id, Integer number, String title, String sourceKey) implements ChapterHeaderDto {
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public Integer getNumber() {
+            return number;
+        }
+
+        @Override
+        public String getTitle() {
+            return title;
+        }
+
+        @Override
+        public String getSourceKey() {
+            return sourceKey;
+        }
+
+    }
+
+}
@@ -0,0 +1,87 @@
+package machinum.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmbeddingBatcherTest {
+
+    @Mock
+    EmbeddingModel embeddingModel;
+
+    @Test
+    @DisplayName("Should return embeddings in the input order when batches complete out of order")
+    void shouldKeepOrder() {
+        when(embeddingModel.embed(anyList())).thenAnswer(invocation -> {
+            List<String> batch = invocation.getArgument(0);
+            // Let later batches overtake earlier ones
+            Thread.sleep(ThreadLocalRandom.current().nextInt(20));
+            return batch.stream().map(EmbeddingBatcherTest::vector).toList();
+        });
+        var texts = texts(10);
+
+        var result = new EmbeddingBatcher(embeddingModel, 3, 4).embed(texts);
+
+        assertThat(result).hasSize(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            assertThat(result.get(i)).containsExactly(vector(texts.get(i)));
+        }
+        verify(embeddingModel, times(4)).embed(anyList());
+    }
+
+    @Test
+    @DisplayName("Should leave only the texts of a failed batch without embeddings")
+    void shouldReportFailedBatch() {
+        when(embeddingModel.embed(anyList())).thenAnswer(invocation -> {
+            List<String> batch = invocation.getArgument(0);
+            if (batch.contains("text-4")) {
+                throw new IllegalStateException("Model is not available");
+            }
+            return batch.stream().map(EmbeddingBatcherTest::vector).toList();
+        });
+        var texts = texts(8);
+
+        var result = new EmbeddingBatcher(embeddingModel, 3, 2).embed(texts);
+
+        assertThat(result).hasSize(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            if (i >= 3 && i < 6) {
+                assertThat(result.get(i)).as(texts.get(i)).isNull();
+            } else {
+                assertThat(result.get(i)).as(texts.get(i)).containsExactly(vector(texts.get(i)));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should not call the model for no texts")
+    void shouldSkipEmptyInput() {
+        assertThat(new EmbeddingBatcher(embeddingModel, 3, 2).embed(List.of())).isEmpty();
+        verifyNoInteractions(embeddingModel);
+    }
+
+    /* ============= */
+
+    static float[] vector(String text) {
+        return new float[]{text.length(), text.hashCode()};
+    }
+
+    private static List<String> texts(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> "text-" + i)
+                .toList();
+    }
+
+}
@@ -0,0 +1,158 @@
+package machinum.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import machinum.converter.NamesContextMapper;
+import machinum.extract.NameRelationAnalyzer;
+import machinum.extract.Splitter;
+import machinum.flow.model.helper.FlowContextActions;
+import machinum.model.Chapter;
+import machinum.model.ChapterContext;
+import machinum.model.NamesContext;
+import machinum.model.ObjectName;
+import machinum.repository.ChapterChunkEmbeddingDao.Chunk;
+import machinum.service.EmbeddingService.EmbeddingExecutionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.util.List;
+
+import static machinum.service.EmbeddingBatcherTest.vector;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmbeddingServiceTest {
+
+    @Mock
+    EmbeddingModel embeddingModel;
+    @Mock
+    NamesContextService namesContextService;
+    @Mock
+    ChapterContextService chapterContextService;
+    @Mock
+    ChapterGlossaryService chapterGlossaryService;
+    @Mock
+    GlossaryIndexService glossaryIndexService;
+    @Mock
+    NamesContextMapper namesContextMapper;
+    @Mock
+    Splitter splitter;
+    @Mock
+    NameRelationAnalyzer nameRelationAnalyzer;
+
+    @Captor
+    ArgumentCaptor<List<NamesContext>> namesCaptor;
+    @Captor
+    ArgumentCaptor<List<Chunk>> chunksCaptor;
+    @Captor
+    ArgumentCaptor<List<float[]>> embeddingsCaptor;
+    @Captor
+    ArgumentCaptor<List<ObjectName>> appendedNamesCaptor;
+
+    private EmbeddingService embeddingService;
+
+    private final List<ObjectName> names = List.of(
+            name("Lin Feng"), name("Azure Sword"), name("Broken Name"), name("Old Master"), name("Qi Pill"));
+
+    private final Chapter chapter = Chapter.builder()
+            .id("chapter-1")
+            .bookId("book-1")
+            .number(1)
+            .title("Chapter One")
+            .summary("Lin Feng finds the Azure Sword")
+            .names(names)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        // Batches of two texts: [title, summary], [Lin Feng, Azure Sword], [Broken Name, Old Master], [Qi Pill]
+        var batcher = new EmbeddingBatcher(embeddingModel, 2, 2);
+        embeddingService = new EmbeddingService(embeddingModel, batcher, namesContextService, chapterContextService,
+                chapterGlossaryService, glossaryIndexService, namesContextMapper,
+                new ObjectMapper(), splitter, nameRelationAnalyzer);
+
+        when(embeddingModel.embed(anyList())).thenAnswer(invocation -> {
+            List<String> batch = invocation.getArgument(0);
+            if (batch.contains(names.get(2).stringValue())) {
+                throw new IllegalStateException("Model is not available");
+            }
+            return batch.stream().map(EmbeddingBatcherTest::vector).toList();
+        });
+    }
+
+    @Test
+    @DisplayName("Should save fields and names with the embeddings of their own texts")
+    void shouldMatchEmbeddingsToItems() {
+        embeddingService.processChapterEmbeddings(FlowContextActions.of(b -> b.currentItem(chapter)),
+                EmbeddingExecutionType.ALL);
+
+        verify(chapterContextService).replaceChunks(any(ChapterContext.class), chunksCaptor.capture());
+        assertThat(chunksCaptor.getValue())
+                .extracting(Chunk::fieldType, Chunk::content)
+                .containsExactlyInAnyOrder(
+                        tuple(EmbeddingService.TITLE, "Chapter One"),
+                        tuple(EmbeddingService.SUMMARY, "Lin Feng finds the Azure Sword"));
+        chunksCaptor.getValue().forEach(chunk ->
+                assertThat(chunk.embedding()).containsExactly(vector(chunk.content())));
+
+        verify(namesContextService).saveAllNamesContexts(namesCaptor.capture());
+        var saved = namesCaptor.getValue();
+        assertThat(saved)
+                .extracting(NamesContext::getName)
+                .containsExactly("Lin Feng", "Azure Sword", "Qi Pill");
+        for (var namesContext : saved) {
+            var objectName = names.stream()
+                    .filter(name -> name.getName().equals(namesContext.getName()))
+                    .findFirst()
+                    .orElseThrow();
+            assertThat(namesContext.getEmbedding()).containsExactly(vector(objectName.stringValue()));
+        }
+    }
+
+    @Test
+    @DisplayName("Should append the embeddings of the same texts the glossary index is built from")
+    void shouldAppendEmbeddingsOfStoredTexts() {
+        when(glossaryIndexService.getIndex(chapter.getBookId())).thenReturn(new GlossaryIndex(2));
+
+        var result = embeddingService.consolidateGlossary(FlowContextActions.of(b -> b.currentItem(chapter)));
+
+        // The index gets the consolidated names the chapter is saved with
+        verify(glossaryIndexService).appendChapter(eq(chapter), appendedNamesCaptor.capture(), embeddingsCaptor.capture());
+        assertThat(appendedNamesCaptor.getValue())
+                .isEqualTo(result.getCurrentItem().getNames())
+                .extracting(ObjectName::getName)
+                .containsExactlyElementsOf(names.stream().map(ObjectName::getName).toList());
+        var embeddings = embeddingsCaptor.getValue();
+        assertThat(embeddings).hasSize(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            if (i == 2 || i == 3) {
+                // The batch of "Broken Name" failed
+                assertThat(embeddings.get(i)).isNull();
+            } else {
+                assertThat(embeddings.get(i)).containsExactly(vector(names.get(i).stringValue()));
+            }
+        }
+    }
+
+    /* ============= */
+
+    private static ObjectName name(String name) {
+        return ObjectName.builder()
+                .name(name)
+                .category("character")
+                .description(name + " appears in the chapter")
+                .build();
+    }
+
+}
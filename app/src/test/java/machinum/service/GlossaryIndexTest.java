@@ -0,0 +1,71 @@
+package machinum.service;
+
+import machinum.service.GlossaryIndex.LookupOptions;
+import machinum.service.GlossaryIndex.Match;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class GlossaryIndexTest {
+
+    private GlossaryIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new GlossaryIndex(3);
+        index.add("c1", 1, "Lin Feng", new float[]{1, 0, 0});
+        index.add("c2", 2, "Azure Dragon Sect", new float[]{0, 1, 0});
+        index.add("c3", 3, "Lin Fen", new float[]{0.9f, 0.1f, 0});
+        index.add("c5", 5, "Heavenly Pill", new float[]{0, 0, 1});
+    }
+
+    @Test
+    @DisplayName("Should find exact names only in previous chapters")
+    void shouldFindExactMatches() {
+        assertThat(index.lookup("lin  feng!", null, 4, LookupOptions.defaults()).exact())
+                .extracting(Match::chapterId)
+                .containsExactly("c1");
+        assertThat(index.lookup("Lin Feng", null, 1, LookupOptions.defaults()).exact())
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should find fuzzy candidates by trigrams")
+    void shouldFindFuzzyMatches() {
+        var lookup = index.lookup("Lin Fenq", null, 10, LookupOptions.defaults());
+
+        assertThat(lookup.exact()).isEmpty();
+        assertThat(lookup.fuzzy())
+                .extracting(Match::name)
+                .contains("Lin Feng")
+                .doesNotContain("Heavenly Pill");
+    }
+
+    @Test
+    @DisplayName("Should find semantic candidates by cosine similarity")
+    void shouldFindSemanticMatches() {
+        var lookup = index.lookup("Master Lin", new float[]{2, 0, 0}, 10, LookupOptions.defaults());
+
+        assertThat(lookup.semantic())
+                .extracting(Match::name)
+                .containsExactly("Lin Feng", "Lin Fen");
+        assertThat(lookup.semantic().getFirst().score())
+                .isCloseTo(1.0, offset(1e-6));
+    }
+
+    @Test
+    @DisplayName("Should skip names of a removed chapter")
+    void shouldReplaceChapter() {
+        index.removeChapter("c1");
+        index.add("c1", 1, "Lin Feng Jr", null);
+
+        assertThat(index.lookup("Lin Feng", null, 4, LookupOptions.defaults()).exact())
+                .isEmpty();
+        assertThat(index.size())
+                .isEqualTo(4);
+    }
+
+}
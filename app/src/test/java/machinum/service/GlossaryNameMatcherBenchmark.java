@@ -0,0 +1,139 @@
+package machinum.service;
+
+import machinum.service.GlossaryNameMatcher.Algorithm;
+import machinum.service.GlossaryNameMatcher.Entry;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the edit distance and phonetic glossary passes of {@link GlossaryNameMatcher} with the
+ * {@code find_glossary_*_matches} functions on a database with the same glossary.
+ *
+ * <p>Requires docker, run with {@code ./gradlew :app:jmh -Pjmh.include=GlossaryNameMatcherBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GlossaryNameMatcherBenchmark {
+
+    private static final String BOOK_ID = "00000000-0000-0000-0000-00000000b001";
+    private static final List<String> SQL_FUNCTIONS = List.of("find_glossary_levenshtein_matches",
+            "find_glossary_phonetic_matches", "find_glossary_jaro_winkler_matches", "find_glossary_fuzzy_matches");
+    private static final String[] SYLLABLES = {"ka", "ri", "tho", "mel", "an", "dor", "vi", "sha", "gun", "el",
+            "zar", "ion", "bel", "quo", "ra", "ny", "fen", "lis", "ost", "ur"};
+
+    @Param({"300"})
+    public int chapters;
+
+    @Param({"20"})
+    public int namesPerChapter;
+
+    private PostgreSQLContainer<?> container;
+    private JdbcTemplate jdbcTemplate;
+    private GlossaryNameMatcher matcher;
+    private List<String> queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        container = new PostgreSQLContainer<>("pgvector/pgvector:pg16");
+        container.start();
+
+        var dataSource = new DriverManagerDataSource(container.getJdbcUrl(), container.getUsername(), container.getPassword());
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        var random = new Random(42);
+        var names = new ArrayList<String>();
+        jdbcTemplate.update("INSERT INTO books (id, title) VALUES (?, ?)", BOOK_ID, "benchmark");
+        for (int number = 1; number <= chapters; number++) {
+            var json = new StringJoiner(",", "[", "]");
+            for (int i = 0; i < namesPerChapter; i++) {
+                var name = randomName(random);
+                names.add(name);
+                json.add("{\"name\":\"%s\",\"category\":\"character\",\"description\":\"The %s of %s\"}"
+                        .formatted(name, i % 2 == 0 ? "captain" : "sister", randomName(random)));
+            }
+            jdbcTemplate.update("INSERT INTO chapter_info (id, number, title, source_key, book_id, names) VALUES (?, ?, ?, ?, ?, cast(? as json))",
+                    UUID.randomUUID().toString(), number, "Chapter " + number, "chapter-" + number, BOOK_ID, json.toString());
+        }
+        jdbcTemplate.execute("ANALYZE chapter_glossary");
+
+        matcher = new GlossaryNameMatcher(jdbcTemplate.query(
+                "SELECT id, chapter_id, number, name, translated_name, category, description, raw_json FROM chapter_glossary WHERE book_id = ?",
+                (rs, rowNum) -> new Entry(rs.getString(1), rs.getString(2), rs.getInt(3), rs.getString(4),
+                        rs.getString(5), rs.getString(6), rs.getString(7), rs.getString(8)),
+                BOOK_ID));
+
+        // Misspelled names of the glossary
+        queries = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            var name = new StringBuilder(names.get(random.nextInt(names.size())));
+            var position = random.nextInt(name.length());
+            name.setCharAt(position, (char) ('a' + random.nextInt(26)));
+            queries.add(name.toString());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        container.stop();
+    }
+
+    @Benchmark
+    public List<GlossaryNameMatcher.Match> nativeMatcher() {
+        return matcher.search(nextQuery(), 1, chapters, EnumSet.allOf(Algorithm.class));
+    }
+
+    @Benchmark
+    public int sqlFunctions() {
+        var query = nextQuery();
+        var count = 0;
+        for (var function : SQL_FUNCTIONS) {
+            count += jdbcTemplate.queryForList("SELECT * FROM %s(?, ?, ?, ?)".formatted(function),
+                    BOOK_ID, query, 1, chapters).size();
+        }
+
+        return count;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(GlossaryNameMatcherBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    /* ============= */
+
+    private String nextQuery() {
+        return queries.get(next++ & (queries.size() - 1));
+    }
+
+    private static String randomName(Random random) {
+        var name = new StringBuilder();
+        var syllables = 2 + random.nextInt(3);
+        for (int i = 0; i < syllables; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+
+        return name.toString();
+    }
+
+}
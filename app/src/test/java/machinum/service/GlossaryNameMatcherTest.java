@@ -0,0 +1,97 @@
+package machinum.service;
+
+import machinum.service.GlossaryNameMatcher.Algorithm;
+import machinum.service.GlossaryNameMatcher.Entry;
+import machinum.service.GlossaryNameMatcher.Match;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class GlossaryNameMatcherTest {
+
+    private GlossaryNameMatcher matcher;
+
+    @BeforeEach
+    void setUp() {
+        matcher = new GlossaryNameMatcher(List.of(
+                entry("1", 1, "Gunbarrel", "A weapon"),
+                entry("2", 2, "Katherine", "The captain"),
+                entry("3", 3, "Smith", "A blacksmith of the village"),
+                entry("4", 4, "Thornwood", null),
+                entry("5", 5, "Gunbarel Keep", "A fortress"),
+                entry("6", 6, null, "A broken entry")));
+    }
+
+    @Test
+    void testLevenshtein() {
+        var result = matcher.search("Gumbarral", 1, 10, EnumSet.of(Algorithm.LEVENSHTEIN));
+
+        assertThat(result)
+                .extracting(match -> match.entry().id(), Match::searchType, Match::score)
+                .containsExactly(tuple("1", "5_levenshtein", 1 / 3f));
+    }
+
+    @Test
+    void testPhonetic() {
+        var metaphone = matcher.search("Ktrn", 1, 10, EnumSet.of(Algorithm.PHONETIC));
+        var soundex = matcher.search("Schmidt", 1, 10, EnumSet.of(Algorithm.PHONETIC));
+
+        assertThat(metaphone)
+                .extracting(match -> match.entry().id(), Match::searchType, Match::score)
+                .containsExactly(tuple("2", "6_metaphone_alt", 0.4f));
+        assertThat(soundex)
+                .extracting(match -> match.entry().id(), Match::searchType, Match::score)
+                .containsExactly(tuple("3", "8_soundex", 0.35f));
+    }
+
+    @Test
+    void testNamesOfEarlierPassesAreExcluded() {
+        // "Smith" contains the query, "Gunbarrel" is trigram similar to it
+        var result = matcher.search("mit", 1, 10, EnumSet.allOf(Algorithm.class));
+        var similar = matcher.search("Gunbarrell", 1, 10, EnumSet.allOf(Algorithm.class));
+
+        assertThat(result)
+                .extracting(match -> match.entry().id())
+                .doesNotContain("3");
+        assertThat(similar)
+                .extracting(match -> match.entry().id())
+                .doesNotContain("1", "5");
+    }
+
+    @Test
+    void testChapterRange() {
+        var all = matcher.search("Tharnvud", 1, 10, EnumSet.allOf(Algorithm.class));
+        var before = matcher.search("Tharnvud", 1, 3, EnumSet.allOf(Algorithm.class));
+
+        assertThat(all)
+                .extracting(match -> match.entry().id(), Match::searchType)
+                .containsExactly(tuple("4", "7_jaro_winkler"));
+        assertThat(before)
+                .isEmpty();
+    }
+
+    @Test
+    void testOnlyRequestedAlgorithms() {
+        var result = matcher.search("Gumbarral", 1, 10, Set.of(Algorithm.JARO_WINKLER, Algorithm.FUZZY));
+
+        assertThat(result)
+                .extracting(Match::algorithm)
+                .doesNotContain(Algorithm.LEVENSHTEIN);
+        assertThat(matcher.size())
+                .isEqualTo(5);
+    }
+
+    /* ============= */
+
+    private static Entry entry(String id, int number, String name, String description) {
+        return new Entry(id, "chapter-" + number, number, name, null, "character", description,
+                "{\"name\":\"%s\"}".formatted(name));
+    }
+
+}
@@ -0,0 +1,161 @@
+package machinum.service;
+
+import machinum.TestApplication;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.MOCK,
+        classes = TestApplication.class
+)
+@Transactional
+class LinesInfoDaoTest extends DbTest {
+
+    private static final String COLUMNS = """
+            id, chapter_id, source_key, number, book_id, line_index, original_line, translated_line,
+            original_sentences::text AS original_sentences, translated_sentences::text AS translated_sentences
+            """;
+
+    // The query of the former per-book materialized view (create_single_sub_view in V2_1__lines.sql)
+    private static final String LEGACY_VIEW = """
+            WITH source_chapters AS (SELECT * FROM chapter_info WHERE id = ?),
+            split_data AS (
+                SELECT
+                    ci0.id,
+                    ci0.source_key,
+                    ci0.number,
+                    ci0.book_id,
+                    unnest(string_to_array(ci0.text, E'\\n')) AS original_line,
+                    unnest(string_to_array(ci0.translated_text, E'\\n')) AS translated_line,
+                    generate_series(1, 1000000) AS line_index
+                FROM source_chapters ci0
+                ORDER BY ci0.number
+            )
+            SELECT
+                MD5(ci1.id || '-' || ci1.line_index)::text AS id,
+                ci1.id AS chapter_id,
+                ci1.source_key,
+                ci1.number,
+                ci1.book_id,
+                ci1.line_index,
+                ci1.original_line,
+                ci1.translated_line,
+                to_jsonb(
+                    regexp_split_to_array(
+                        regexp_replace(ci1.original_line, '([.!?])\\s+', '\\1|', 'g'),
+                        '\\|'
+                )) AS original_sentences,
+                to_jsonb(
+                    regexp_split_to_array(
+                    regexp_replace(ci1.translated_line, '([.!?])\\s+', '\\1|', 'g'),
+                    '\\|'
+                )) AS translated_sentences
+            FROM split_data ci1
+            WHERE LENGTH(original_line) > 0 OR LENGTH(translated_line) > 0
+            """;
+
+    @Autowired
+    LinesInfoDao linesInfoDao;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should keep the lines of an inserted, updated and deleted chapter like the former view")
+    void shouldMatchLegacyView() {
+        var bookId = book();
+        var chapterId = UUID.randomUUID().toString();
+        jdbcTemplate.update("""
+                        INSERT INTO chapter_info (id, source_key, number, title, text, translated_text, book_id)
+                        VALUES (?, ?, ?, ?, ?, ?, ?)
+                        """, chapterId, "chapter-1", 1, "Chapter 1",
+                "He drew the sword. It was cold!\n\nThe wind rose.\nNight fell? Yes.",
+                "Он обнажил меч. Он был холоден!\n\nПоднялся ветер.\nНаступила ночь? Да.",
+                bookId);
+        assertThat(lines(chapterId)).hasSize(3).isEqualTo(legacyLines(chapterId));
+
+        // A changed line, an added line and a translation shorter than the text
+        jdbcTemplate.update("UPDATE chapter_info SET text = ?, translated_text = ? WHERE id = ?",
+                "He drew the blade. It was cold!\n\nThe wind rose.\nNight fell? Yes.\nDawn came.",
+                "Он обнажил клинок. Он был холоден!\n\nПоднялся ветер.",
+                chapterId);
+        assertThat(lines(chapterId)).hasSize(4).isEqualTo(legacyLines(chapterId));
+
+        // Removed lines and new chapter attributes
+        jdbcTemplate.update("UPDATE chapter_info SET text = ?, translated_text = ?, number = ?, source_key = ?, book_id = ? WHERE id = ?",
+                "He drew the blade.", "Он обнажил клинок.", 2, "chapter-2", book(), chapterId);
+        assertThat(lines(chapterId)).hasSize(1).isEqualTo(legacyLines(chapterId));
+
+        jdbcTemplate.update("DELETE FROM chapter_info WHERE id = ?", chapterId);
+        assertThat(lines(chapterId)).isEmpty();
+        assertThat(legacyLines(chapterId)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should rewrite only the changed lines of a chapter")
+    void shouldRewriteOnlyChangedLines() {
+        var chapterId = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO chapter_info (id, source_key, number, title, text, book_id) VALUES (?, ?, ?, ?, ?, ?)",
+                chapterId, "chapter-1", 1, "Chapter 1", "One.\nTwo.\nThree.", book());
+        jdbcTemplate.update("UPDATE lines_info SET original_sentences = '[]'::jsonb WHERE chapter_id = ?", chapterId);
+
+        jdbcTemplate.update("UPDATE chapter_info SET text = ? WHERE id = ?", "One.\nTwo, changed.\nThree.", chapterId);
+
+        // The untouched lines keep the marker, the changed one is recomputed
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT original_sentences::text FROM lines_info WHERE chapter_id = ? ORDER BY line_index",
+                String.class, chapterId))
+                .containsExactly("[]", "[\"Two, changed.\"]", "[]");
+    }
+
+    @Test
+    @DisplayName("Should repair the lines of chapters and books")
+    void shouldSyncChaptersAndBooks() {
+        var bookId = book();
+        var chapterId = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO chapter_info (id, source_key, number, title, text, book_id) VALUES (?, ?, ?, ?, ?, ?)",
+                chapterId, "chapter-1", 1, "Chapter 1", "One.\nTwo.\nThree.", bookId);
+
+        assertThat(linesInfoDao.syncChapters(List.of(chapterId))).isZero();
+        assertThat(linesInfoDao.syncChapters(List.of())).isZero();
+
+        jdbcTemplate.update("DELETE FROM lines_info WHERE chapter_id = ? AND line_index = 2", chapterId);
+        jdbcTemplate.update("UPDATE lines_info SET original_line = 'Broken.' WHERE chapter_id = ? AND line_index = 3", chapterId);
+        jdbcTemplate.update("""
+                        INSERT INTO lines_info (id, chapter_id, source_key, number, book_id, line_index, original_line)
+                        VALUES ('stale', ?, 'chapter-1', 1, ?, 9, 'Stale.')
+                        """, chapterId, bookId);
+
+        assertThat(linesInfoDao.syncBook(bookId)).isEqualTo(3);
+        assertThat(lines(chapterId)).isEqualTo(legacyLines(chapterId));
+    }
+
+    /* ============= */
+
+    private String book() {
+        var id = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO books (id, title) VALUES (?, ?)", id, "book-" + id);
+        return id;
+    }
+
+    private List<Map<String, Object>> lines(String chapterId) {
+        return jdbcTemplate.queryForList("SELECT %s FROM lines_info WHERE chapter_id = ? ORDER BY line_index".formatted(COLUMNS),
+                chapterId);
+    }
+
+    private List<Map<String, Object>> legacyLines(String chapterId) {
+        return jdbcTemplate.queryForList("SELECT %s FROM (%s) legacy ORDER BY line_index".formatted(COLUMNS, LEGACY_VIEW),
+                chapterId);
+    }
+
+}
@@ -0,0 +1,101 @@
+package machinum.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import machinum.model.Statistic;
+import machinum.model.Statistic.StatisticMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StatisticWriterTest {
+
+    private final List<Statistic> written = new ArrayList<>();
+    private StatisticWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        var jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    written.addAll(invocation.<Collection<Statistic>>getArgument(1));
+                    return new int[0][];
+                });
+
+        writer = new StatisticWriter(jdbcTemplate, new ObjectMapper(), 3, 10, Duration.ofHours(1), false, 0.0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.close();
+    }
+
+    @Test
+    @DisplayName("Should write queued rows without message bodies")
+    void shouldWriteRowsWithoutMessages() {
+        writer.offer(statistic("summary", 3));
+        writer.offer(statistic("summary", 70));
+        writer.flush();
+
+        assertThat(written)
+                .hasSize(2)
+                .allSatisfy(statistic -> assertThat(statistic.getMessages()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should drop rows over the capacity but keep them in aggregates")
+    void shouldDropRowsOverCapacity() {
+        for (int i = 0; i < 5; i++) {
+            writer.offer(statistic("translate", i * 20L));
+        }
+        writer.offer(statistic("glossary", 700));
+        writer.flush();
+
+        assertThat(written)
+                .hasSize(3);
+        assertThat(writer.getDropped())
+                .isEqualTo(3);
+
+        var snapshot = writer.snapshot();
+        assertThat(snapshot)
+                .extracting(StatisticWriter.OperationSnapshot::operationType)
+                .containsExactly("glossary", "translate");
+
+        var translate = snapshot.get(1);
+        assertThat(translate.count()).isEqualTo(5);
+        assertThat(translate.totalSeconds()).isEqualTo(200);
+        assertThat(translate.maxSeconds()).isEqualTo(80);
+        assertThat(translate.durationHistogram())
+                .containsEntry("le_1s", 1L)
+                .containsEntry("le_30s", 1L)
+                .containsEntry("le_60s", 2L)
+                .containsEntry("le_120s", 1L);
+        assertThat(snapshot.getFirst().durationHistogram())
+                .containsEntry("inf", 1L);
+    }
+
+    private Statistic statistic(String operationType, long seconds) {
+        return Statistic.builder()
+                .operationType(operationType)
+                .operationName(operationType + "-1-0")
+                .operationTimeSeconds(seconds)
+                .message(StatisticMessage.builder()
+                        .type("user")
+                        .text("A long prompt")
+                        .build())
+                .build();
+    }
+
+}
@@ -0,0 +1,104 @@
+package machinum.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class FuzzyMatchUtilTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "kitten, sitting, 3",
+            "flaw, lawn, 2",
+            "'', abc, 3",
+            "abc, abc, 0",
+            "Élodie, elodie, 1",
+            "gumbarrel, gunbarel, 2"
+    })
+    void testLevenshtein(String first, String second, int expected) {
+        assertThat(FuzzyMatchUtil.levenshtein(first, second))
+                .isEqualTo(expected);
+    }
+
+    @Test
+    void testLevenshteinMatchesDynamicProgramming() {
+        var random = new Random(7);
+        var alphabet = "abcdeé ";
+        for (int i = 0; i < 10_000; i++) {
+            // Every tenth pair is longer than a machine word
+            var first = randomString(random, alphabet, random.nextInt(i % 10 == 0 ? 90 : 20));
+            var second = randomString(random, alphabet, random.nextInt(i % 10 == 0 ? 90 : 20));
+            var expected = dynamicDistance(first, second);
+            var maxDistance = random.nextInt(6);
+
+            assertThat(FuzzyMatchUtil.levenshtein(first, second))
+                    .as("%s / %s", first, second)
+                    .isEqualTo(expected);
+            assertThat(FuzzyMatchUtil.levenshteinPattern(first).distance(second, maxDistance))
+                    .as("%s / %s <= %s", first, second, maxDistance)
+                    .isEqualTo(Math.min(expected, maxDistance + 1));
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "MARTHA, MARHTA, 0.9611",
+            "DIXON, DICKSONX, 0.8133",
+            "dwayne, DUANE, 0.84",
+            "abc, xyz, 0.0",
+            "'', '', 1.0"
+    })
+    void testJaroWinkler(String first, String second, double expected) {
+        assertThat(FuzzyMatchUtil.jaroWinkler(first, second))
+                .isCloseTo(expected, within(0.0001));
+    }
+
+    @Test
+    void testTrigramSimilarity() {
+        // Values of pg_trgm
+        assertThat(FuzzyMatchUtil.trigramSimilarity("word", "two words"))
+                .isCloseTo(0.363636, within(0.0001));
+        assertThat(FuzzyMatchUtil.trigramSimilarity("Word", "word"))
+                .isEqualTo(1.0);
+        assertThat(FuzzyMatchUtil.trigrams("cat"))
+                .hasSize(4);
+        assertThat(FuzzyMatchUtil.trigramSimilarity("", "word"))
+                .isZero();
+    }
+
+    /* ============= */
+
+    private static String randomString(Random random, String alphabet, int length) {
+        var builder = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+
+        return builder.toString();
+    }
+
+    private static int dynamicDistance(String first, String second) {
+        var distances = new int[first.length() + 1][second.length() + 1];
+        for (int i = 0; i <= first.length(); i++) {
+            distances[i][0] = i;
+        }
+        for (int j = 0; j <= second.length(); j++) {
+            distances[0][j] = j;
+        }
+        for (int i = 1; i <= first.length(); i++) {
+            for (int j = 1; j <= second.length(); j++) {
+                var cost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+                distances[i][j] = Math.min(Math.min(distances[i - 1][j] + 1, distances[i][j - 1] + 1),
+                        distances[i - 1][j - 1] + cost);
+            }
+        }
+
+        return distances[first.length()][second.length()];
+    }
+
+}
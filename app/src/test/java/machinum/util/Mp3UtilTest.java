@@ -0,0 +1,174 @@
+package machinum.util;
+
+import machinum.util.Mp3Util.Header;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class Mp3UtilTest {
+
+    // MPEG 1 layer III, 128 kbps, 44100 Hz, stereo, 417 bytes per frame
+    private static final int HEADER = 0xFFFB9000;
+    private static final int FRAME_LENGTH = 417;
+
+    @Test
+    @DisplayName("Should skip tags and the info frame of a part")
+    void shouldScanFrames() {
+        var part = Mp3Util.scan(mp3(3, true));
+
+        assertThat(part.frames()).isEqualTo(3);
+        assertThat(part.audioBytes()).isEqualTo(3 * FRAME_LENGTH);
+        assertThat(part.ranges()).hasSize(1);
+        assertThat(part.format().sampleRate()).isEqualTo(44100);
+        assertThat(part.durationSeconds()).isCloseTo(3 * 1152 / 44100.0, offset(1e-9));
+    }
+
+    @Test
+    @DisplayName("Should skip garbage between frames")
+    void shouldResyncAfterGarbage() {
+        var output = new ByteArrayOutputStream();
+        output.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xFB, 3});
+        output.writeBytes(frame((byte) 1));
+        output.writeBytes(frame((byte) 2));
+        output.writeBytes(new byte[]{1, 2, 3});
+        output.writeBytes(frame((byte) 3));
+        output.writeBytes(frame((byte) 4));
+
+        var part = Mp3Util.scan(output.toByteArray());
+
+        assertThat(part.frames()).isEqualTo(4);
+        assertThat(part.ranges()).hasSize(2);
+        assertThat(part.ranges().getFirst().offset()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should join frames of parts behind one tag and one info frame")
+    void shouldJoinParts() throws Exception {
+        var tags = new LinkedHashMap<String, String>();
+        tags.put("TIT2", "Глава 1");
+        tags.put("TLAN", "rus");
+        tags.put("COMM", "comment");
+        var tag = Mp3Util.id3(tags, new byte[]{(byte) 0x89, 'P', 'N', 'G', 1});
+
+        var stream = Mp3Util.join(List.of(Mp3Util.scan(mp3(2, true)), Mp3Util.scan(mp3(3, false))), tag);
+        var bytes = stream.openStream().readAllBytes();
+
+        assertThat(bytes).hasSize((int) stream.size());
+        assertThat(stream.size()).isEqualTo(tag.length + FRAME_LENGTH + 5L * FRAME_LENGTH);
+        assertThat(stream.durationSeconds()).isCloseTo(5 * 1152 / 44100.0, offset(1e-9));
+        assertThat(stream.bitrateBps()).isBetween(127_000, 129_000);
+        assertThat(new String(bytes, 0, 3, StandardCharsets.ISO_8859_1)).isEqualTo("ID3");
+        assertThat(new String(bytes, tag.length + 4 + 32, 4, StandardCharsets.ISO_8859_1)).isEqualTo("Info");
+
+        var joined = Mp3Util.scan(bytes);
+        assertThat(joined.frames()).isEqualTo(5);
+        assertThat(joined.data()[joined.ranges().getFirst().offset() + 4]).isEqualTo((byte) 1);
+    }
+
+    @Test
+    @DisplayName("Should write the info frame of low bitrate parts with a higher bitrate")
+    void shouldJoinLowBitrateParts() throws Exception {
+        // MPEG 2 layer III, 8 kbps, 24000 Hz, mono, 24 bytes per frame, the info frame needs 29
+        var header = 0xFFF314C0;
+        assertThat(Header.parse(header).length()).isEqualTo(24);
+
+        var stream = Mp3Util.join(List.of(Mp3Util.scan(frames(header, 3))), new byte[0]);
+        var bytes = stream.openStream().readAllBytes();
+
+        var infoHeader = Header.parse(bytes, 0);
+        assertThat(infoHeader.bitrate()).isEqualTo(16_000);
+        assertThat(stream.infoFrame()).hasSize(infoHeader.length());
+        assertThat(new String(bytes, 4 + 9, 4, StandardCharsets.ISO_8859_1)).isEqualTo("Info");
+        assertThat(stream.size()).isEqualTo(infoHeader.length() + 3 * 24L);
+        assertThat(Mp3Util.scan(bytes).frames()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should append parts with silence between them to a stream")
+    void shouldAppendParts() throws Exception {
+        var output = new ByteArrayOutputStream();
+        var appender = Mp3Util.appender(output, new byte[0]);
+
+        appender.appendSilence(1);
+        appender.append(Mp3Util.scan(mp3(2, true)));
+        appender.appendSilence(0.05);
+        appender.append(Mp3Util.scan(mp3(3, false)));
+
+        // 0.05s of 44100 Hz are 2 frames of 1152 samples
+        assertThat(appender.frames()).isEqualTo(7);
+        assertThat(appender.size()).isEqualTo(output.size());
+        assertThat(Mp3Util.scan(output.toByteArray()).frames()).isEqualTo(7);
+        assertThat(appender.durationSeconds()).isCloseTo(7 * 1152 / 44100.0, offset(1e-9));
+    }
+
+    @Test
+    @DisplayName("Should refuse parts of different sample rates")
+    void shouldRejectDifferentFormats() {
+        var other = Mp3Util.scan(frames(0xFFFB9400, 2));
+
+        assertThatThrownBy(() -> Mp3Util.join(List.of(Mp3Util.scan(mp3(2, false)), other), new byte[0]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should parse frame headers")
+    void shouldParseHeader() {
+        var header = Header.parse(HEADER);
+
+        assertThat(header).isNotNull();
+        assertThat(header.length()).isEqualTo(FRAME_LENGTH);
+        assertThat(header.bitrate()).isEqualTo(128_000);
+        assertThat(header.channels()).isEqualTo(2);
+        assertThat(Header.parse(0x12345678)).isNull();
+    }
+
+    /* ============= */
+
+    private static byte[] mp3(int count, boolean withInfo) {
+        var output = new ByteArrayOutputStream();
+        // Empty ID3v2 tag with 4 bytes of padding
+        output.writeBytes(new byte[]{'I', 'D', '3', 3, 0, 0, 0, 0, 0, 4, 0, 0, 0, 0});
+        if (withInfo) {
+            var info = frame((byte) 0);
+            System.arraycopy("Xing".getBytes(StandardCharsets.ISO_8859_1), 0, info, 4 + 32, 4);
+            output.writeBytes(info);
+        }
+        for (int i = 1; i <= count; i++) {
+            output.writeBytes(frame((byte) i));
+        }
+        var id3v1 = new byte[128];
+        id3v1[0] = 'T';
+        id3v1[1] = 'A';
+        id3v1[2] = 'G';
+        output.writeBytes(id3v1);
+
+        return output.toByteArray();
+    }
+
+    private static byte[] frames(int header, int count) {
+        var output = new ByteArrayOutputStream();
+        for (int i = 1; i <= count; i++) {
+            var frame = new byte[Header.parse(header).length()];
+            frame[0] = (byte) (header >>> 24);
+            frame[1] = (byte) (header >>> 16);
+            frame[2] = (byte) (header >>> 8);
+            frame[3] = (byte) header;
+            output.writeBytes(frame);
+        }
+
+        return output.toByteArray();
+    }
+
+    private static byte[] frame(byte marker) {
+        var frame = frames(HEADER, 1);
+        frame[4] = marker;
+        return frame;
+    }
+
+}
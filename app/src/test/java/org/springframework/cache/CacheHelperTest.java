@@ -0,0 +1,126 @@
+package org.springframework.cache;
+
+import machinum.config.Config;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CacheHelperTest {
+
+    private static final int CALLERS = 8;
+
+    @Test
+    @DisplayName("Should create a value once for concurrent callers with the same key")
+    void shouldShareOneLoad() throws Exception {
+        var cacheHelper = cacheHelper(1000, 1_000_000, List.of());
+        var loads = new AtomicInteger();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(CALLERS);
+
+        try {
+            var futures = new ArrayList<Future<String>>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(executor.submit(() -> cacheHelper.getOrCreate("key", () -> {
+                    loads.incrementAndGet();
+                    started.countDown();
+                    release.await();
+                    return "value";
+                })));
+            }
+
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            release.countDown();
+
+            for (var future : futures) {
+                assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+            }
+            assertThat(loads).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should let the next caller create the value after a failed load")
+    void shouldRetryAfterFailedLoad() throws Exception {
+        var cacheHelper = cacheHelper(1000, 1_000_000, List.of());
+
+        assertThatThrownBy(() -> cacheHelper.getOrCreate("key", () -> {
+            throw new IllegalStateException("Failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat((String) cacheHelper.getOrCreate("key", () -> "value")).isEqualTo("value");
+        assertThat((String) cacheHelper.getOrCreate("key", () -> "other")).isEqualTo("value");
+    }
+
+    @Test
+    @DisplayName("Should read from a plugin before creating and save created values to plugins")
+    void shouldUsePlugins() throws Exception {
+        var plugin = new MapPlugin();
+        plugin.save("stored", "from plugin");
+        var cacheHelper = cacheHelper(1000, 1_000_000, List.of(plugin));
+
+        assertThat((String) cacheHelper.getOrCreate("stored", () -> "created")).isEqualTo("from plugin");
+        assertThat((String) cacheHelper.getOrCreate("new", () -> "created")).isEqualTo("created");
+        assertThat(plugin.values).containsEntry("new", "created");
+    }
+
+    @Test
+    @DisplayName("Should evict entries by the weight of the cached text")
+    void shouldEvictByWeight() {
+        // 10 entries at most, every entry weighs at least 10 characters
+        var localCache = Config.localCache(10, 100, Duration.ofDays(1));
+        var cacheHelper = new CacheHelper(null, List.of(), localCache);
+
+        for (int i = 0; i < 30; i++) {
+            cacheHelper.getOrCreate("small-" + i, () -> "x");
+        }
+        localCache.synchronous().cleanUp();
+        assertThat(localCache.synchronous().estimatedSize()).isLessThanOrEqualTo(10);
+
+        localCache.synchronous().invalidateAll();
+        cacheHelper.getOrCreate("large-1", () -> "x".repeat(60));
+        cacheHelper.getOrCreate("large-2", () -> "x".repeat(60));
+        localCache.synchronous().cleanUp();
+        assertThat(localCache.synchronous().estimatedSize()).isEqualTo(1);
+    }
+
+    /* ============= */
+
+    private static CacheHelper cacheHelper(long maximumSize, long maximumWeight, List<CachePlugin> plugins) {
+        return new CacheHelper(null, plugins, Config.localCache(maximumSize, maximumWeight, Duration.ofDays(1)));
+    }
+
+    private static class MapPlugin implements CachePlugin {
+
+        private final ConcurrentMap<String, Object> values = new ConcurrentHashMap<>();
+
+        @Override
+        public boolean hasKey(String key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> Optional<T> get(String key) {
+            return Optional.ofNullable((T) values.get(key));
+        }
+
+        @Override
+        public <T> void save(String key, T value) {
+            values.put(key, value);
+        }
+
+    }
+
+}
@@ -0,0 +1,86 @@
+package org.springframework.cache.plugin;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import machinum.config.Holder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.async.AsyncHelper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JdbcPluginTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Mock
+    AsyncHelper asyncHelper;
+
+    @Test
+    @DisplayName("Should read the value and its type with one query")
+    void testFind_success() throws Exception {
+        var resultSet = mock(ResultSet.class);
+        when(resultSet.getString("value_data")).thenReturn("{\"text\":\"cached\"}");
+        when(resultSet.getString("value_type")).thenReturn(Map.class.getName());
+        stubQuery(resultSet);
+
+        Map<String, String> value = plugin().<Map<String, String>>find("key").orElseThrow();
+
+        assertThat(value).containsEntry("text", "cached");
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowMapper.class), eq("key"));
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should return nothing for a missing key or an empty value")
+    void testFind_missing() throws Exception {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("missing")))
+                .thenReturn(List.of());
+        assertThat(plugin().find("missing")).isEmpty();
+
+        var resultSet = mock(ResultSet.class);
+        when(resultSet.getString("value_data")).thenReturn(null);
+        when(resultSet.getString("value_type")).thenReturn(String.class.getName());
+        stubQuery(resultSet);
+        assertThat(plugin().find("key")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should return nothing for an unknown value type")
+    void testFind_unknownType() throws Exception {
+        var resultSet = mock(ResultSet.class);
+        when(resultSet.getString("value_data")).thenReturn("{}");
+        when(resultSet.getString("value_type")).thenReturn("machinum.Missing");
+        stubQuery(resultSet);
+
+        assertThat(plugin().find("key")).isEmpty();
+    }
+
+    /* ============= */
+
+    private JdbcPlugin plugin() {
+        return new JdbcPlugin(jdbcTemplate, Holder.of(new ObjectMapper()), asyncHelper);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubQuery(ResultSet resultSet) {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("key")))
+                .thenAnswer(invocation -> {
+                    RowMapper<String[]> rowMapper = invocation.getArgument(1);
+                    return List.of(rowMapper.mapRow(resultSet, 0));
+                });
+    }
+
+}
@@ -0,0 +1,204 @@
+package machinum.flow.core;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import machinum.flow.model.Flow;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Write-behind decorator for a StateManager.
+ * Keeps the latest (item, pipe, state) triple in memory and writes it to the delegate on a fixed
+ * interval, on every state transition, on {@link #release} and on close.
+ * Reads are served from the buffer first, so the flow always sees its own writes.
+ *
+ * <p>Buffers are kept per flow, the flow is identified by the key resolved from the metadata.
+ * Processed chunk hashes are written at once after the pending state, because the delegate may reset
+ * the state along with them and the next chunk has to start from that reset.</p>
+ */
+@Slf4j
+public class BufferedStateManager implements StateManager, AutoCloseable {
+
+    private final StateManager delegate;
+    private final Function<Map<String, Object>, String> keyResolver;
+    private final Map<String, Buffer> buffers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a buffered state manager and starts the periodic flush.
+     *
+     * @param delegate      the state manager that persists the state
+     * @param keyResolver   resolves the buffer key (e.g. an id of the processed entity) from the metadata
+     * @param flushInterval the interval between two flushes of pending changes
+     */
+    public BufferedStateManager(@NonNull StateManager delegate,
+                                @NonNull Function<Map<String, Object>, String> keyResolver,
+                                @NonNull Duration flushInterval) {
+        this.delegate = delegate;
+        this.keyResolver = keyResolver;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual()
+                .name("state-flush-", 0)
+                .factory());
+        var millis = Math.max(flushInterval.toMillis(), 1);
+        this.scheduler.scheduleWithFixedDelay(this::flush, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Buffers the state, the buffer is written immediately when the state differs from the previous one.
+     *
+     * @param metadata  the metadata map
+     * @param itemIndex the item index
+     * @param pipeIndex the pipe index
+     * @param state     the flow state
+     */
+    @Override
+    public void saveState(Map<String, Object> metadata, int itemIndex, int pipeIndex, Flow.State state) {
+        var buffer = bufferFor(metadata);
+        synchronized (buffer) {
+            var previousState = buffer.lastState;
+            buffer.metadata = metadata;
+            buffer.lastState = state;
+            buffer.snapshot = new Snapshot(itemIndex, pipeIndex, state);
+
+            if (Objects.nonNull(previousState) && !Objects.equals(previousState, state)) {
+                flushBuffer(buffer);
+            }
+        }
+    }
+
+    @Override
+    public int getLastProcessedItem(Map<String, Object> metadata) {
+        return findSnapshot(metadata)
+                .map(Snapshot::itemIndex)
+                .orElseGet(() -> delegate.getLastProcessedItem(metadata));
+    }
+
+    @Override
+    public int getLastProcessorIndex(Map<String, Object> metadata) {
+        return findSnapshot(metadata)
+                .map(Snapshot::pipeIndex)
+                .orElseGet(() -> delegate.getLastProcessorIndex(metadata));
+    }
+
+    @Override
+    public Flow.State getState(Map<String, Object> metadata) {
+        return findSnapshot(metadata)
+                .map(Snapshot::state)
+                .orElseGet(() -> delegate.getState(metadata));
+    }
+
+    @Override
+    public boolean isChunkProcessed(Map<String, Object> metadata, String hashString) {
+        return delegate.isChunkProcessed(metadata, hashString);
+    }
+
+    /**
+     * Writes the pending state and then the chunk hash, the state the delegate resets to is
+     * read from the delegate afterwards.
+     *
+     * @param metadata   the metadata map
+     * @param hashString the hash string of the chunk
+     */
+    @Override
+    public void setChunkIsProcessed(Map<String, Object> metadata, String hashString) {
+        setChunksAreProcessed(metadata, List.of(hashString));
+    }
+
+    @Override
+    public void setChunksAreProcessed(Map<String, Object> metadata, List<String> hashStrings) {
+        var buffer = bufferFor(metadata);
+        synchronized (buffer) {
+            buffer.metadata = metadata;
+            flushSnapshot(buffer);
+            delegate.setChunksAreProcessed(metadata, hashStrings);
+        }
+    }
+
+    /**
+     * Writes the pending state of the flow and drops its buffer, called once the flow run is over.
+     * The buffer is kept for the next flush when the write fails.
+     *
+     * @param metadata the metadata map
+     */
+    public void release(Map<String, Object> metadata) {
+        var key = keyResolver.apply(metadata);
+        var buffer = buffers.get(key);
+        if (Objects.isNull(buffer)) {
+            return;
+        }
+
+        synchronized (buffer) {
+            flushBuffer(buffer);
+            if (Objects.isNull(buffer.snapshot)) {
+                buffers.remove(key, buffer);
+            }
+        }
+    }
+
+    /**
+     * Writes all pending changes to the delegate.
+     */
+    public void flush() {
+        buffers.values().forEach(buffer -> {
+            synchronized (buffer) {
+                flushBuffer(buffer);
+            }
+        });
+    }
+
+    /**
+     * Stops the periodic flush and writes all pending changes.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        flush();
+    }
+
+    /* ============= */
+
+    private Buffer bufferFor(Map<String, Object> metadata) {
+        return buffers.computeIfAbsent(keyResolver.apply(metadata), key -> new Buffer());
+    }
+
+    private Optional<Snapshot> findSnapshot(Map<String, Object> metadata) {
+        var buffer = bufferFor(metadata);
+        synchronized (buffer) {
+            return Optional.ofNullable(buffer.snapshot);
+        }
+    }
+
+    private void flushBuffer(Buffer buffer) {
+        try {
+            flushSnapshot(buffer);
+        } catch (Exception e) {
+            log.error("Can't flush state, will retry on next flush: {}", e.getMessage());
+        }
+    }
+
+    private void flushSnapshot(Buffer buffer) {
+        var snapshot = buffer.snapshot;
+        if (Objects.nonNull(snapshot)) {
+            delegate.saveState(buffer.metadata, snapshot.itemIndex(), snapshot.pipeIndex(), snapshot.state());
+            buffer.snapshot = null;
+        }
+    }
+
+    private record Snapshot(int itemIndex, int pipeIndex, Flow.State state) {
+    }
+
+    private static class Buffer {
+
+        private Map<String, Object> metadata;
+        private Flow.State lastState;
+        private Snapshot snapshot;
+
+    }
+
+}
@@ -0,0 +1,115 @@
+package machinum.flow.core;
+
+import machinum.flow.model.Flow;
+
+/**
+ * Hooks called by flow runners to record timings and counts of the execution.
+ * All hooks do nothing by default, implementations bind them to a metrics library.
+ * Hooks are called from the threads processing items, so implementations must be thread safe.
+ */
+public interface FlowMetrics {
+
+    /**
+     * Returns metrics that record nothing.
+     *
+     * @return the no-op metrics
+     */
+    static FlowMetrics noop() {
+        return NoopMetrics.INSTANCE;
+    }
+
+    /**
+     * Called after all items have been processed for a state.
+     *
+     * @param state  the processed state
+     * @param nanos  the time spent on the state
+     * @param failed true if the state was stopped by an exception
+     */
+    default void stateCompleted(Flow.State state, long nanos, boolean failed) {
+    }
+
+    /**
+     * Called before the pipes of a state are applied to an item.
+     *
+     * @param state the state of the item
+     */
+    default void itemStarted(Flow.State state) {
+    }
+
+    /**
+     * Called after the pipes of a state have been applied to an item.
+     *
+     * @param state  the state of the item
+     * @param nanos  the time spent on the item
+     * @param failed true if processing of the item threw an exception
+     */
+    default void itemCompleted(Flow.State state, long nanos, boolean failed) {
+    }
+
+    /**
+     * Called after a pipe has been applied to an item.
+     *
+     * @param state     the state of the pipe
+     * @param pipeIndex the index of the pipe within the state, -1 for windows flushed at the end of the state
+     * @param nanos     the time spent on the pipe
+     * @param outcome   the outcome of the pipe
+     */
+    default void pipeCompleted(Flow.State state, int pipeIndex, long nanos, PipeOutcome outcome) {
+    }
+
+    /**
+     * Called after the contexts of a window have been aggregated.
+     *
+     * @param state    the state of the windowed pipe
+     * @param windowId the id of the window
+     * @param size     the number of aggregated contexts
+     * @param nanos    the time spent on the aggregation
+     */
+    default void windowFlushed(Flow.State state, String windowId, int size, long nanos) {
+    }
+
+    /**
+     * Called after the error strategy of the flow has handled an exception of a pipe.
+     *
+     * @param state     the state of the failed pipe
+     * @param exception the exception of the pipe
+     * @param stopped   true if the error strategy stopped the execution
+     */
+    default void errorHandled(Flow.State state, Exception exception, boolean stopped) {
+    }
+
+    /**
+     * Outcome of a single pipe execution.
+     */
+    enum PipeOutcome {
+
+        /**
+         * The pipe has been applied.
+         */
+        EXECUTED,
+
+        /**
+         * The each-condition of the flow rejected the pipe.
+         */
+        REJECTED,
+
+        /**
+         * The pipe threw an exception.
+         */
+        FAILED,
+
+    }
+
+    /**
+     * Metrics that record nothing.
+     */
+    final class NoopMetrics implements FlowMetrics {
+
+        private static final NoopMetrics INSTANCE = new NoopMetrics();
+
+        private NoopMetrics() {
+        }
+
+    }
+
+}
@@ -11,7 +11,6 @@ import machinum.flow.runner.OneStepRunner.Window;
 import machinum.flow.util.FlowUtil;
 
 import java.time.Duration;
-import java.util.ArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -20,6 +19,7 @@ import static machinum.flow.runner.OneStepRunner.FlowExtensions.aggregate;
 
 /**
  * Builder for configuring states in a flow.
+ * Every added pipe returns a new builder over a new flow, the flow given to the builder stays unchanged.
  *
  * @param <T> The type of items in the flow.
  */
@@ -46,23 +46,20 @@ public class StateBuilder<T> {
      * Adds a stateless pipe to the state.
      *
      * @param action The action to perform.
-     * @return This StateBuilder for chaining.
+     * @return A new StateBuilder for chaining.
      */
     public StateBuilder<T> pipeStateless(Function<FlowContext<T>, FlowContext<T>> action) {
-        getFlow().getStatePipes().computeIfAbsent(state, k -> new ArrayList<>())
-                .add(context -> action.apply(context).preventChanges());
-        return this;
+        return pipe(context -> action.apply(context).preventChanges());
     }
 
     /**
      * Adds a pipe to the state.
      *
      * @param action The action to perform.
-     * @return This StateBuilder for chaining.
+     * @return A new StateBuilder for chaining.
      */
     public StateBuilder<T> pipe(Function<FlowContext<T>, FlowContext<T>> action) {
-        getFlow().getStatePipes().computeIfAbsent(state, k -> new ArrayList<>()).add(action);
-        return this;
+        return new StateBuilder<>(flow.withPipe(state, action), state);
     }
 
     /**
@@ -70,7 +67,7 @@ public class StateBuilder<T> {
      *
      * @param window The window configuration.
      * @param action The aggregation action.
-     * @return This StateBuilder for chaining.
+     * @return A new StateBuilder for chaining.
      */
     public StateBuilder<T> window(Window window, Aggregation<T> action) {
         return pipe(aggregate(window, action));
@@ -79,32 +76,28 @@ public class StateBuilder<T> {
     /**
      * Adds a no-op pipe to the state.
      *
-     * @return This StateBuilder for chaining.
+     * @return A new StateBuilder for chaining.
      */
     public StateBuilder<T> nothing() {
-        getFlow().getStatePipes().computeIfAbsent(state, k -> new ArrayList<>())
-                .add(Function.identity());
-        return this;
+        return pipe(Function.identity());
     }
 
     /**
      * Adds a wait pipe to the state.
      *
      * @param duration The duration to wait.
-     * @return This StateBuilder for chaining.
+     * @return A new StateBuilder for chaining.
      */
     public StateBuilder<T> waitFor(Duration duration) {
-        getFlow().getStatePipes().computeIfAbsent(state, k -> new ArrayList<>())
-                .add(ctx -> {
-                    try {
-                        log.debug("Waiting for {} to cool down GPU", FlowUtil.toString(duration));
-                        TimeUnit.MILLISECONDS.sleep(duration.toMillis());
-                    } catch (InterruptedException e) {
-                        return FlowUtil.rethrow(e);
-                    }
-                    return ctx;
-                });
-        return this;
+        return pipe(ctx -> {
+            try {
+                log.debug("Waiting for {} to cool down GPU", FlowUtil.toString(duration));
+                TimeUnit.MILLISECONDS.sleep(duration.toMillis());
+            } catch (InterruptedException e) {
+                return FlowUtil.rethrow(e);
+            }
+            return ctx;
+        });
     }
 
     /**
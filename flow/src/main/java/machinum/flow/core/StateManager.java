@@ -3,6 +3,7 @@ package machinum.flow.core;
 import lombok.NonNull;
 import machinum.flow.model.Flow;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -64,6 +65,17 @@ public interface StateManager extends StatePersister, ProcessedItemLoader, Proce
         };
     }
 
+    /**
+     * Marks several chunks as processed for the metadata. Implementations backed by a database
+     * should override this method to persist all hashes with a single statement.
+     *
+     * @param metadata     the metadata map
+     * @param hashStrings  the hash strings of the chunks
+     */
+    default void setChunksAreProcessed(Map<String, Object> metadata, List<String> hashStrings) {
+        hashStrings.forEach(hashString -> setChunkIsProcessed(metadata, hashString));
+    }
+
 }
 
 /**
@@ -1,15 +1,16 @@
 package machinum.flow.model;
 
 import lombok.Builder;
-import lombok.Singular;
 import lombok.ToString;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import machinum.flow.core.ErrorStrategy;
+import machinum.flow.core.FlowMetrics;
 import machinum.flow.core.StateBuilder;
 import machinum.flow.core.StateManager;
 import machinum.flow.function.TriFunction;
 import machinum.flow.model.helper.FlowActions;
+import machinum.flow.util.SegmentedList;
 
 import java.util.*;
 import java.util.function.BiConsumer;
@@ -26,6 +27,8 @@ import static machinum.flow.util.FlowUtil.newId;
 /**
  * Represents a flow for processing items through a series of states and actions.
  * This class provides a fluent API for building and configuring flows.
+ * Flows are immutable: every fluent call returns a new flow, which shares the source, metadata and pipes
+ * of the previous one and allocates only the changed part.
  *
  * @param <T> The type of items processed by the flow.
  */
@@ -39,10 +42,8 @@ public class Flow<T> {
     @Builder.Default
     String id = newId("fl-");
 
-    @Singular("source")
     List<T> source;
 
-    @Singular("metadata")
     Map<String, Object> metadata;
 
     @Builder.Default
@@ -79,7 +80,7 @@ public class Flow<T> {
     Function<FlowContext<T>, FlowContext<T>> extendAction = Function.identity();
 
     @Builder.Default
-    Map<State, List<Function<FlowContext<T>, FlowContext<T>>>> statePipes = new LinkedHashMap<>();
+    Map<State, List<Function<FlowContext<T>, FlowContext<T>>>> statePipes = Collections.emptyMap();
 
     @Builder.Default
     Consumer<FlowContext<T>> sinkAction = ctx -> {
@@ -91,6 +92,9 @@ public class Flow<T> {
     @Builder.Default
     ErrorStrategy<T> errorStrategy = defaultStrategy();
 
+    @Builder.Default
+    FlowMetrics metrics = FlowMetrics.noop();
+
     /**
      * Creates a flow from a builder function.
      *
@@ -156,6 +160,16 @@ public class Flow<T> {
         return this.copy(b -> b.errorStrategy(errorStrategy));
     }
 
+    /**
+     * Creates a new flow with the specified metrics.
+     *
+     * @param metrics The metrics to record state, pipe, window and error events to.
+     * @return The new flow.
+     */
+    public Flow<T> withMetrics(FlowMetrics metrics) {
+        return this.copy(b -> b.metrics(metrics));
+    }
+
     /**
      * Maps the flow items using a simple mapper function.
      *
@@ -325,6 +339,22 @@ public class Flow<T> {
         return new StateBuilder<>(this, state);
     }
 
+    /**
+     * Adds a pipe to the specified state. The pipes of other states are shared with this flow.
+     *
+     * @param state  The state to add the pipe to.
+     * @param action The action to perform.
+     * @return The updated flow.
+     */
+    public Flow<T> withPipe(State state, Function<FlowContext<T>, FlowContext<T>> action) {
+        var statePipe = new ArrayList<>(statePipes.getOrDefault(state, List.of()));
+        statePipe.add(action);
+        var pipes = new LinkedHashMap<>(statePipes);
+        pipes.put(state, Collections.unmodifiableList(statePipe));
+
+        return copy(b -> b.statePipes(Collections.unmodifiableMap(pipes)));
+    }
+
     /**
      * Sets the sink action.
      *
@@ -337,20 +367,13 @@ public class Flow<T> {
 
     /**
      * Creates a copy of the flow with modifications.
+     * The copy shares the source, metadata and pipes with this flow until the builder changes them.
      *
      * @param fn The function to modify the builder.
      * @return The modified flow.
      */
     public Flow<T> copy(Function<FlowBuilder<T>, FlowBuilder<T>> fn) {
-        var stateMap = new LinkedHashMap<>(getStatePipes());
-        var metadata = new HashMap<>(getMetadata());
-        var source = new ArrayList<>(getSource());
-        return fn.apply(this.toBuilder()
-                .clearMetadata()
-                .metadata(metadata)
-                .clearSource()
-                .source(source)
-                .statePipes(stateMap)).build();
+        return fn.apply(this.toBuilder()).build();
     }
 
     /**
@@ -373,6 +396,99 @@ public class Flow<T> {
         return FlowActions.isFirstKey(statePipes, initState);
     }
 
+    /* ============= */
+
+    /**
+     * Builder methods for the source and metadata. They keep the {@code @Singular} semantics: items and
+     * entries are added to the current ones. Unchanged source and metadata are passed to the built flow as is.
+     *
+     * @param <T> The type of items in the flow.
+     */
+    public static class FlowBuilder<T> {
+
+        private SegmentedList<T> source = SegmentedList.empty();
+
+        private Metadata metadata = Metadata.EMPTY;
+
+        public FlowBuilder<T> source(T item) {
+            this.source = source.append(item);
+            return this;
+        }
+
+        public FlowBuilder<T> source(Collection<? extends T> items) {
+            this.source = source.appendAll(items);
+            return this;
+        }
+
+        public FlowBuilder<T> clearSource() {
+            this.source = SegmentedList.empty();
+            return this;
+        }
+
+        public FlowBuilder<T> metadata(String key, Object value) {
+            this.metadata = metadata.with(Collections.singletonMap(key, value));
+            return this;
+        }
+
+        public FlowBuilder<T> metadata(Map<? extends String, ?> entries) {
+            this.metadata = metadata.isEmpty() && entries instanceof Metadata shared ? shared : metadata.with(entries);
+            return this;
+        }
+
+        public FlowBuilder<T> clearMetadata() {
+            this.metadata = Metadata.EMPTY;
+            return this;
+        }
+
+    }
+
+    /**
+     * Read-only metadata of a flow, changes copy it into a new instance.
+     */
+    private static final class Metadata extends AbstractMap<String, Object> {
+
+        static final Metadata EMPTY = new Metadata(Collections.emptyMap());
+
+        private final Map<String, Object> entries;
+
+        private Metadata(Map<String, Object> entries) {
+            this.entries = Collections.unmodifiableMap(entries);
+        }
+
+        Metadata with(Map<? extends String, ?> changes) {
+            if (changes.isEmpty()) {
+                return this;
+            }
+            var result = new LinkedHashMap<String, Object>(entries);
+            result.putAll(changes);
+
+            return new Metadata(result);
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return entries.entrySet();
+        }
+
+        @Override
+        public Object get(Object key) {
+            return entries.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return entries.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+
+    }
+
+    /* ============= */
+
     /**
      * Represents a state in the flow.
      */
@@ -387,6 +503,17 @@ public class Flow<T> {
             return new State() {
             };
         }
+
+        /**
+         * Indicates whether items of this state must be processed one after another,
+         * e.g. when a pipe depends on the context produced by the previous item.
+         * Parallel runners always execute such states sequentially.
+         *
+         * @return true if the state must stay sequential, false otherwise.
+         */
+        default boolean isSequential() {
+            return false;
+        }
     }
 
     /**
@@ -3,9 +3,9 @@ package machinum.flow.model;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
 import machinum.flow.exception.ArgumentException;
+import machinum.flow.model.helper.ArgumentStore;
 import machinum.flow.model.helper.FlowContextActions;
 import machinum.flow.model.helper.FlowContextArgs;
-import machinum.flow.util.FlowUtil;
 
 import java.util.*;
 import java.util.function.Consumer;
@@ -25,6 +25,7 @@ import static machinum.flow.util.FlowUtil.newId;
  * It provides methods to manipulate arguments, metadata, and state in an immutable way, returning new instances
  * for modifications. The context includes a unique ID, current flow state, associated flow, metadata map,
  * current item being processed, pipe index, and a list of flow arguments.
+ * Arguments are kept in an immutable {@link ArgumentStore}, which copies share instead of cloning.
  *
  * @param <T> the type of items being processed in the flow
  */
@@ -54,8 +55,35 @@ public class FlowContext<T> implements FlowContextArgs {
 
     private int currentPipeIndex;
 
-    @Singular
-    private List<FlowArgument<?>> arguments = new ArrayList<>();
+    private ArgumentStore argumentStore;
+
+    /**
+     * Returns the arguments of this context.
+     *
+     * @return the store of arguments, never null
+     */
+    public ArgumentStore getArgumentStore() {
+        return Objects.requireNonNullElse(argumentStore, ArgumentStore.empty());
+    }
+
+    /**
+     * Returns the arguments ordered by timestamp (newest first), type, and name.
+     *
+     * @return an unmodifiable list of the arguments
+     */
+    @Override
+    public List<FlowArgument<?>> getArguments() {
+        return getArgumentStore().toList();
+    }
+
+    /**
+     * Replaces all arguments of this context.
+     *
+     * @param arguments the new arguments
+     */
+    public void setArguments(List<FlowArgument<?>> arguments) {
+        this.argumentStore = ArgumentStore.of(arguments);
+    }
 
     /**
      * Retrieves metadata value by name, returning null if not found.
@@ -172,7 +200,7 @@ public class FlowContext<T> implements FlowContextArgs {
      * @return true if there are no arguments, false otherwise
      */
     public boolean isEmpty() {
-        return arguments.isEmpty();
+        return getArgumentStore().isEmpty();
     }
 
     /**
@@ -186,11 +214,11 @@ public class FlowContext<T> implements FlowContextArgs {
     public <U> FlowContext<T> replace(Function<FlowContext<? super T>, FlowArgument<? extends U>> extractor,
                                       FlowArgument<U> newArgument) {
         var oldArgument = acquireArgument(extractor);
-        var aCopy = copy(Function.identity());
-        aCopy.getArguments().remove(oldArgument);
-        aCopy.getArguments().add(newArgument);
+        var arguments = getArgumentStore()
+                .remove(oldArgument)
+                .add(newArgument);
 
-        return aCopy;
+        return copy(b -> b.argumentStore(arguments));
     }
 
     /**
@@ -276,21 +304,13 @@ public class FlowContext<T> implements FlowContextArgs {
 
     /**
      * Creates a copy of the FlowContext, applying the provided function to the builder.
-     * The arguments are copied, deduplicated, and sorted by name, type, and timestamp.
+     * The arguments are shared with this context, they are deduplicated and ordered by the store.
      *
      * @param fn a function to modify the FlowContextBuilder
      * @return a new FlowContext copy
      */
     public FlowContext<T> copy(Function<FlowContextBuilder<T>, FlowContextBuilder<T>> fn) {
-        var result = fn.apply(toBuilder()).build();
-        result.setArguments(new HashSet<>(result.getArguments()).stream()
-                .map(FlowArgument::copy)
-                .sorted(Comparator.comparing(FlowArgument::getName))
-                .sorted(Comparator.comparing(FlowArgument::getType))
-                .sorted(FlowUtil.comparingReverse(FlowArgument::getTimestamp))
-                .collect(Collectors.toList()));
-
-        return result;
+        return fn.apply(toBuilder()).build();
     }
 
     /**
@@ -427,22 +447,13 @@ public class FlowContext<T> implements FlowContextArgs {
      * @return a new FlowContext with the arguments removed
      */
     public FlowContext<T> removeArgs(List<FlowArgument<?>> args) {
-        var localArgs = getArguments().stream()
-                .filter(localArg -> {
-                    for (FlowArgument<?> arg : args) {
-                        boolean namesAreEqual = localArg.getName().equals(arg.getName());
-                        boolean typesAreEqual = localArg.getType().equals(arg.getType());
-
-                        if (namesAreEqual && typesAreEqual) {
-                            return false;
-                        }
-                    }
-
-                    return true;
-                })
-                .collect(Collectors.toList());
+        var localArgs = getArgumentStore();
+        for (var arg : args) {
+            localArgs = localArgs.remove(arg.getName(), arg.getType());
+        }
 
-        return copy(b -> b.clearArguments().arguments(localArgs));
+        var result = localArgs;
+        return copy(b -> b.argumentStore(result));
     }
 
     /**
@@ -494,10 +505,7 @@ public class FlowContext<T> implements FlowContextArgs {
      * @return a new FlowContext with the arguments added
      */
     public FlowContext<T> addArgs(FlowArgument<?>... args) {
-        var localArgs = new ArrayList<>(List.of(args));
-        localArgs.addAll(getArguments());
-
-        return copy(b -> b.clearArguments().arguments(localArgs));
+        return copy(b -> b.arguments(List.of(args)));
     }
 
     /**
@@ -506,11 +514,10 @@ public class FlowContext<T> implements FlowContextArgs {
      * @return a new FlowContext without ephemeral arguments
      */
     public FlowContext<T> withoutEphemeralArgs() {
-        var newArgs = getArguments().stream()
-                .filter(arg -> !arg.isEphemeral())
-                .collect(Collectors.toList());
+        var newArgs = getArgumentStore()
+                .removeIf(FlowArgument::isEphemeral);
 
-        return copy(b -> b.clearArguments().arguments(newArgs));
+        return copy(b -> b.argumentStore(newArgs));
     }
 
     /**
@@ -642,6 +649,19 @@ public class FlowContext<T> implements FlowContextArgs {
         return result ? Optional.of(acquireArgument(extractor)) : Optional.empty();
     }
 
+    /**
+     * Finds the newest non-empty argument by name and type with an indexed lookup.
+     *
+     * @param <U>  the type of the argument value
+     * @param name the name of the argument
+     * @param flag the type of the argument
+     * @return an Optional containing the argument, or empty if not found
+     */
+    @Override
+    public <U> Optional<FlowArgument<U>> findArgument(String name, String flag) {
+        return getArgumentStore().find(name, flag);
+    }
+
     /**
      * Resolves an argument using the provided extractor.
      *
@@ -669,4 +689,35 @@ public class FlowContext<T> implements FlowContextArgs {
         }
     }
 
+    /* ============= */
+
+    /**
+     * Builder methods for arguments, they keep the {@code @Singular} semantics of the former list:
+     * {@code argument} and {@code arguments} add to the current arguments, {@code clearArguments} drops them.
+     *
+     * @param <T> the type of items being processed in the flow
+     */
+    public static class FlowContextBuilder<T> {
+
+        public FlowContextBuilder<T> argument(FlowArgument<?> argument) {
+            this.argumentStore = store().add(argument);
+            return this;
+        }
+
+        public FlowContextBuilder<T> arguments(Collection<? extends FlowArgument<?>> arguments) {
+            this.argumentStore = store().addAll(arguments);
+            return this;
+        }
+
+        public FlowContextBuilder<T> clearArguments() {
+            this.argumentStore = ArgumentStore.empty();
+            return this;
+        }
+
+        private ArgumentStore store() {
+            return Objects.requireNonNullElse(argumentStore, ArgumentStore.empty());
+        }
+
+    }
+
 }
@@ -1,6 +1,9 @@
 package machinum.flow.model;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.zip.CRC32;
 
@@ -29,6 +32,28 @@ public interface HashSupport {
         return String.format("%08x", hash);
     }
 
+    /**
+     * Hashes a string to a 128-bit value (the first half of a SHA-256 digest) and returns
+     * the result as a hexadecimal string. Suitable for cache keys, where CRC-32 collides too often.
+     *
+     * @param input the string to hash
+     * @return 32 character hexadecimal string, or null if input is null
+     */
+    static String hashStringWith128Bit(String input) {
+        if (input == null) {
+            return null;
+        }
+
+        try {
+            var digest = MessageDigest.getInstance("SHA-256")
+                    .digest(input.getBytes(StandardCharsets.UTF_8));
+
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
     /**
      * Returns a list of string values that should be included in the hash calculation.
      * Implementing classes should provide the values that uniquely identify the object.
@@ -0,0 +1,225 @@
+package machinum.flow.model.helper;
+
+import machinum.flow.model.FlowArgument;
+import machinum.flow.util.FlowUtil;
+import machinum.flow.util.PersistentMap;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Immutable set of flow arguments indexed by name, type and ephemeral flag. Every change returns a new store
+ * that shares the untouched entries with this one, so contexts copy their arguments by reference and lookups
+ * don't scan the whole list.
+ *
+ * <p>Arguments with the same key are kept newest first, an argument equal to a present one replaces it.</p>
+ */
+public final class ArgumentStore {
+
+    private static final ArgumentStore EMPTY = new ArgumentStore(PersistentMap.empty(), 0);
+
+    private static final Comparator<FlowArgument<?>> ORDER = FlowUtil.<FlowArgument<?>, Instant>comparingReverse(FlowArgument::getTimestamp)
+            .thenComparing(FlowArgument::getType)
+            .thenComparing(FlowArgument::getName);
+
+    private static final FlowArgument<?>[] NO_ARGUMENTS = new FlowArgument<?>[0];
+
+    private final PersistentMap<Key, FlowArgument<?>[]> entries;
+
+    private final int size;
+
+    private volatile List<FlowArgument<?>> list;
+
+    private ArgumentStore(PersistentMap<Key, FlowArgument<?>[]> entries, int size) {
+        this.entries = entries;
+        this.size = size;
+    }
+
+    public static ArgumentStore empty() {
+        return EMPTY;
+    }
+
+    public static ArgumentStore of(Collection<? extends FlowArgument<?>> arguments) {
+        return EMPTY.addAll(arguments);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return a store with the argument added, or with it in place of an equal argument
+     */
+    public ArgumentStore add(FlowArgument<?> argument) {
+        var key = Key.of(argument);
+        var bucket = Objects.requireNonNullElse(entries.get(key), NO_ARGUMENTS);
+        for (int i = 0; i < bucket.length; i++) {
+            if (bucket[i] == argument) {
+                return this;
+            } else if (bucket[i].equals(argument)) {
+                // Equality ignores the value, a mapped copy of an argument replaces it
+                var newBucket = bucket.clone();
+                newBucket[i] = argument;
+                return new ArgumentStore(entries.put(key, newBucket), size);
+            }
+        }
+
+        // Keep the bucket ordered by timestamp, a new argument goes before older ones of the same time
+        int position = 0;
+        while (position < bucket.length && bucket[position].getTimestamp().isAfter(argument.getTimestamp())) {
+            position++;
+        }
+        var newBucket = new FlowArgument<?>[bucket.length + 1];
+        System.arraycopy(bucket, 0, newBucket, 0, position);
+        newBucket[position] = argument;
+        System.arraycopy(bucket, position, newBucket, position + 1, bucket.length - position);
+
+        return new ArgumentStore(entries.put(key, newBucket), size + 1);
+    }
+
+    public ArgumentStore addAll(Collection<? extends FlowArgument<?>> arguments) {
+        var result = this;
+        for (var argument : arguments) {
+            result = result.add(argument);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return a store without the given argument, or this store if it is absent
+     */
+    public ArgumentStore remove(FlowArgument<?> argument) {
+        var key = Key.of(argument);
+        var bucket = entries.get(key);
+        if (Objects.isNull(bucket)) {
+            return this;
+        }
+
+        for (int i = 0; i < bucket.length; i++) {
+            if (bucket[i].equals(argument)) {
+                if (bucket.length == 1) {
+                    return new ArgumentStore(entries.remove(key), size - 1);
+                }
+                var newBucket = new FlowArgument<?>[bucket.length - 1];
+                System.arraycopy(bucket, 0, newBucket, 0, i);
+                System.arraycopy(bucket, i + 1, newBucket, i, bucket.length - i - 1);
+                return new ArgumentStore(entries.put(key, newBucket), size - 1);
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * @return a store without the arguments of the given name and type, ephemeral or not
+     */
+    public ArgumentStore remove(String name, String type) {
+        var result = this;
+        for (var key : Key.of(name, type)) {
+            var bucket = result.entries.get(key);
+            if (Objects.nonNull(bucket)) {
+                result = new ArgumentStore(result.entries.remove(key), result.size - bucket.length);
+            }
+        }
+
+        return result;
+    }
+
+    public ArgumentStore removeIf(Predicate<FlowArgument<?>> predicate) {
+        var result = this;
+        for (var argument : toList()) {
+            if (predicate.test(argument)) {
+                result = result.remove(argument);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the newest non-empty argument of the given name and type
+     */
+    @SuppressWarnings("unchecked")
+    public <U> Optional<FlowArgument<U>> find(String name, String type) {
+        FlowArgument<?> result = null;
+        for (var key : Key.of(name, type)) {
+            var bucket = entries.get(key);
+            if (Objects.isNull(bucket)) {
+                continue;
+            }
+            for (var argument : bucket) {
+                if (!argument.isEmpty()) {
+                    if (Objects.isNull(result) || ORDER.compare(argument, result) < 0) {
+                        result = argument;
+                    }
+                    break;
+                }
+            }
+        }
+
+        return Optional.ofNullable((FlowArgument<U>) result);
+    }
+
+    /**
+     * @return an unmodifiable list of all arguments, newest first, then by type and name
+     */
+    public List<FlowArgument<?>> toList() {
+        var result = list;
+        if (Objects.isNull(result)) {
+            var arguments = new ArrayList<FlowArgument<?>>(size);
+            entries.forEach((key, bucket) -> arguments.addAll(Arrays.asList(bucket)));
+            arguments.sort(ORDER);
+            result = Collections.unmodifiableList(arguments);
+            list = result;
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ArgumentStore other) || size != other.size || entries.size() != other.entries.size()) {
+            return false;
+        }
+
+        var equal = new boolean[]{true};
+        entries.forEach((key, bucket) -> equal[0] &= Arrays.equals(bucket, other.entries.get(key)));
+        return equal[0];
+    }
+
+    @Override
+    public int hashCode() {
+        var hash = new int[1];
+        entries.forEach((key, bucket) -> hash[0] += key.hashCode() ^ Arrays.hashCode(bucket));
+        return hash[0];
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+
+    /* ============= */
+
+    private record Key(String name, String type, boolean ephemeral) {
+
+        static Key of(FlowArgument<?> argument) {
+            return new Key(argument.getName(), argument.getType(), argument.isEphemeral());
+        }
+
+        static Key[] of(String name, String type) {
+            return new Key[]{new Key(name, type, false), new Key(name, type, true)};
+        }
+
+    }
+
+}
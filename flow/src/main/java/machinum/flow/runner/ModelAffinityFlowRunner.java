@@ -0,0 +1,453 @@
+package machinum.flow.runner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import machinum.flow.core.FlowRunner;
+import machinum.flow.core.StateManager;
+import machinum.flow.model.Flow;
+import machinum.flow.model.Flow.State;
+import machinum.flow.model.FlowContext;
+import machinum.flow.model.HashSupport;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+import static machinum.flow.constant.FlowConstants.*;
+import static machinum.flow.model.HashSupport.hashStringWithCRC32;
+
+/**
+ * Implementation of FlowRunner that schedules (item, state) work by the model a state runs on.
+ * Every item walks the states of the flow in order, but instead of pushing a fixed chunk through all
+ * states, the runner keeps draining the work of the currently loaded model across as many items as
+ * dependencies allow, and only switches to another model when nothing is left for the current one.
+ * This keeps the number of model loads close to the number of model changes in the state order,
+ * instead of multiplying it by the number of chunks.
+ *
+ * <p>Dependencies:</p>
+ * <ul>
+ *   <li>An item runs its states in the flow order</li>
+ *   <li>A {@link State#isSequential()} state of an item runs after the same state of the previous item</li>
+ *   <li>Only items within {@code lookahead} of the first unfinished item are scheduled</li>
+ *   <li>States resolved to an empty model (external APIs, cooldowns) run whenever they are ready</li>
+ * </ul>
+ *
+ * <p>Each group of consecutive items is executed with the delegate runner on a sub-flow, then every item
+ * of the group is marked as a processed chunk of its state. The saved flow state is the earliest state an
+ * unfinished item still needs, so a restarted flow resumes from it and every item skips the states it
+ * has already finished.</p>
+ *
+ * @param <T> the type of items being processed in the flow
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ModelAffinityFlowRunner<T> implements FlowRunner<T> {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * The runner that executes one state of a sub-flow, e.g. {@link ParallelStepRunner}.
+     */
+    private final FlowRunner<T> stepRunner;
+
+    /**
+     * Resolves the model a state runs on, an empty value means the state doesn't load a model.
+     */
+    private final Function<State, String> modelResolver;
+
+    /**
+     * Maximum distance between the first unfinished item and the items that may be scheduled.
+     */
+    private final int lookahead;
+
+    /**
+     * Receives model switches and load times.
+     */
+    private final Listener listener;
+
+    /**
+     * Executes all states of the flow for every item, starting from the specified state.
+     *
+     * @param initialState the state every item starts from
+     */
+    @Override
+    public void run(@NonNull State initialState) {
+        log.debug("Executing flow with model affinity from given state: {}, lookahead={}", initialState, lookahead);
+        try {
+            doRun(initialState);
+        } finally {
+            log.debug("Executed flow with model affinity from given state: {}", initialState);
+        }
+    }
+
+    @Override
+    public Flow<T> getFlow() {
+        return stepRunner.getFlow();
+    }
+
+    /* ============= */
+
+    private void doRun(State initialState) {
+        var flow = stepRunner.getFlow().metadata(EXTEND_ENABLED, Boolean.TRUE);
+        var stateManager = flow.getStateManager();
+        var metadata = flow.getMetadata();
+        var schedule = new Schedule<>(flow, initialState, modelResolver, Math.max(lookahead, 1),
+                (state, item) -> stateManager.isChunkProcessed(metadata, hashItem(state, item)));
+        String currentModel = null;
+        State savedState = null;
+
+        Group group;
+        while ((group = schedule.next(currentModel)) != null) {
+            // Every unfinished item is at this state or after it, so a restart from it loses nothing
+            var lowestState = schedule.lowestState();
+            if (!lowestState.equals(savedState)) {
+                stateManager.saveState(metadata, 0, 0, lowestState);
+                savedState = lowestState;
+            }
+
+            var switched = !group.model().isEmpty() && !group.model().equals(currentModel);
+            execute(flow, group, switched);
+            if (switched) {
+                if (Objects.nonNull(currentModel)) {
+                    log.info("Switched model: {} -> {}", currentModel, group.model());
+                    listener.onSwitch(currentModel, group.model());
+                }
+                currentModel = group.model();
+            }
+
+            schedule.complete(group);
+        }
+    }
+
+    private void execute(Flow<T> flow, Group group, boolean switched) {
+        var stateManager = flow.getStateManager();
+        var metadata = flow.getMetadata();
+        var source = flow.getSource();
+        var items = source.subList(group.from(), group.to());
+
+        log.debug("Executing group: {}[{}..{}), model={}", group.state(), group.from(), group.to(), group.model());
+        var previous = group.from() > 0 ? List.of(source.get(group.from() - 1)) : List.<T>of();
+        var startedAt = System.nanoTime();
+        var firstItem = new AtomicBoolean(switched);
+        var subFlow = flow.copy(b -> {
+            b.clearSource();
+            b.source(items);
+            b.stateManager(new GroupStateManager(stateManager));
+            b.metadata(PROCESSED_CHUNKS, previous.isEmpty() ? List.of() : List.of(hashItem(group.state(), previous.getFirst())));
+            b.metadata(PROCESSED_CHUNK, previous);
+            b.aroundEachStateAction(measureFirstItem(flow, group, startedAt, firstItem));
+
+            return b;
+        });
+
+        stepRunner.recreate(subFlow, Runnable::run)
+                .run(group.state());
+
+        stateManager.setChunksAreProcessed(metadata, items.stream()
+                .map(item -> hashItem(group.state(), item))
+                .toList());
+    }
+
+    /**
+     * The first item after a model switch includes the time the model needs to load, so its duration,
+     * counted from the start of the group, is reported as the load time.
+     */
+    private BiConsumer<FlowContext<T>, Runnable> measureFirstItem(Flow<T> flow, Group group, long startedAt,
+                                                                  AtomicBoolean firstItem) {
+        var origin = flow.getAroundEachStateAction();
+
+        return (ctx, action) -> origin.accept(ctx, () -> {
+            action.run();
+            if (firstItem.compareAndSet(true, false)) {
+                listener.onLoad(group.model(), Duration.ofNanos(System.nanoTime() - startedAt));
+            }
+        });
+    }
+
+    @SneakyThrows
+    private String hashItem(State state, T item) {
+        if (item instanceof HashSupport hashSupport) {
+            return hashStringWithCRC32(state + ":" + hashSupport.hash());
+        } else {
+            return hashStringWithCRC32(state + ":" + OBJECT_MAPPER.writeValueAsString(item));
+        }
+    }
+
+    /* ============= */
+
+    /**
+     * Receives scheduling events of the runner.
+     */
+    public interface Listener {
+
+        /**
+         * Called when the runner moves from one model to another.
+         *
+         * @param from the previous model
+         * @param to   the next model
+         */
+        void onSwitch(String from, String to);
+
+        /**
+         * Called when the first item after a model switch is processed.
+         *
+         * @param model    the loaded model
+         * @param duration time from the start of the group till the end of its first item
+         */
+        void onLoad(String model, Duration duration);
+
+    }
+
+    /**
+     * Listener that aggregates switches and load times in memory.
+     */
+    public static class SwitchStats implements Listener {
+
+        private final LongAdder switches = new LongAdder();
+        private final Map<String, ModelStats> models = new ConcurrentHashMap<>();
+
+        @Override
+        public void onSwitch(String from, String to) {
+            switches.increment();
+            models.computeIfAbsent(to, key -> new ModelStats()).switches.increment();
+        }
+
+        @Override
+        public void onLoad(String model, Duration duration) {
+            var stats = models.computeIfAbsent(model, key -> new ModelStats());
+            var millis = duration.toMillis();
+            stats.loads.increment();
+            stats.loadMillis.add(millis);
+            stats.maxLoadMillis.accumulateAndGet(millis, Math::max);
+        }
+
+        public long getSwitches() {
+            return switches.sum();
+        }
+
+        /**
+         * @return aggregates per model, ordered by model name
+         */
+        public List<ModelSnapshot> snapshot() {
+            return models.entrySet().stream()
+                    .map(entry -> new ModelSnapshot(entry.getKey(), entry.getValue().switches.sum(),
+                            entry.getValue().loads.sum(), entry.getValue().loadMillis.sum(),
+                            entry.getValue().maxLoadMillis.get()))
+                    .sorted(Comparator.comparing(ModelSnapshot::model))
+                    .toList();
+        }
+
+        private static class ModelStats {
+
+            private final LongAdder switches = new LongAdder();
+            private final LongAdder loads = new LongAdder();
+            private final LongAdder loadMillis = new LongAdder();
+            private final AtomicLong maxLoadMillis = new AtomicLong();
+
+        }
+
+    }
+
+    /**
+     * @param model         the model name
+     * @param switches      number of switches to the model
+     * @param loads         number of measured loads
+     * @param loadMillis    summary of the measured load times
+     * @param maxLoadMillis the longest measured load
+     */
+    public record ModelSnapshot(String model, long switches, long loads, long loadMillis, long maxLoadMillis) {
+    }
+
+    /**
+     * State manager of a group sub-flow. The flow state is published by the runner itself, so the sub-flow
+     * always starts from its first item and its save requests are ignored.
+     */
+    @RequiredArgsConstructor
+    private static class GroupStateManager implements StateManager {
+
+        private final StateManager delegate;
+
+        @Override
+        public void saveState(Map<String, Object> metadata, int itemIndex, int pipeIndex, State state) {
+            //ignore
+        }
+
+        @Override
+        public int getLastProcessedItem(Map<String, Object> metadata) {
+            return 0;
+        }
+
+        @Override
+        public int getLastProcessorIndex(Map<String, Object> metadata) {
+            return 0;
+        }
+
+        @Override
+        public State getState(Map<String, Object> metadata) {
+            return delegate.getState(metadata);
+        }
+
+        @Override
+        public boolean isChunkProcessed(Map<String, Object> metadata, String hashString) {
+            return delegate.isChunkProcessed(metadata, hashString);
+        }
+
+        @Override
+        public void setChunkIsProcessed(Map<String, Object> metadata, String hashString) {
+            delegate.setChunkIsProcessed(metadata, hashString);
+        }
+
+    }
+
+    /**
+     * Consecutive items {@code [from, to)} that run the same state.
+     */
+    record Group(State state, String model, int from, int to) {
+    }
+
+    /**
+     * Tracks the next state of every item and picks the groups to run.
+     */
+    static class Schedule<T> {
+
+        private final List<State> states;
+        private final String[] models;
+        private final List<T> items;
+        private final BiPredicate<State, T> processed;
+        private final int[] cursors;
+        private final int lookahead;
+        private int low;
+
+        /**
+         * @param processed tells whether the state of an item has already been processed, such states are skipped
+         */
+        Schedule(Flow<T> flow, State initialState, Function<State, String> modelResolver, int lookahead,
+                 BiPredicate<State, T> processed) {
+            this.states = new ArrayList<>(flow.getStatePipes().keySet());
+            this.models = states.stream()
+                    .map(modelResolver)
+                    .map(model -> Objects.requireNonNullElse(model, "").trim())
+                    .toArray(String[]::new);
+            this.items = flow.getSource();
+            this.processed = processed;
+            this.cursors = new int[items.size()];
+            this.lookahead = lookahead;
+
+            var initialIndex = Math.max(states.indexOf(initialState), 0);
+            for (int i = 0; i < cursors.length; i++) {
+                advance(i, initialIndex);
+            }
+        }
+
+        /**
+         * Picks the next group: ready states without a model first, then the earliest ready state of the
+         * current model, then the earliest ready state of the model with the most ready items.
+         *
+         * @param currentModel the loaded model, may be {@code null}
+         * @return the group or {@code null} when every item is finished
+         */
+        Group next(String currentModel) {
+            while (low < cursors.length && cursors[low] >= states.size()) {
+                low++;
+            }
+            if (low == cursors.length) {
+                return null;
+            }
+
+            var ready = readyItems();
+            var readyPerModel = new HashMap<String, Integer>();
+            var firstState = new TreeMap<Integer, Integer>();
+            for (int i = low; i < ready.length; i++) {
+                if (ready[i]) {
+                    readyPerModel.merge(models[cursors[i]], 1, Integer::sum);
+                    firstState.putIfAbsent(cursors[i], i);
+                }
+            }
+
+            var model = readyPerModel.containsKey("") ? "" : currentModel;
+            if (!readyPerModel.containsKey(model)) {
+                model = readyPerModel.entrySet().stream()
+                        .max(Map.Entry.<String, Integer>comparingByValue()
+                                .thenComparing(entry -> -firstReadyState(firstState, entry.getKey())))
+                        .map(Map.Entry::getKey)
+                        .orElseThrow();
+            }
+
+            var stateIndex = firstReadyState(firstState, model);
+            var from = firstState.get(stateIndex);
+            var to = from;
+            while (to < ready.length && ready[to] && cursors[to] == stateIndex) {
+                to++;
+            }
+
+            return new Group(states.get(stateIndex), model, from, to);
+        }
+
+        /**
+         * Moves the items of the group to their next state.
+         */
+        void complete(Group group) {
+            var stateIndex = states.indexOf(group.state());
+            for (int i = group.from(); i < group.to(); i++) {
+                advance(i, stateIndex + 1);
+            }
+        }
+
+        /**
+         * @return the earliest state of the unfinished items, must be called while an item is unfinished
+         */
+        State lowestState() {
+            var lowest = states.size() - 1;
+            for (int i = low; i < cursors.length; i++) {
+                if (cursors[i] < lowest) {
+                    lowest = cursors[i];
+                }
+            }
+
+            return states.get(lowest);
+        }
+
+        private void advance(int item, int stateIndex) {
+            while (stateIndex < states.size() && processed.test(states.get(stateIndex), items.get(item))) {
+                stateIndex++;
+            }
+            cursors[item] = stateIndex;
+        }
+
+        private boolean[] readyItems() {
+            var end = (int) Math.min(cursors.length, (long) low + lookahead);
+            var ready = new boolean[end];
+            for (int i = low; i < end; i++) {
+                var stateIndex = cursors[i];
+                if (stateIndex >= states.size()) {
+                    continue;
+                }
+
+                // A sequential state may follow the previous item when both run in the same group
+                ready[i] = !states.get(stateIndex).isSequential() || i == 0
+                        || cursors[i - 1] > stateIndex
+                        || (ready[i - 1] && cursors[i - 1] == stateIndex);
+            }
+
+            return ready;
+        }
+
+        private int firstReadyState(TreeMap<Integer, Integer> firstState, String model) {
+            return firstState.keySet().stream()
+                    .filter(stateIndex -> models[stateIndex].equals(model))
+                    .findFirst()
+                    .orElse(Integer.MAX_VALUE);
+        }
+
+    }
+
+}
@@ -2,6 +2,8 @@ package machinum.flow.runner;
 
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
+import machinum.flow.core.FlowMetrics;
+import machinum.flow.core.FlowMetrics.PipeOutcome;
 import machinum.flow.core.FlowRunner;
 import machinum.flow.core.StateManager;
 import machinum.flow.exception.AppFlowException;
@@ -60,6 +62,10 @@ public class OneStepRunner<T> implements FlowRunner<T> {
     @Override
     public void run(@NonNull Flow.State currentState) {
         log.debug("Executing flow for given state: {}", currentState);
+        executeFlow(createRunnerContext(currentState));
+    }
+
+    RunnerContext<T> createRunnerContext(Flow.State currentState) {
         var sm = flow.getStateManager();
         var metadata = flow.getMetadata();
         var extendEnabled = (Boolean) metadata.getOrDefault(EXTEND_ENABLED, Boolean.FALSE);
@@ -69,7 +75,7 @@ public class OneStepRunner<T> implements FlowRunner<T> {
                 .flow(flow.copy(Function.identity()))
         ));
 
-        var runnerContext = RunnerContext.<T>of(b -> b
+        return RunnerContext.<T>of(b -> b
                 .flow(flow.copy(Function.identity()))
                 .currentState(currentState)
                 .sm(sm)
@@ -77,8 +83,6 @@ public class OneStepRunner<T> implements FlowRunner<T> {
                 .extendEnabled(extendEnabled)
                 .flowContextRef(flowContextRef)
                 .windowBuffer(new WindowBuffer<>()));
-
-        executeFlow(runnerContext);
     }
 
     private void executeFlow(RunnerContext<T> runnerContext) {
@@ -109,14 +113,14 @@ public class OneStepRunner<T> implements FlowRunner<T> {
         updateNextState(runnerContext);
     }
 
-    private void flushWindows(RunnerContext<T> runnerContext) {
+    void flushWindows(RunnerContext<T> runnerContext) {
         var state = runnerContext.getCurrentState();
         runnerContext.getWindowBuffer().getAllWindows().forEach((windowId, contexts) -> {
             if (!contexts.isEmpty()) {
                 var pipe = runnerContext.getWindowPipe(windowId);
                 if (pipe != null) {
                     try {
-                        processSinglePipe(runnerContext, -1, -1, ctx -> pipe.aggregate(contexts), state);
+                        processWindow(runnerContext, -1, -1, pipe, contexts, state);
                     } catch (Exception e) {
                         handlePipeException(runnerContext, e);
                     }
@@ -126,7 +130,7 @@ public class OneStepRunner<T> implements FlowRunner<T> {
         runnerContext.getWindowBuffer().clear();
     }
 
-    private void prepareContext(RunnerContext<T> runnerContext, T originItem) {
+    void prepareContext(RunnerContext<T> runnerContext, T originItem) {
         if (runnerContext.isExtendEnabled()) {
             var extendContext = runnerContext.getFlowContext();
             runnerContext.updateFlowContext(runnerContext.executeExtendAction(extendContext));
@@ -136,7 +140,21 @@ public class OneStepRunner<T> implements FlowRunner<T> {
         runnerContext.updateFlowContext(bootstrapContext);
     }
 
-    private void processItem(RunnerContext<T> runnerContext, int itemIndex, int startPipeIndex) {
+    void processItem(RunnerContext<T> runnerContext, int itemIndex, int startPipeIndex) {
+        var metrics = runnerContext.getMetrics();
+        var state = runnerContext.getCurrentState();
+        var start = System.nanoTime();
+        var failed = true;
+        metrics.itemStarted(state);
+        try {
+            doProcessItem(runnerContext, itemIndex, startPipeIndex);
+            failed = false;
+        } finally {
+            metrics.itemCompleted(state, System.nanoTime() - start, failed);
+        }
+    }
+
+    private void doProcessItem(RunnerContext<T> runnerContext, int itemIndex, int startPipeIndex) {
         var itemFromSource = runnerContext.getItem(itemIndex);
         var refreshContext = runnerContext.getFlowContext().withCurrentItem(itemFromSource);
         var itemAfterRefresh = runnerContext.executeRefreshAction(refreshContext);
@@ -194,7 +212,7 @@ public class OneStepRunner<T> implements FlowRunner<T> {
             var contexts = new ArrayList<>(window);
 
             // Process the aggregated result
-            processSinglePipe(runnerContext, itemIndex, pipeIndex, ctx -> windowedPipe.aggregate(contexts), state);
+            processWindow(runnerContext, itemIndex, pipeIndex, windowedPipe, contexts, state);
 
             // Apply sliding window logic - remove elements based on slide
             int slideSize = windowedPipe.getWindow().getSlide();
@@ -215,10 +233,28 @@ public class OneStepRunner<T> implements FlowRunner<T> {
         return false;
     }
 
+    private void processWindow(RunnerContext<T> runnerContext, int itemIndex, int pipeIndex,
+                               WindowedPipe<T> windowedPipe, List<FlowContext<T>> contexts, Flow.State state) {
+        var start = System.nanoTime();
+        processSinglePipe(runnerContext, itemIndex, pipeIndex, ctx -> windowedPipe.aggregate(contexts), state);
+        runnerContext.getMetrics().windowFlushed(state, windowedPipe.getWindowId(), contexts.size(), System.nanoTime() - start);
+    }
+
     private FlowContext<T> processSinglePipe(RunnerContext<T> runnerContext, int itemIndex, int pipeIndex,
                                              Function<FlowContext<T>, FlowContext<T>> pipe, Flow.State state) {
+        var start = System.nanoTime();
+        var outcome = PipeOutcome.FAILED;
+        try {
+            var output = doProcessSinglePipe(runnerContext, itemIndex, pipeIndex, pipe, state);
+            outcome = output.rejected() ? PipeOutcome.REJECTED : PipeOutcome.EXECUTED;
+            return output.context();
+        } finally {
+            runnerContext.getMetrics().pipeCompleted(state, pipeIndex, System.nanoTime() - start, outcome);
+        }
+    }
 
-
+    private PipeOutput<T> doProcessSinglePipe(RunnerContext<T> runnerContext, int itemIndex, int pipeIndex,
+                                              Function<FlowContext<T>, FlowContext<T>> pipe, Flow.State state) {
         var context = runnerContext.getFlowContext().withCurrentPipeIndex(pipeIndex);
         var result = runnerContext.executeAroundEachCondition(context);
 
@@ -243,7 +279,7 @@ public class OneStepRunner<T> implements FlowRunner<T> {
             runnerContext.saveCurrentState(itemIndex, pipeIndex + 1, state);
         }
 
-        return output;
+        return new PipeOutput<>(output, !result.testResult());
     }
 
     private void handlePipeException(RunnerContext<T> runnerContext, Exception e) {
@@ -255,7 +291,7 @@ public class OneStepRunner<T> implements FlowRunner<T> {
         runnerContext.handleError(e);
     }
 
-    private void updateNextState(RunnerContext<T> runnerContext) {
+    void updateNextState(RunnerContext<T> runnerContext) {
         var nextState = runnerContext.resolveNextState(runnerContext.getCurrentState());
         if (Objects.nonNull(nextState)) {
             runnerContext.saveCurrentState(0, 0, nextState);
@@ -278,6 +314,16 @@ public class OneStepRunner<T> implements FlowRunner<T> {
 
     /* ============= */
 
+    /**
+     * Result of a single pipe execution.
+     *
+     * @param context  the context produced by the pipe
+     * @param rejected true if the each-condition rejected the pipe
+     * @param <T>      the type of items being processed
+     */
+    private record PipeOutput<T>(FlowContext<T> context, boolean rejected) {
+    }
+
     /**
      * Window definition to be used with aggregate operations.
      * Defines different types of windows for data aggregation including
@@ -602,7 +648,7 @@ public class OneStepRunner<T> implements FlowRunner<T> {
     @Value
     @AllArgsConstructor
     @Builder(toBuilder = true)
-    private static class RunnerContext<T> {
+    static class RunnerContext<T> {
 
         /**
          * The flow configuration being executed.
@@ -681,7 +727,14 @@ public class OneStepRunner<T> implements FlowRunner<T> {
         }
 
         public void executeAroundAllAction(Runnable action) {
-            getFlow().getAroundAllAction().accept(getFlowContext(), action);
+            var start = System.nanoTime();
+            var failed = true;
+            try {
+                getFlow().getAroundAllAction().accept(getFlowContext(), action);
+                failed = false;
+            } finally {
+                getMetrics().stateCompleted(currentState, System.nanoTime() - start, failed);
+            }
         }
 
         public void executeAfterAllAction() {
@@ -734,7 +787,17 @@ public class OneStepRunner<T> implements FlowRunner<T> {
         }
 
         public void handleError(Exception e) {
-            getFlow().getErrorStrategy().handleError(getFlowContext(), e);
+            var stopped = true;
+            try {
+                getFlow().getErrorStrategy().handleError(getFlowContext(), e);
+                stopped = false;
+            } finally {
+                getMetrics().errorHandled(currentState, e, stopped);
+            }
+        }
+
+        public FlowMetrics getMetrics() {
+            return getFlow().getMetrics();
         }
 
         public Flow.State resolveNextState(Flow.State initState) {
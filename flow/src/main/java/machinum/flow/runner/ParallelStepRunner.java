@@ -0,0 +1,247 @@
+package machinum.flow.runner;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import machinum.flow.core.FlowRunner;
+import machinum.flow.core.StateManager;
+import machinum.flow.model.Flow;
+import machinum.flow.runner.OneStepRunner.RunnerContext;
+import machinum.flow.runner.OneStepRunner.WindowedPipe;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Implementation of FlowRunner that executes the items of a state concurrently on virtual threads.
+ * Every item is processed with the same pipes and actions as in {@link OneStepRunner}, but up to
+ * N items of a state run at the same time, where N is resolved per {@link Flow.State}.
+ * State progress is committed in item order: the state manager only receives the index of the
+ * first item whose predecessors are all finished, so a resume after a crash never skips an
+ * unfinished item.
+ *
+ * <p>Key features:</p>
+ * <ul>
+ *   <li>Configurable concurrency level per state</li>
+ *   <li>Ordered commit of processed items through the {@link StateManager}</li>
+ *   <li>Sequential fallback for states that declare {@link Flow.State#isSequential()}</li>
+ *   <li>Sequential fallback for states with windowed pipes</li>
+ *   <li>Stops scheduling new items after the first failure</li>
+ * </ul>
+ *
+ * @param <T> the type of items being processed in the flow
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ParallelStepRunner<T> implements FlowRunner<T> {
+
+    /**
+     * The underlying OneStepRunner used for item processing and sequential states.
+     */
+    private final OneStepRunner<T> runner;
+
+    /**
+     * Resolves the number of items that may be processed at the same time for a state.
+     */
+    private final ToIntFunction<Flow.State> concurrency;
+
+    /**
+     * Executes the flow for the specified state. Falls back to the sequential {@link OneStepRunner}
+     * when the state is sequential, contains windowed pipes or has a concurrency level of one.
+     *
+     * @param currentState the state to execute
+     */
+    @Override
+    public void run(@NonNull Flow.State currentState) {
+        var parallelism = resolveConcurrency(currentState);
+        if (parallelism <= 1) {
+            runner.run(currentState);
+            return;
+        }
+
+        log.debug("Executing flow in parallel for given state: {}, concurrency={}", currentState, parallelism);
+        var runnerContext = runner.createRunnerContext(currentState);
+        runnerContext.executeBeforeAllAction();
+
+        try {
+            runnerContext.executeAroundAllAction(() -> processItems(runnerContext, parallelism));
+        } finally {
+            runnerContext.executeAfterAllAction();
+            log.debug("Flow has been executed in parallel for given state: {}", currentState);
+        }
+    }
+
+    /**
+     * Returns the flow configuration associated with this runner.
+     *
+     * @return the flow instance containing pipes, state configuration, and metadata
+     */
+    @Override
+    public Flow<T> getFlow() {
+        return runner.getFlow();
+    }
+
+    /**
+     * Creates a new ParallelStepRunner instance for the specified sub-flow with the same concurrency settings.
+     * The measureWrapper parameter is ignored in this implementation.
+     *
+     * @param subFlow        the sub-flow to execute
+     * @param measureWrapper wrapper function for performance measurement (ignored)
+     * @return a new ParallelStepRunner instance configured for the sub-flow
+     */
+    @Override
+    public FlowRunner<T> recreate(Flow<T> subFlow, Consumer<Runnable> measureWrapper) {
+        return new ParallelStepRunner<>(new OneStepRunner<>(subFlow), concurrency);
+    }
+
+    /* ============= */
+
+    private int resolveConcurrency(Flow.State state) {
+        if (state.isSequential()) {
+            return 1;
+        }
+
+        var pipes = getFlow().getStatePipes().get(state);
+        if (Objects.isNull(pipes) || pipes.stream().anyMatch(WindowedPipe.class::isInstance)) {
+            return 1;
+        }
+
+        return concurrency.applyAsInt(state);
+    }
+
+    private void processItems(RunnerContext<T> runnerContext, int parallelism) {
+        var state = runnerContext.getCurrentState();
+        var startItemIndex = runnerContext.getLastProcessedItemIndex();
+        var startPipeIndex = runnerContext.getLastProcessorIndex();
+        var size = runnerContext.getSource().size();
+        var commit = new OrderedCommit(runnerContext.getSm(), runnerContext.getMetadata(), state, startItemIndex);
+        var failure = new AtomicReference<RuntimeException>();
+        var permits = new Semaphore(parallelism);
+
+        runner.prepareContext(runnerContext, runnerContext.getItem(startItemIndex));
+        var itemContext = runnerContext.toBuilder()
+                .sm(new DeferredStateManager(runnerContext.getSm()))
+                .build();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = startItemIndex; i < size && Objects.isNull(failure.get()); i++) {
+                permits.acquireUninterruptibly();
+                var itemIndex = i;
+                var pipeIndex = i == startItemIndex ? startPipeIndex : 0;
+
+                executor.execute(() -> {
+                    try {
+                        if (Objects.isNull(failure.get())) {
+                            runner.processItem(isolate(itemContext), itemIndex, pipeIndex);
+                            commit.complete(itemIndex);
+                        }
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+
+        if (Objects.nonNull(failure.get())) {
+            throw failure.get();
+        }
+
+        runner.updateNextState(runnerContext);
+    }
+
+    private RunnerContext<T> isolate(RunnerContext<T> runnerContext) {
+        return runnerContext.toBuilder()
+                .flowContextRef(new AtomicReference<>(runnerContext.getFlowContext()))
+                .build();
+    }
+
+    /**
+     * Tracks finished items and persists the index of the first unfinished one.
+     * Items may finish in any order, the saved index only ever moves forward over
+     * a contiguous prefix of finished items.
+     */
+    private static class OrderedCommit {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final BitSet finished = new BitSet();
+        private final StateManager sm;
+        private final Map<String, Object> metadata;
+        private final Flow.State state;
+        private final int startIndex;
+        private int watermark;
+
+        OrderedCommit(StateManager sm, Map<String, Object> metadata, Flow.State state, int startIndex) {
+            this.sm = sm;
+            this.metadata = metadata;
+            this.state = state;
+            this.startIndex = startIndex;
+            this.watermark = startIndex;
+        }
+
+        public void complete(int itemIndex) {
+            lock.lock();
+            try {
+                finished.set(itemIndex - startIndex);
+                var next = finished.nextClearBit(0) + startIndex;
+                if (next > watermark) {
+                    watermark = next;
+                    sm.saveState(metadata, next, 0, state);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+    }
+
+    /**
+     * State manager for a single item execution. Progress of an item is published by
+     * {@link OrderedCommit}, so all save requests issued during the item processing are ignored.
+     */
+    @RequiredArgsConstructor
+    private static class DeferredStateManager implements StateManager {
+
+        private final StateManager delegate;
+
+        @Override
+        public void saveState(Map<String, Object> metadata, int itemIndex, int pipeIndex, Flow.State state) {
+            //ignore
+        }
+
+        @Override
+        public int getLastProcessedItem(Map<String, Object> metadata) {
+            return delegate.getLastProcessedItem(metadata);
+        }
+
+        @Override
+        public int getLastProcessorIndex(Map<String, Object> metadata) {
+            return delegate.getLastProcessorIndex(metadata);
+        }
+
+        @Override
+        public Flow.State getState(Map<String, Object> metadata) {
+            return delegate.getState(metadata);
+        }
+
+        @Override
+        public boolean isChunkProcessed(Map<String, Object> metadata, String hashString) {
+            return delegate.isChunkProcessed(metadata, hashString);
+        }
+
+        @Override
+        public void setChunkIsProcessed(Map<String, Object> metadata, String hashString) {
+            delegate.setChunkIsProcessed(metadata, hashString);
+        }
+
+    }
+
+}
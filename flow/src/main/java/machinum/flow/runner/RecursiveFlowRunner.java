@@ -31,9 +31,9 @@ import java.util.function.Consumer;
 public class RecursiveFlowRunner<T> implements FlowRunner<T> {
 
     /**
-     * The underlying OneStepRunner used to execute individual states.
+     * The underlying runner used to execute individual states.
      */
-    private final OneStepRunner<T> runner;
+    private final FlowRunner<T> runner;
 
     /**
      * Wrapper function for performance measurement around execution.
@@ -62,7 +62,7 @@ public class RecursiveFlowRunner<T> implements FlowRunner<T> {
 
     /**
      * Returns the flow configuration associated with this recursive runner.
-     * Delegates to the underlying OneStepRunner to get the flow configuration.
+     * Delegates to the underlying runner to get the flow configuration.
      *
      * @return the flow instance containing pipes, state configuration, and metadata
      */
@@ -82,7 +82,7 @@ public class RecursiveFlowRunner<T> implements FlowRunner<T> {
     @Override
     public FlowRunner<T> recreate(Flow<T> subFlow, Consumer<Runnable> measureWrapper) {
         return new RecursiveFlowRunner<>(
-                new OneStepRunner<>(subFlow),
+                runner.recreate(subFlow, measureWrapper),
                 measureWrapper);
     }
 
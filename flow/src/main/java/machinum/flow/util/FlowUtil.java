@@ -77,10 +77,7 @@ public class FlowUtil {
      * @throws NullPointerException if the text is null
      */
     public static Integer countTokens(String text) {
-        return ENCODING
-                .encode(text)
-                .boxed()
-                .size();
+        return ENCODING.countTokens(text);
     }
 
     /**
@@ -0,0 +1,314 @@
+package machinum.flow.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable hash map. Changes return a new map sharing all untouched nodes with this one, so an update
+ * copies only the path from the root to the changed entry (at most 7 small nodes) instead of the whole map.
+ *
+ * <p>Implemented as a hash array mapped trie: every level consumes 5 bits of the key hash, nodes keep only
+ * the occupied slots addressed by a bitmap, keys with equal hashes share a collision node.</p>
+ *
+ * @param <K> the type of keys, must implement {@code equals} and {@code hashCode}, {@code null} keys are not allowed
+ * @param <V> the type of values, {@code null} values are not allowed
+ */
+public final class PersistentMap<K, V> {
+
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the value of the key, or {@code null} if absent
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        return (V) root.find(0, hash(key), key);
+    }
+
+    public boolean containsKey(K key) {
+        return Objects.nonNull(get(key));
+    }
+
+    /**
+     * @return a map with the key set to the value, or this map if the key already holds the same value
+     */
+    public PersistentMap<K, V> put(K key, V value) {
+        Objects.requireNonNull(key, "Key can't be null");
+        Objects.requireNonNull(value, "Value can't be null");
+        var added = new boolean[1];
+        var newRoot = root.assoc(0, hash(key), key, value, added);
+        if (newRoot == root) {
+            return this;
+        }
+
+        return new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * @return a map without the key, or this map if the key is absent
+     */
+    public PersistentMap<K, V> remove(K key) {
+        var newRoot = root.without(0, hash(key), key);
+        if (newRoot == root) {
+            return this;
+        }
+
+        return size == 1 ? empty() : new PersistentMap<>(Objects.requireNonNullElse(newRoot, BitmapNode.EMPTY), size - 1);
+    }
+
+    /**
+     * Visits all entries in no particular order.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        root.forEach((BiConsumer<Object, Object>) action);
+    }
+
+    @Override
+    public String toString() {
+        var builder = new StringBuilder("{");
+        forEach((key, value) -> builder.append(builder.length() > 1 ? ", " : "").append(key).append('=').append(value));
+        return builder.append('}').toString();
+    }
+
+    /* ============= */
+
+    private static int hash(Object key) {
+        int h = Objects.hashCode(key);
+        // Spread the higher bits to the lower levels, as HashMap does
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 0x1f);
+    }
+
+    private static Node pair(int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+        int hash1 = hash(key1);
+        if (hash1 == hash2) {
+            return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+        }
+
+        var added = new boolean[1];
+        return BitmapNode.EMPTY
+                .assoc(shift, hash1, key1, value1, added)
+                .assoc(shift, hash2, key2, value2, added);
+    }
+
+    private interface Node {
+
+        Object find(int shift, int hash, Object key);
+
+        Node assoc(int shift, int hash, Object key, Object value, boolean[] added);
+
+        /**
+         * @return the node without the key, this node if the key is absent, {@code null} if nothing is left
+         */
+        Node without(int shift, int hash, Object key);
+
+        void forEach(BiConsumer<Object, Object> action);
+
+    }
+
+    /**
+     * Keeps a key and a value, or {@code null} and a child node, per occupied slot.
+     */
+    private record BitmapNode(int bitmap, Object[] array) implements Node {
+
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        @Override
+        public Object find(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+
+            int index = index(bit);
+            var slotKey = array[index];
+            var slotValue = array[index + 1];
+            if (Objects.isNull(slotKey)) {
+                return ((Node) slotValue).find(shift + 5, hash, key);
+            }
+
+            return Objects.equals(key, slotKey) ? slotValue : null;
+        }
+
+        @Override
+        public Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = bit(hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                added[0] = true;
+                var newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, index);
+                newArray[index] = key;
+                newArray[index + 1] = value;
+                System.arraycopy(array, index, newArray, index + 2, array.length - index);
+                return new BitmapNode(bitmap | bit, newArray);
+            }
+
+            var slotKey = array[index];
+            var slotValue = array[index + 1];
+            if (Objects.isNull(slotKey)) {
+                var child = ((Node) slotValue).assoc(shift + 5, hash, key, value, added);
+                return child == slotValue ? this : with(index, null, child);
+            }
+            if (Objects.equals(key, slotKey)) {
+                return slotValue == value ? this : with(index, slotKey, value);
+            }
+
+            added[0] = true;
+            return with(index, null, pair(shift + 5, slotKey, slotValue, hash, key, value));
+        }
+
+        @Override
+        public Node without(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+
+            int index = index(bit);
+            var slotKey = array[index];
+            var slotValue = array[index + 1];
+            if (Objects.isNull(slotKey)) {
+                var child = ((Node) slotValue).without(shift + 5, hash, key);
+                if (child == slotValue) {
+                    return this;
+                }
+                if (Objects.nonNull(child)) {
+                    return with(index, null, child);
+                }
+            } else if (!Objects.equals(key, slotKey)) {
+                return this;
+            }
+
+            if (bitmap == bit) {
+                return null;
+            }
+            var newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, index);
+            System.arraycopy(array, index + 2, newArray, index, array.length - index - 2);
+            return new BitmapNode(bitmap ^ bit, newArray);
+        }
+
+        @Override
+        public void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (Objects.isNull(array[i])) {
+                    ((Node) array[i + 1]).forEach(action);
+                } else {
+                    action.accept(array[i], array[i + 1]);
+                }
+            }
+        }
+
+        private int index(int bit) {
+            return 2 * Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private BitmapNode with(int index, Object key, Object value) {
+            var newArray = array.clone();
+            newArray[index] = key;
+            newArray[index + 1] = value;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+    }
+
+    /**
+     * Keeps keys of the same hash as consecutive key and value pairs.
+     */
+    private record CollisionNode(int hash, Object[] array) implements Node {
+
+        @Override
+        public Object find(int shift, int hash, Object key) {
+            int index = indexOf(key);
+            return index < 0 ? null : array[index + 1];
+        }
+
+        @Override
+        public Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                // Nest this node under a bitmap node and add the key next to it
+                return new BitmapNode(bit(this.hash, shift), new Object[]{null, this})
+                        .assoc(shift, hash, key, value, added);
+            }
+
+            int index = indexOf(key);
+            if (index >= 0) {
+                if (array[index + 1] == value) {
+                    return this;
+                }
+                var newArray = array.clone();
+                newArray[index + 1] = value;
+                return new CollisionNode(hash, newArray);
+            }
+
+            added[0] = true;
+            var newArray = Arrays.copyOf(array, array.length + 2);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        public Node without(int shift, int hash, Object key) {
+            int index = indexOf(key);
+            if (index < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+
+            var newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, index);
+            System.arraycopy(array, index + 2, newArray, index, array.length - index - 2);
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        public void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                action.accept(array[i], array[i + 1]);
+            }
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (Objects.equals(key, array[i])) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+
+    }
+
+}
@@ -0,0 +1,102 @@
+package machinum.flow.util;
+
+import java.util.*;
+
+/**
+ * An immutable list built from shared segments. Appending returns a new list that references this one as
+ * its prefix and keeps only the appended items, so lists derived from each other don't copy their common
+ * part. The segments are joined into one array on the first indexed access.
+ *
+ * @param <T> the type of items
+ */
+public final class SegmentedList<T> extends AbstractList<T> implements RandomAccess {
+
+    private static final SegmentedList<?> EMPTY = new SegmentedList<>(null, new Object[0]);
+
+    private final SegmentedList<T> prefix;
+
+    private final Object[] segment;
+
+    private final int size;
+
+    private volatile Object[] items;
+
+    private SegmentedList(SegmentedList<T> prefix, Object[] segment) {
+        this.prefix = prefix;
+        this.segment = segment;
+        this.size = (Objects.isNull(prefix) ? 0 : prefix.size) + segment.length;
+        this.items = Objects.isNull(prefix) ? segment : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> SegmentedList<T> empty() {
+        return (SegmentedList<T>) EMPTY;
+    }
+
+    public static <T> SegmentedList<T> of(Collection<? extends T> items) {
+        return SegmentedList.<T>empty().appendAll(items);
+    }
+
+    /**
+     * @return a list with the items appended, this list if there are none, or the given list itself if this
+     * one is empty and the items are a segmented list already
+     */
+    @SuppressWarnings("unchecked")
+    public SegmentedList<T> appendAll(Collection<? extends T> items) {
+        if (items.isEmpty()) {
+            return this;
+        } else if (size == 0 && items instanceof SegmentedList<?> list) {
+            return (SegmentedList<T>) list;
+        }
+
+        var segment = items.toArray();
+        return size == 0 ? new SegmentedList<>(null, segment) : new SegmentedList<>(this, segment);
+    }
+
+    public SegmentedList<T> append(T item) {
+        return appendAll(Collections.singletonList(item));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        return (T) items()[index];
+    }
+
+    @Override
+    public Object[] toArray() {
+        return items().clone();
+    }
+
+    /* ============= */
+
+    private Object[] items() {
+        var result = items;
+        if (Objects.isNull(result)) {
+            result = new Object[size];
+            // Walk the prefixes back to the first joined one, copying segments from the end
+            int end = size;
+            var list = this;
+            while (Objects.nonNull(list)) {
+                var joined = list.items;
+                if (Objects.nonNull(joined)) {
+                    System.arraycopy(joined, 0, result, 0, list.size);
+                    break;
+                }
+                end -= list.segment.length;
+                System.arraycopy(list.segment, 0, result, end, list.segment.length);
+                list = list.prefix;
+            }
+            items = result;
+        }
+
+        return result;
+    }
+
+}
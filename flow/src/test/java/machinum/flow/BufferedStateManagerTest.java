@@ -0,0 +1,128 @@
+package machinum.flow;
+
+import machinum.flow.CommonFlowTest.TestStateManager;
+import machinum.flow.core.BufferedStateManager;
+import machinum.flow.model.Flow.State;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static machinum.flow.CommonFlowTest.TestState.STEP1;
+import static machinum.flow.CommonFlowTest.TestState.STEP2;
+
+class BufferedStateManagerTest {
+
+    private final Map<String, Object> metadata = Map.of("id", "book-1");
+    private final List<String> writes = new ArrayList<>();
+    private final Set<String> chunks = new HashSet<>();
+    private TestStateManager delegate;
+    private BufferedStateManager stateManager;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new TestStateManager() {
+
+            @Override
+            public void saveState(Map<String, Object> metadata, int itemIndex, int pipeIndex, State state) {
+                super.saveState(metadata, itemIndex, pipeIndex, state);
+                writes.add("state:%s:%s:%s".formatted(itemIndex, pipeIndex, state));
+            }
+
+            // Resets the state along with the chunks, like BookFlowManager does
+            @Override
+            public void setChunksAreProcessed(Map<String, Object> metadata, List<String> hashStrings) {
+                writes.add("chunks:%s".formatted(String.join(",", hashStrings)));
+                chunks.addAll(hashStrings);
+                super.saveState(metadata, 0, 0, STEP1);
+            }
+
+            @Override
+            public boolean isChunkProcessed(Map<String, Object> metadata, String hashString) {
+                return chunks.contains(hashString);
+            }
+
+        };
+        stateManager = new BufferedStateManager(delegate, m -> String.valueOf(m.get("id")), Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stateManager.close();
+    }
+
+    @Test
+    void testSaveState_coalesced() {
+        stateManager.saveState(metadata, 0, 1, STEP1);
+        stateManager.saveState(metadata, 1, 0, STEP1);
+        stateManager.saveState(metadata, 1, 1, STEP1);
+
+        Assertions.assertThat(writes)
+                .isEmpty();
+        Assertions.assertThat(List.of(stateManager.getLastProcessedItem(metadata), stateManager.getLastProcessorIndex(metadata)))
+                .isEqualTo(List.of(1, 1));
+
+        stateManager.flush();
+
+        Assertions.assertThat(writes)
+                .containsExactly("state:1:1:STEP1");
+    }
+
+    @Test
+    void testSaveState_flushedOnTransition() {
+        stateManager.saveState(metadata, 1, 0, STEP1);
+        stateManager.saveState(metadata, 2, 0, STEP1);
+        stateManager.saveState(metadata, 0, 0, STEP2);
+
+        Assertions.assertThat(writes)
+                .containsExactly("state:0:0:STEP2");
+        Assertions.assertThat(delegate.getState())
+                .isEqualTo(STEP2);
+    }
+
+    @Test
+    void testChunks_resetVisible() {
+        stateManager.saveState(metadata, 1, 1, STEP2);
+        stateManager.setChunkIsProcessed(metadata, "aaa");
+
+        // The next chunk starts from the state the delegate has reset to
+        Assertions.assertThat(writes)
+                .containsExactly("state:1:1:STEP2", "chunks:aaa");
+        Assertions.assertThat(stateManager.isChunkProcessed(metadata, "aaa"))
+                .isTrue();
+        Assertions.assertThat(List.of(stateManager.getLastProcessedItem(metadata), stateManager.getLastProcessorIndex(metadata)))
+                .isEqualTo(List.of(0, 0));
+        Assertions.assertThat(stateManager.getState(metadata))
+                .isEqualTo(STEP1);
+
+        stateManager.saveState(metadata, 2, 0, STEP1);
+        stateManager.setChunksAreProcessed(metadata, List.of("bbb", "ccc"));
+        stateManager.close();
+
+        Assertions.assertThat(writes)
+                .containsExactly("state:1:1:STEP2", "chunks:aaa", "state:2:0:STEP1", "chunks:bbb,ccc");
+    }
+
+    @Test
+    void testRelease_flushedAndDropped() {
+        stateManager.saveState(metadata, 1, 0, STEP1);
+        stateManager.release(metadata);
+
+        Assertions.assertThat(writes)
+                .containsExactly("state:1:0:STEP1");
+
+        // A new buffer doesn't know the state of the released one, so there is no transition to flush
+        stateManager.saveState(metadata, 0, 0, STEP2);
+
+        Assertions.assertThat(writes)
+                .containsExactly("state:1:0:STEP1");
+    }
+
+}
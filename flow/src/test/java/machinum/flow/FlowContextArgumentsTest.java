@@ -0,0 +1,170 @@
+package machinum.flow;
+
+import machinum.flow.model.FlowArgument;
+import machinum.flow.model.FlowContext;
+import machinum.flow.model.helper.ArgumentStore;
+import machinum.flow.model.helper.FlowContextArgs;
+import machinum.flow.util.FlowUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static machinum.flow.constant.FlowContextConstants.NEW_FLAG;
+import static machinum.flow.constant.FlowContextConstants.OLD_FLAG;
+import static machinum.flow.model.helper.FlowContextActions.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlowContextArgumentsTest {
+
+    private static final int ARGUMENTS = 50;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final int OPERATIONS = 20_000;
+    // Timings are noisy on a shared machine, the store only fails when it is clearly slower than the list
+    private static final double MARGIN = 1.5;
+
+    @Test
+    @DisplayName("Should find the newest non-empty argument like the list scan")
+    void shouldFindLikeListScan() {
+        var now = Instant.now();
+        var arguments = new ArrayList<FlowArgument<?>>(arguments(now));
+        arguments.add(createArg("arg-7", null).toBuilder().timestamp(now.plusSeconds(60)).build());
+        arguments.add(createArg("arg-8", "newer").toBuilder().timestamp(now.plusSeconds(60)).ephemeral(true).build());
+        arguments.add(createArg("arg-9", "older").toBuilder().timestamp(now.minusSeconds(60)).build());
+
+        var context = of(b -> b.arguments(arguments));
+        var baseline = listScan(context.getArguments());
+
+        for (var argument : arguments) {
+            for (var type : List.of(NEW_FLAG, OLD_FLAG)) {
+                assertThat(context.findArgument(argument.getName(), type))
+                        .isEqualTo(baseline.findArgument(argument.getName(), type));
+            }
+        }
+        assertThat(context.arg("arg-8").getValue()).isEqualTo("newer");
+        assertThat(context.findArgument("missing", NEW_FLAG)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should keep arguments ordered and deduplicated")
+    void shouldOrderArguments() {
+        var now = Instant.now();
+        var first = createArg("b", 1).toBuilder().timestamp(now).build();
+        var second = createArg("a", 2).toBuilder().timestamp(now).build();
+        var third = createArg("c", 3).toBuilder().timestamp(now.plusSeconds(1)).build();
+
+        var store = ArgumentStore.of(List.of(first, second, third, first));
+
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.toList()).containsExactly(third, second, first);
+        assertThat(store.remove("a", NEW_FLAG).toList()).containsExactly(third, first);
+        assertThat(store.add(second.mapValue(value -> 5)).find("a", NEW_FLAG))
+                .map(FlowArgument::getValue)
+                .contains(5);
+        assertThat(store).isEqualTo(ArgumentStore.of(List.of(third, first, second)));
+    }
+
+    @Test
+    @DisplayName("Should share arguments between copies")
+    void shouldShareArgumentsOnCopy() {
+        var context = of(b -> b.arguments(arguments(Instant.now())));
+
+        var copy = context.withCurrentPipeIndex(3);
+        var changed = copy.rearrange(FlowContext::textArg, text("changed"));
+
+        assertThat(copy.getArgumentStore()).isSameAs(context.getArgumentStore());
+        assertThat(changed.text()).isEqualTo("changed");
+        assertThat(changed.oldText()).isEqualTo("text");
+        assertThat(context.text()).isEqualTo("text");
+        assertThat(context.getArguments()).hasSize(ARGUMENTS);
+    }
+
+    /**
+     * A microbenchmark in the manner of JMH: warmup iterations, then measured iterations of a fixed number
+     * of operations on a context of 50 arguments, compared against the former list scan and sorted copy.
+     */
+    @Test
+    @DisplayName("Should look up and copy arguments no slower than the list scan")
+    void benchmarkArguments() {
+        var arguments = arguments(Instant.now());
+        var context = of(b -> b.arguments(arguments));
+        var baseline = listScan(context.getArguments());
+        var names = arguments.stream().map(FlowArgument::getName).toArray(String[]::new);
+
+        var storeLookup = measure(() -> lookup(context, names));
+        var listLookup = measure(() -> lookup(baseline, names));
+        var storeCopy = measure(() -> context.copy(b -> b.currentPipeIndex(1)));
+        var listCopy = measure(() -> sortedCopy(context.getArguments()));
+
+        assertThat(storeLookup).isLessThan(listLookup * MARGIN);
+        assertThat(storeCopy).isLessThan(listCopy * MARGIN);
+    }
+
+    /* ============= */
+
+    private static List<FlowArgument<?>> arguments(Instant now) {
+        var result = new ArrayList<FlowArgument<?>>();
+        result.add(text("text").toBuilder().timestamp(now).build());
+        IntStream.range(1, ARGUMENTS).forEach(i -> result.add(createArg("arg-" + i, "value-" + i).toBuilder()
+                .timestamp(now.minusMillis(i))
+                .type(i % 5 == 0 ? OLD_FLAG : NEW_FLAG)
+                .build()));
+
+        return result;
+    }
+
+    private static FlowContextArgs listScan(List<FlowArgument<?>> arguments) {
+        return () -> arguments;
+    }
+
+    private static Object lookup(FlowContextArgs args, String[] names) {
+        Optional<?> result = Optional.empty();
+        for (var name : names) {
+            result = args.findArgument(name, NEW_FLAG);
+        }
+
+        return result;
+    }
+
+    // The former FlowContext#copy, which sorted and cloned every argument
+    private static List<FlowArgument<?>> sortedCopy(List<FlowArgument<?>> arguments) {
+        return new HashSet<>(arguments).stream()
+                .map(FlowArgument::copy)
+                .sorted(Comparator.comparing(FlowArgument::getName))
+                .sorted(Comparator.comparing(FlowArgument::getType))
+                .sorted(FlowUtil.comparingReverse(FlowArgument::getTimestamp))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the best average time of one operation over the measured iterations, in nanoseconds
+     */
+    private static double measure(Supplier<Object> operation) {
+        var sink = new Object[1];
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            for (int j = 0; j < OPERATIONS; j++) {
+                sink[0] = operation.get();
+            }
+        }
+
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            for (int j = 0; j < OPERATIONS; j++) {
+                sink[0] = operation.get();
+            }
+            best = Math.min(best, (System.nanoTime() - start) / (double) OPERATIONS);
+        }
+
+        // Keeps the results in use, so the operations can't be optimized away
+        assertThat(sink[0]).isNotNull();
+
+        return best;
+    }
+
+}
@@ -0,0 +1,143 @@
+package machinum.flow;
+
+import com.sun.management.ThreadMXBean;
+import machinum.flow.model.Flow;
+import machinum.flow.model.Flow.State;
+import machinum.flow.model.FlowContext;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class FlowCopyTest {
+
+    private static final int SOURCE_SIZE = 2_000;
+    private static final List<Integer> SOURCE = IntStream.range(0, SOURCE_SIZE).boxed().toList();
+    private static final Consumer<FlowContext<Integer>> SINK = ctx -> {
+    };
+
+    private final Function<FlowContext<Integer>, FlowContext<Integer>> first = ctx -> ctx;
+    private final Function<FlowContext<Integer>, FlowContext<Integer>> second = ctx -> ctx;
+
+    @Test
+    @DisplayName("Should build the same flow as with copies of every part")
+    void shouldBuildEquivalentFlows() {
+        var shared = define(UnaryOperator.identity());
+        var copied = define(FlowCopyTest::deepCopy);
+
+        assertThat(shared.getSource()).isEqualTo(copied.getSource());
+        assertThat(shared.getMetadata()).isEqualTo(copied.getMetadata());
+        assertThat(shared.getStatePipes().keySet()).containsExactlyElementsOf(copied.getStatePipes().keySet());
+        shared.getStatePipes().forEach((state, pipes) ->
+                assertThat(pipes).containsExactlyElementsOf(copied.getStatePipes().get(state)));
+        assertThat(shared.getSinkAction()).isSameAs(copied.getSinkAction());
+        assertThat(shared.nextState(TestState.STEP1)).isEqualTo(TestState.STEP2);
+    }
+
+    @Test
+    @DisplayName("Should share unchanged parts and keep the original flow intact")
+    void shouldShareUnchangedParts() {
+        var base = Flow.from(SOURCE)
+                .metadata("key", "value")
+                .onState(TestState.STEP1)
+                .pipe(first)
+                .build();
+
+        var derived = base.onState(TestState.STEP1)
+                .pipe(second)
+                .build()
+                .metadata("other", 1);
+
+        assertThat(derived.getSource()).isSameAs(base.getSource());
+        assertThat(base.getStatePipes().get(TestState.STEP1)).containsExactly(first);
+        assertThat(derived.getStatePipes().get(TestState.STEP1)).containsExactly(first, second);
+        assertThat(base.getMetadata()).containsOnlyKeys("key");
+        assertThat(derived.getMetadata()).containsOnlyKeys("key", "other");
+        assertThat(base.copy(b -> b.source(SOURCE_SIZE)).getSource()).hasSize(SOURCE_SIZE + 1).endsWith(SOURCE_SIZE);
+        assertThat(base.getSource()).hasSize(SOURCE_SIZE);
+    }
+
+    @Test
+    @DisplayName("Should allocate less than with copies of every part")
+    void shouldAllocateLess() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean);
+        var bean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(bean.isThreadAllocatedMemorySupported());
+
+        // Warm up both ways before measuring
+        for (int i = 0; i < 10; i++) {
+            define(UnaryOperator.identity());
+            define(FlowCopyTest::deepCopy);
+        }
+
+        var threadId = Thread.currentThread().threadId();
+        long start = bean.getThreadAllocatedBytes(threadId);
+        define(UnaryOperator.identity());
+        long shared = bean.getThreadAllocatedBytes(threadId) - start;
+
+        start = bean.getThreadAllocatedBytes(threadId);
+        define(FlowCopyTest::deepCopy);
+        long copied = bean.getThreadAllocatedBytes(threadId) - start;
+
+        assertThat(shared * 5)
+                .as("allocated by shared flow: %d bytes, by copied flow: %d bytes", shared, copied)
+                .isLessThan(copied);
+    }
+
+    /* ============= */
+
+    /**
+     * Defines a flow with a dozen of fluent calls, passing the flow after each call through the given function.
+     */
+    private Flow<Integer> define(UnaryOperator<Flow<Integer>> after) {
+        var flow = after.apply(Flow.from(SOURCE));
+        flow = after.apply(flow.metadata("bookId", "book"));
+        flow = after.apply(flow.beforeAll(ctx -> {
+        }));
+        flow = after.apply(flow.afterAll(ctx -> {
+        }));
+        flow = after.apply(flow.onState(TestState.STEP1).pipe(first).build());
+        flow = after.apply(flow.onState(TestState.STEP1).pipe(second).build());
+        flow = after.apply(flow.onState(TestState.STEP2).nothing().build());
+        flow = after.apply(flow.onState(TestState.STEP2).pipe(second).build());
+        flow = after.apply(flow.metadata("flowType", "complex"));
+        flow = after.apply(flow.refresh(FlowContext::getCurrentItem));
+        flow = after.apply(flow.extend(Function.identity()));
+
+        return flow.sink(SINK);
+    }
+
+    /**
+     * The former {@link Flow#copy} which cloned the source, metadata and pipes on every call.
+     */
+    private static Flow<Integer> deepCopy(Flow<Integer> flow) {
+        var statePipes = new LinkedHashMap<>(flow.getStatePipes());
+        var metadata = new HashMap<>(flow.getMetadata());
+        var source = new ArrayList<>(flow.getSource());
+
+        return flow.copy(b -> b.clearMetadata()
+                .metadata(metadata)
+                .clearSource()
+                .source(source)
+                .statePipes(statePipes));
+    }
+
+    enum TestState implements State {
+
+        STEP1,
+        STEP2,
+
+    }
+
+}
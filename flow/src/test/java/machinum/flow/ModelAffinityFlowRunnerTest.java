@@ -0,0 +1,191 @@
+package machinum.flow;
+
+import machinum.flow.CommonFlowTest.TestStateManager;
+import machinum.flow.model.Flow;
+import machinum.flow.model.Flow.State;
+import machinum.flow.model.FlowContext;
+import machinum.flow.model.helper.FlowContextActions;
+import machinum.flow.runner.ModelAffinityFlowRunner;
+import machinum.flow.runner.ModelAffinityFlowRunner.SwitchStats;
+import machinum.flow.runner.OneStepRunner;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+class ModelAffinityFlowRunnerTest {
+
+    private static final Map<State, String> MODELS = Map.of(
+            TestState.SUMMARY, "qwen",
+            TestState.CLEANING, "gemma",
+            TestState.GLOSSARY, "qwen",
+            TestState.FINISHED, "");
+
+    private final List<String> calls = new ArrayList<>();
+    private final Set<String> processedChunks = new HashSet<>();
+    private TestStateManager stateManager;
+    private List<Integer> source;
+    private String failOn;
+
+    @BeforeEach
+    void setUp() {
+        source = IntStream.rangeClosed(1, 12).boxed().toList();
+        stateManager = new TestStateManager() {
+            @Override
+            public boolean isChunkProcessed(Map<String, Object> metadata, String hashString) {
+                return processedChunks.contains(hashString);
+            }
+
+            @Override
+            public void setChunkIsProcessed(Map<String, Object> metadata, String hashString) {
+                processedChunks.add(hashString);
+            }
+        };
+    }
+
+    @Test
+    void testDrainModelAcrossItems_success() {
+        var stats = new SwitchStats();
+
+        createRunner(100, stats).run(TestState.SUMMARY);
+
+        Assertions.assertThat(calls)
+                .hasSize(source.size() * TestState.values().length);
+        Assertions.assertThat(stats.getSwitches())
+                .isEqualTo(2);
+        Assertions.assertThat(stats.snapshot())
+                .extracting(ModelAffinityFlowRunner.ModelSnapshot::model, ModelAffinityFlowRunner.ModelSnapshot::loads)
+                .containsExactly(Assertions.tuple("gemma", 1L), Assertions.tuple("qwen", 2L));
+        assertStateOrder();
+        Assertions.assertThat(callsOf(TestState.GLOSSARY))
+                .isSorted();
+    }
+
+    @Test
+    void testLookaheadLimitsSchedule_success() {
+        var stats = new SwitchStats();
+
+        createRunner(4, stats).run(TestState.SUMMARY);
+
+        Assertions.assertThat(calls)
+                .hasSize(source.size() * TestState.values().length);
+        Assertions.assertThat(stats.getSwitches())
+                .isGreaterThan(2)
+                .isLessThanOrEqualTo(source.size() / 4 * 3);
+        assertStateOrder();
+    }
+
+    @Test
+    void testStartFromGivenState_success() {
+        createRunner(100, new SwitchStats()).run(TestState.GLOSSARY);
+
+        Assertions.assertThat(calls)
+                .hasSize(source.size() * 2)
+                .allMatch(call -> call.startsWith(TestState.GLOSSARY + "-") || call.startsWith(TestState.FINISHED + "-"));
+    }
+
+    @Test
+    void testSkipProcessedGroups_success() {
+        createRunner(100, new SwitchStats()).run(TestState.SUMMARY);
+        calls.clear();
+
+        var stats = new SwitchStats();
+        createRunner(100, stats).run(TestState.SUMMARY);
+
+        Assertions.assertThat(calls)
+                .isEmpty();
+        Assertions.assertThat(stats.getSwitches())
+                .isZero();
+    }
+
+    @Test
+    void testResumeAfterCrash_success() {
+        failOn = TestState.GLOSSARY + "-6";
+        Assertions.assertThatThrownBy(() -> createRunner(4, new SwitchStats()).run(TestState.SUMMARY))
+                .isInstanceOf(RuntimeException.class);
+        var beforeCrash = new ArrayList<>(calls);
+
+        // Items after the lookahead haven't started, so the flow resumes from the first state
+        Assertions.assertThat(stateManager.getState(Map.of()))
+                .isEqualTo(TestState.SUMMARY);
+
+        failOn = null;
+        calls.clear();
+        createRunner(4, new SwitchStats()).run(stateManager.getState(Map.of()));
+
+        var all = new HashSet<>(beforeCrash);
+        all.addAll(calls);
+        Assertions.assertThat(all)
+                .hasSize(source.size() * TestState.values().length);
+        // Only the crashed group runs again
+        Assertions.assertThat(calls)
+                .filteredOn(beforeCrash::contains)
+                .containsExactly(TestState.GLOSSARY + "-5");
+        Assertions.assertThat(callsOf(TestState.SUMMARY))
+                .containsExactly(9, 10, 11, 12);
+        Assertions.assertThat(stateManager.getState(Map.of()))
+                .isEqualTo(TestState.FINISHED);
+    }
+
+    /* ============= */
+
+    private ModelAffinityFlowRunner<Integer> createRunner(int lookahead, SwitchStats stats) {
+        var flow = Flow.from(source)
+                .withStateManager(stateManager)
+                .onState(TestState.SUMMARY)
+                .pipe(ctx -> track(TestState.SUMMARY, ctx.getCurrentItem(), ctx))
+                .onState(TestState.CLEANING)
+                .pipe(ctx -> track(TestState.CLEANING, ctx.getCurrentItem(), ctx))
+                .onState(TestState.GLOSSARY)
+                .pipe(ctx -> track(TestState.GLOSSARY, ctx.getCurrentItem(), ctx))
+                .onState(TestState.FINISHED)
+                .pipe(ctx -> track(TestState.FINISHED, ctx.getCurrentItem(), ctx))
+                .build();
+
+        return new ModelAffinityFlowRunner<>(new OneStepRunner<>(flow), MODELS::get, lookahead, stats);
+    }
+
+    private FlowContext<Integer> track(State state, Integer item, FlowContext<Integer> ctx) {
+        if ((state + "-" + item).equals(failOn)) {
+            throw new IllegalStateException("Crashed on: " + failOn);
+        }
+        calls.add(state + "-" + item);
+        return ctx.addArgs(FlowContextActions.text(state + "-" + item));
+    }
+
+    private List<Integer> callsOf(TestState state) {
+        return calls.stream()
+                .filter(call -> call.startsWith(state + "-"))
+                .map(call -> Integer.parseInt(call.substring(call.indexOf('-') + 1)))
+                .toList();
+    }
+
+    private void assertStateOrder() {
+        for (var item : source) {
+            var positions = Arrays.stream(TestState.values())
+                    .map(state -> calls.indexOf(state + "-" + item))
+                    .toList();
+
+            Assertions.assertThat(positions)
+                    .doesNotContain(-1)
+                    .isSorted();
+        }
+    }
+
+    enum TestState implements State {
+
+        SUMMARY,
+        CLEANING,
+        GLOSSARY {
+            @Override
+            public boolean isSequential() {
+                return true;
+            }
+        },
+        FINISHED,
+
+    }
+
+}
@@ -0,0 +1,165 @@
+package machinum.flow;
+
+import machinum.flow.CommonFlowTest.TestStateManager;
+import machinum.flow.model.Flow;
+import machinum.flow.model.Flow.State;
+import machinum.flow.model.helper.FlowContextActions;
+import machinum.flow.runner.OneStepRunner;
+import machinum.flow.runner.ParallelStepRunner;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static machinum.flow.runner.OneStepRunner.Window.tumbling;
+
+class ParallelStepRunnerTest {
+
+    private final List<Integer> savedItems = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final Map<Integer, String> processed = new ConcurrentHashMap<>();
+    private TestStateManager stateManager;
+    private List<Integer> source;
+
+    @BeforeEach
+    void setUp() {
+        source = IntStream.rangeClosed(1, 20).boxed().toList();
+        stateManager = new TestStateManager() {
+            @Override
+            public void saveState(Map<String, Object> metadata, int itemIndex, int pipeIndex, State state) {
+                super.saveState(metadata, itemIndex, pipeIndex, state);
+                if (itemIndex > 0) {
+                    savedItems.add(itemIndex);
+                }
+            }
+        };
+    }
+
+    @Test
+    void testParallelState_success() {
+        var runner = createRunner(4);
+        stateManager.setState(TestState.PARALLEL);
+
+        runner.run(TestState.PARALLEL);
+
+        Assertions.assertThat(processed)
+                .hasSize(source.size());
+        Assertions.assertThat(maxActive.get())
+                .isGreaterThan(1)
+                .isLessThanOrEqualTo(4);
+        Assertions.assertThat(savedItems)
+                .isSorted()
+                .doesNotHaveDuplicates()
+                .contains(source.size());
+        Assertions.assertThat(stateManager.getState())
+                .isEqualTo(TestState.SEQUENTIAL);
+        Assertions.assertThat(List.of(stateManager.getLastProcessedItem(), stateManager.getLastProcessedPipe()))
+                .isEqualTo(List.of(0, 0));
+    }
+
+    @Test
+    void testSequentialState_success() {
+        var runner = createRunner(4);
+        stateManager.setState(TestState.SEQUENTIAL);
+
+        runner.run(TestState.SEQUENTIAL);
+
+        Assertions.assertThat(maxActive.get())
+                .isEqualTo(1);
+        Assertions.assertThat(savedItems)
+                .isSorted()
+                .contains(source.size());
+    }
+
+    @Test
+    void testWindowedState_success() {
+        var flow = Flow.from(source)
+                .withStateManager(stateManager)
+                .onState(TestState.PARALLEL)
+                .pipe(ctx -> track(ctx.getCurrentItem(), () -> ctx.addArgs(FlowContextActions.text("w"))))
+                .window(tumbling(5), contexts -> contexts.getLast())
+                .build();
+        var runner = new ParallelStepRunner<>(new OneStepRunner<>(flow), state -> 4);
+
+        runner.run(TestState.PARALLEL);
+
+        Assertions.assertThat(maxActive.get())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testParallelStateWithException_success() {
+        var flow = Flow.from(source)
+                .withStateManager(stateManager)
+                .onState(TestState.PARALLEL)
+                .pipe(ctx -> track(ctx.getCurrentItem(), () -> {
+                    if (ctx.getCurrentItem() == 6) {
+                        throw new IllegalStateException("Broken item");
+                    }
+                    return ctx.addArgs(FlowContextActions.text("item-" + ctx.getCurrentItem()));
+                }))
+                .build();
+        var runner = new ParallelStepRunner<>(new OneStepRunner<>(flow), state -> 4);
+
+        Assertions.assertThatThrownBy(() -> runner.run(TestState.PARALLEL))
+                .isInstanceOf(RuntimeException.class)
+                .hasRootCauseInstanceOf(IllegalStateException.class);
+
+        Assertions.assertThat(stateManager.getLastProcessedItem())
+                .isLessThanOrEqualTo(5);
+        Assertions.assertThat(processed)
+                .doesNotContainKey(6);
+    }
+
+    /* ============= */
+
+    private ParallelStepRunner<Integer> createRunner(int concurrency) {
+        var flow = Flow.from(source)
+                .withStateManager(stateManager)
+                .onState(TestState.PARALLEL)
+                .pipe(ctx -> track(ctx.getCurrentItem(), () -> ctx.addArgs(FlowContextActions.text("p-" + ctx.getCurrentItem()))))
+                .onState(TestState.SEQUENTIAL)
+                .pipe(ctx -> track(ctx.getCurrentItem(), () -> ctx.addArgs(FlowContextActions.text("s-" + ctx.getCurrentItem()))))
+                .build();
+
+        return new ParallelStepRunner<>(new OneStepRunner<>(flow), state -> concurrency);
+    }
+
+    private <U> U track(Integer item, Supplier<U> action) {
+        var current = active.incrementAndGet();
+        maxActive.accumulateAndGet(current, Math::max);
+        try {
+            TimeUnit.MILLISECONDS.sleep(20 - item % 7);
+            var result = action.get();
+            processed.put(item, Thread.currentThread().getName());
+            return result;
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    enum TestState implements State {
+
+        PARALLEL,
+        SEQUENTIAL {
+            @Override
+            public boolean isSequential() {
+                return true;
+            }
+        },
+
+    }
+
+}